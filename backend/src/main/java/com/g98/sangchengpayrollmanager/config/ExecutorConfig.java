@@ -1,5 +1,6 @@
 package com.g98.sangchengpayrollmanager.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -7,17 +8,23 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class ExecutorConfig {
-    // ExecutorConfig.java
+    /**
+     * Pool giao tiếp máy chấm công. Mỗi máy đồng bộ trên 1 thread riêng (lệnh tới cùng 1 máy vẫn tuần tự
+     * nhờ lock của ZkConnectionManager), nên pool-size = số máy được kéo log song song.
+     * Tên thread phải bắt đầu bằng "zk-worker" (ZkConnectionManager dựa vào đó để không submit lồng).
+     */
     @Bean("zkExecutor")
-    public ExecutorService zkExecutor() {
+    public ExecutorService zkExecutor(@Value("${zkteco.pool-size:4}") int poolSize) {
+        AtomicInteger seq = new AtomicInteger(1);
         return new ThreadPoolExecutor(
-                1, 1, 0L, TimeUnit.MILLISECONDS,
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<>(100),
                 r -> {
-                    Thread t = new Thread(r, "zk-worker-1");
+                    Thread t = new Thread(r, "zk-worker-" + seq.getAndIncrement());
                     t.setDaemon(true);
                     return t;
                 },
@@ -25,5 +32,89 @@ public class ExecutorConfig {
         );
     }
 
-}
+    /**
+     * Pool tính lương theo lô (payroll run).
+     * Số thread cố định, hàng đợi có giới hạn. Không dùng CallerRunsPolicy: partition rơi về thread gọi
+     * (HTTP / coordinator) sẽ chặn request. PayrollRunService giới hạn số partition đang chờ theo
+     * queue-capacity nên bình thường không bị từ chối; nếu có thì ghi lỗi cho các nhân viên đó.
+     */
+    @Bean("payrollExecutor")
+    public ExecutorService payrollExecutor(
+            @Value("${payroll.run.pool-size:4}") int poolSize,
+            @Value("${payroll.run.queue-capacity:200}") int queueCapacity) {
+        AtomicInteger seq = new AtomicInteger(1);
+        return new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "payroll-worker-" + seq.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * Thread điều phối payroll run: load snapshot và đẩy partition sang payrollExecutor,
+     * chờ khi hàng đợi partition đã đầy. 1 thread nên các run được chia partition lần lượt;
+     * quá max-pending-runs run chờ thì từ chối (run được đánh FAILED), không chạy trên thread HTTP.
+     */
+    @Bean("payrollCoordinatorExecutor")
+    public ExecutorService payrollCoordinatorExecutor(
+            @Value("${payroll.run.max-pending-runs:10}") int maxPendingRuns) {
+        return new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxPendingRuns),
+                r -> {
+                    Thread t = new Thread(r, "payroll-coordinator");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * Pool render payslip PDF. Mỗi thread giữ 1 Chromium riêng (Playwright không thread-safe),
+     * nên pool-size cũng là số browser tối đa chạy cùng lúc.
+     */
+    @Bean("payslipRenderExecutor")
+    public ExecutorService payslipRenderExecutor(
+            @Value("${payslip.render.pool-size:2}") int poolSize) {
+        AtomicInteger seq = new AtomicInteger(1);
+        return new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(poolSize * 2),
+                r -> {
+                    Thread t = new Thread(r, "payslip-render-" + seq.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
 
+    /**
+     * Pool tổng hợp lại công theo lịch sử (attendance backfill), mỗi đơn vị việc (lô nhân viên x tháng) 1 task.
+     * Số thread cố định nên số transaction ghi công chạy cùng lúc không vượt pool-size;
+     * hàng đợi đầy thì thread gọi tự chạy (CallerRunsPolicy).
+     */
+    @Bean("backfillExecutor")
+    public ExecutorService backfillExecutor(
+            @Value("${attendance.backfill.pool-size:4}") int poolSize,
+            @Value("${attendance.backfill.queue-capacity:500}") int queueCapacity) {
+        AtomicInteger seq = new AtomicInteger(1);
+        return new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "backfill-worker-" + seq.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+}
@@ -52,6 +52,9 @@ public class WebSecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/api/v1/admin/create-account").permitAll()
                         .requestMatchers("api/payroll-export/**").permitAll()
                         .requestMatchers("api/employee/payroll/**").permitAll()
+                        // máy chấm công đẩy log (ADMS) không đăng nhập được:
+                        // IclockController xác thực từng máy bằng serial + push_token / push_allowed_ips
+                        .requestMatchers("/iclock/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -0,0 +1,37 @@
+package com.g98.sangchengpayrollmanager.controller;
+
+import com.g98.sangchengpayrollmanager.model.dto.approval.BulkApprovalRequest;
+import com.g98.sangchengpayrollmanager.model.dto.approval.BulkApprovalResponse;
+import com.g98.sangchengpayrollmanager.service.BulkApprovalService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/approvals")
+@RequiredArgsConstructor
+public class ApprovalController {
+
+    private final BulkApprovalService bulkApprovalService;
+
+    /**
+     * Duyệt / từ chối nhiều đơn nghỉ + đơn OT trong 1 lần (1 transaction, tự thử lại khi đụng người duyệt khác).
+     * 200 = áp dụng hết, 207 = có đơn bị bỏ qua, 400 = 1 quyết định lỗi, 409 = vẫn xung đột sau khi thử lại.
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('Manager')")
+    public ResponseEntity<BulkApprovalResponse> bulkApprove(@RequestBody BulkApprovalRequest request,
+                                                            Authentication authentication) {
+        BulkApprovalResponse response = bulkApprovalService.apply(authentication.getName(), request.getDecisions());
+        HttpStatus status = switch (response.getStatus()) {
+            case COMPLETED -> HttpStatus.OK;
+            case COMPLETED_WITH_SKIPS -> HttpStatus.MULTI_STATUS;
+            case FAILED -> HttpStatus.BAD_REQUEST;
+            case CONFLICT -> HttpStatus.CONFLICT;
+        };
+        return ResponseEntity.status(status).body(response);
+    }
+}
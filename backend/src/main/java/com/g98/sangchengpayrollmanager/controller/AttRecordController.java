@@ -1,16 +1,20 @@
 package com.g98.sangchengpayrollmanager.controller;
 
+import com.g98.sangchengpayrollmanager.device.DeviceHealth;
+import com.g98.sangchengpayrollmanager.device.ZkConnectionManager;
 import com.g98.sangchengpayrollmanager.model.dto.attendant.response.FirstCheckInResponse;
 import com.g98.sangchengpayrollmanager.service.AttRecordService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/att-records")
@@ -18,6 +22,7 @@ import java.time.LocalDate;
 public class AttRecordController {
 
     private final AttRecordService attRecordService;
+    private final ZkConnectionManager zkConnectionManager;
 
     @GetMapping("/first-check-in")
     public ResponseEntity<FirstCheckInResponse> getFirstCheckInTime(
@@ -26,4 +31,11 @@ public class AttRecordController {
     ) {
         return ResponseEntity.ok(attRecordService.getFirstCheckInTime(employeeCode, date));
     }
-}
\ No newline at end of file
+
+    // tình trạng kết nối tới các máy chấm công (kết nối, lỗi liên tiếp, thời gian lệnh trung bình)
+    @PreAuthorize("hasRole('HR')")
+    @GetMapping("/devices/health")
+    public ResponseEntity<List<DeviceHealth>> getDeviceHealth() {
+        return ResponseEntity.ok(zkConnectionManager.health());
+    }
+}
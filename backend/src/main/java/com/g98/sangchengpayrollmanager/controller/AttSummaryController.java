@@ -1,15 +1,22 @@
 package com.g98.sangchengpayrollmanager.controller;
 
+import com.g98.sangchengpayrollmanager.model.dto.attendant.request.AttBackfillRequest;
 import com.g98.sangchengpayrollmanager.model.dto.attendant.request.AttDailySummaryUpdateRequest;
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.AttBackfillJobResponse;
 import com.g98.sangchengpayrollmanager.model.dto.attendant.response.AttDailySummaryResponse;
 import com.g98.sangchengpayrollmanager.model.dto.attendant.response.AttMonthSummaryResponse;
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetPageResponse;
 import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
 import com.g98.sangchengpayrollmanager.service.AttDailySummaryService;
 import com.g98.sangchengpayrollmanager.service.AttMonthSummaryService;
+import com.g98.sangchengpayrollmanager.service.AttTimesheetService;
+import com.g98.sangchengpayrollmanager.service.AttendanceBackfillService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -21,6 +28,8 @@ import java.util.List;
 public class AttSummaryController {
     private final AttMonthSummaryService service;
     private final AttDailySummaryService attDailySummaryService;
+    private final AttendanceBackfillService attendanceBackfillService;
+    private final AttTimesheetService attTimesheetService;
 
     @GetMapping
     public Page<TimeSheetResponse> getTimeSheetByMonth(@RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
@@ -29,7 +38,29 @@ public class AttSummaryController {
                                                        @RequestParam(defaultValue = "5") int size,
                                                        @RequestParam(required = false) String sortBy,
                                                        @RequestParam(required = false) String sortDir) {
-        return service.getTimeSheetByMonth(date, keyword, sortBy, sortDir, page, size);
+        return attTimesheetService.getTimeSheetByMonth(date, keyword, sortBy, sortDir, page, size);
+    }
+
+    /**
+     * Timesheet phân trang keyset: lần đầu không có cursor, các lần sau gửi nextCursor của trang trước.
+     * keyword = tiền tố mã / họ tên / tên gọi; sortBy = employeeCode | fullName; count = none | exact | approx.
+     */
+    @GetMapping("/timesheet")
+    public ResponseEntity<TimeSheetPageResponse> getTimesheet(@RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                              @RequestParam(required = false) String keyword,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "20") int size,
+                                                              @RequestParam(required = false) String sortBy,
+                                                              @RequestParam(required = false) String sortDir,
+                                                              @RequestParam(defaultValue = "none") String count) {
+        return ResponseEntity.ok(attTimesheetService.getTimesheet(date, keyword, sortBy, sortDir, cursor, size, count));
+    }
+
+    // làm mới timesheet của 1 tháng từ công tháng (sau khi import / sửa hồ sơ hàng loạt)
+    @PreAuthorize("hasRole('HR')")
+    @PostMapping("/timesheet/refresh")
+    public ResponseEntity<Integer> refreshTimesheet(@RequestParam("month") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate month) {
+        return ResponseEntity.ok(attTimesheetService.refreshMonth(month));
     }
 
     @GetMapping("/month")
@@ -54,6 +85,38 @@ public class AttSummaryController {
         attDailySummaryService.updateDailySummary(id, request);
         return ResponseEntity.noContent().build(); // 204
     }
+
+    /**
+     * Tổng hợp lại công ngày + tháng cho khoảng ngày (lọc nhân viên nếu có), trả jobId ngay (202 Accepted).
+     * Theo dõi tiến độ + throughput qua GET /backfill/{jobId}.
+     */
+    @PreAuthorize("hasRole('HR')")
+    @PostMapping("/backfill")
+    public ResponseEntity<AttBackfillJobResponse> startBackfill(@RequestBody AttBackfillRequest request) {
+        AttBackfillJobResponse response = attendanceBackfillService.start(
+                request.getFromDate(), request.getToDate(), request.getEmployeeCodes());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @PreAuthorize("hasRole('HR')")
+    @GetMapping("/backfill/{jobId}")
+    public ResponseEntity<AttBackfillJobResponse> getBackfill(@PathVariable Long jobId) {
+        AttBackfillJobResponse response = attendanceBackfillService.getJob(jobId);
+
+        HttpStatus status = switch (response.getStatus()) {
+            case RUNNING, COMPLETED -> HttpStatus.OK;
+            case COMPLETED_WITH_ERRORS -> HttpStatus.MULTI_STATUS;
+            case FAILED -> HttpStatus.BAD_REQUEST;
+        };
+        return ResponseEntity.status(status).body(response);
+    }
+
+    // chạy lại các lô lỗi / dang dở của job
+    @PreAuthorize("hasRole('HR')")
+    @PostMapping("/backfill/{jobId}/resume")
+    public ResponseEntity<AttBackfillJobResponse> resumeBackfill(@PathVariable Long jobId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(attendanceBackfillService.resume(jobId));
+    }
 }
 
 
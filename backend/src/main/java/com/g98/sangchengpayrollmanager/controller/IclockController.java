@@ -0,0 +1,112 @@
+package com.g98.sangchengpayrollmanager.controller;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttDevice;
+import com.g98.sangchengpayrollmanager.service.AttendancePushService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Endpoint ADMS (iclock) cho máy chấm công tự đẩy log lên server.
+ * Máy gửi text/plain, nhận "OK" thì xoá khỏi hàng đợi gửi, lỗi khác thì gửi lại lần sau.
+ * Mọi request phải qua AttendancePushService.authenticate (serial + token / IP) trước khi đọc body.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/iclock", produces = MediaType.TEXT_PLAIN_VALUE)
+@RequiredArgsConstructor
+public class IclockController {
+
+    private static final String TOKEN_HEADER = "X-Device-Token";
+
+    // 1 lô ATTLOG vài nghìn dòng ~ vài trăm KB
+    private static final int MAX_BODY_BYTES = 2 * 1024 * 1024;
+
+    private final AttendancePushService pushService;
+
+    // máy khởi động / kết nối lại: trả cấu hình đẩy (Realtime=1 -> đẩy ngay từng lượt chấm)
+    @GetMapping("/cdata")
+    public ResponseEntity<String> handshake(@RequestParam("SN") String sn, HttpServletRequest request) {
+        if (authenticate(sn, request).isEmpty()) {
+            return forbidden();
+        }
+        return ResponseEntity.ok("GET OPTION FROM: " + sn + "\n"
+                + "ATTLOGStamp=None\n"
+                + "OPERLOGStamp=9999\n"
+                + "ErrorDelay=30\n"
+                + "Delay=10\n"
+                + "TransTimes=00:00;14:05\n"
+                + "TransInterval=1\n"
+                + "TransFlag=1000000000\n"
+                + "Realtime=1\n"
+                + "Encrypt=0\n");
+    }
+
+    @PostMapping("/cdata")
+    public ResponseEntity<String> upload(@RequestParam("SN") String sn,
+                                         @RequestParam(value = "table", required = false) String table,
+                                         HttpServletRequest request) throws IOException {
+        Optional<AttDevice> device = authenticate(sn, request);
+        if (device.isEmpty()) {
+            return forbidden();
+        }
+        // chỉ nhận log chấm công, bảng khác (OPERLOG, ảnh...) báo OK để máy không gửi lại
+        if (!"ATTLOG".equalsIgnoreCase(table)) {
+            return ResponseEntity.ok("OK");
+        }
+        // body chỉ được đọc sau khi máy đã xác thực
+        byte[] raw = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (raw.length > MAX_BODY_BYTES) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("ERROR");
+        }
+        String body = new String(raw, StandardCharsets.UTF_8);
+        try {
+            return ResponseEntity.ok("OK: " + pushService.ingest(device.get(), body));
+        } catch (IllegalStateException e) {
+            log.warn("Push from device {} not stored, device will retry: {}", sn, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("ERROR");
+        }
+    }
+
+    // máy hỏi lệnh chờ thực hiện (cũng là heartbeat): chưa dùng lệnh từ server
+    @GetMapping("/getrequest")
+    public ResponseEntity<String> getRequest(@RequestParam("SN") String sn, HttpServletRequest request) {
+        if (authenticate(sn, request).isEmpty()) {
+            return forbidden();
+        }
+        return ResponseEntity.ok("OK");
+    }
+
+    @PostMapping("/devicecmd")
+    public ResponseEntity<String> deviceCommand(@RequestParam("SN") String sn, HttpServletRequest request) {
+        if (authenticate(sn, request).isEmpty()) {
+            return forbidden();
+        }
+        return ResponseEntity.ok("OK");
+    }
+
+    // token: header X-Device-Token, hoặc tham số token cho máy chỉ cấu hình được URL
+    private Optional<AttDevice> authenticate(String sn, HttpServletRequest request) {
+        String token = request.getHeader(TOKEN_HEADER);
+        if (token == null) {
+            token = request.getParameter("token");
+        }
+        return pushService.authenticate(sn, token, request.getRemoteAddr());
+    }
+
+    private static ResponseEntity<String> forbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Unknown device");
+    }
+}
@@ -1,12 +1,12 @@
 package com.g98.sangchengpayrollmanager.controller;
 
 import com.g98.sangchengpayrollmanager.model.dto.payroll.request.MonthlySalaryRequest;
-import com.g98.sangchengpayrollmanager.model.dto.payroll.response.BatchSalaryResponse;
 import com.g98.sangchengpayrollmanager.model.dto.payroll.response.PaySummaryDto;
 import com.g98.sangchengpayrollmanager.model.dto.payroll.response.PaySummaryResponse;
+import com.g98.sangchengpayrollmanager.model.dto.payroll.response.PayrollRunResponse;
 import com.g98.sangchengpayrollmanager.service.PaySummaryService;
+import com.g98.sangchengpayrollmanager.service.PayrollRunService;
 import com.g98.sangchengpayrollmanager.service.PayslipPdfService;
-import com.g98.sangchengpayrollmanager.service.impl.PayrollServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -18,9 +18,6 @@ import org.springframework.security.core.Authentication;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.YearMonth;
-import java.util.ArrayList;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/paysummaries")
@@ -28,7 +25,7 @@ import java.util.List;
 public class PaySummaryController {
 
     private final PaySummaryService service;
-    private final PayrollServiceImpl payrollService;
+    private final PayrollRunService payrollRunService;
     private final PayslipPdfService payslipPdfService;
 
     @GetMapping
@@ -51,59 +48,26 @@ public class PaySummaryController {
         return service.getEmployeePayroll(employeeCode, month);
     }
 
+    /**
+     * Bắt đầu tính lương theo lô, trả runId ngay (202 Accepted).
+     * Theo dõi tiến độ + danh sách lỗi qua GET /calculate-monthly/{runId}.
+     */
     @PostMapping("/calculate-monthly")
-    public ResponseEntity<BatchSalaryResponse> calculateMonthlySalary(
+    public ResponseEntity<PayrollRunResponse> calculateMonthlySalary(
             @RequestBody MonthlySalaryRequest request) {
+        PayrollRunResponse response = payrollRunService.startRun(request.getEmployeeCodes(), request.getMonth());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
 
-        LocalDate month = request.getMonth();
-        YearMonth ym = YearMonth.from(month);
-
-        LocalDate monthStart = ym.atDay(1);
-        LocalDate monthEnd = ym.atEndOfMonth();
-
-        List<String> errors = new ArrayList<>();
-        List<String> pdfErrors = new ArrayList<>();
-        int successCount = 0;
-
-        for (String code : request.getEmployeeCodes()) {
-            boolean salaryOk = false;
-            try {
-                payrollService.calculateMonthlySalary(code, month, monthStart, monthEnd);
-                salaryOk = true;
-                successCount++;
-            } catch (Exception e) {
-                errors.add(code + ": " + e.getMessage());
-            }
-
-            // 2) TẠO PAYSLIP (chỉ làm khi tính lương thành công)
-            // -------------------
-            if (salaryOk) {
-                try {
-                    payslipPdfService.generatePayslipAndUpdateSummary(code, month);
-                } catch (Exception e) {
-                    pdfErrors.add(code + " (payslip): " + e.getMessage());
-                }
-            }
-        }
-
-        HttpStatus status;
-        String message;
-
-        if (errors.isEmpty()) {
-            status = HttpStatus.OK;
-            message = "Tạo thành công bảng lương cho " + successCount + " nhân viên.";
-        } else {
-            if (successCount > 0) status = HttpStatus.MULTI_STATUS;
-            else status = HttpStatus.BAD_REQUEST;
-            message = "Có " + errors.size() + " nhân viên tạo lương thất bại. Vui lòng kiểm tra.";
-        }
-
-        // gộp pdfErrors vào kết quả trả về cho HR biết
-        List<String> allErrors = new ArrayList<>(errors);
-        allErrors.addAll(pdfErrors);
-
-        BatchSalaryResponse response = new BatchSalaryResponse(message, allErrors);
+    @GetMapping("/calculate-monthly/{runId}")
+    public ResponseEntity<PayrollRunResponse> getPayrollRun(@PathVariable String runId) {
+        PayrollRunResponse response = payrollRunService.getRun(runId);
 
+        HttpStatus status = switch (response.getStatus()) {
+            case RUNNING, COMPLETED -> HttpStatus.OK;
+            case COMPLETED_WITH_ERRORS -> HttpStatus.MULTI_STATUS;
+            case FAILED -> HttpStatus.BAD_REQUEST;
+        };
         return ResponseEntity.status(status).body(response);
     }
 
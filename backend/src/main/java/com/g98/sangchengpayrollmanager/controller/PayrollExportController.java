@@ -1,14 +1,13 @@
 package com.g98.sangchengpayrollmanager.controller;
 
 import com.g98.sangchengpayrollmanager.service.PayrollExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 
 @RestController
@@ -23,13 +22,12 @@ public class PayrollExportController {
      * @param monthDate: ngày bất kỳ trong tháng cần export (thường là ngày đầu tháng)
      */
     @GetMapping
-    public ResponseEntity<Resource> exportPayrollExcel(
+    public void exportPayrollExcel(
             @RequestParam("month")
             @DateTimeFormat(pattern = "yyyy-MM-dd")
-            LocalDate monthDate
-    ) throws Exception {
-
-        byte[] fileContent = payrollExportService.exportPayrollExcel(monthDate);
+            LocalDate monthDate,
+            HttpServletResponse response
+    ) throws IOException {
 
         String filename = String.format(
                 "bang-luong-%d-%02d.xlsx",
@@ -37,14 +35,10 @@ public class PayrollExportController {
                 monthDate.getMonthValue()
         );
 
-        ByteArrayResource resource = new ByteArrayResource(fileContent);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .header(HttpHeaders.CONTENT_TYPE,
-                        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                .contentLength(fileContent.length)
-                .body(resource);
+        // ghi thẳng ra response, không giữ cả file trong RAM (không biết trước Content-Length -> chunked)
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        payrollExportService.writePayrollExcel(monthDate, response.getOutputStream());
+        response.flushBuffer();
     }
 }
-
@@ -3,12 +3,16 @@ package com.g98.sangchengpayrollmanager.controller;
 
 import com.g98.sangchengpayrollmanager.model.dto.TaxLevelDTO;
 import com.g98.sangchengpayrollmanager.model.dto.taxlevel.TaxLevelResponse;
+import com.g98.sangchengpayrollmanager.model.dto.taxlevel.TaxWhatIfResponse;
 import com.g98.sangchengpayrollmanager.service.TaxLevelService;
+import com.g98.sangchengpayrollmanager.service.TaxService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,6 +20,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TaxLevelController {
     private final TaxLevelService taxLevelService;
+    private final TaxService taxService;
 
     @PreAuthorize("hasAnyRole('HR', 'Manager')")
     @GetMapping
@@ -23,6 +28,20 @@ public class TaxLevelController {
         return taxLevelService.getAllTaxLevels();
     }
 
+    // tính thử thuế TNCN cho 1 mức thu nhập tính thuế theo biểu thuế hiệu lực tại ngày date
+    @PreAuthorize("hasAnyRole('HR', 'Manager')")
+    @GetMapping("/what-if")
+    public TaxWhatIfResponse whatIf(@RequestParam Long taxableIncome,
+                                    @RequestParam(required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate effectiveDate = (date != null) ? date : LocalDate.now();
+        return TaxWhatIfResponse.builder()
+                .taxableIncome(taxableIncome)
+                .effectiveDate(effectiveDate)
+                .taxAmount(taxService.calculateTaxAmount(taxableIncome, effectiveDate))
+                .build();
+    }
+
     @PreAuthorize("hasRole('HR')")
     @PostMapping
     public TaxLevelResponse create (@RequestBody TaxLevelDTO request ) {
@@ -0,0 +1,60 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Giao tiếp với 1 máy chấm công. Có 2 bản cài đặt, chọn bằng zkteco.driver:
+ * native (mặc định) = ZkProtocolClient nói thẳng giao thức ZK qua TCP 4370, chạy được trên Linux;
+ * com = ZKTecoClient qua JACOB + zkemkeeper (chỉ Windows).
+ */
+public interface AttendanceDeviceClient {
+
+    /**
+     * Id máy trong att_device / att_record.att_device_id
+     */
+    int getDeviceId();
+
+    default List<AttendanceLog> readAllLogs() {
+        return readLogsSince(null);
+    }
+
+    /**
+     * Logs có check_time >= since (since = null -> tất cả), gom hết vào 1 list - chỉ dùng cho lượng log nhỏ
+     */
+    default List<AttendanceLog> readLogsSince(LocalDateTime since) {
+        List<AttendanceLog> logs = new ArrayList<>();
+        streamLogsSince(since, 1000, logs::addAll);
+        return logs;
+    }
+
+    /**
+     * Đọc logs có check_time >= since, giao cho sink từng lô tối đa chunkSize bản ghi ngay khi giải mã được
+     * (không giữ cả log của máy trong bộ nhớ). Sink chạy trên luồng đọc máy; sink ném lỗi thì lỗi được ném lại.
+     * Máy lỗi giữa chừng thì các lô đã giao vẫn giữ nguyên nhưng lượt đọc bị coi là lỗi (IllegalStateException):
+     * chỉ trả về bình thường khi đã đọc hết log của máy.
+     *
+     * @return số bản ghi đã giao cho sink
+     * @throws IllegalStateException không kết nối được / máy ngắt giữa chừng / driver bị tắt
+     */
+    long streamLogsSince(LocalDateTime since, int chunkSize, Consumer<List<AttendanceLog>> sink);
+
+    /**
+     * @return false nếu máy từ chối hoặc không liên lạc được
+     */
+    boolean upsertUser(String userId, String name, String password, int privilege, boolean enabled);
+
+    /**
+     * @throws IllegalStateException không hỏi được máy (khác với "máy không có user này")
+     */
+    boolean existsUser(String userId);
+
+    /**
+     * Bật / khoá máy (khoá = nhân viên không chấm được, dùng khi đang ghi dữ liệu lớn)
+     *
+     * @return false nếu máy từ chối hoặc không liên lạc được
+     */
+    boolean setDeviceEnabled(boolean enabled);
+}
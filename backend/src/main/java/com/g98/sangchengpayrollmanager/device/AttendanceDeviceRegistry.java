@@ -0,0 +1,61 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttDevice;
+import com.g98.sangchengpayrollmanager.repository.AttDeviceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Danh sách máy chấm công cần đồng bộ: mọi máy active có IP trong att_device.
+ * Chưa khai báo máy nào (hoặc driver com) thì dùng máy mặc định cấu hình ở zkteco.*.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttendanceDeviceRegistry {
+
+    private static final int DEFAULT_PORT = 4370;
+
+    private final AttDeviceRepository deviceRepo;
+    private final AttendanceDeviceClient defaultClient;
+    private final ZkConnectionManager connections;
+
+    @Value("${zkteco.driver:native}")
+    private String driver;
+
+    @Value("${zkteco.timeout-ms:10000}")
+    private int timeoutMs;
+
+    public List<AttendanceDeviceClient> activeClients() {
+        // JACOB / zkemkeeper chỉ nói chuyện với 1 máy cấu hình sẵn
+        if (!"native".equalsIgnoreCase(driver)) {
+            return List.of(defaultClient);
+        }
+
+        List<AttDevice> devices = deviceRepo.findByActiveTrueAndIpIsNotNullOrderById();
+        if (devices.isEmpty()) {
+            return List.of(defaultClient);
+        }
+
+        List<AttendanceDeviceClient> clients = new ArrayList<>(devices.size());
+        for (AttDevice device : devices) {
+            try {
+                DeviceEndpoint endpoint = new DeviceEndpoint(
+                        device.getId(),
+                        device.getIp(),
+                        device.getPort() != null ? device.getPort() : DEFAULT_PORT,
+                        DeviceEndpoint.parsePassword(device.getCommPassword()),
+                        timeoutMs);
+                clients.add(new ZkProtocolClient(endpoint, connections));
+            } catch (NumberFormatException e) {
+                log.warn("Device {} has a non-numeric comm password, skipped", device.getId());
+            }
+        }
+        return clients;
+    }
+}
@@ -0,0 +1,71 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lọc log theo mốc since và gom thành lô tối đa chunkSize bản ghi rồi giao cho sink,
+ * để bộ nhớ chỉ giữ 1 lô dù máy có bao nhiêu log.
+ */
+final class AttendanceLogChunker implements Consumer<AttendanceLog> {
+
+    private final LocalDateTime since;
+    private final int chunkSize;
+    private final Consumer<List<AttendanceLog>> sink;
+    private List<AttendanceLog> chunk;
+    private long delivered;
+    private RuntimeException failure;
+
+    AttendanceLogChunker(LocalDateTime since, int chunkSize, Consumer<List<AttendanceLog>> sink) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize phải > 0");
+        }
+        this.since = since;
+        this.chunkSize = chunkSize;
+        this.sink = sink;
+        this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    @Override
+    public void accept(AttendanceLog attendanceLog) {
+        if (since != null && attendanceLog.getCheckTime().isBefore(since)) {
+            return;
+        }
+        chunk.add(attendanceLog);
+        if (chunk.size() == chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Giao phần còn lại (gọi khi máy gửi xong)
+     */
+    void flush() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<AttendanceLog> full = chunk;
+        // sink có thể giữ lại lô đã nhận -> lô sau dùng list mới
+        chunk = new ArrayList<>(chunkSize);
+        try {
+            sink.accept(full);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        }
+        delivered += full.size();
+    }
+
+    long delivered() {
+        return delivered;
+    }
+
+    /**
+     * Lỗi sink ném ra (nếu có) - để client phân biệt với lỗi đọc máy
+     */
+    RuntimeException failure() {
+        return failure;
+    }
+}
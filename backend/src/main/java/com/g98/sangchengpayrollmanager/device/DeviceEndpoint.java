@@ -0,0 +1,18 @@
+package com.g98.sangchengpayrollmanager.device;
+
+/**
+ * Địa chỉ + thông số kết nối của 1 máy chấm công (deviceId = att_device.id)
+ */
+public record DeviceEndpoint(int deviceId, String ip, int port, int password, int timeoutMs) {
+
+    public String address() {
+        return ip + ":" + port;
+    }
+
+    /**
+     * Comm password cấu hình dạng chuỗi, rỗng = 0 (không đặt mật khẩu)
+     */
+    public static int parsePassword(String password) {
+        return password != null && !password.isBlank() ? Integer.parseInt(password.trim()) : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import java.time.Instant;
+
+/**
+ * Tình trạng kết nối của 1 máy chấm công (ZkConnectionManager.health)
+ */
+public record DeviceHealth(int deviceId,
+                           String address,
+                           boolean connected,
+                           Instant connectedSince,
+                           Instant lastSuccessAt,
+                           Instant lastFailureAt,
+                           String lastError,
+                           int consecutiveFailures,
+                           Instant nextAttemptAt,
+                           long connects,
+                           long commands,
+                           long failures,
+                           double avgCommandMs) {
+}
@@ -0,0 +1,136 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Gọi JACOB qua reflection để build mặc định (Linux, không có profile windows-com) không cần jar JACOB.
+ * Chỉ ZKTecoClient (zkteco.driver=com) dùng; thiếu jar lúc chạy thì báo lỗi rõ ràng thay vì NoClassDefFoundError.
+ * Dispatch / Variant được giữ dưới dạng Object.
+ */
+final class JacobCom {
+
+    private static final String MISSING = "Thiếu thư viện JACOB (build với -Pwindows-com để dùng zkteco.driver=com)";
+
+    private JacobCom() {}
+
+    // nạp class lần đầu dùng, không chạm tới JACOB khi driver=native
+    private static final class Api {
+        private static final Constructor<?> COMPONENT;
+        private static final Constructor<?> VARIANT;
+        private static final Constructor<?> VARIANT_BY_REF;
+        private static final Method CALL;
+        private static final Method SAFE_RELEASE;
+        private static final Method GET_BOOLEAN;
+        private static final Method GET_INT;
+        private static final Method GET_INT_REF;
+        private static final Method GET_STRING_REF;
+        private static final Method INIT_STA;
+        private static final Method RELEASE_THREAD;
+
+        static {
+            try {
+                ClassLoader cl = JacobCom.class.getClassLoader();
+                Class<?> component = Class.forName("com.jacob.activeX.ActiveXComponent", false, cl);
+                Class<?> dispatch = Class.forName("com.jacob.com.Dispatch", false, cl);
+                Class<?> variant = Class.forName("com.jacob.com.Variant", false, cl);
+                Class<?> comThread = Class.forName("com.jacob.com.ComThread", false, cl);
+
+                COMPONENT = component.getConstructor(String.class);
+                VARIANT = variant.getConstructor(Object.class);
+                VARIANT_BY_REF = variant.getConstructor(Object.class, boolean.class);
+                CALL = dispatch.getMethod("call", dispatch, String.class, Object[].class);
+                SAFE_RELEASE = dispatch.getMethod("safeRelease");
+                GET_BOOLEAN = variant.getMethod("getBoolean");
+                GET_INT = variant.getMethod("getInt");
+                GET_INT_REF = variant.getMethod("getIntRef");
+                GET_STRING_REF = variant.getMethod("getStringRef");
+                INIT_STA = comThread.getMethod("InitSTA");
+                RELEASE_THREAD = comThread.getMethod("Release");
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(MISSING, e);
+            }
+        }
+    }
+
+    /** new ActiveXComponent(progId) */
+    static Object component(String progId) {
+        return construct(Api.COMPONENT, progId);
+    }
+
+    /** new Variant(value) */
+    static Object variant(Object value) {
+        return construct(Api.VARIANT, value);
+    }
+
+    /** new Variant(value, true): tham số by-ref, đọc lại bằng intRef / stringRef */
+    static Object byRef(Object value) {
+        return construct(Api.VARIANT_BY_REF, value, true);
+    }
+
+    /** Dispatch.call(target, name, args...), trả về Variant */
+    static Object call(Object target, String name, Object... args) {
+        return invoke(Api.CALL, null, target, name, args);
+    }
+
+    static boolean callBoolean(Object target, String name, Object... args) {
+        return (Boolean) invoke(Api.GET_BOOLEAN, call(target, name, args));
+    }
+
+    static int callInt(Object target, String name, Object... args) {
+        return (Integer) invoke(Api.GET_INT, call(target, name, args));
+    }
+
+    static int intRef(Object variant) {
+        return (Integer) invoke(Api.GET_INT_REF, variant);
+    }
+
+    static String stringRef(Object variant) {
+        return (String) invoke(Api.GET_STRING_REF, variant);
+    }
+
+    static void safeRelease(Object component) {
+        invoke(Api.SAFE_RELEASE, component);
+    }
+
+    static void initSta() {
+        invoke(Api.INIT_STA, null);
+    }
+
+    static void releaseThread() {
+        invoke(Api.RELEASE_THREAD, null);
+    }
+
+    private static Object construct(Constructor<?> constructor, Object... args) {
+        try {
+            return constructor.newInstance(args);
+        } catch (InvocationTargetException e) {
+            throw unwrap(e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(MISSING, e);
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw unwrap(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(MISSING, e);
+        }
+    }
+
+    // lỗi COM (ComFailException...) là RuntimeException, ném lại nguyên trạng
+    private static RuntimeException unwrap(InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException re) {
+            return re;
+        }
+        if (cause instanceof Error err) {
+            throw err;
+        }
+        return new IllegalStateException(cause);
+    }
+}
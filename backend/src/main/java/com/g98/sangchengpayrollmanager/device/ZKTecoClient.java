@@ -1,22 +1,25 @@
 package com.g98.sangchengpayrollmanager.device;
 
 import com.g98.sangchengpayrollmanager.util.JacobLoader;
-import com.jacob.activeX.ActiveXComponent;
-import com.jacob.com.Dispatch;
-import com.jacob.com.Variant;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Client máy chấm công qua JACOB + zkemkeeper.ZKEM (chỉ chạy trên Windows), bật bằng zkteco.driver=com.
+ * JACOB gọi qua JacobCom (reflection), jar JACOB chỉ có khi build với profile windows-com.
+ */
 @Slf4j
 @Component
-public class ZKTecoClient {
+@ConditionalOnProperty(name = "zkteco.driver", havingValue = "com")
+public class ZKTecoClient implements AttendanceDeviceClient {
 
     @Value("${zkteco.enabled:true}")
     private boolean enabled;
@@ -33,6 +36,10 @@ public class ZKTecoClient {
     @Value("${zkteco.password:}")
     private String devicePassword;
 
+    // id máy trong att_device / att_record.att_device_id
+    @Value("${zkteco.device-id:1}")
+    private int deviceId;
+
     static {
         try {
             JacobLoader.loadJacobFromResources();
@@ -41,24 +48,24 @@ public class ZKTecoClient {
         }
     }
 
-    private ActiveXComponent connect() {
+    private Object connect() {
         if (!enabled) {
             throw new IllegalStateException("ZKTeco sync disabled");
         }
 
-        com.jacob.com.ComThread.InitSTA();
-        ActiveXComponent zk = null;
+        JacobCom.initSta();
+        Object zk = null;
 
         try {
-            zk = new ActiveXComponent("zkemkeeper.ZKEM");
+            zk = JacobCom.component("zkemkeeper.ZKEM");
 
-            boolean ok = Dispatch.call(zk, "Connect_Net", ip, port).getBoolean();
+            boolean ok = JacobCom.callBoolean(zk, "Connect_Net", ip, port);
             if (!ok) {
                 throw new RuntimeException("Cannot connect to " + ip + ":" + port);
             }
 
             if (devicePassword != null && !devicePassword.isBlank()) {
-                Dispatch.call(zk, "SetCommPassword", Integer.parseInt(devicePassword));
+                JacobCom.call(zk, "SetCommPassword", Integer.parseInt(devicePassword));
             }
 
             return zk;
@@ -66,86 +73,94 @@ public class ZKTecoClient {
         } catch (Exception ex) {
             if (zk != null) {
                 try {
-                    Dispatch.call(zk, "Disconnect");
+                    JacobCom.call(zk, "Disconnect");
                 } catch (Exception ignore) {
                 }
-                zk.safeRelease();
+                JacobCom.safeRelease(zk);
             }
-            com.jacob.com.ComThread.Release();
+            JacobCom.releaseThread();
             throw ex;
         }
     }
 
-    private void disconnect(ActiveXComponent zk) {
+    private void disconnect(Object zk) {
         new Thread(() -> {
             try {
                 Thread.sleep(50);
-                Dispatch.call(zk, "Disconnect");
+                JacobCom.call(zk, "Disconnect");
                 Thread.sleep(100);
             } catch (Exception ignore) {
             } finally {
                 try {
-                    zk.safeRelease();
+                    JacobCom.safeRelease(zk);
                 } catch (Exception ignore) {
                 }
                 try {
-                    com.jacob.com.ComThread.Release();
+                    JacobCom.releaseThread();
                 } catch (Exception ignore) {
                 }
             }
         }, "ZK-Cleanup").start();
     }
 
+    @Override
+    public int getDeviceId() {
+        return deviceId;
+    }
+
     /**
-     * ĐỌC TẤT CẢ LOGS CHẤM CÔNG
-     */
-    /**
-     * ĐỌC TẤT CẢ LOGS CHẤM CÔNG
+     * ĐỌC LOGS CÓ check_time >= since (since = null -> tất cả), giao từng lô chunkSize bản ghi.
+     * SDK vẫn tải cả buffer log của máy (phía native), nhưng phía Java chỉ giữ 1 lô; bản ghi cũ bị bỏ ngay lúc parse.
      */
-    public List<AttendanceLog> readAllLogs() {
-        ActiveXComponent zk = null;
-        List<AttendanceLog> logs = new ArrayList<>();
+    @Override
+    public long streamLogsSince(LocalDateTime since, int chunkSize, Consumer<List<AttendanceLog>> sink) {
+        Object zk = null;
+        AttendanceLogChunker chunker = new AttendanceLogChunker(since, chunkSize, sink);
 
         try {
             zk = connect();
             log.debug("📥 Reading attendance logs from {}:{}", ip, port);
 
             // Disable device while reading
-            Dispatch.call(zk, "EnableDevice", machineNo, false);
+            JacobCom.call(zk, "EnableDevice", machineNo, false);
 
             // Read all general logs
-            boolean ok = Dispatch.call(zk, "ReadGeneralLogData", machineNo).getBoolean();
+            boolean ok = JacobCom.callBoolean(zk, "ReadGeneralLogData", machineNo);
             if (!ok) {
-                int err = Dispatch.call(zk, "GetLastError").getInt();
-                log.error("ReadGeneralLogData failed, error code: {}", err);
-                return logs;
+                int err = JacobCom.callInt(zk, "GetLastError");
+                // 0 = máy không có log nào
+                if (err == 0) {
+                    return 0;
+                }
+                throw new IllegalStateException("ReadGeneralLogData failed, error code: " + err);
             }
 
             // Parse each record - BY-REFERENCE VARIANTS
-            Variant empId = new Variant("", true);
-            Variant verifyMode = new Variant(0, true);
-            Variant checkType = new Variant(0, true);
-            Variant year = new Variant(0, true);
-            Variant month = new Variant(0, true);
-            Variant day = new Variant(0, true);
-            Variant hour = new Variant(0, true);
-            Variant minute = new Variant(0, true);
-            Variant second = new Variant(0, true);
-            Variant workCode = new Variant(0, true);
+            Object empId = JacobCom.byRef("");
+            Object verifyMode = JacobCom.byRef(0);
+            Object checkType = JacobCom.byRef(0);
+            Object year = JacobCom.byRef(0);
+            Object month = JacobCom.byRef(0);
+            Object day = JacobCom.byRef(0);
+            Object hour = JacobCom.byRef(0);
+            Object minute = JacobCom.byRef(0);
+            Object second = JacobCom.byRef(0);
+            Object workCode = JacobCom.byRef(0);
 
             int count = 0;
-            while (Dispatch.call(zk, "SSR_GetGeneralLogData",
-                    new Variant(machineNo), empId, verifyMode, checkType,
-                    year, month, day, hour, minute, second, workCode).getBoolean()) {
+            while (JacobCom.callBoolean(zk, "SSR_GetGeneralLogData",
+                    JacobCom.variant(machineNo), empId, verifyMode, checkType,
+                    year, month, day, hour, minute, second, workCode)) {
 
+                AttendanceLog attendanceLog;
                 try {
                     // Lấy giá trị từ by-ref
-                    int y = year.getIntRef();
-                    int m = month.getIntRef();
-                    int d = day.getIntRef();
-                    int h = hour.getIntRef();
-                    int min = minute.getIntRef();
-                    int s = second.getIntRef();
+                    int y = JacobCom.intRef(year);
+                    int m = JacobCom.intRef(month);
+                    int d = JacobCom.intRef(day);
+                    int h = JacobCom.intRef(hour);
+                    int min = JacobCom.intRef(minute);
+                    int s = JacobCom.intRef(second);
 
                     // Validate đầy đủ
                     if (y < 2000 || y > 2100 || m < 1 || m > 12 || d < 1 || d > 31) {
@@ -160,13 +175,16 @@ public class ZKTecoClient {
 
                     // ✅ FIX: Máy đã lưu giờ VN sẵn, dùng trực tiếp không cần convert
                     LocalDateTime checkTime = LocalDateTime.of(y, m, d, h, min, s);
+                    if (since != null && checkTime.isBefore(since)) {
+                        continue;
+                    }
 
-                    String userId = empId.getStringRef();
+                    String userId = JacobCom.stringRef(empId);
 
-                    logs.add(AttendanceLog.builder()
+                    attendanceLog = AttendanceLog.builder()
                             .userId(userId)
                             .checkTime(checkTime)
-                            .build());
+                            .build();
 
                     count++;
 
@@ -177,19 +195,28 @@ public class ZKTecoClient {
 
                 } catch (Exception e) {
                     log.debug("Failed to parse log entry: {}", e.getMessage());
+                    continue;
                 }
+
+                // ngoài try: lỗi của sink (ghi DB) không bị coi là lỗi parse
+                chunker.accept(attendanceLog);
             }
+            chunker.flush();
 
-            log.info("✅ Read {} attendance logs from device", count);
-            return logs;
+            log.info("✅ Read {} attendance logs from device{}", count, since != null ? " since " + since : "");
+            return chunker.delivered();
 
         } catch (Exception e) {
-            log.error("Failed to read attendance logs: {}", e.getMessage(), e);
-            return logs;
+            if (chunker.failure() != null) {
+                throw chunker.failure();
+            }
+            // các lô đã giao vẫn giữ nguyên nhưng log chưa đọc hết
+            throw new IllegalStateException("Read attendance logs from device " + deviceId
+                    + " interrupted after " + chunker.delivered() + " records: " + e.getMessage(), e);
         } finally {
             if (zk != null) {
                 try {
-                    Dispatch.call(zk, "EnableDevice", machineNo, true);
+                    JacobCom.call(zk, "EnableDevice", machineNo, true);
                 } catch (Exception ignore) {
                 }
                 disconnect(zk);
@@ -206,20 +233,21 @@ public class ZKTecoClient {
     /**
      * TẠO/CẬP NHẬT USER
      */
+    @Override
     public boolean upsertUser(String userId, String name, String password, int privilege, boolean enabled) {
-        ActiveXComponent zk = null;
+        Object zk = null;
         try {
             zk = connect();
-            Dispatch.call(zk, "EnableDevice", machineNo, false);
+            JacobCom.call(zk, "EnableDevice", machineNo, false);
 
-            boolean ok = Dispatch.call(zk, "SSR_SetUserInfo",
-                    new Variant(machineNo),
-                    new Variant(userId),
-                    new Variant(name != null ? name : ""),
-                    new Variant(password != null ? password : ""),
-                    new Variant(privilege),
-                    new Variant(enabled)
-            ).getBoolean();
+            boolean ok = JacobCom.callBoolean(zk, "SSR_SetUserInfo",
+                    JacobCom.variant(machineNo),
+                    JacobCom.variant(userId),
+                    JacobCom.variant(name != null ? name : ""),
+                    JacobCom.variant(password != null ? password : ""),
+                    JacobCom.variant(privilege),
+                    JacobCom.variant(enabled)
+            );
 
             if (ok) {
                 log.info("✅ User {} synced to device", userId);
@@ -232,7 +260,7 @@ public class ZKTecoClient {
         } finally {
             if (zk != null) {
                 try {
-                    Dispatch.call(zk, "EnableDevice", machineNo, true);
+                    JacobCom.call(zk, "EnableDevice", machineNo, true);
                 } catch (Exception ignore) {
                 }
                 disconnect(zk);
@@ -243,23 +271,38 @@ public class ZKTecoClient {
     /**
      * KIỂM TRA USER TỒN TẠI
      */
+    @Override
     public boolean existsUser(String userId) {
-        ActiveXComponent zk = null;
+        Object zk = null;
         try {
             zk = connect();
-            Variant name = new Variant("", true);
-            Variant pwd = new Variant("", true);
-            Variant prv = new Variant(0, true);
-            Variant en = new Variant(false, true);
+            Object name = JacobCom.byRef("");
+            Object pwd = JacobCom.byRef("");
+            Object prv = JacobCom.byRef(0);
+            Object en = JacobCom.byRef(false);
+
+            return JacobCom.callBoolean(zk, "SSR_GetUserInfo",
+                    JacobCom.variant(machineNo), JacobCom.variant(userId),
+                    name, pwd, prv, en);
 
-            return Dispatch.call(zk, "SSR_GetUserInfo",
-                    new Variant(machineNo), new Variant(userId),
-                    name, pwd, prv, en).getBoolean();
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot read users from device " + deviceId + ": " + e.getMessage(), e);
+        } finally {
+            if (zk != null) disconnect(zk);
+        }
+    }
 
+    @Override
+    public boolean setDeviceEnabled(boolean enabled) {
+        Object zk = null;
+        try {
+            zk = connect();
+            return JacobCom.callBoolean(zk, "EnableDevice", machineNo, enabled);
         } catch (Exception e) {
+            log.error("Failed to {} device: {}", enabled ? "enable" : "disable", e.getMessage());
             return false;
         } finally {
             if (zk != null) disconnect(zk);
         }
     }
-}
\ No newline at end of file
+}
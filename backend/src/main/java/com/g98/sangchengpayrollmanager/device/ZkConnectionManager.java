@@ -0,0 +1,314 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giữ 1 phiên TCP lâu dài cho mỗi máy chấm công thay vì connect / disconnect mỗi lần gọi.
+ * - Lệnh chạy trên zkExecutor; mỗi máy có lock riêng nên lệnh tới cùng 1 máy luôn tuần tự.
+ * - Lỗi -> đóng phiên, kết nối lại theo backoff luỹ thừa (trong lúc chờ thì báo lỗi ngay, không gọi máy;
+ *   lượt bị từ chối vì đang chờ không tính là lỗi mới, không đẩy lùi thời điểm thử lại).
+ * - Keepalive định kỳ gửi lệnh nhẹ để giữ phiên và phát hiện máy chết sớm: chỉ đẩy việc sang zkExecutor
+ *   rồi trả về ngay (không giữ thread scheduler dùng chung), máy đang bận (vd tải log) thì bỏ qua lượt đó.
+ */
+@Slf4j
+@Component
+public class ZkConnectionManager {
+
+    // thread của ExecutorConfig.zkExecutor; đang ở trên đó (vd BiometricSyncService) thì chạy luôn, không submit lại
+    private static final String ZK_WORKER_PREFIX = "zk-worker";
+
+    private final ExecutorService zkExecutor;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final long keepaliveMs;
+
+    private final Map<Integer, DeviceConnection> connections = new ConcurrentHashMap<>();
+
+    public ZkConnectionManager(@Qualifier("zkExecutor") ExecutorService zkExecutor,
+                               @Value("${zkteco.connection.backoff-initial-ms:1000}") long backoffInitialMs,
+                               @Value("${zkteco.connection.backoff-max-ms:60000}") long backoffMaxMs,
+                               @Value("${zkteco.connection.keepalive-ms:30000}") long keepaliveMs) {
+        this.zkExecutor = zkExecutor;
+        this.backoffInitialMs = backoffInitialMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.keepaliveMs = keepaliveMs;
+    }
+
+    /**
+     * Máy đang trong thời gian backoff: không gọi máy, không phải lỗi mới của máy.
+     */
+    static final class BackoffException extends IOException {
+        BackoffException(String message) {
+            super(message);
+        }
+    }
+
+    @FunctionalInterface
+    interface SessionCallback<T> {
+        T run(ZkSession session) throws IOException;
+    }
+
+    /**
+     * Chạy callback trên phiên đang mở của máy (mở mới nếu chưa có / đã rớt).
+     */
+    <T> T execute(DeviceEndpoint endpoint, SessionCallback<T> callback) throws IOException {
+        DeviceConnection connection = connectionFor(endpoint);
+        if (Thread.currentThread().getName().startsWith(ZK_WORKER_PREFIX)) {
+            return connection.run(callback);
+        }
+
+        Future<T> future;
+        try {
+            future = zkExecutor.submit(() -> connection.run(callback));
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Hàng đợi lệnh máy chấm công đã đầy", e);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Bị ngắt khi chờ máy chấm công " + endpoint.address(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // đổi địa chỉ / mật khẩu của máy -> bỏ phiên cũ, mở phiên mới theo cấu hình mới
+    private DeviceConnection connectionFor(DeviceEndpoint endpoint) {
+        DeviceConnection current = connections.get(endpoint.deviceId());
+        if (current != null && current.endpoint.equals(endpoint)) {
+            return current;
+        }
+        return connections.compute(endpoint.deviceId(), (id, existing) -> {
+            if (existing != null && existing.endpoint.equals(endpoint)) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.close();
+            }
+            return new DeviceConnection(endpoint);
+        });
+    }
+
+    /**
+     * Máy nào rảnh quá keepalive-ms thì gửi CMD_GET_FREE_SIZES; máy đang rớt mà hết thời gian chờ thì thử kết nối lại.
+     */
+    @Scheduled(fixedDelayString = "${zkteco.connection.keepalive-ms:30000}",
+            initialDelayString = "${zkteco.connection.keepalive-ms:30000}")
+    public void keepAlive() {
+        Instant now = Instant.now();
+        for (DeviceConnection connection : connections.values()) {
+            if (!connection.needsKeepalive(now) || !connection.keepalivePending.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                zkExecutor.execute(connection::keepAlive);
+            } catch (RejectedExecutionException e) {
+                // zkExecutor đang đầy việc đọc máy -> phiên vẫn đang được dùng, lượt sau thử lại
+                connection.keepalivePending.set(false);
+            }
+        }
+    }
+
+    public List<DeviceHealth> health() {
+        List<DeviceHealth> result = new ArrayList<>();
+        for (DeviceConnection connection : connections.values()) {
+            result.add(connection.health());
+        }
+        result.sort(Comparator.comparingInt(DeviceHealth::deviceId));
+        return result;
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        connections.values().forEach(DeviceConnection::close);
+        connections.clear();
+    }
+
+    private final class DeviceConnection {
+        private final DeviceEndpoint endpoint;
+        private final ReentrantLock lock = new ReentrantLock();
+        // đã xếp 1 lượt keepalive vào zkExecutor, chưa chạy xong -> không xếp thêm
+        private final AtomicBoolean keepalivePending = new AtomicBoolean();
+
+        // chỉ ghi khi giữ lock; volatile để health() / keepalive đọc không cần lock
+        private volatile ZkSession session;
+        private volatile Instant connectedSince;
+        private volatile Instant lastUsedAt = Instant.EPOCH;
+        private volatile Instant lastSuccessAt;
+        private volatile Instant lastFailureAt;
+        private volatile String lastError;
+        private volatile int consecutiveFailures;
+        private volatile Instant nextAttemptAt = Instant.EPOCH;
+        private volatile long connects;
+        private volatile long commands;
+        private volatile long failures;
+        private volatile long totalCommandNanos;
+
+        private DeviceConnection(DeviceEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        <T> T run(SessionCallback<T> callback) throws IOException {
+            lock.lock();
+            try {
+                boolean reused = session != null && session.isOpen();
+                try {
+                    return runOnce(callback);
+                } catch (IOException e) {
+                    if (!reused) {
+                        throw e;
+                    }
+                    // phiên cũ có thể đã bị máy đóng lúc rảnh -> thử lại 1 lần trên phiên mới
+                    closeSession();
+                    return runOnce(callback);
+                }
+            } catch (BackoffException e) {
+                throw e;
+            } catch (IOException e) {
+                onFailure(e);
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private <T> T runOnce(SessionCallback<T> callback) throws IOException {
+            ZkSession current = ensureSession();
+            long start = System.nanoTime();
+            T result = callback.run(current);
+            commands++;
+            totalCommandNanos += System.nanoTime() - start;
+            lastSuccessAt = Instant.now();
+            lastUsedAt = lastSuccessAt;
+            consecutiveFailures = 0;
+            return result;
+        }
+
+        private ZkSession ensureSession() throws IOException {
+            if (session != null && session.isOpen()) {
+                return session;
+            }
+            Instant now = Instant.now();
+            if (now.isBefore(nextAttemptAt)) {
+                throw new BackoffException("Máy chấm công " + endpoint.address() + " đang lỗi (" + lastError
+                        + "), thử lại sau " + Duration.between(now, nextAttemptAt).toMillis() + "ms");
+            }
+            session = ZkSession.open(endpoint.ip(), endpoint.port(), endpoint.password(), endpoint.timeoutMs());
+            connects++;
+            connectedSince = Instant.now();
+            log.info("🔌 Connected to device {} ({})", endpoint.deviceId(), endpoint.address());
+            return session;
+        }
+
+        private void onFailure(IOException e) {
+            failures++;
+            consecutiveFailures++;
+            lastFailureAt = Instant.now();
+            lastUsedAt = lastFailureAt;
+            lastError = e.getMessage();
+            long backoff = Math.min(backoffMaxMs, backoffInitialMs << Math.min(consecutiveFailures - 1, 20));
+            nextAttemptAt = lastFailureAt.plusMillis(backoff);
+            closeSession();
+            log.warn("Device {} ({}) failed {} time(s) in a row, retry in {}ms: {}",
+                    endpoint.deviceId(), endpoint.address(), consecutiveFailures, backoff, e.getMessage());
+        }
+
+        // chạy trên zkExecutor; máy đang bận lệnh khác (giữ lock) thì phiên vẫn sống, không chờ
+        void keepAlive() {
+            try {
+                if (!lock.tryLock()) {
+                    return;
+                }
+                try {
+                    runOnce(ZkSession::recordCount);
+                } catch (BackoffException e) {
+                    // lịch keepalive chạy sớm hơn hạn backoff một chút: để lượt sau
+                } catch (IOException e) {
+                    onFailure(e);
+                    log.warn("Keepalive to device {} ({}) failed: {}",
+                            endpoint.deviceId(), endpoint.address(), e.getMessage());
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                keepalivePending.set(false);
+            }
+        }
+
+        boolean needsKeepalive(Instant now) {
+            if (lock.isLocked()) {
+                // đang chạy lệnh (vd tải log lâu): phiên đang được dùng, không cần giữ
+                return false;
+            }
+            if (session == null) {
+                // đang rớt: chỉ thử lại khi đã qua thời gian backoff
+                return !now.isBefore(nextAttemptAt);
+            }
+            return Duration.between(lastUsedAt, now).toMillis() >= keepaliveMs;
+        }
+
+        private void closeSession() {
+            if (session != null) {
+                session.close();
+                session = null;
+                connectedSince = null;
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closeSession();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // không lấy lock: đọc log lâu không được chặn API xem tình trạng, số liệu lệch 1 nhịp cũng không sao
+        DeviceHealth health() {
+            ZkSession current = session;
+            return new DeviceHealth(
+                        endpoint.deviceId(),
+                        endpoint.address(),
+                    current != null && current.isOpen(),
+                    connectedSince,
+                    lastSuccessAt,
+                    lastFailureAt,
+                    lastError,
+                    consecutiveFailures,
+                    consecutiveFailures > 0 ? nextAttemptAt : null,
+                    connects,
+                    commands,
+                    failures,
+                    commands > 0 ? totalCommandNanos / 1_000_000.0 / commands : 0);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Mã hoá / giải mã gói tin giao thức ZK (TCP, cổng 4370) - phần dùng chung cho client và simulator.
+ * <p>
+ * Khung TCP: 50 50 82 7D | độ dài payload (uint32 LE) | payload.
+ * Payload: command, checksum, session id, reply id (uint16 LE mỗi trường) + data.
+ * Bản ghi chấm công 40 byte / user 72 byte là định dạng của firmware SSR (user id dạng chuỗi),
+ * cùng loại với các hàm SSR_* mà ZKTecoClient đang gọi qua zkemkeeper.
+ */
+public final class ZkProtocol {
+
+    public static final int CMD_CONNECT = 1000;
+    public static final int CMD_EXIT = 1001;
+    public static final int CMD_ENABLEDEVICE = 1002;
+    public static final int CMD_DISABLEDEVICE = 1003;
+    public static final int CMD_AUTH = 1102;
+    public static final int CMD_REFRESHDATA = 1013;
+    public static final int CMD_GET_FREE_SIZES = 50;
+    public static final int CMD_USER_WRQ = 8;
+    public static final int CMD_USERTEMP_RRQ = 9;
+    public static final int CMD_ATTLOG_RRQ = 13;
+
+    public static final int CMD_PREPARE_DATA = 1500;
+    public static final int CMD_DATA = 1501;
+    public static final int CMD_FREE_DATA = 1502;
+
+    public static final int CMD_ACK_OK = 2000;
+    public static final int CMD_ACK_ERROR = 2001;
+    public static final int CMD_ACK_DATA = 2002;
+    public static final int CMD_ACK_UNAUTH = 2005;
+
+    public static final int FCT_USER = 5;
+
+    public static final int ATT_RECORD_SIZE = 40;
+    public static final int USER_RECORD_SIZE = 72;
+
+    // privilege bit 0 = user bị khoá
+    public static final int PRIVILEGE_DISABLED = 1;
+
+    private static final byte[] TCP_MAGIC = {0x50, 0x50, (byte) 0x82, 0x7D};
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_PACKET_SIZE = 1 << 20;
+    private static final int USHRT_MAX = 65535;
+
+    private ZkProtocol() {
+    }
+
+    /**
+     * 1 gói tin đã bỏ khung TCP
+     */
+    public record Packet(int command, int sessionId, int replyId, byte[] data) {
+    }
+
+    /**
+     * 1 user trên máy (uid = số thứ tự nội bộ của máy, userId = mã chấm công)
+     */
+    public record DeviceUser(int uid, String userId, String name, String password, int privilege, long card) {
+
+        public boolean enabled() {
+            return (privilege & PRIVILEGE_DISABLED) == 0;
+        }
+    }
+
+    // ===== khung gói tin =====
+
+    public static byte[] encodePacket(int command, int sessionId, int replyId, byte[] data) {
+        byte[] body = data != null ? data : new byte[0];
+        ByteBuffer payload = ByteBuffer.allocate(HEADER_SIZE + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        payload.putShort((short) command)
+                .putShort((short) 0)
+                .putShort((short) sessionId)
+                .putShort((short) replyId)
+                .put(body);
+        byte[] bytes = payload.array();
+        int checksum = checksum(bytes);
+        bytes[2] = (byte) checksum;
+        bytes[3] = (byte) (checksum >>> 8);
+
+        ByteBuffer frame = ByteBuffer.allocate(8 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        frame.put(TCP_MAGIC).putInt(bytes.length).put(bytes);
+        return frame.array();
+    }
+
+    public static Packet readPacket(InputStream in) throws IOException {
+        byte[] prefix = readFully(in, 8);
+        for (int i = 0; i < TCP_MAGIC.length; i++) {
+            if (prefix[i] != TCP_MAGIC[i]) {
+                throw new IOException("Gói tin ZK sai header");
+            }
+        }
+        int length = ByteBuffer.wrap(prefix, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        if (length < HEADER_SIZE || length > MAX_PACKET_SIZE) {
+            throw new IOException("Độ dài gói tin ZK không hợp lệ: " + length);
+        }
+        byte[] payload = readFully(in, length);
+        ByteBuffer buf = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+        int command = Short.toUnsignedInt(buf.getShort());
+        buf.getShort(); // checksum
+        int sessionId = Short.toUnsignedInt(buf.getShort());
+        int replyId = Short.toUnsignedInt(buf.getShort());
+        byte[] data = new byte[length - HEADER_SIZE];
+        buf.get(data);
+        return new Packet(command, sessionId, replyId, data);
+    }
+
+    static int checksum(byte[] payload) {
+        long sum = 0;
+        int i = 0;
+        for (; i + 1 < payload.length; i += 2) {
+            sum += (payload[i] & 0xFF) | ((payload[i + 1] & 0xFF) << 8);
+            if (sum > USHRT_MAX) {
+                sum -= USHRT_MAX;
+            }
+        }
+        if (i < payload.length) {
+            sum += payload[payload.length - 1] & 0xFF;
+        }
+        while (sum > USHRT_MAX) {
+            sum -= USHRT_MAX;
+        }
+        long inverted = ~sum;
+        while (inverted < 0) {
+            inverted += USHRT_MAX;
+        }
+        return (int) (inverted & 0xFFFF);
+    }
+
+    private static byte[] readFully(InputStream in, int n) throws IOException {
+        byte[] bytes = in.readNBytes(n);
+        if (bytes.length < n) {
+            throw new EOFException("Máy chấm công đóng kết nối");
+        }
+        return bytes;
+    }
+
+    // ===== xác thực comm password =====
+
+    /**
+     * Khoá xác thực CMD_AUTH từ comm password và session id (thuật toán của SDK ZK, ticks = 50).
+     */
+    public static byte[] commKey(int password, int sessionId) {
+        long k = 0;
+        for (int i = 0; i < 32; i++) {
+            k = (password & (1 << i)) != 0 ? (k << 1 | 1) : k << 1;
+        }
+        k = (k + sessionId) & 0xFFFFFFFFL;
+
+        byte[] b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt((int) k).array();
+        b[0] ^= 'Z';
+        b[1] ^= 'K';
+        b[2] ^= 'S';
+        b[3] ^= 'O';
+        // đổi chỗ 2 nửa uint16
+        byte[] swapped = {b[2], b[3], b[0], b[1]};
+        byte ticks = 50;
+        return new byte[]{(byte) (swapped[0] ^ ticks), (byte) (swapped[1] ^ ticks), ticks, (byte) (swapped[3] ^ ticks)};
+    }
+
+    // ===== thời gian =====
+
+    public static LocalDateTime decodeTime(long t) {
+        int second = (int) (t % 60);
+        t /= 60;
+        int minute = (int) (t % 60);
+        t /= 60;
+        int hour = (int) (t % 24);
+        t /= 24;
+        int day = (int) (t % 31) + 1;
+        t /= 31;
+        int month = (int) (t % 12) + 1;
+        t /= 12;
+        int year = (int) t + 2000;
+        return LocalDateTime.of(year, month, day, hour, minute, second);
+    }
+
+    public static long encodeTime(LocalDateTime time) {
+        long days = ((long) (time.getYear() % 100) * 12 * 31) + ((time.getMonthValue() - 1) * 31L) + time.getDayOfMonth() - 1;
+        return days * 24 * 60 * 60 + (time.getHour() * 60L + time.getMinute()) * 60 + time.getSecond();
+    }
+
+    // ===== bản ghi chấm công =====
+
+    /**
+     * Bản ghi chấm công 40 byte: uid(2) userId(24) status(1) time(4) punch(1) reserved(8)
+     */
+    public static byte[] encodeAttendance(int uid, String userId, LocalDateTime time, int status, int punch) {
+        ByteBuffer buf = ByteBuffer.allocate(ATT_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putShort((short) uid);
+        putString(buf, userId, 24);
+        buf.put((byte) status);
+        buf.putInt((int) encodeTime(time));
+        buf.put((byte) punch);
+        return buf.array();
+    }
+
+    /**
+     * Tách buffer ATTLOG (4 byte tổng độ dài + các bản ghi). recordCount lấy từ CMD_GET_FREE_SIZES,
+     * dùng để suy ra kích thước bản ghi (40 / 16 / 8 byte tuỳ firmware); <= 0 thì mặc định 40.
+     */
+    public static List<AttendanceLog> decodeAttendance(byte[] buffer, int recordCount) {
+        List<AttendanceLog> logs = new ArrayList<>();
+        new AttendanceDecoder(recordCount).feed(buffer, logs::add);
+        return logs;
+    }
+
+    private static AttendanceLog decodeAttendanceRecord(ByteBuffer buf, int recordSize) {
+        String userId;
+        long time;
+        switch (recordSize) {
+            case 8 -> {
+                userId = String.valueOf(Short.toUnsignedInt(buf.getShort()));
+                buf.get();
+                time = Integer.toUnsignedLong(buf.getInt());
+            }
+            case 16 -> {
+                userId = String.valueOf(Integer.toUnsignedLong(buf.getInt()));
+                time = Integer.toUnsignedLong(buf.getInt());
+            }
+            default -> {
+                buf.getShort();
+                userId = getString(buf, 24);
+                buf.get();
+                time = Integer.toUnsignedLong(buf.getInt());
+            }
+        }
+        return AttendanceLog.builder()
+                .userId(userId)
+                .checkTime(decodeTime(time))
+                .build();
+    }
+
+    /**
+     * Giải mã ATTLOG theo từng gói CMD_DATA khi đang nhận: bản ghi nằm vắt qua 2 gói được ghép lại,
+     * bản ghi đủ byte được giao ngay, không cần chờ ghép xong cả buffer.
+     */
+    public static final class AttendanceDecoder {
+
+        private final int recordCount;
+        private final byte[] header = new byte[4];
+        private int headerLength;
+        private int recordSize;
+        private long remaining = -1;
+        private byte[] pending;
+        private int pendingLength;
+
+        public AttendanceDecoder(int recordCount) {
+            this.recordCount = recordCount;
+        }
+
+        public void feed(byte[] data, Consumer<AttendanceLog> out) {
+            int pos = 0;
+            while (pos < data.length && remaining != 0) {
+                if (remaining < 0) {
+                    header[headerLength++] = data[pos++];
+                    if (headerLength == header.length) {
+                        int total = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getInt();
+                        recordSize = recordCount > 0 && total % recordCount == 0 && total > 0
+                                ? total / recordCount : ATT_RECORD_SIZE;
+                        remaining = Math.max(total, 0) - Math.max(total, 0) % recordSize;
+                        pending = new byte[recordSize];
+                    }
+                    continue;
+                }
+                // nguyên bản ghi nằm trong gói: giải mã tại chỗ
+                if (pendingLength == 0 && data.length - pos >= recordSize) {
+                    out.accept(decodeAttendanceRecord(
+                            ByteBuffer.wrap(data, pos, recordSize).order(ByteOrder.LITTLE_ENDIAN), recordSize));
+                    pos += recordSize;
+                    remaining -= recordSize;
+                    continue;
+                }
+                int n = Math.min(recordSize - pendingLength, data.length - pos);
+                System.arraycopy(data, pos, pending, pendingLength, n);
+                pos += n;
+                pendingLength += n;
+                if (pendingLength == recordSize) {
+                    out.accept(decodeAttendanceRecord(ByteBuffer.wrap(pending).order(ByteOrder.LITTLE_ENDIAN), recordSize));
+                    pendingLength = 0;
+                    remaining -= recordSize;
+                }
+            }
+        }
+    }
+
+    // ===== user =====
+
+    /**
+     * User 72 byte: uid(2) privilege(1) password(8) name(24) card(4) pad(1) group(7) pad(1) userId(24)
+     */
+    public static byte[] encodeUser(DeviceUser user) {
+        ByteBuffer buf = ByteBuffer.allocate(USER_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putShort((short) user.uid());
+        buf.put((byte) user.privilege());
+        putString(buf, user.password(), 8);
+        putString(buf, user.name(), 24);
+        buf.putInt((int) user.card());
+        buf.put((byte) 0);
+        putString(buf, "1", 7);
+        buf.put((byte) 0);
+        putString(buf, user.userId(), 24);
+        return buf.array();
+    }
+
+    public static DeviceUser decodeUser(byte[] bytes, int offset) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes, offset, USER_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int uid = Short.toUnsignedInt(buf.getShort());
+        int privilege = Byte.toUnsignedInt(buf.get());
+        String password = getString(buf, 8);
+        String name = getString(buf, 24);
+        long card = Integer.toUnsignedLong(buf.getInt());
+        buf.get();
+        getString(buf, 7);
+        buf.get();
+        String userId = getString(buf, 24);
+        return new DeviceUser(uid, userId, name, password, privilege, card);
+    }
+
+    /**
+     * Tách buffer USERTEMP (4 byte tổng độ dài + các user 72 byte)
+     */
+    public static List<DeviceUser> decodeUsers(byte[] buffer) {
+        List<DeviceUser> users = new ArrayList<>();
+        if (buffer.length < 4) {
+            return users;
+        }
+        int total = Math.min(ByteBuffer.wrap(buffer, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(), buffer.length - 4);
+        for (int offset = 4; offset + USER_RECORD_SIZE <= 4 + total; offset += USER_RECORD_SIZE) {
+            users.add(decodeUser(buffer, offset));
+        }
+        return users;
+    }
+
+    /**
+     * Ghép các bản ghi thành buffer có 4 byte tổng độ dài ở đầu (định dạng máy trả cho ATTLOG / USERTEMP)
+     */
+    public static byte[] withSizePrefix(List<byte[]> records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int total = records.stream().mapToInt(r -> r.length).sum();
+        out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(total).array());
+        records.forEach(out::writeBytes);
+        return out.toByteArray();
+    }
+
+    private static void putString(ByteBuffer buf, String value, int length) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int n = Math.min(bytes.length, length);
+        buf.put(bytes, 0, n);
+        for (int i = n; i < length; i++) {
+            buf.put((byte) 0);
+        }
+    }
+
+    private static String getString(ByteBuffer buf, int length) {
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        int end = 0;
+        while (end < length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+}
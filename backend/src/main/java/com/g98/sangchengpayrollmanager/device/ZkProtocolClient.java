@@ -0,0 +1,177 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Client máy chấm công ZK viết bằng Java thuần (TCP 4370), không cần JACOB / zkemkeeper / Windows.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "zkteco.driver", havingValue = "native", matchIfMissing = true)
+public class ZkProtocolClient implements AttendanceDeviceClient {
+
+    private final boolean enabled;
+    private final DeviceEndpoint endpoint;
+    private final ZkConnectionManager connections;
+
+    /**
+     * Máy mặc định cấu hình trong zkteco.* (dùng khi att_device chưa khai báo máy nào)
+     */
+    @Autowired
+    public ZkProtocolClient(@Value("${zkteco.enabled:true}") boolean enabled,
+                            @Value("${zkteco.device-id:1}") int deviceId,
+                            @Value("${zkteco.ip:192.168.11.2}") String ip,
+                            @Value("${zkteco.port:4370}") int port,
+                            @Value("${zkteco.password:}") String password,
+                            @Value("${zkteco.timeout-ms:10000}") int timeoutMs,
+                            ZkConnectionManager connections) {
+        this.enabled = enabled;
+        this.endpoint = new DeviceEndpoint(deviceId, ip, port, DeviceEndpoint.parsePassword(password), timeoutMs);
+        this.connections = connections;
+    }
+
+    /**
+     * Máy đăng ký trong att_device (AttendanceDeviceRegistry)
+     */
+    public ZkProtocolClient(DeviceEndpoint endpoint, ZkConnectionManager connections) {
+        this.enabled = true;
+        this.endpoint = endpoint;
+        this.connections = connections;
+    }
+
+    @Override
+    public int getDeviceId() {
+        return endpoint.deviceId();
+    }
+
+    /**
+     * Chạy trên phiên dùng chung của máy (ZkConnectionManager), không mở kết nối mới mỗi lần gọi.
+     */
+    private <T> T execute(ZkConnectionManager.SessionCallback<T> callback) throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("ZKTeco sync disabled");
+        }
+        return connections.execute(endpoint, callback);
+    }
+
+    @Override
+    public long streamLogsSince(LocalDateTime since, int chunkSize, Consumer<List<AttendanceLog>> sink) {
+        AttendanceLogChunker chunker = new AttendanceLogChunker(since, chunkSize, sink);
+        try {
+            log.debug("📥 Streaming attendance logs from {}", endpoint.address());
+            execute(session -> {
+                // khoá máy trong lúc đọc như SDK
+                session.command(ZkProtocol.CMD_DISABLEDEVICE, null);
+                try {
+                    ZkProtocol.AttendanceDecoder decoder = new ZkProtocol.AttendanceDecoder(session.recordCount());
+                    session.streamBuffer(ZkProtocol.CMD_ATTLOG_RRQ, null, data -> {
+                        // sink lỗi (ghi DB...): vẫn đọc hết gói còn lại để phiên không lệch gói, báo lỗi sau
+                        if (chunker.failure() == null) {
+                            try {
+                                decoder.feed(data, chunker);
+                            } catch (RuntimeException e) {
+                                if (chunker.failure() == null) {
+                                    throw e;
+                                }
+                            }
+                        }
+                    });
+                } finally {
+                    session.command(ZkProtocol.CMD_ENABLEDEVICE, null);
+                }
+                return null;
+            });
+            if (chunker.failure() == null) {
+                chunker.flush();
+            }
+            log.info("✅ Read {} attendance logs from device {}{}", chunker.delivered(), endpoint.deviceId(),
+                    since != null ? " since " + since : "");
+
+        } catch (IOException | IllegalStateException e) {
+            if (chunker.failure() != null) {
+                throw chunker.failure();
+            }
+            // các lô đã giao vẫn giữ nguyên nhưng log chưa đọc hết -> caller không được coi là đồng bộ xong
+            throw new IllegalStateException("Read attendance logs from device " + endpoint.deviceId()
+                    + " interrupted after " + chunker.delivered() + " records: " + e.getMessage(), e);
+        }
+        if (chunker.failure() != null) {
+            throw chunker.failure();
+        }
+        return chunker.delivered();
+    }
+
+    @Override
+    public boolean upsertUser(String userId, String name, String password, int privilege, boolean enabled) {
+        try {
+            boolean ok = execute(session -> {
+                session.command(ZkProtocol.CMD_DISABLEDEVICE, null);
+                try {
+                    List<ZkProtocol.DeviceUser> users = readUsers(session);
+                    // máy đánh uid nội bộ: user đã có giữ uid cũ, user mới lấy uid kế tiếp
+                    int uid = findUser(users, userId)
+                            .map(ZkProtocol.DeviceUser::uid)
+                            .orElseGet(() -> users.stream().mapToInt(ZkProtocol.DeviceUser::uid).max().orElse(0) + 1);
+                    int flags = enabled ? privilege & ~ZkProtocol.PRIVILEGE_DISABLED : privilege | ZkProtocol.PRIVILEGE_DISABLED;
+
+                    ZkProtocol.DeviceUser user = new ZkProtocol.DeviceUser(uid, userId,
+                            name != null ? name : "", password != null ? password : "", flags, 0);
+                    boolean written = session.command(ZkProtocol.CMD_USER_WRQ, ZkProtocol.encodeUser(user)).command()
+                            == ZkProtocol.CMD_ACK_OK;
+                    if (written) {
+                        session.command(ZkProtocol.CMD_REFRESHDATA, null);
+                    }
+                    return written;
+                } finally {
+                    session.command(ZkProtocol.CMD_ENABLEDEVICE, null);
+                }
+            });
+            if (ok) {
+                log.info("✅ User {} synced to device", userId);
+            }
+            return ok;
+        } catch (IOException | IllegalStateException e) {
+            log.error("Failed to sync user to device: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean existsUser(String userId) {
+        try {
+            return execute(session -> findUser(readUsers(session), userId).isPresent());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read users from device " + endpoint.deviceId()
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean setDeviceEnabled(boolean enabled) {
+        try {
+            int command = enabled ? ZkProtocol.CMD_ENABLEDEVICE : ZkProtocol.CMD_DISABLEDEVICE;
+            return execute(session -> session.command(command, null).command() == ZkProtocol.CMD_ACK_OK);
+        } catch (IOException | IllegalStateException e) {
+            log.error("Failed to {} device: {}", enabled ? "enable" : "disable", e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<ZkProtocol.DeviceUser> readUsers(ZkSession session) throws IOException {
+        return ZkProtocol.decodeUsers(session.readBuffer(ZkProtocol.CMD_USERTEMP_RRQ, new byte[]{ZkProtocol.FCT_USER}));
+    }
+
+    private static Optional<ZkProtocol.DeviceUser> findUser(List<ZkProtocol.DeviceUser> users, String userId) {
+        return users.stream().filter(u -> u.userId().equals(userId)).findFirst();
+    }
+}
@@ -0,0 +1,153 @@
+package com.g98.sangchengpayrollmanager.device;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+
+/**
+ * 1 phiên TCP với máy chấm công (đã CONNECT + AUTH). Không thread-safe: mỗi lúc chỉ 1 luồng dùng.
+ */
+final class ZkSession implements Closeable {
+
+    // trần cho kích thước máy báo trong PREPARE_DATA (~1 triệu bản ghi chấm công 40 byte)
+    static final long MAX_BUFFER_BYTES = 64L << 20;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private int sessionId;
+    private int replyId;
+
+    private ZkSession(Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = socket.getInputStream();
+        this.out = socket.getOutputStream();
+    }
+
+    static ZkSession open(String host, int port, int password, int timeoutMs) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMs);
+            socket.setSoTimeout(timeoutMs);
+            socket.setTcpNoDelay(true);
+            ZkSession session = new ZkSession(socket);
+            session.handshake(password);
+            return session;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void handshake(int password) throws IOException {
+        ZkProtocol.Packet reply = command(ZkProtocol.CMD_CONNECT, null);
+        sessionId = reply.sessionId();
+        if (reply.command() == ZkProtocol.CMD_ACK_UNAUTH) {
+            reply = command(ZkProtocol.CMD_AUTH, ZkProtocol.commKey(password, sessionId));
+        }
+        if (reply.command() != ZkProtocol.CMD_ACK_OK) {
+            throw new IOException("Máy chấm công từ chối kết nối (reply " + reply.command() + ")");
+        }
+    }
+
+    /**
+     * Gửi 1 lệnh và đọc 1 gói trả lời
+     */
+    ZkProtocol.Packet command(int command, byte[] data) throws IOException {
+        replyId = (replyId + 1) % 65535;
+        out.write(ZkProtocol.encodePacket(command, sessionId, replyId, data));
+        out.flush();
+        return ZkProtocol.readPacket(in);
+    }
+
+    /**
+     * Gửi lệnh và ghép tất cả gói CMD_DATA trả về thành 1 mảng.
+     */
+    byte[] readBuffer(int command, byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        streamBuffer(command, data, buffer::writeBytes);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Gửi lệnh và giao từng gói CMD_DATA cho sink ngay khi nhận
+     * (máy trả thẳng 1 gói DATA, hoặc PREPARE_DATA + nhiều gói DATA + ACK_OK).
+     */
+    void streamBuffer(int command, byte[] data, Consumer<byte[]> sink) throws IOException {
+        ZkProtocol.Packet reply = command(command, data);
+        switch (reply.command()) {
+            case ZkProtocol.CMD_DATA -> sink.accept(reply.data());
+            case ZkProtocol.CMD_PREPARE_DATA -> {
+                long size = preparedSize(reply.data());
+                long received = 0;
+                while (received < size) {
+                    ZkProtocol.Packet chunk = ZkProtocol.readPacket(in);
+                    if (chunk.command() != ZkProtocol.CMD_DATA) {
+                        throw new IOException("Đang nhận dữ liệu thì máy trả lệnh " + chunk.command());
+                    }
+                    received += chunk.data().length;
+                    if (received > size) {
+                        throw new IOException("Máy gửi " + received + " byte, nhiều hơn " + size + " byte đã báo");
+                    }
+                    sink.accept(chunk.data());
+                }
+                ZkProtocol.Packet done = ZkProtocol.readPacket(in);
+                if (done.command() != ZkProtocol.CMD_ACK_OK) {
+                    throw new IOException("Máy không xác nhận kết thúc dữ liệu (reply " + done.command() + ")");
+                }
+            }
+            case ZkProtocol.CMD_ACK_OK -> {
+            }
+            default -> throw new IOException("Lệnh " + command + " bị từ chối (reply " + reply.command() + ")");
+        }
+        command(ZkProtocol.CMD_FREE_DATA, null);
+    }
+
+    private static long preparedSize(byte[] data) throws IOException {
+        if (data == null || data.length < 4) {
+            throw new IOException("Gói PREPARE_DATA thiếu kích thước (" + (data == null ? 0 : data.length) + " byte)");
+        }
+        long size = Integer.toUnsignedLong(ByteBuffer.wrap(data, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt());
+        if (size > MAX_BUFFER_BYTES) {
+            throw new IOException("Máy báo " + size + " byte, vượt giới hạn " + MAX_BUFFER_BYTES);
+        }
+        return size;
+    }
+
+    /**
+     * Số bản ghi chấm công đang có trên máy (CMD_GET_FREE_SIZES, ô thứ 9 trong 20 số int)
+     */
+    int recordCount() throws IOException {
+        ZkProtocol.Packet reply = command(ZkProtocol.CMD_GET_FREE_SIZES, null);
+        if (reply.command() != ZkProtocol.CMD_ACK_OK || reply.data().length < 36) {
+            return -1;
+        }
+        return ByteBuffer.wrap(reply.data(), 32, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    boolean isOpen() {
+        return !socket.isClosed() && socket.isConnected();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (isOpen()) {
+                command(ZkProtocol.CMD_EXIT, null);
+            }
+        } catch (IOException ignore) {
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
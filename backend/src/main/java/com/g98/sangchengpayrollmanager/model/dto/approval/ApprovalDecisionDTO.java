@@ -0,0 +1,19 @@
+package com.g98.sangchengpayrollmanager.model.dto.approval;
+
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalAction;
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalRequestType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ApprovalDecisionDTO {
+    private ApprovalRequestType type;
+    private Integer id;             // id đơn nghỉ / đơn OT
+    private ApprovalAction action;
+    private String note;
+}
@@ -0,0 +1,15 @@
+package com.g98.sangchengpayrollmanager.model.dto.approval;
+
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalAction;
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalRequestType;
+
+/**
+ * outcome: APPLIED | SKIPPED (không còn chờ duyệt / không tồn tại / đơn của chính mình)
+ *          | FAILED (quyết định làm cả lô rollback) | NOT_APPLIED (bị rollback theo lô)
+ */
+public record ApprovalDecisionResult(ApprovalRequestType type,
+                                     Integer id,
+                                     ApprovalAction action,
+                                     String outcome,
+                                     String message) {
+}
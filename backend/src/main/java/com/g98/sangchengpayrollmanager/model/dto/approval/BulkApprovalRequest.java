@@ -0,0 +1,16 @@
+package com.g98.sangchengpayrollmanager.model.dto.approval;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BulkApprovalRequest {
+    private List<ApprovalDecisionDTO> decisions;
+}
@@ -0,0 +1,18 @@
+package com.g98.sangchengpayrollmanager.model.dto.approval;
+
+import com.g98.sangchengpayrollmanager.model.enums.BulkApprovalStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class BulkApprovalResponse {
+    private final BulkApprovalStatus status;
+    private final int attempts;         // số lần chạy transaction (> 1 = đã thử lại vì xung đột)
+    private final int applied;
+    private final int skipped;
+    private final String message;
+    private final List<ApprovalDecisionResult> results;
+}
@@ -0,0 +1,64 @@
+package com.g98.sangchengpayrollmanager.model.dto.attendant;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+
+/**
+ * Phần 1 AttDailySummary đóng góp vào các chỉ số của AttMonthSummary
+ * (cùng quy tắc cộng dồn với AttMonthSummaryService.createMonthSummary).
+ * Sửa 1 ngày = lấy đóng góp sau trừ đóng góp trước rồi cộng vào tháng.
+ * Tổng cả tháng cũng dùng record này (AttMonthSummaryRepository.sumDailyByEmployee).
+ */
+public record AttDayContribution(int otHours,
+                                 int workHours,
+                                 int annualLeave,
+                                 int meal,
+                                 int trial,
+                                 int payable,
+                                 int late,
+                                 int earlyLeave) {
+
+    public static final AttDayContribution NONE = new AttDayContribution(0, 0, 0, 0, 0, 0, 0, 0);
+
+    public static AttDayContribution of(AttDailySummary ds) {
+        if (ds == null) {
+            return NONE;
+        }
+        return new AttDayContribution(
+                ds.getOtHour() != null ? ds.getOtHour() : 0,
+                ds.getWorkHours() != null ? ds.getWorkHours() : 0,
+                "annual".equalsIgnoreCase(ds.getLeaveTypeCode()) ? 1 : 0,
+                Boolean.TRUE.equals(ds.getIsDayMeal()) ? 1 : 0,
+                Boolean.TRUE.equals(ds.getIsTrialDay()) ? 1 : 0,
+                Boolean.TRUE.equals(ds.getIsCountPayableDay()) ? 1 : 0,
+                Boolean.TRUE.equals(ds.getIsLateCounted()) ? 1 : 0,
+                Boolean.TRUE.equals(ds.getIsEarlyLeaveCounted()) ? 1 : 0);
+    }
+
+    public AttDayContribution minus(AttDayContribution other) {
+        return new AttDayContribution(
+                otHours - other.otHours,
+                workHours - other.workHours,
+                annualLeave - other.annualLeave,
+                meal - other.meal,
+                trial - other.trial,
+                payable - other.payable,
+                late - other.late,
+                earlyLeave - other.earlyLeave);
+    }
+
+    public AttDayContribution plus(AttDayContribution other) {
+        return new AttDayContribution(
+                otHours + other.otHours,
+                workHours + other.workHours,
+                annualLeave + other.annualLeave,
+                meal + other.meal,
+                trial + other.trial,
+                payable + other.payable,
+                late + other.late,
+                earlyLeave + other.earlyLeave);
+    }
+
+    public boolean isZero() {
+        return equals(NONE);
+    }
+}
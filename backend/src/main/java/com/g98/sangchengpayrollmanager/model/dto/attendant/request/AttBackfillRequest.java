@@ -0,0 +1,19 @@
+package com.g98.sangchengpayrollmanager.model.dto.attendant.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class AttBackfillRequest {
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private List<String> employeeCodes;  // bỏ trống = toàn bộ nhân viên
+}
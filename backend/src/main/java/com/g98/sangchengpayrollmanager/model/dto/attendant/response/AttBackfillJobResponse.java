@@ -0,0 +1,30 @@
+package com.g98.sangchengpayrollmanager.model.dto.attendant.response;
+
+import com.g98.sangchengpayrollmanager.model.enums.AttBackfillJobStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Builder
+public class AttBackfillJobResponse {
+    private final Long jobId;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+    private final AttBackfillJobStatus status;
+    private final int totalUnits;             // số đơn vị việc (lô nhân viên x tháng)
+    private final int completedUnits;
+    private final int failedUnits;
+    private final long totalEmployeeDays;     // số nhân viên x số ngày
+    private final long completedEmployeeDays;
+    private final long rowsWritten;           // số daily summary đã ghi / xoá
+    private final double employeeDaysPerSecond; // throughput của lần chạy gần nhất
+    private final String message;
+    private final List<String> errors;        // "2025-06 EMP001..EMP200: lý do"
+    private final LocalDateTime createdAt;
+    private final LocalDateTime resumedAt;
+    private final LocalDateTime finishedAt;
+}
@@ -0,0 +1,17 @@
+package com.g98.sangchengpayrollmanager.model.dto.attendant.response;
+
+import java.util.List;
+
+/**
+ * 1 trang timesheet phân trang keyset: gửi nextCursor ở lần gọi sau để lấy trang kế tiếp.
+ * total = null khi không yêu cầu đếm; totalExact = false khi chỉ đếm tới ngưỡng (total là "ít nhất").
+ */
+public record TimeSheetPageResponse(
+    List<TimeSheetResponse> content,
+    int size,
+    boolean hasNext,
+    String nextCursor,
+    Long total,
+    Boolean totalExact
+) {
+}
@@ -0,0 +1,55 @@
+package com.g98.sangchengpayrollmanager.model.dto.payroll;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+import com.g98.sangchengpayrollmanager.model.entity.AttMonthSummary;
+import com.g98.sangchengpayrollmanager.model.entity.EmployeeInformation;
+import com.g98.sangchengpayrollmanager.model.entity.PayComponent;
+import com.g98.sangchengpayrollmanager.model.entity.SalaryInformation;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dữ liệu đầu vào tính lương của 1 lô nhân viên trong 1 tháng, load sẵn bằng vài query IN-list
+ * (PayrollInputSnapshotLoader) để PayrollService không phải query lại cho từng người.
+ * Entity bên trong đã detached, các quan hệ lazy cần dùng đều được fetch sẵn.
+ */
+@Getter
+@Builder
+public class PayrollInputSnapshot {
+
+    private final LocalDate month;
+    private final LocalDate monthStart;
+    private final LocalDate monthEnd;
+    private final Map<String, EmployeeInput> inputs;
+
+    public EmployeeInput get(String employeeCode) {
+        EmployeeInput input = inputs.get(employeeCode);
+        return input != null ? input : EmployeeInput.empty(employeeCode);
+    }
+
+    @Getter
+    @Builder
+    public static class EmployeeInput {
+        private final String employeeCode;
+        private final List<SalaryInformation> salaryInformations;
+        private final AttMonthSummary monthSummary;            // null nếu chưa chốt công tháng
+        private final List<AttDailySummary> dailySummaries;
+        private final List<PayComponent> payComponents;
+        private final EmployeeInformation employeeInformation; // null nếu chưa có hồ sơ
+        private final boolean pendingOvertime;
+        private final boolean pendingLeave;
+
+        static EmployeeInput empty(String employeeCode) {
+            return EmployeeInput.builder()
+                    .employeeCode(employeeCode)
+                    .salaryInformations(List.of())
+                    .dailySummaries(List.of())
+                    .payComponents(List.of())
+                    .build();
+        }
+    }
+}
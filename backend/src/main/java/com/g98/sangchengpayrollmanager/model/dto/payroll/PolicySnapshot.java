@@ -0,0 +1,38 @@
+package com.g98.sangchengpayrollmanager.model.dto.payroll;
+
+import com.g98.sangchengpayrollmanager.model.entity.InsurancePolicy;
+import com.g98.sangchengpayrollmanager.model.entity.LegalPolicy;
+import com.g98.sangchengpayrollmanager.service.TaxBracketTable;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Toàn bộ chính sách dùng khi tính lương, đang hiệu lực tại effectiveDate.
+ * Giống nhau cho mọi nhân viên trong cùng kỳ lương -> build 1 lần, dùng chung (PolicySnapshotCache).
+ * Các collection đều unmodifiable, không được sửa entity bên trong.
+ */
+@Getter
+@Builder
+public class PolicySnapshot {
+
+    private final LocalDate effectiveDate;
+
+    // biểu thuế TNCN đã biên dịch
+    private final TaxBracketTable taxBracketTable;
+
+    // giảm trừ gia cảnh (legal_policy TAX_DEDUCTION)
+    private final int personalDeduction;
+    private final int perDependentDeduction;
+
+    private final List<InsurancePolicy> insurancePolicies;
+
+    // groupPolicyCode -> list componentTypeId thuộc group
+    private final Map<String, List<Integer>> groupMembers;
+
+    // groupPolicyCode -> policy GROUP đang hiệu lực (không có key nếu policy hết hiệu lực)
+    private final Map<String, LegalPolicy> groupPolicies;
+}
@@ -0,0 +1,24 @@
+package com.g98.sangchengpayrollmanager.model.dto.payroll.response;
+
+import com.g98.sangchengpayrollmanager.model.enums.PayrollRunStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Builder
+public class PayrollRunResponse {
+    private final String runId;
+    private final LocalDate month;
+    private final PayrollRunStatus status;
+    private final int totalEmployees;
+    private final int processed;          // số nhân viên đã xử lý xong (thành công + lỗi)
+    private final int successCount;
+    private final String message;
+    private final List<String> errors;    // giống BatchSalaryResponse.errors: "EMP001: lý do"
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+}
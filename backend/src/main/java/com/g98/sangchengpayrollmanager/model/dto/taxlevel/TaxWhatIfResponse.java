@@ -0,0 +1,15 @@
+package com.g98.sangchengpayrollmanager.model.dto.taxlevel;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+
+@Getter
+@Setter
+@Builder
+public class TaxWhatIfResponse {
+    private Long taxableIncome;
+    private LocalDate effectiveDate;
+    private Long taxAmount;
+}
@@ -0,0 +1,62 @@
+package com.g98.sangchengpayrollmanager.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Job tổng hợp lại công ngày + công tháng cho 1 khoảng ngày (AttendanceBackfillService).
+ * Việc chia thành các AttBackfillUnit (lô nhân viên x tháng); tiến độ lưu DB nên chạy tiếp được sau khi app tắt.
+ */
+@Entity
+@Table(name = "att_backfill_job",
+        indexes = @Index(name = "idx_att_backfill_job_status", columnList = "status"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttBackfillJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "from_date", nullable = false)
+    private LocalDate fromDate;
+
+    @Column(name = "to_date", nullable = false)
+    private LocalDate toDate;
+
+    // mã nhân viên lọc (phân cách bằng dấu phẩy), null = toàn bộ nhân viên
+    @Column(name = "employee_filter", columnDefinition = "TEXT")
+    private String employeeFilter;
+
+    @Column(name = "status", nullable = false, length = 30)
+    private String status;          // AttBackfillJobStatus
+
+    @Column(name = "total_units", nullable = false)
+    private Integer totalUnits;
+
+    @Column(name = "total_employee_days", nullable = false)
+    private Long totalEmployeeDays;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // lần chạy gần nhất (start / resume / khởi động lại app) - mốc tính throughput
+    @Column(name = "resumed_at", nullable = false)
+    private LocalDateTime resumedAt;
+
+    // số ngày công đã xong trước lần chạy gần nhất
+    @Column(name = "resumed_done_days", nullable = false)
+    private Long resumedDoneDays;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
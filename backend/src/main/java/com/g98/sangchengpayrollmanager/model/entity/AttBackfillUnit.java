@@ -0,0 +1,64 @@
+package com.g98.sangchengpayrollmanager.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 1 đơn vị việc của AttBackfillJob: 1 lô nhân viên trong 1 tháng (cắt theo khoảng ngày của job).
+ * Chuyển COMPLETED trong cùng transaction ghi công, nên không bao giờ ghi nửa chừng.
+ */
+@Entity
+@Table(name = "att_backfill_unit",
+        indexes = @Index(name = "idx_att_backfill_unit_job_status", columnList = "job_id, status"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttBackfillUnit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    // ngày đầu tháng
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "from_date", nullable = false)
+    private LocalDate fromDate;
+
+    @Column(name = "to_date", nullable = false)
+    private LocalDate toDate;
+
+    // mã nhân viên của lô, phân cách bằng dấu phẩy
+    @Column(name = "employee_codes", nullable = false, columnDefinition = "TEXT")
+    private String employeeCodes;
+
+    @Column(name = "employee_days", nullable = false)
+    private Integer employeeDays;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;          // AttBackfillUnitStatus
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "rows_written")
+    private Integer rowsWritten;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
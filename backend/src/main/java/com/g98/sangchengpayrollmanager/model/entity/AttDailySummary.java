@@ -6,7 +6,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "att_daily_summary")
+@Table(name = "att_daily_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_att_daily_summary_employee_date",
+                columnNames = {"employee_code", "date"}))
 @Getter
 @Setter
 @NoArgsConstructor
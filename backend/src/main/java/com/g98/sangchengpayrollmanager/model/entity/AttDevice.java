@@ -24,5 +24,29 @@ public class AttDevice {
 
     @Column(length = 50)
     private String serial;
+
+    // địa chỉ TCP của máy (giao thức ZK, mặc định cổng 4370)
+    @Column(name = "ip", length = 64)
+    private String ip;
+
+    @Column(name = "port")
+    private Integer port;
+
+    // comm password đặt trên máy, rỗng = không có
+    @Column(name = "comm_password", length = 20)
+    private String commPassword;
+
+    // bí mật máy gửi kèm khi đẩy log qua /iclock (header X-Device-Token hoặc tham số token)
+    @Column(name = "push_token", length = 64)
+    private String pushToken;
+
+    // IP được phép đẩy log, cách nhau bởi dấu phẩy; máy không có token lẫn IP thì không nhận push
+    @Column(name = "push_allowed_ips", length = 255)
+    private String pushAllowedIps;
+
+    // chỉ máy active mới được đồng bộ
+    @Column(name = "active", nullable = false)
+    @Builder.Default
+    private Boolean active = true;
 }
 
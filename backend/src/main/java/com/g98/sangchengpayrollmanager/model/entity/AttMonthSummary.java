@@ -6,7 +6,9 @@ import java.time.LocalDate;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "att_month_summary")
+@Table(name = "att_month_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_att_month_summary_employee_month",
+                columnNames = {"employee_code", "month"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "att_record")
+@Table(name = "att_record",
+        uniqueConstraints = @UniqueConstraint(name = "uk_att_record_user_check_time",
+                columnNames = {"user_id", "check_time"}))
 @Getter
 @Setter
 @Builder
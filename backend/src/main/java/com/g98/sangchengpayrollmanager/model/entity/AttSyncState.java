@@ -0,0 +1,30 @@
+package com.g98.sangchengpayrollmanager.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mốc đồng bộ (high-watermark) của từng máy chấm công: check_time lớn nhất đã lấy về.
+ * Sync incremental chỉ xử lý các lượt chấm từ mốc này trở đi.
+ */
+@Entity
+@Table(name = "att_sync_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttSyncState {
+
+    @Id
+    @Column(name = "device_id")
+    private Integer deviceId;
+
+    @Column(name = "last_check_time")
+    private LocalDateTime lastCheckTime;
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt;
+}
@@ -0,0 +1,60 @@
+package com.g98.sangchengpayrollmanager.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Bảng chấm công tháng đã phẳng hoá (read model của att_month_summary + user + employee_information + position).
+ * Chỉ để đọc / phân trang; được làm mới từ att_month_summary (AttTimesheetService), không sửa trực tiếp.
+ */
+@Entity
+@Table(name = "att_timesheet",
+        uniqueConstraints = @UniqueConstraint(name = "uk_att_timesheet_month_employee",
+                columnNames = {"month", "employee_code"}),
+        indexes = {
+                @Index(name = "idx_att_timesheet_month_name", columnList = "month, full_name, employee_code"),
+                @Index(name = "idx_att_timesheet_month_given_name", columnList = "month, given_name")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttTimesheet {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employee_code", length = 50, nullable = false)
+    private String employeeCode;
+
+    // ngày đầu tháng
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "full_name", length = 100, nullable = false)
+    private String fullName;
+
+    // từ cuối của họ tên (tên gọi), để tìm "An" ra "Nguyễn Văn An" bằng index
+    @Column(name = "given_name", length = 100, nullable = false)
+    private String givenName;
+
+    @Column(name = "position_name", length = 100)
+    private String positionName;
+
+    @Column(name = "days_hours", nullable = false)
+    private Integer daysHours;
+
+    @Column(name = "ot_hours", nullable = false)
+    private Integer otHours;
+
+    @Column(name = "used_leave", nullable = false)
+    private Integer usedLeave;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+}
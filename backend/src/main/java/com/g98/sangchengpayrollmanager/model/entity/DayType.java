@@ -1,5 +1,6 @@
 package com.g98.sangchengpayrollmanager.model.entity;
 
+import com.g98.sangchengpayrollmanager.service.WorkCalendarChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,6 +8,7 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "day_type")
+@EntityListeners(WorkCalendarChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -45,6 +45,11 @@ public class LeaveQuota {
     @Column(name = "used_days", nullable = false)
     private Double usedDays  ;
 
+    // 2 đơn nghỉ được duyệt song song cùng cộng usedDays -> lần commit sau bị từ chối và thử lại
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Transient
     public Double getRemainingDays() {
         if (entitledDays == null) return null;
@@ -8,7 +8,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "leave_request")
+@Table(name = "leave_request",
+        indexes = @Index(name = "idx_leave_request_created_date_status", columnList = "created_date, status"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -61,5 +62,8 @@ public class LeaveRequest {
     @Column(name = "is_paid_leave", nullable = false)
     private Boolean isPaidLeave ;
 
+    // 2 người cùng duyệt / từ chối 1 đơn -> chỉ 1 người đổi được trạng thái
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
-
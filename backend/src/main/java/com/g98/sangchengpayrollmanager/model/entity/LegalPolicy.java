@@ -1,5 +1,6 @@
 package com.g98.sangchengpayrollmanager.model.entity;
 
+import com.g98.sangchengpayrollmanager.service.PolicyChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,6 +8,7 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "legal_policy")
+@EntityListeners(PolicyChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,10 +1,12 @@
 package com.g98.sangchengpayrollmanager.model.entity;
 
+import com.g98.sangchengpayrollmanager.service.PolicyChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
 @Table(name = "legal_policy_group")
+@EntityListeners(PolicyChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -3,8 +3,14 @@ package com.g98.sangchengpayrollmanager.model.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+/**
+ * Sổ giờ OT của nhân viên: 1 dòng / tháng (month 1-12) + 1 dòng tổng cả năm (month = YEAR_TOTAL).
+ * Cộng / trừ ngay trong DB khi đơn OT được gửi / duyệt / từ chối / xoá (OvertimeLedger), đọc hạn mức = 1 dòng.
+ */
 @Entity
-@Table(name = "overtime_balance")
+@Table(name = "overtime_balance",
+        uniqueConstraints = @UniqueConstraint(name = "uk_overtime_balance_employee_year_month",
+                columnNames = {"employee_code", "year", "month"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,6 +18,9 @@ import lombok.*;
 @Builder
 public class OvertimeBalance {
 
+    // month của dòng tổng cả năm
+    public static final int YEAR_TOTAL = 0;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -26,6 +35,16 @@ public class OvertimeBalance {
     @Column(name = "month", nullable = false)
     private Integer month;
 
-    @Column(name = "hour_balance")
+    // giờ OT đã duyệt
+    @Column(name = "hour_balance", nullable = false)
     private Integer hourBalance;
+
+    // giờ OT của đơn đang chờ duyệt
+    @Column(name = "pending_hours", nullable = false)
+    private Integer pendingHours;
+
+    // addHours cũng tăng version, ghi qua entity không đè được giờ vừa cộng
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
@@ -7,7 +7,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "overtime_request")
+@Table(name = "overtime_request",
+        indexes = @Index(name = "idx_overtime_request_ot_date_status", columnList = "ot_date, status"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -55,6 +56,7 @@ public class OvertimeRequest {
     @Column(name = "note", length = 500)
     private String noteOT;
 
-
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
-
@@ -1,5 +1,6 @@
 package com.g98.sangchengpayrollmanager.model.entity;
 
+import com.g98.sangchengpayrollmanager.service.PayrollInputChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
@@ -7,6 +8,7 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "pay_component")
+@EntityListeners(PayrollInputChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -4,11 +4,16 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "pay_summary")
+@Table(name = "pay_summary",
+        indexes = {
+                @Index(name = "idx_pay_summary_date_status", columnList = "date, status"),
+                @Index(name = "idx_pay_summary_employee_date", columnList = "employee_code, date")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -69,6 +74,25 @@ public class PaySummary {
     @Column(name = "other_deduction")
     private Integer otherDeduction;
 
+    // đầu vào (công, phụ cấp, lương) đã đổi sau lần tính gần nhất -> PayrollRecomputeService tính lại.
+    // Chỉ đổi bằng PaySummaryRepository.markDirty/claimDirty, save() entity không ghi đè cờ này.
+    @Builder.Default
+    @Column(name = "dirty", nullable = false, updatable = false)
+    private Boolean dirty = false;
+
+    // số lần tính lại tự động bị lỗi liên tiếp (vd còn đơn OT / nghỉ chờ duyệt); đầu vào đổi thì về 0
+    @Builder.Default
+    @Column(name = "recompute_attempts", nullable = false, updatable = false)
+    private Integer recomputeAttempts = 0;
+
+    // chưa tới thời điểm này thì chưa thử tính lại (backoff sau lỗi)
+    @Column(name = "recompute_after", insertable = false, updatable = false)
+    private LocalDateTime recomputeAfter;
+
+    // lỗi của lần tính lại gần nhất, để HR xem vì sao bảng lương chưa được cập nhật
+    @Column(name = "recompute_error", length = 500, insertable = false, updatable = false)
+    private String recomputeError;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "employee_code",
@@ -0,0 +1,57 @@
+package com.g98.sangchengpayrollmanager.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Hàng đợi render payslip PDF (lưu DB để không mất job khi restart).
+ * Mỗi nhân viên + tháng chỉ có 1 dòng, tính lại lương thì dòng được đưa về PENDING.
+ * Mọi lần đổi trạng thái tăng version: lượt render chỉ ghi kết quả nếu job chưa bị đưa lại về PENDING.
+ */
+@Entity
+@Table(name = "payslip_render_job",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payslip_render_job_emp_month",
+                columnNames = {"employee_code", "month"}),
+        indexes = @Index(name = "idx_payslip_render_job_status_next", columnList = "status, next_attempt_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayslipRenderJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employee_code", nullable = false, length = 50)
+    private String employeeCode;
+
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;          // PayslipRenderJobStatus
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
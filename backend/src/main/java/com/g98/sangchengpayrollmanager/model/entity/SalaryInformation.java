@@ -1,5 +1,6 @@
 package com.g98.sangchengpayrollmanager.model.entity;
 
+import com.g98.sangchengpayrollmanager.service.PayrollInputChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,6 +8,7 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "salary_infomation")
+@EntityListeners(PayrollInputChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,6 @@
+package com.g98.sangchengpayrollmanager.model.enums;
+
+public enum ApprovalAction {
+    APPROVE,
+    REJECT
+}
@@ -0,0 +1,6 @@
+package com.g98.sangchengpayrollmanager.model.enums;
+
+public enum ApprovalRequestType {
+    LEAVE,      // đơn nghỉ (leave_request)
+    OVERTIME    // đơn làm thêm giờ (overtime_request)
+}
@@ -0,0 +1,8 @@
+package com.g98.sangchengpayrollmanager.model.enums;
+
+public enum AttBackfillJobStatus {
+    RUNNING,                // Đang tổng hợp lại (hoặc app tắt giữa chừng, sẽ chạy tiếp khi khởi động)
+    COMPLETED,              // Xong tất cả đơn vị việc
+    COMPLETED_WITH_ERRORS,  // Xong, có đơn vị lỗi (gọi resume để chạy lại)
+    FAILED                  // Không đơn vị nào thành công
+}
@@ -0,0 +1,7 @@
+package com.g98.sangchengpayrollmanager.model.enums;
+
+public enum AttBackfillUnitStatus {
+    PENDING,    // Chưa chạy / đang chạy (chưa commit)
+    COMPLETED,  // Đã ghi công ngày + công tháng (checkpoint)
+    FAILED      // Lỗi, chờ resume
+}
@@ -0,0 +1,8 @@
+package com.g98.sangchengpayrollmanager.model.enums;
+
+public enum BulkApprovalStatus {
+    COMPLETED,              // Đã áp dụng mọi quyết định
+    COMPLETED_WITH_SKIPS,   // Đã áp dụng, bỏ qua các đơn không còn chờ duyệt / không tồn tại / của chính mình
+    FAILED,                 // 1 quyết định lỗi -> không áp dụng quyết định nào
+    CONFLICT                // Vẫn xung đột sau số lần thử lại tối đa -> không áp dụng quyết định nào
+}
@@ -0,0 +1,8 @@
+package com.g98.sangchengpayrollmanager.model.enums;
+
+public enum PayrollRunStatus {
+    RUNNING,                // Đang tính lương
+    COMPLETED,              // Xong, không có lỗi
+    COMPLETED_WITH_ERRORS,  // Xong, có nhân viên lỗi
+    FAILED                  // Toàn bộ nhân viên lỗi
+}
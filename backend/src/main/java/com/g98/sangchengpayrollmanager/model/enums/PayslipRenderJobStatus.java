@@ -0,0 +1,8 @@
+package com.g98.sangchengpayrollmanager.model.enums;
+
+public enum PayslipRenderJobStatus {
+    PENDING,    // Chờ render (hoặc chờ retry)
+    RUNNING,    // Đang render
+    DONE,       // Đã tạo PDF và cập nhật payslip_url
+    FAILED      // Hết số lần retry
+}
@@ -0,0 +1,11 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttBackfillJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AttBackfillJobRepository extends JpaRepository<AttBackfillJob, Long> {
+
+    List<AttBackfillJob> findByStatusOrderById(String status);
+}
@@ -0,0 +1,57 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttBackfillUnit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AttBackfillUnitRepository extends JpaRepository<AttBackfillUnit, Long> {
+
+    List<AttBackfillUnit> findByJobIdAndStatusOrderById(Long jobId, String status);
+
+    // status, số đơn vị, số ngày công, số dòng đã ghi -> tiến độ của job
+    @Query("""
+        SELECT u.status, COUNT(u), COALESCE(SUM(u.employeeDays), 0), COALESCE(SUM(u.rowsWritten), 0)
+        FROM AttBackfillUnit u
+        WHERE u.jobId = :jobId
+        GROUP BY u.status
+    """)
+    List<Object[]> summarizeByStatus(@Param("jobId") Long jobId);
+
+    // checkpoint: chạy trong transaction ghi công, chỉ 1 luồng hoàn thành được (trả về 1)
+    @Modifying
+    @Query("""
+        UPDATE AttBackfillUnit u
+        SET u.status = 'COMPLETED', u.attempts = u.attempts + 1, u.rowsWritten = :rowsWritten,
+            u.durationMs = :durationMs, u.lastError = NULL, u.finishedAt = :now
+        WHERE u.id = :id AND u.status = 'PENDING'
+    """)
+    int complete(@Param("id") Long id,
+                 @Param("rowsWritten") int rowsWritten,
+                 @Param("durationMs") long durationMs,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE AttBackfillUnit u
+        SET u.status = 'FAILED', u.attempts = u.attempts + 1, u.lastError = :error, u.finishedAt = :now
+        WHERE u.id = :id AND u.status = 'PENDING'
+    """)
+    int fail(@Param("id") Long id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    // resume: đơn vị lỗi chạy lại
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE AttBackfillUnit u
+        SET u.status = 'PENDING', u.finishedAt = NULL
+        WHERE u.jobId = :jobId AND u.status = 'FAILED'
+    """)
+    int resetFailed(@Param("jobId") Long jobId);
+}
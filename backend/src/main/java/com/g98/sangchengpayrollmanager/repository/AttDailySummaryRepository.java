@@ -3,13 +3,39 @@ package com.g98.sangchengpayrollmanager.repository;
 import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
 import com.g98.sangchengpayrollmanager.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface AttDailySummaryRepository extends JpaRepository<AttDailySummary,Integer> {
+public interface AttDailySummaryRepository extends JpaRepository<AttDailySummary,Integer>, AttDailySummaryRepositoryCustom {
     List<AttDailySummary> findByUserEmployeeCodeAndDateBetween(String employeeCode, LocalDate fromDate, LocalDate toDate);
 
     Optional<AttDailySummary> findByUserAndDate(User user, LocalDate date);
+
+    Optional<AttDailySummary> findByUserEmployeeCodeAndDate(String employeeCode, LocalDate date);
+
+    // load daily summary của cả lô nhân viên trong tháng, fetch luôn dayType (OtService cần otRate)
+    @Query("""
+            SELECT ads FROM AttDailySummary ads
+            LEFT JOIN FETCH ads.dayType
+            WHERE ads.user.employeeCode IN :employeeCodes
+              AND ads.date BETWEEN :fromDate AND :toDate
+            """)
+    List<AttDailySummary> findByEmployeeCodesAndDateBetween(@Param("employeeCodes") Collection<String> employeeCodes,
+                                                            @Param("fromDate") LocalDate fromDate,
+                                                            @Param("toDate") LocalDate toDate);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM att_daily_summary
+            WHERE date = :date
+              AND employee_code IN (:employeeCodes)
+            """, nativeQuery = true)
+    int deleteByEmployeeCodesAndDate(@Param("employeeCodes") Collection<String> employeeCodes,
+                                     @Param("date") LocalDate date);
 }
@@ -0,0 +1,27 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.AttDayContribution;
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface AttDailySummaryRepositoryCustom {
+
+    /**
+     * Ghi nhiều daily summary bằng JDBC batch INSERT ... ON DUPLICATE KEY UPDATE
+     * (unique key employee_code + date): ngày đã có thì ghi đè, chưa có thì thêm, không cần đọc id trước.
+     * user và dayType chỉ cần có id.
+     */
+    void upsertAll(List<AttDailySummary> summaries);
+
+    /**
+     * Khoá (SELECT ... FOR UPDATE) các ngày công của employeeCodes trong [from, to] tới hết transaction
+     * và trả về phần đóng góp vào tháng của từng dòng: nhân viên -> ngày -> AttDayContribution.
+     * Không nạp entity vào persistence context.
+     */
+    Map<String, Map<LocalDate, AttDayContribution>> lockContributions(Collection<String> employeeCodes,
+                                                                     LocalDate from, LocalDate to);
+}
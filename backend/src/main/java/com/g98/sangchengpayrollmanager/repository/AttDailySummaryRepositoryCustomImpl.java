@@ -0,0 +1,122 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.AttDayContribution;
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class AttDailySummaryRepositoryCustomImpl implements AttDailySummaryRepositoryCustom {
+
+    // driver gộp lô thành INSERT nhiều dòng khi bật rewriteBatchedStatements (spring.datasource.url)
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO att_daily_summary (employee_code, date, work_hours, ot_hour, is_day_meal, is_trial_day,
+                                           is_payable_day, is_count_payable_day, day_type_id, check_in_time,
+                                           check_out_time, late_minutes, is_late_counted, early_leave_minutes,
+                                           is_early_leave_counted, leave_type_code, is_absent)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                work_hours = VALUES(work_hours),
+                ot_hour = VALUES(ot_hour),
+                is_day_meal = VALUES(is_day_meal),
+                is_trial_day = VALUES(is_trial_day),
+                is_payable_day = VALUES(is_payable_day),
+                is_count_payable_day = VALUES(is_count_payable_day),
+                day_type_id = VALUES(day_type_id),
+                check_in_time = VALUES(check_in_time),
+                check_out_time = VALUES(check_out_time),
+                late_minutes = VALUES(late_minutes),
+                is_late_counted = VALUES(is_late_counted),
+                early_leave_minutes = VALUES(early_leave_minutes),
+                is_early_leave_counted = VALUES(is_early_leave_counted),
+                leave_type_code = VALUES(leave_type_code),
+                is_absent = VALUES(is_absent)
+            """;
+
+    // cùng quy tắc với AttDayContribution.of; khoá cả khoảng trống trong unique key (employee_code, date)
+    private static final String LOCK_SQL = """
+            SELECT employee_code, date,
+                   COALESCE(ot_hour, 0),
+                   COALESCE(work_hours, 0),
+                   COALESCE(LOWER(leave_type_code) = 'annual', 0),
+                   COALESCE(is_day_meal = TRUE, 0),
+                   COALESCE(is_trial_day = TRUE, 0),
+                   COALESCE(is_count_payable_day = TRUE, 0),
+                   COALESCE(is_late_counted = TRUE, 0),
+                   COALESCE(is_early_leave_counted = TRUE, 0)
+            FROM att_daily_summary
+            WHERE employee_code IN (%s)
+              AND date BETWEEN ? AND ?
+            FOR UPDATE
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAll(List<AttDailySummary> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, summaries, BATCH_SIZE, this::bind);
+    }
+
+    @Override
+    public Map<String, Map<LocalDate, AttDayContribution>> lockContributions(Collection<String> employeeCodes,
+                                                                            LocalDate from, LocalDate to) {
+        Map<String, Map<LocalDate, AttDayContribution>> contributions = new HashMap<>();
+        if (employeeCodes.isEmpty()) {
+            return contributions;
+        }
+        List<Object> args = new ArrayList<>(employeeCodes);
+        args.add(Date.valueOf(from));
+        args.add(Date.valueOf(to));
+        String sql = LOCK_SQL.formatted(String.join(", ", Collections.nCopies(employeeCodes.size(), "?")));
+        jdbcTemplate.query(sql, rs -> {
+            contributions.computeIfAbsent(rs.getString(1), k -> new HashMap<>())
+                    .put(rs.getDate(2).toLocalDate(), new AttDayContribution(
+                            rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6),
+                            rs.getInt(7), rs.getInt(8), rs.getInt(9), rs.getInt(10)));
+        }, args.toArray());
+        return contributions;
+    }
+
+    private void bind(PreparedStatement ps, AttDailySummary ds) throws SQLException {
+        ps.setString(1, ds.getUser().getEmployeeCode());
+        ps.setDate(2, Date.valueOf(ds.getDate()));
+        ps.setInt(3, ds.getWorkHours());
+        ps.setObject(4, ds.getOtHour(), Types.INTEGER);
+        ps.setObject(5, ds.getIsDayMeal(), Types.BOOLEAN);
+        ps.setObject(6, ds.getIsTrialDay(), Types.BOOLEAN);
+        ps.setObject(7, ds.getIsPayableDay(), Types.BOOLEAN);
+        ps.setObject(8, ds.getIsCountPayableDay(), Types.BOOLEAN);
+        ps.setObject(9, ds.getDayType() != null ? ds.getDayType().getId() : null, Types.INTEGER);
+        ps.setTimestamp(10, toTimestamp(ds.getCheckInTime()));
+        ps.setTimestamp(11, toTimestamp(ds.getCheckOutTime()));
+        ps.setObject(12, ds.getLateMinutes(), Types.INTEGER);
+        ps.setBoolean(13, ds.getIsLateCounted());
+        ps.setObject(14, ds.getEarlyLeaveMinutes(), Types.INTEGER);
+        ps.setBoolean(15, ds.getIsEarlyLeaveCounted());
+        ps.setString(16, ds.getLeaveTypeCode());
+        ps.setObject(17, ds.getIsAbsent(), Types.BOOLEAN);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+}
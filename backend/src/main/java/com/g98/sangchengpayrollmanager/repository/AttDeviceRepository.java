@@ -0,0 +1,16 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttDevice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttDeviceRepository extends JpaRepository<AttDevice, Integer> {
+
+    List<AttDevice> findByActiveTrueAndIpIsNotNullOrderById();
+
+    Optional<AttDevice> findBySerial(String serial);
+}
@@ -1,59 +1,70 @@
 package com.g98.sangchengpayrollmanager.repository;
 
-import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
 import com.g98.sangchengpayrollmanager.model.dto.payroll.response.PaySummaryResponse;
 import com.g98.sangchengpayrollmanager.model.entity.AttMonthSummary;
 import com.g98.sangchengpayrollmanager.model.entity.PaySummary;
 import com.g98.sangchengpayrollmanager.model.entity.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface AttMonthSummaryRepository extends JpaRepository<AttMonthSummary,Integer> {
+public interface AttMonthSummaryRepository extends JpaRepository<AttMonthSummary,Integer>, AttMonthSummaryRepositoryCustom {
     AttMonthSummary findByUserEmployeeCodeAndMonth(String employeeCode, LocalDate month);
     Optional<AttMonthSummary> findByUserAndMonth(User user, LocalDate month);
-    @Query(
-            value = """
-            Select new com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse(
-                ams.user.employeeCode,
-                ams.user.fullName,
-                ei.position.name,
-                ams.daysHours,
-                ams.otHours,
-                ams.usedleave
-            )
-            FROM AttMonthSummary ams ,EmployeeInformation ei 
-            WHERE ams.user.employeeCode = ei.user.employeeCode
-            And ams.month = :date
-            AND (
-                        LOWER(ams.user.fullName) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                        OR LOWER(ams.user.employeeCode) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                        OR LOWER(ei.position.name) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                        OR CAST(ams.daysHours AS string) LIKE CONCAT('%', :keyword, '%')
-                        OR CAST(ams.otHours AS string) LIKE CONCAT('%', :keyword, '%')
-                    )
-""",
-            countQuery = """
-            SELECT COUNT(ams)
-            FROM AttMonthSummary ams ,EmployeeInformation ei 
-            WHERE ams.user.employeeCode = ei.user.employeeCode
-            And ams.month = :date
-            AND (
-                        LOWER(ams.user.fullName) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                        OR LOWER(ams.user.employeeCode) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                        OR LOWER(ei.position.name) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                        OR CAST(ams.daysHours AS string) LIKE CONCAT('%', :keyword, '%')
-                        OR CAST(ams.otHours AS string) LIKE CONCAT('%', :keyword, '%')
-                    )
-        """
-    )
-    Page<TimeSheetResponse> findTimeSheetByMonth(@Param("date") LocalDate date, @Param("keyword") String keyword, Pageable pageable);
+
+    @Query("""
+            SELECT ams FROM AttMonthSummary ams
+            WHERE ams.user.employeeCode IN :employeeCodes
+              AND ams.month = :month
+            """)
+    List<AttMonthSummary> findByEmployeeCodesAndMonth(@Param("employeeCodes") Collection<String> employeeCodes,
+                                                      @Param("month") LocalDate month);
+
+    // cộng delta vào bộ đếm tháng ngay trong DB (không đọc-sửa-ghi) -> 2 lần sửa đồng thời không đè nhau
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE AttMonthSummary ams SET
+                ams.otHours = ams.otHours + :otHours,
+                ams.daysHours = ams.daysHours + :workHours,
+                ams.usedleave = ams.usedleave + :annualLeave,
+                ams.daysMeal = ams.daysMeal + :meal,
+                ams.daysTrial = ams.daysTrial + :trial,
+                ams.daysPayable = ams.daysPayable + :payable,
+                ams.lateCount = ams.lateCount + :late,
+                ams.earlyLeaveCount = ams.earlyLeaveCount + :earlyLeave
+            WHERE ams.user.employeeCode = :employeeCode
+              AND ams.month = :month
+            """)
+    int addCounters(@Param("employeeCode") String employeeCode,
+                    @Param("month") LocalDate month,
+                    @Param("otHours") int otHours,
+                    @Param("workHours") int workHours,
+                    @Param("annualLeave") int annualLeave,
+                    @Param("meal") BigDecimal meal,
+                    @Param("trial") BigDecimal trial,
+                    @Param("payable") BigDecimal payable,
+                    @Param("late") int late,
+                    @Param("earlyLeave") int earlyLeave);
+    // số ngày chuẩn / giờ chuẩn không phải bộ đếm cộng dồn: đặt lại cho cả tháng khi lịch / policy đổi
+    @Modifying
+    @Query("""
+            UPDATE AttMonthSummary ams SET
+                ams.dayStandard = :dayStandard,
+                ams.standardHoursPerDay = :standardHoursPerDay
+            WHERE ams.month = :month
+              AND (ams.dayStandard <> :dayStandard OR ams.standardHoursPerDay <> :standardHoursPerDay)
+            """)
+    int updateStandards(@Param("month") LocalDate month,
+                        @Param("dayStandard") BigDecimal dayStandard,
+                        @Param("standardHoursPerDay") BigDecimal standardHoursPerDay);
+
     List<AttMonthSummary> findByUserEmployeeCodeAndMonthBetween(
             String employeeCode,
             LocalDate start,
@@ -0,0 +1,29 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.AttDayContribution;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+public interface AttMonthSummaryRepositoryCustom {
+
+    /**
+     * Cộng dồn att_daily_summary trong [from, to] của mọi nhân viên bằng 1 câu GROUP BY
+     * (cùng quy tắc với AttMonthSummaryService.createMonthSummary / AttDayContribution).
+     * Nhân viên chưa có ngày công nào trả về AttDayContribution.NONE.
+     */
+    Map<String, AttDayContribution> sumDailyByEmployee(LocalDate from, LocalDate to);
+
+    /**
+     * Các chỉ số cộng dồn đang lưu trong att_month_summary của tháng, theo nhân viên.
+     */
+    Map<String, AttDayContribution> loadCounters(LocalDate month);
+
+    /**
+     * Ghi chỉ số tháng của nhiều nhân viên bằng JDBC batch INSERT ... ON DUPLICATE KEY UPDATE
+     * (unique key employee_code + month). Trả về số nhân viên đã ghi.
+     */
+    int upsertAll(LocalDate month, BigDecimal dayStandard, BigDecimal standardHoursPerDay,
+                  Map<String, AttDayContribution> totals);
+}
@@ -0,0 +1,112 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.AttDayContribution;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class AttMonthSummaryRepositoryCustomImpl implements AttMonthSummaryRepositoryCustom {
+
+    // driver gộp lô thành INSERT nhiều dòng khi bật rewriteBatchedStatements (spring.datasource.url)
+    private static final int BATCH_SIZE = 500;
+
+    // LEFT JOIN từ user: nhân viên không có ngày công nào vẫn có dòng tháng (toàn 0) như createMonthSummary
+    private static final String SUM_SQL = """
+            SELECT u.employee_code,
+                   COALESCE(SUM(ds.ot_hour), 0),
+                   COALESCE(SUM(ds.work_hours), 0),
+                   COALESCE(SUM(LOWER(ds.leave_type_code) = 'annual'), 0),
+                   COALESCE(SUM(ds.is_day_meal = TRUE), 0),
+                   COALESCE(SUM(ds.is_trial_day = TRUE), 0),
+                   COALESCE(SUM(ds.is_count_payable_day = TRUE), 0),
+                   COALESCE(SUM(ds.is_late_counted = TRUE), 0),
+                   COALESCE(SUM(ds.is_early_leave_counted = TRUE), 0)
+            FROM `user` u
+            LEFT JOIN att_daily_summary ds
+                   ON ds.employee_code = u.employee_code
+                  AND ds.date BETWEEN ? AND ?
+            GROUP BY u.employee_code
+            """;
+
+    private static final String COUNTERS_SQL = """
+            SELECT employee_code, ot_hours, days_hours, used_leave, days_meal, days_trial, days_payable,
+                   late_count, early_leave_count
+            FROM att_month_summary
+            WHERE month = ?
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO att_month_summary (employee_code, month, day_standard, days_meal, days_trial, days_payable,
+                                           ot_hours, days_hours, used_leave, standard_hours_per_day,
+                                           late_count, early_leave_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                day_standard = VALUES(day_standard),
+                days_meal = VALUES(days_meal),
+                days_trial = VALUES(days_trial),
+                days_payable = VALUES(days_payable),
+                ot_hours = VALUES(ot_hours),
+                days_hours = VALUES(days_hours),
+                used_leave = VALUES(used_leave),
+                standard_hours_per_day = VALUES(standard_hours_per_day),
+                late_count = VALUES(late_count),
+                early_leave_count = VALUES(early_leave_count)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<String, AttDayContribution> sumDailyByEmployee(LocalDate from, LocalDate to) {
+        Map<String, AttDayContribution> totals = new LinkedHashMap<>();
+        jdbcTemplate.query(SUM_SQL, rs -> {
+            totals.put(rs.getString(1), new AttDayContribution(
+                    rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5),
+                    rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9)));
+        }, Date.valueOf(from), Date.valueOf(to));
+        return totals;
+    }
+
+    @Override
+    public Map<String, AttDayContribution> loadCounters(LocalDate month) {
+        Map<String, AttDayContribution> counters = new LinkedHashMap<>();
+        jdbcTemplate.query(COUNTERS_SQL, rs -> {
+            counters.put(rs.getString(1), new AttDayContribution(
+                    rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getBigDecimal(5).intValue(),
+                    rs.getBigDecimal(6).intValue(), rs.getBigDecimal(7).intValue(), rs.getInt(8), rs.getInt(9)));
+        }, Date.valueOf(month));
+        return counters;
+    }
+
+    @Override
+    public int upsertAll(LocalDate month, BigDecimal dayStandard, BigDecimal standardHoursPerDay,
+                         Map<String, AttDayContribution> totals) {
+        if (totals.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<String, AttDayContribution>> rows = new ArrayList<>(totals.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            AttDayContribution c = row.getValue();
+            ps.setString(1, row.getKey());
+            ps.setDate(2, Date.valueOf(month));
+            ps.setBigDecimal(3, dayStandard);
+            ps.setBigDecimal(4, BigDecimal.valueOf(c.meal()));
+            ps.setBigDecimal(5, BigDecimal.valueOf(c.trial()));
+            ps.setBigDecimal(6, BigDecimal.valueOf(c.payable()));
+            ps.setInt(7, c.otHours());
+            ps.setInt(8, c.workHours());
+            ps.setInt(9, c.annualLeave());
+            ps.setBigDecimal(10, standardHoursPerDay);
+            ps.setInt(11, c.late());
+            ps.setInt(12, c.earlyLeave());
+        });
+        return rows.size();
+    }
+}
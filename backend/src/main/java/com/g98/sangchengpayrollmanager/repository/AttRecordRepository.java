@@ -7,10 +7,11 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface AttRecordRepository extends JpaRepository<AttRecord, Integer> {
+public interface AttRecordRepository extends JpaRepository<AttRecord, Integer>, AttRecordRepositoryCustom {
 
     // Check duplicate record
     boolean existsByUserIdAndCheckTime(String userId, LocalDateTime checkTime);
@@ -19,6 +20,10 @@ public interface AttRecordRepository extends JpaRepository<AttRecord, Integer> {
     @Query("SELECT MAX(a.checkTime) FROM AttRecord a")
     LocalDateTime findLatestCheckTime();
 
+    // Mốc dự phòng khi máy chưa có dòng att_sync_state
+    @Query("SELECT MAX(a.checkTime) FROM AttRecord a WHERE a.attDeviceId = :deviceId")
+    LocalDateTime findLatestCheckTimeByDevice(Integer deviceId);
+
     // Lấy records theo nhân viên và tháng
     @Query("SELECT a FROM AttRecord a " +
             "WHERE a.userId = :userId " +
@@ -29,6 +34,9 @@ public interface AttRecordRepository extends JpaRepository<AttRecord, Integer> {
     // Lấy records theo ngày
     List<AttRecord> findByDate(LocalDate date);
 
+    // Records của 1 lô mã chấm công trong [from, to], xếp theo giờ chấm (tổng hợp công theo lô)
+    List<AttRecord> findByUserIdInAndDateBetweenOrderByCheckTime(Collection<String> userIds, LocalDate from, LocalDate to);
+
     // Lấy check-in/out của 1 nhân viên trong 1 ngày
     @Query("SELECT a FROM AttRecord a " +
             "WHERE a.userId = :userId " +
@@ -0,0 +1,16 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+
+import java.util.List;
+
+public interface AttRecordRepositoryCustom {
+
+    /**
+     * Ghi nhiều lượt chấm công bằng INSERT nhiều dòng / 1 câu lệnh.
+     * Chỉ lượt đã có (trùng unique key user_id + check_time) được bỏ qua (ON DUPLICATE KEY UPDATE id = id),
+     * lỗi khác (FK, NOT NULL, quá độ dài...) vẫn ném ra như INSERT thường.
+     * Driver mặc định báo dòng trùng là 1 dòng "found" nên không trả về số dòng mới.
+     */
+    void insertSkipDuplicates(List<AttRecord> records);
+}
@@ -0,0 +1,52 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AttRecordRepositoryCustomImpl implements AttRecordRepositoryCustom {
+
+    // 5 tham số / dòng -> 500 dòng = 2.500 tham số, còn xa giới hạn 65.535 của MySQL
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO att_record (att_device_id, user_id, check_time, date, employee_code) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?)";
+    // khác INSERT IGNORE: chỉ nuốt lỗi trùng unique key, không nuốt lỗi FK / NOT NULL / cắt dữ liệu
+    private static final String ON_DUPLICATE = " ON DUPLICATE KEY UPDATE id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertSkipDuplicates(List<AttRecord> records) {
+        for (int from = 0; from < records.size(); from += BATCH_SIZE) {
+            insertBatch(records.subList(from, Math.min(from + BATCH_SIZE, records.size())));
+        }
+    }
+
+    private void insertBatch(List<AttRecord> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> params = new ArrayList<>(batch.size() * 5);
+        for (int i = 0; i < batch.size(); i++) {
+            AttRecord record = batch.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDER);
+            params.add(record.getAttDeviceId());
+            params.add(record.getUserId());
+            params.add(Timestamp.valueOf(record.getCheckTime()));
+            // giống AttRecord.onCreate: date tách từ check_time
+            params.add(Date.valueOf(record.getDate() != null ? record.getDate() : record.getCheckTime().toLocalDate()));
+            params.add(record.getEmployeeCode());
+        }
+        sql.append(ON_DUPLICATE);
+        jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+}
@@ -3,7 +3,11 @@ package com.g98.sangchengpayrollmanager.repository;
 import com.g98.sangchengpayrollmanager.model.entity.AttSchedule;
 import com.g98.sangchengpayrollmanager.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AttScheduleRepository extends JpaRepository<AttSchedule,Integer> {
@@ -12,4 +16,15 @@ public interface AttScheduleRepository extends JpaRepository<AttSchedule,Integer
             String dayOfWeek,
             String status
     );
+
+    // lịch mọi thứ trong tuần của 1 lô nhân viên (tổng hợp công theo lô), fetch luôn shift
+    @Query("""
+            SELECT s FROM AttSchedule s
+            JOIN FETCH s.shift
+            WHERE s.user.employeeCode IN :employeeCodes
+              AND s.status = :status
+            ORDER BY s.id
+            """)
+    List<AttSchedule> findByEmployeeCodesAndStatusWithShift(@Param("employeeCodes") Collection<String> employeeCodes,
+                                                            @Param("status") String status);
 }
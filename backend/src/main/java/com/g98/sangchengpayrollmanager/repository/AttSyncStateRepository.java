@@ -0,0 +1,27 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AttSyncStateRepository extends JpaRepository<AttSyncState, Integer> {
+
+    /**
+     * Đẩy mốc của máy lên checkTime nếu lớn hơn (không bao giờ lùi), tạo dòng nếu chưa có.
+     * Pull và push cùng ghi mốc nên dùng 1 câu upsert thay vì đọc - sửa - ghi.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO att_sync_state (device_id, last_check_time, last_synced_at)
+            VALUES (:deviceId, :checkTime, NOW())
+            ON DUPLICATE KEY UPDATE
+                last_check_time = GREATEST(COALESCE(last_check_time, :checkTime), :checkTime),
+                last_synced_at  = NOW()
+            """, nativeQuery = true)
+    int advanceWatermark(Integer deviceId, LocalDateTime checkTime);
+}
@@ -0,0 +1,37 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
+import com.g98.sangchengpayrollmanager.model.entity.AttTimesheet;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface AttTimesheetRepository extends JpaRepository<AttTimesheet, Long>, AttTimesheetRepositoryCustom {
+
+    // phân trang offset (API cũ /api/attsummary), sort do Pageable truyền vào
+    @Query("""
+            SELECT new com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse(
+                t.employeeCode, t.fullName, t.positionName, t.daysHours, t.otHours, t.usedLeave)
+            FROM AttTimesheet t
+            WHERE t.month = :month
+            """)
+    Page<TimeSheetResponse> findPageByMonth(@Param("month") LocalDate month, Pageable pageable);
+
+    // prefix đã escape bằng '!' và kết thúc bằng '%'
+    @Query("""
+            SELECT new com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse(
+                t.employeeCode, t.fullName, t.positionName, t.daysHours, t.otHours, t.usedLeave)
+            FROM AttTimesheet t
+            WHERE t.month = :month
+              AND (t.employeeCode LIKE :prefix ESCAPE '!'
+                   OR t.fullName LIKE :prefix ESCAPE '!'
+                   OR t.givenName LIKE :prefix ESCAPE '!')
+            """)
+    Page<TimeSheetResponse> findPageByMonthAndPrefix(@Param("month") LocalDate month,
+                                                     @Param("prefix") String prefix,
+                                                     Pageable pageable);
+}
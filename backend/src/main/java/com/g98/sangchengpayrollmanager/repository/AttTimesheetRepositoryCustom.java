@@ -0,0 +1,51 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface AttTimesheetRepositoryCustom {
+
+    /**
+     * Làm mới dòng timesheet của các nhân viên trong tháng từ att_month_summary
+     * (INSERT ... SELECT ... ON DUPLICATE KEY UPDATE). Trả về số câu lệnh ảnh hưởng theo MySQL.
+     */
+    int refresh(LocalDate month, Collection<String> employeeCodes);
+
+    /**
+     * Làm mới cả tháng và xoá dòng không còn month summary / hồ sơ nhân viên tương ứng.
+     */
+    int refreshMonth(LocalDate month);
+
+    /**
+     * Đọc 1 trang theo keyset: các dòng đứng sau (afterName, afterCode) theo thứ tự sort, tối đa limit dòng.
+     * Không cần OFFSET nên trang sâu tốn như trang đầu.
+     */
+    List<TimeSheetResponse> seek(Seek seek, int limit);
+
+    /**
+     * Đếm số dòng khớp bộ lọc, dừng ở cap (cap <= 0 = đếm hết).
+     */
+    long count(LocalDate month, String prefix, long cap);
+
+    /**
+     * Tiền tố cho LIKE: escape ký tự đặc biệt bằng '!' (ESCAPE '!') và thêm '%'.
+     */
+    static String likePrefix(String keyword) {
+        return keyword.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    /**
+     * @param month      ngày đầu tháng
+     * @param prefix     tiền tố tìm theo mã / họ tên / tên gọi (chưa escape), null = không lọc
+     * @param byName     true = sort (full_name, employee_code), false = sort employee_code
+     * @param descending chiều sort
+     * @param afterName  full_name của dòng cuối trang trước (chỉ dùng khi byName)
+     * @param afterCode  employee_code của dòng cuối trang trước, null = trang đầu
+     */
+    record Seek(LocalDate month, String prefix, boolean byName, boolean descending,
+                String afterName, String afterCode) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AttTimesheetRepositoryCustomImpl implements AttTimesheetRepositoryCustom {
+
+    // số mã nhân viên / câu IN (...)
+    private static final int REFRESH_CHUNK = 500;
+
+    // cùng điều kiện join với query timesheet cũ (nhân viên phải có hồ sơ + chức vụ)
+    private static final String REFRESH_SQL = """
+            INSERT INTO att_timesheet (employee_code, month, full_name, given_name, position_name,
+                                       days_hours, ot_hours, used_leave, refreshed_at)
+            SELECT ams.employee_code, ams.month, u.full_name, SUBSTRING_INDEX(TRIM(u.full_name), ' ', -1), p.name,
+                   ams.days_hours, ams.ot_hours, ams.used_leave, NOW()
+            FROM att_month_summary ams
+            JOIN `user` u ON u.employee_code = ams.employee_code
+            JOIN employee_information ei ON ei.employee_code = ams.employee_code
+            JOIN position p ON p.id = ei.position_id
+            WHERE ams.month = ?
+            %s
+            ON DUPLICATE KEY UPDATE
+                full_name = VALUES(full_name),
+                given_name = VALUES(given_name),
+                position_name = VALUES(position_name),
+                days_hours = VALUES(days_hours),
+                ot_hours = VALUES(ot_hours),
+                used_leave = VALUES(used_leave),
+                refreshed_at = VALUES(refreshed_at)
+            """;
+
+    private static final String DELETE_ORPHANS_SQL = """
+            DELETE FROM att_timesheet
+            WHERE month = ?
+              AND NOT EXISTS (
+                    SELECT 1
+                    FROM att_month_summary ams
+                    JOIN employee_information ei ON ei.employee_code = ams.employee_code
+                    JOIN position p ON p.id = ei.position_id
+                    WHERE ams.month = att_timesheet.month
+                      AND ams.employee_code = att_timesheet.employee_code)
+            """;
+
+    private static final String COLUMNS = "employee_code, full_name, position_name, days_hours, ot_hours, used_leave";
+
+    // mỗi cột tìm kiếm có index (month, cột) -> LIKE 'abc%' là range scan trên index
+    private static final String[] SEARCH_COLUMNS = {"employee_code", "full_name", "given_name"};
+
+    private static final RowMapper<TimeSheetResponse> ROW_MAPPER = (rs, i) -> new TimeSheetResponse(
+            rs.getString("employee_code"),
+            rs.getString("full_name"),
+            rs.getString("position_name"),
+            rs.getInt("days_hours"),
+            rs.getInt("ot_hours"),
+            rs.getInt("used_leave"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int refresh(LocalDate month, Collection<String> employeeCodes) {
+        List<String> codes = new ArrayList<>(employeeCodes);
+        int affected = 0;
+        for (int from = 0; from < codes.size(); from += REFRESH_CHUNK) {
+            List<String> chunk = codes.subList(from, Math.min(from + REFRESH_CHUNK, codes.size()));
+            String in = "AND ams.employee_code IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            List<Object> args = new ArrayList<>(chunk.size() + 1);
+            args.add(Date.valueOf(month));
+            args.addAll(chunk);
+            affected += jdbcTemplate.update(REFRESH_SQL.formatted(in), args.toArray());
+        }
+        return affected;
+    }
+
+    @Override
+    public int refreshMonth(LocalDate month) {
+        int affected = jdbcTemplate.update(REFRESH_SQL.formatted(""), Date.valueOf(month));
+        jdbcTemplate.update(DELETE_ORPHANS_SQL, Date.valueOf(month));
+        return affected;
+    }
+
+    @Override
+    public List<TimeSheetResponse> seek(Seek seek, int limit) {
+        String order = order(seek);
+        List<Object> args = new ArrayList<>();
+
+        if (seek.prefix() == null) {
+            String sql = "SELECT " + COLUMNS + " FROM att_timesheet WHERE month = ?"
+                    + seekCondition(seek, bind(args, seek.month())) + " ORDER BY " + order + " LIMIT ?";
+            args.add(limit);
+            return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+        }
+
+        // OR giữa 3 cột không dùng được index -> UNION 3 nhánh, mỗi nhánh là 1 range scan + LIMIT
+        String like = AttTimesheetRepositoryCustom.likePrefix(seek.prefix());
+        List<String> branches = new ArrayList<>();
+        for (String column : SEARCH_COLUMNS) {
+            branches.add("(SELECT " + COLUMNS + " FROM att_timesheet WHERE month = ? AND " + column + " LIKE ? ESCAPE '!'"
+                    + seekCondition(seek, bind(args, seek.month(), like)) + " ORDER BY " + order + " LIMIT ?)");
+            args.add(limit);
+        }
+        String sql = String.join(" UNION ", branches) + " ORDER BY " + order + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public long count(LocalDate month, String prefix, long cap) {
+        String limit = cap > 0 ? " LIMIT " + cap : "";
+        List<Object> args = new ArrayList<>();
+        String inner;
+        if (prefix == null) {
+            inner = "SELECT employee_code FROM att_timesheet WHERE month = ?" + limit;
+            args.add(Date.valueOf(month));
+        } else {
+            String like = AttTimesheetRepositoryCustom.likePrefix(prefix);
+            List<String> branches = new ArrayList<>();
+            for (String column : SEARCH_COLUMNS) {
+                branches.add("(SELECT employee_code FROM att_timesheet WHERE month = ? AND " + column
+                        + " LIKE ? ESCAPE '!'" + limit + ")");
+                args.add(Date.valueOf(month));
+                args.add(like);
+            }
+            inner = String.join(" UNION ", branches) + limit;
+        }
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + inner + ") t", Long.class, args.toArray());
+        return count != null ? count : 0;
+    }
+
+    private static List<Object> bind(List<Object> args, LocalDate month, Object... more) {
+        args.add(Date.valueOf(month));
+        args.addAll(List.of(more));
+        return args;
+    }
+
+    // điều kiện "đứng sau dòng cuối trang trước"; so sánh bộ (full_name, employee_code) để MySQL dùng range trên index
+    private static String seekCondition(Seek seek, List<Object> args) {
+        if (seek.afterCode() == null) {
+            return "";
+        }
+        String op = seek.descending() ? "<" : ">";
+        if (seek.byName()) {
+            args.add(seek.afterName());
+            args.add(seek.afterCode());
+            return " AND (full_name, employee_code) " + op + " (?, ?)";
+        }
+        args.add(seek.afterCode());
+        return " AND employee_code " + op + " ?";
+    }
+
+    private static String order(Seek seek) {
+        String dir = seek.descending() ? " DESC" : " ASC";
+        return seek.byName() ? "full_name" + dir + ", employee_code" + dir : "employee_code" + dir;
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface EmployeeInformationRepository extends JpaRepository<EmployeeInformation, Integer> {
@@ -22,4 +24,12 @@ public interface EmployeeInformationRepository extends JpaRepository<EmployeeInf
         where u.employeeCode = :employeeCode
     """)
     Optional<EmployeeInformation> findByEmployeeCodeFetchAll(@Param("employeeCode") String employeeCode);
+
+    @Query("""
+        select e
+        from EmployeeInformation e
+        join fetch e.user u
+        where u.employeeCode in :employeeCodes
+    """)
+    List<EmployeeInformation> findByEmployeeCodes(@Param("employeeCodes") Collection<String> employeeCodes);
 }
@@ -11,6 +11,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,16 +43,41 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Inte
     boolean existsOverlappingLeave(@Param("empCode") String employeeCode,
                                    @Param("fromDate") LocalDate fromDate,
                                    @Param("toDate") LocalDate toDate);
+    // khoảng [from, to) trên created_date (null = không giới hạn), dùng được index created_date
     @Query("""
     SELECT lr FROM LeaveRequest lr
-    WHERE (:month IS NULL OR MONTH(lr.createdDate) = :month)
-     AND (:year IS NULL OR YEAR(lr.createdDate) = :year)
-    ORDER BY 
+    WHERE (:from IS NULL OR lr.createdDate >= :from)
+     AND (:to IS NULL OR lr.createdDate < :to)
+    ORDER BY
        CASE WHEN lr.status = 'PENDING' THEN 0 ELSE 1 END ASC,
        lr.createdDate DESC
    """)
-    Page<LeaveRequest> filterByMonthYear(
-            @Param("month") Integer month, @Param("year") Integer year, Pageable pageable);
+    Page<LeaveRequest> filterByCreatedDateRange(
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    // chỉ có tháng, không có năm -> tháng đó của mọi năm
+    @Query("""
+    SELECT lr FROM LeaveRequest lr
+    WHERE MONTH(lr.createdDate) = :month
+    ORDER BY
+       CASE WHEN lr.status = 'PENDING' THEN 0 ELSE 1 END ASC,
+       lr.createdDate DESC
+   """)
+    Page<LeaveRequest> filterByMonthOfAnyYear(@Param("month") Integer month, Pageable pageable);
+
+    default Page<LeaveRequest> filterByMonthYear(Integer month, Integer year, Pageable pageable) {
+        if (month != null && (month < 1 || month > 12)) {
+            throw new IllegalArgumentException("Tháng phải nằm trong khoảng 1-12");
+        }
+        if (year == null) {
+            return month == null
+                    ? filterByCreatedDateRange(null, null, pageable)
+                    : filterByMonthOfAnyYear(month, pageable);
+        }
+        LocalDate from = month == null ? LocalDate.of(year, 1, 1) : LocalDate.of(year, month, 1);
+        LocalDate to = month == null ? from.plusYears(1) : from.plusMonths(1);
+        return filterByCreatedDateRange(from.atStartOfDay(), to.atStartOfDay(), pageable);
+    }
 
     List<LeaveRequest> findByUser_EmployeeCode(String employeeCode);
 
@@ -68,6 +95,21 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Inte
                                                       String status
     );
 
+    // đơn nghỉ của 1 lô nhân viên giao với [fromDate, toDate] (tổng hợp công theo lô), fetch luôn leaveType
+    @Query("""
+    SELECT lr FROM LeaveRequest lr
+    JOIN FETCH lr.leaveType
+    WHERE lr.user.employeeCode IN :employeeCodes
+      AND lr.status = :status
+      AND lr.fromDate <= :toDate
+      AND (lr.toDate IS NULL OR lr.toDate >= :fromDate)
+    ORDER BY lr.id
+""")
+    List<LeaveRequest> findByEmployeeCodesOverlappingWithStatus(@Param("employeeCodes") Collection<String> employeeCodes,
+                                                                @Param("fromDate") LocalDate fromDate,
+                                                                @Param("toDate") LocalDate toDate,
+                                                                @Param("status") String status);
+
     // Check cho toàn nhân viên trong tháng
     @Query("""
     SELECT COUNT(l) > 0
@@ -93,5 +135,18 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Inte
                                       @Param("fromDate") LocalDate fromDate,
                                       @Param("toDate") LocalDate toDate);
 
+    // Lấy các nhân viên trong lô còn đơn nghỉ PENDING trong tháng
+    @Query("""
+    SELECT DISTINCT l.user.employeeCode
+    FROM LeaveRequest l
+    WHERE l.user.employeeCode IN :employeeCodes
+      AND l.fromDate <= :toDate
+      AND COALESCE(l.toDate, l.fromDate) >= :fromDate
+      AND l.status = 'PENDING'
+""")
+    List<String> findEmployeeCodesWithPendingLeaveInMonth(@Param("employeeCodes") Collection<String> employeeCodes,
+                                                          @Param("fromDate") LocalDate fromDate,
+                                                          @Param("toDate") LocalDate toDate);
+
     Optional<LeaveRequest> findByAttachmentPath(String attachmentPath);
 }
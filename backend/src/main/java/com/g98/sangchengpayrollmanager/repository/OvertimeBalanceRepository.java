@@ -6,30 +6,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
-import java.util.Optional;
 
-public interface OvertimeBalanceRepository extends JpaRepository<OvertimeBalance, Integer> {
-    Optional<OvertimeBalance> findByUserEmployeeCodeAndYearAndMonth(String employeeCode,
-                                                                    Integer year,
-                                                                    Integer month);
+public interface OvertimeBalanceRepository extends JpaRepository<OvertimeBalance, Integer>, OvertimeBalanceRepositoryCustom {
 
+    // dòng tổng năm (month = 0) + các dòng tháng của năm, theo thứ tự tháng
     @Query("""
-        SELECT COALESCE(SUM(b.hourBalance), 0)
-        FROM OvertimeBalance b
+        SELECT b FROM OvertimeBalance b
         WHERE b.user.employeeCode = :employeeCode
           AND b.year = :year
-    """)
-    Long sumYearlyBalance(@Param("employeeCode") String employeeCode,
-                             @Param("year") Integer year);
-
-    @Query("""
-        SELECT b.month, COALESCE(SUM(b.hourBalance), 0)
-        FROM OvertimeBalance b
-        WHERE b.user.employeeCode = :employeeCode
-          AND b.year = :year
-        GROUP BY b.month
         ORDER BY b.month
     """)
-    List<Object[]> sumMonthlyBalance(@Param("employeeCode") String employeeCode,
-                                     @Param("year") Integer year);
+    List<OvertimeBalance> findByEmployeeCodeAndYear(@Param("employeeCode") String employeeCode,
+                                                    @Param("year") Integer year);
 }
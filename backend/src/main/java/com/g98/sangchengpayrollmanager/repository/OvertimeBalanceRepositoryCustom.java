@@ -0,0 +1,24 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+public interface OvertimeBalanceRepositoryCustom {
+
+    /**
+     * Cộng delta vào dòng tháng và dòng tổng năm của sổ OT trong 1 câu INSERT ... ON DUPLICATE KEY UPDATE
+     * (tạo dòng nếu chưa có). Dòng bị khoá tới hết transaction -> các đơn cùng tháng của nhân viên xếp hàng.
+     */
+    void addHours(String employeeCode, int year, int month, int pendingDelta, int approvedDelta);
+
+    /**
+     * Giờ OT của 1 dòng sổ, đọc thẳng từ DB (không qua persistence context); chưa có dòng = Hours.NONE.
+     */
+    Hours loadHours(String employeeCode, int year, int month);
+
+    record Hours(int pending, int approved) {
+        public static final Hours NONE = new Hours(0, 0);
+
+        // giờ đã chiếm hạn mức (chờ duyệt + đã duyệt)
+        public int booked() {
+            return pending + approved;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.OvertimeBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class OvertimeBalanceRepositoryCustomImpl implements OvertimeBalanceRepositoryCustom {
+
+    private static final String ADD_SQL = """
+            INSERT INTO overtime_balance (employee_code, year, month, pending_hours, hour_balance)
+            VALUES (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                pending_hours = pending_hours + VALUES(pending_hours),
+                hour_balance = hour_balance + VALUES(hour_balance),
+                version = version + 1
+            """;
+
+    private static final String LOAD_SQL = """
+            SELECT pending_hours, hour_balance
+            FROM overtime_balance
+            WHERE employee_code = ? AND year = ? AND month = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addHours(String employeeCode, int year, int month, int pendingDelta, int approvedDelta) {
+        jdbcTemplate.update(ADD_SQL,
+                employeeCode, year, month, pendingDelta, approvedDelta,
+                employeeCode, year, OvertimeBalance.YEAR_TOTAL, pendingDelta, approvedDelta);
+    }
+
+    @Override
+    public Hours loadHours(String employeeCode, int year, int month) {
+        List<Hours> rows = jdbcTemplate.query(LOAD_SQL,
+                (rs, i) -> new Hours(rs.getInt(1), rs.getInt(2)),
+                employeeCode, year, month);
+        return rows.isEmpty() ? Hours.NONE : rows.get(0);
+    }
+}
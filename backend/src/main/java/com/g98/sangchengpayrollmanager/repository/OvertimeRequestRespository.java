@@ -13,6 +13,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,23 +37,65 @@ import java.util.Optional;
 
     Page<OvertimeRequest> findByStatus(String status, Pageable pageable);
 
+    // đơn OT của 1 lô nhân viên bắt đầu trong [from, to) (tổng hợp công theo lô), xếp theo giờ bắt đầu
+    @Query("""
+        SELECT ot FROM OvertimeRequest ot
+        WHERE ot.user.employeeCode IN :employeeCodes
+          AND ot.status = :status
+          AND ot.fromTime >= :from
+          AND ot.fromTime < :to
+        ORDER BY ot.fromTime
+    """)
+    List<OvertimeRequest> findByEmployeeCodesAndFromTimeRangeAndStatus(
+            @Param("employeeCodes") Collection<String> employeeCodes,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("status") String status);
+
     Page<OvertimeRequest> findByUser_EmployeeCode(String employeeCode, Pageable pageable);
 
-    // tìm theo lịch
+    // tìm theo lịch: khoảng [from, to) trên ot_date (null = không giới hạn), dùng được index ot_date
     @Query("""
             SELECT o
            FROM OvertimeRequest o
-           WHERE (:month IS NULL OR FUNCTION('month', o.otDate) = :month)
-             AND (:year  IS NULL OR FUNCTION('year',  o.otDate) = :year)
+           WHERE (:from IS NULL OR o.otDate >= :from)
+             AND (:to   IS NULL OR o.otDate <  :to)
            ORDER BY
                CASE
                    WHEN o.status = 'PENDING' THEN 0 ELSE 1
                END ASC,
                o.createdDateOT DESC
            """)
-    Page<OvertimeRequest> filterByMonthYear(@Param("month") Integer month,
-                                            @Param("year") Integer year,
-                                            Pageable pageable);
+    Page<OvertimeRequest> filterByOtDateRange(@Param("from") LocalDate from,
+                                              @Param("to") LocalDate to,
+                                              Pageable pageable);
+
+    // chỉ có tháng, không có năm -> tháng đó của mọi năm, không quy được về 1 khoảng ngày
+    @Query("""
+            SELECT o
+           FROM OvertimeRequest o
+           WHERE FUNCTION('month', o.otDate) = :month
+           ORDER BY
+               CASE
+                   WHEN o.status = 'PENDING' THEN 0 ELSE 1
+               END ASC,
+               o.createdDateOT DESC
+           """)
+    Page<OvertimeRequest> filterByMonthOfAnyYear(@Param("month") Integer month, Pageable pageable);
+
+    default Page<OvertimeRequest> filterByMonthYear(Integer month, Integer year, Pageable pageable) {
+        if (month != null && (month < 1 || month > 12)) {
+            throw new IllegalArgumentException("Tháng phải nằm trong khoảng 1-12");
+        }
+        if (year == null) {
+            return month == null
+                    ? filterByOtDateRange(null, null, pageable)
+                    : filterByMonthOfAnyYear(month, pageable);
+        }
+        LocalDate from = month == null ? LocalDate.of(year, 1, 1) : LocalDate.of(year, month, 1);
+        LocalDate to = month == null ? from.plusYears(1) : from.plusMonths(1);
+        return filterByOtDateRange(from, to, pageable);
+    }
 
     // search
     @Query("""
@@ -65,31 +108,6 @@ import java.util.Optional;
             @Param("keyword") String keyword, Pageable pageable);
 
 
-    //tinhs tổng số giờ trong tháng
-    @Query("""
-    SELECT COALESCE(SUM(o.workedTime), 0)
-    FROM OvertimeRequest o
-    WHERE o.user.employeeCode = :empCode
-      AND o.otDate BETWEEN :monthStart AND :monthEnd
-      AND o.status IN ('PENDING', 'APPROVED')
-   """)
-    int sumWorkedHoursInMonth(@Param("empCode") String empCode,
-                              @Param("monthStart") LocalDate monthStart,
-                              @Param("monthEnd") LocalDate monthEnd);
-
-
-    @Query("""
-    SELECT COALESCE(SUM(o.workedTime), 0)
-    FROM OvertimeRequest o
-    WHERE o.user.employeeCode = :empCode
-     AND o.otDate BETWEEN :monthStart AND :monthEnd
-     AND o.status = 'APPROVED'
-""")
-    int sumApprovedWorkedHoursInMonth(@Param("empCode") String empCode,
-                                      @Param("monthStart") LocalDate monthStart,
-                                      @Param("monthEnd") LocalDate monthEnd);
-
-
     // đếm để tránh bị trunùng
     @Query("""
        SELECT COUNT(o) > 0
@@ -107,17 +125,6 @@ import java.util.Optional;
 
     Integer id(Integer id);
 
-    @Query("""
-       SELECT COALESCE(SUM(o.workedTime), 0)
-       FROM OvertimeRequest o
-       WHERE o.user.employeeCode = :empCode
-         AND o.otDate BETWEEN :yearStart AND :yearEnd
-         AND o.status = 'APPROVED'
-       """)
-    int sumWorkedHoursInYear(@Param("empCode") String empCode,
-                             @Param("yearStart") LocalDate yearStart,
-                             @Param("yearEnd") LocalDate yearEnd);
-
     // Check cho nhân viên trong tháng
     @Query("""
     SELECT COUNT(o) > 0
@@ -131,6 +138,19 @@ import java.util.Optional;
                                                     @Param("toDate") LocalDate toDate,
                                                     @Param("status") String status);
 
+    // Lấy các nhân viên trong lô có đơn OT ở trạng thái :status trong khoảng ngày
+    @Query("""
+    SELECT DISTINCT o.user.employeeCode
+    FROM OvertimeRequest o
+    WHERE o.user.employeeCode IN :employeeCodes
+      AND o.otDate BETWEEN :fromDate AND :toDate
+      AND o.status = :status
+""")
+    List<String> findEmployeeCodesWithOtDateRangeAndStatus(@Param("employeeCodes") Collection<String> employeeCodes,
+                                                           @Param("fromDate") LocalDate fromDate,
+                                                           @Param("toDate") LocalDate toDate,
+                                                           @Param("status") String status);
+
     // Check cho toàn bộ nhân viên
     @Query("""
     SELECT COUNT(o) > 0
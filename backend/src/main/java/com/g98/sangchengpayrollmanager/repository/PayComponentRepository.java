@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,21 @@ public interface PayComponentRepository extends JpaRepository<PayComponent, Inte
             @Param("periodEnd") LocalDate periodEnd
     );
 
+    // bản set-based của findActive: fetch luôn type + policy để tính ngoài session
+    @Query("""
+            SELECT pc FROM PayComponent pc
+            LEFT JOIN FETCH pc.type t
+            LEFT JOIN FETCH t.policy
+            WHERE pc.user.employeeCode IN :employeeCodes
+              AND pc.startDate <= :periodEnd
+              AND (pc.endDate IS NULL OR pc.endDate >= :periodStart)
+            """)
+    List<PayComponent> findActiveByEmployeeCodes(
+            @Param("employeeCodes") Collection<String> employeeCodes,
+            @Param("periodStart") LocalDate periodStart,
+            @Param("periodEnd") LocalDate periodEnd
+    );
+
     List<PayComponent> findByUserEmployeeCodeOrderByStartDateDesc(String employeeCode);
 
     @Query("SELECT pc FROM PayComponent pc " +
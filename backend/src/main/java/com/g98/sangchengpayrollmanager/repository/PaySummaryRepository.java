@@ -6,13 +6,19 @@ import com.g98.sangchengpayrollmanager.util.PayrollRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaySummaryRepository extends JpaRepository<PaySummary,Integer> {
@@ -82,10 +88,41 @@ public interface PaySummaryRepository extends JpaRepository<PaySummary,Integer>
         FROM PaySummary ps
         JOIN ps.user u
         JOIN EmployeeInformation ei ON ei.user = u
-        WHERE FUNCTION('YEAR', ps.date)  = FUNCTION('YEAR', :month)
-          AND FUNCTION('MONTH', ps.date) = FUNCTION('MONTH', :month)
+        WHERE ps.date >= :monthStart
+          AND ps.date <  :nextMonthStart
     """)
-    List<PayrollRecord> findPayrollRecordsByMonth(@Param("month") LocalDate month);
+    List<PayrollRecord> findPayrollRecordsBetween(@Param("monthStart") LocalDate monthStart,
+                                                  @Param("nextMonthStart") LocalDate nextMonthStart);
+
+    // [đầu tháng, đầu tháng sau) thay cho YEAR()/MONTH() để MySQL dùng được index trên pay_summary.date
+    default List<PayrollRecord> findPayrollRecordsByMonth(LocalDate month) {
+        LocalDate monthStart = month.withDayOfMonth(1);
+        return findPayrollRecordsBetween(monthStart, monthStart.plusMonths(1));
+    }
+
+    // như trên nhưng đọc dần từng dòng (MySQL streaming result set), gọi trong transaction và nhớ close()
+    @Query("""
+        SELECT new com.g98.sangchengpayrollmanager.util.PayrollRecord(
+            u.fullName,
+            null,
+            ps.netSalary,
+            ei.bankNumber
+        )
+        FROM PaySummary ps
+        JOIN ps.user u
+        JOIN EmployeeInformation ei ON ei.user = u
+        WHERE ps.date >= :monthStart
+          AND ps.date <  :nextMonthStart
+        ORDER BY ps.id
+    """)
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    Stream<PayrollRecord> streamPayrollRecordsBetween(@Param("monthStart") LocalDate monthStart,
+                                                      @Param("nextMonthStart") LocalDate nextMonthStart);
+
+    default Stream<PayrollRecord> streamPayrollRecordsByMonth(LocalDate month) {
+        LocalDate monthStart = month.withDayOfMonth(1);
+        return streamPayrollRecordsBetween(monthStart, monthStart.plusMonths(1));
+    }
 
     List<PaySummary> findByUserEmployeeCodeAndDateBetweenAndStatus(
             String employeeCode,
@@ -93,4 +130,60 @@ public interface PaySummaryRepository extends JpaRepository<PaySummary,Integer>
             LocalDate end,
             String status
     );
+
+    // đánh dấu các bảng lương DRAFT trong [from, to) cần tính lại (bảng đã chốt không bị đụng tới);
+    // đầu vào mới có thể gỡ được lỗi lần trước -> thử lại ngay
+    @Modifying
+    @Query("""
+        UPDATE PaySummary ps
+        SET ps.dirty = true, ps.recomputeAttempts = 0, ps.recomputeAfter = NULL, ps.recomputeError = NULL
+        WHERE ps.user.employeeCode = :employeeCode
+          AND ps.status = 'DRAFT'
+          AND ps.date >= :from
+          AND ps.date <  :to
+    """)
+    int markDirty(@Param("employeeCode") String employeeCode,
+                  @Param("from") LocalDate from,
+                  @Param("to") LocalDate to);
+
+    // bảng lỗi quá maxAttempts lần giữ dirty nhưng không tự thử lại, chờ đầu vào đổi / HR tính lại
+    @Query("""
+        SELECT ps.id FROM PaySummary ps
+        WHERE ps.dirty = true
+          AND ps.status = 'DRAFT'
+          AND ps.recomputeAttempts < :maxAttempts
+          AND (ps.recomputeAfter IS NULL OR ps.recomputeAfter <= :now)
+        ORDER BY ps.id
+    """)
+    List<Integer> findDirtyDraftIds(@Param("maxAttempts") int maxAttempts,
+                                    @Param("now") LocalDateTime now,
+                                    Pageable pageable);
+
+    // nhận 1 bảng lương dirty để tính lại; 0 = instance khác đã nhận
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaySummary ps SET ps.dirty = false WHERE ps.id = :id AND ps.dirty = true")
+    int claimDirty(@Param("id") Integer id);
+
+    // tính lại lỗi: đánh dấu lại để thử sau (không ghi đè nếu markDirty mới đã reset số lần lỗi)
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE PaySummary ps
+        SET ps.dirty = true, ps.recomputeAttempts = ps.recomputeAttempts + 1,
+            ps.recomputeAfter = :retryAfter, ps.recomputeError = :error
+        WHERE ps.id = :id AND ps.dirty = false
+    """)
+    int markRecomputeFailed(@Param("id") Integer id,
+                            @Param("retryAfter") LocalDateTime retryAfter,
+                            @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE PaySummary ps
+        SET ps.recomputeAttempts = 0, ps.recomputeAfter = NULL, ps.recomputeError = NULL
+        WHERE ps.id = :id
+    """)
+    int clearRecomputeFailure(@Param("id") Integer id);
 }
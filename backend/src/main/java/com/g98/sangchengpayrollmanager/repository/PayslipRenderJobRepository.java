@@ -0,0 +1,71 @@
+package com.g98.sangchengpayrollmanager.repository;
+
+import com.g98.sangchengpayrollmanager.model.entity.PayslipRenderJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PayslipRenderJobRepository extends JpaRepository<PayslipRenderJob, Long> {
+
+    @Query("""
+        SELECT j FROM PayslipRenderJob j
+        WHERE j.status = 'PENDING'
+          AND j.nextAttemptAt <= :now
+        ORDER BY j.nextAttemptAt ASC
+    """)
+    List<PayslipRenderJob> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // đưa job đã có về PENDING (tính lại lương); 0 = chưa có dòng
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE PayslipRenderJob j
+        SET j.status = 'PENDING', j.attempts = 0, j.lastError = NULL,
+            j.nextAttemptAt = :now, j.updatedAt = :now, j.version = j.version + 1
+        WHERE j.employeeCode = :employeeCode AND j.month = :month
+    """)
+    int requeue(@Param("employeeCode") String employeeCode, @Param("month") LocalDate month,
+                @Param("now") LocalDateTime now);
+
+    // giành quyền xử lý job: chỉ 1 luồng/instance update được (trả về 1), version sau khi claim = version + 1
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE PayslipRenderJob j
+        SET j.status = 'RUNNING', j.updatedAt = :now, j.version = j.version + 1
+        WHERE j.id = :id AND j.status = 'PENDING' AND j.version = :version
+    """)
+    int claim(@Param("id") Long id, @Param("version") Long version, @Param("now") LocalDateTime now);
+
+    // kết thúc lượt render đã claim; 0 = job đã bị enqueue lại / requeue trong lúc render
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE PayslipRenderJob j
+        SET j.status = :status, j.attempts = j.attempts + 1, j.lastError = :lastError,
+            j.nextAttemptAt = :nextAttemptAt, j.updatedAt = :now, j.version = j.version + 1
+        WHERE j.id = :id AND j.status = 'RUNNING' AND j.version = :version
+    """)
+    int finish(@Param("id") Long id, @Param("version") Long version, @Param("status") String status,
+               @Param("lastError") String lastError, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+               @Param("now") LocalDateTime now);
+
+    // job RUNNING quá lâu (instance chạy nó đã tắt giữa chừng) -> trả về PENDING
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE PayslipRenderJob j
+        SET j.status = 'PENDING', j.nextAttemptAt = :now, j.updatedAt = :now, j.version = j.version + 1
+        WHERE j.status = 'RUNNING' AND j.updatedAt < :staleBefore
+    """)
+    int requeueStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    long countByMonthAndStatus(LocalDate month, String status);
+}
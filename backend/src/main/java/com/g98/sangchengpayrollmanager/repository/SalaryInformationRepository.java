@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface SalaryInformationRepository extends JpaRepository<SalaryInformation, Integer> {
@@ -19,6 +20,18 @@ public interface SalaryInformationRepository extends JpaRepository<SalaryInforma
             """)
     List<SalaryInformation> findActiveByEmployeeCode(@Param("employeeCode") String employeeCode, @Param("monthStart") LocalDate monthStart, @Param("monthEnd") LocalDate monthEnd);
 
+    // bản set-based của findActiveByEmployeeCode cho payroll run (1 query / lô nhân viên)
+    @Query("""
+                SELECT s FROM SalaryInformation s
+                JOIN FETCH s.user u
+                WHERE u.employeeCode IN :employeeCodes
+                  AND (
+                        (s.effectiveTo >= :monthStart AND s.effectiveTo <= :monthEnd)
+                        OR (s.effectiveTo is null AND s.effectiveFrom <= :monthEnd)
+                      )
+            """)
+    List<SalaryInformation> findActiveByEmployeeCodes(@Param("employeeCodes") Collection<String> employeeCodes, @Param("monthStart") LocalDate monthStart, @Param("monthEnd") LocalDate monthEnd);
+
     List<SalaryInformation> findByUserEmployeeCodeOrderByEffectiveFromDesc(String employeeCode);
 
     boolean existsByUserEmployeeCode(String employeeCode);
@@ -2,13 +2,21 @@ package com.g98.sangchengpayrollmanager.repository;
 
 import com.g98.sangchengpayrollmanager.model.entity.SpecialDays;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SpecialDaysRepository extends JpaRepository<SpecialDays, Integer> {
     Optional<SpecialDays> findByDate(LocalDate date);
     boolean existsByDate(LocalDate date);
+
+    // ngày đặc biệt trong khoảng (tổng hợp công theo lô), fetch luôn dayType
+    @Query("SELECT sd FROM SpecialDays sd JOIN FETCH sd.dayType WHERE sd.date BETWEEN :fromDate AND :toDate")
+    List<SpecialDays> findByDateBetweenWithDayType(@Param("fromDate") LocalDate fromDate,
+                                                   @Param("toDate") LocalDate toDate);
 }
@@ -5,7 +5,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
@@ -22,6 +24,20 @@ public interface UserRepository extends JpaRepository<User, String> {
     @Query("SELECT u.employeeCode FROM User u WHERE u.userId = :userId")
     String findEmployeeCodeByUserId(@Param("userId") String userId);
 
+    @Query("SELECT u.userId, u.employeeCode FROM User u WHERE u.userId IS NOT NULL")
+    List<Object[]> findAllUserIdEmployeeCodePairs();
+
+    /**
+     * Map userId (mã trên máy chấm công) -> employeeCode, load 1 lần cho cả lô log chấm công
+     */
+    default Map<String, String> loadEmployeeCodeByUserId() {
+        Map<String, String> result = new HashMap<>();
+        for (Object[] row : findAllUserIdEmployeeCodePairs()) {
+            result.put((String) row[0], (String) row[1]);
+        }
+        return result;
+    }
+
     Optional<User> findByEmployeeCode(String employeeCode);
 
     Optional<User> findByEmail(String email);
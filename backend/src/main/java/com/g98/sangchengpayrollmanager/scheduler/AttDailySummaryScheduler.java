@@ -1,23 +1,19 @@
 package com.g98.sangchengpayrollmanager.scheduler;
 
-import com.g98.sangchengpayrollmanager.model.entity.User;
-import com.g98.sangchengpayrollmanager.service.AttDailySummaryService;
-import com.g98.sangchengpayrollmanager.repository.UserRepository;
+import com.g98.sangchengpayrollmanager.service.AttDailySummaryBulkService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class AttDailySummaryScheduler {
 
-    private final AttDailySummaryService attDailySummaryService;
-    private final UserRepository userRepo;
+    private final AttDailySummaryBulkService attDailySummaryBulkService;
 
     /**
      * Chạy lúc 23:55 mỗi ngày.
@@ -32,20 +28,11 @@ public class AttDailySummaryScheduler {
 
         log.info("Start generate daily summaries for date {}", date);
 
-        // Lấy danh sách nhân viên (tuỳ bạn có flag active thì dùng findByIsActiveTrue)
-        List<User> users = userRepo.findAll();
-
-        for (User user : users) {
-            String empCode = user.getEmployeeCode();
-            try {
-                attDailySummaryService.createDailySummary(empCode, date);
-            } catch (IllegalStateException ex) {
-                // Trường hợp daily summary đã tồn tại, bỏ qua
-                log.warn(ex.getMessage());
-            } catch (Exception ex) {
-                // Các lỗi khác: log lại để kiểm tra
-                log.error("Error creating daily summary for {} on {}", empCode, date, ex);
-            }
+        // cả công ty 1 lượt: vài query load dữ liệu ngày, tính trong bộ nhớ, ghi theo lô
+        try {
+            attDailySummaryBulkService.generate(date);
+        } catch (Exception ex) {
+            log.error("Error generating daily summaries on {}", date, ex);
         }
 
         log.info("Finish generate daily summaries for date {}", date);
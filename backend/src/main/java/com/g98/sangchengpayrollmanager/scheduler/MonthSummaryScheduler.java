@@ -1,15 +1,14 @@
 package com.g98.sangchengpayrollmanager.scheduler;
 
-import com.g98.sangchengpayrollmanager.model.entity.User;
-import com.g98.sangchengpayrollmanager.repository.UserRepository;
 import com.g98.sangchengpayrollmanager.service.AttMonthSummaryService;
+import com.g98.sangchengpayrollmanager.service.AttTimesheetService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -17,7 +16,11 @@ import java.util.List;
 public class MonthSummaryScheduler {
 
     private final AttMonthSummaryService attMonthSummaryService;
-    private final UserRepository userRepository;
+    private final AttTimesheetService attTimesheetService;
+
+    // lệch thì sửa luôn (cộng phần lệch), false = chỉ báo
+    @Value("${attendance.month-summary.repair-drift:true}")
+    private boolean repairDrift;
 
     /**
      * Chạy lúc 23:59 mỗi ngày
@@ -32,21 +35,23 @@ public class MonthSummaryScheduler {
 
         log.info("⏳ Running Month Summary Scheduler for date: {}", dateForSummary);
 
-        // Lấy tất cả nhân viên
-        List<User> users = userRepository.findAll();
-
-        for (User user : users) {
-            try {
-                attMonthSummaryService.createMonthSummary(
-                        user.getEmployeeCode(),
-                        dateForSummary
-                );
-                log.info("✔ Created/Updated month summary for user {}", user.getEmployeeCode());
-            } catch (Exception ex) {
-                log.error("❌ Failed for user {}: {}",
-                        user.getEmployeeCode(),
-                        ex.getMessage());
-            }
+        // công tháng được cộng dồn theo từng ngày công: ở đây chỉ đối soát với att_daily_summary và báo lệch
+        try {
+            AttMonthSummaryService.MonthDriftReport report =
+                    attMonthSummaryService.checkMonthSummaries(dateForSummary, repairDrift);
+            log.info("✔ Checked month summary for {} users: {} drifted, {} missing",
+                    report.employees(), report.drifted(), report.missing());
+        } catch (Exception ex) {
+            log.error("❌ Failed to check month summaries: {}", ex.getMessage());
+            return;
+        }
+
+        // timesheet lấy họ tên / chức vụ lúc làm mới: làm mới cả tháng để nhận thay đổi hồ sơ trong ngày
+        try {
+            attTimesheetService.refreshMonth(dateForSummary);
+        } catch (Exception ex) {
+            log.error("❌ Failed to refresh timesheet: {}", ex.getMessage());
+            return;
         }
 
         log.info("✅ Month Summary Scheduler completed.");
@@ -0,0 +1,291 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.AttDayContribution;
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+import com.g98.sangchengpayrollmanager.model.entity.AttPolicy;
+import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+import com.g98.sangchengpayrollmanager.model.entity.AttSchedule;
+import com.g98.sangchengpayrollmanager.model.entity.DayType;
+import com.g98.sangchengpayrollmanager.model.entity.LeaveRequest;
+import com.g98.sangchengpayrollmanager.model.entity.OvertimeRequest;
+import com.g98.sangchengpayrollmanager.model.entity.SpecialDays;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import com.g98.sangchengpayrollmanager.repository.AttDailySummaryRepository;
+import com.g98.sangchengpayrollmanager.repository.AttPolicyRepository;
+import com.g98.sangchengpayrollmanager.repository.AttRecordRepository;
+import com.g98.sangchengpayrollmanager.repository.AttScheduleRepository;
+import com.g98.sangchengpayrollmanager.repository.LeaveRequestRepository;
+import com.g98.sangchengpayrollmanager.repository.OvertimeRequestRespository;
+import com.g98.sangchengpayrollmanager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tổng hợp công theo lô nhân viên x khoảng ngày: load lịch, đơn nghỉ, đơn OT, chấm công
+ * và công cũ của cả lô bằng vài query (loại ngày / ngày đặc biệt lấy từ WorkCalendar),
+ * tính trong bộ nhớ (AttDailySummaryCalculator), rồi ghi bằng JDBC batch upsert. Kết quả giống gọi AttDailySummaryService.createDailySummary cho từng người, từng ngày.
+ * - plan(): load + tính, không ghi gì (transaction đọc riêng).
+ * - apply(): khoá + đọc lại công đang lưu, ghi kết quả và chênh lệch tháng, chạy trong transaction của người gọi.
+ * Dùng cho job tổng hợp hằng đêm (generate) và tổng hợp lại lịch sử (AttendanceBackfillService).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttDailySummaryBulkService {
+
+    private final UserRepository userRepo;
+    private final AttPolicyRepository attPolicyRepo;
+    private final AttScheduleRepository attScheduleRepo;
+    private final LeaveRequestRepository leaveRequestRepo;
+    private final AttRecordRepository attRecordRepo;
+    private final OvertimeRequestRespository overtimeRequestRespo;
+    private final AttDailySummaryRepository attDailySummaryRepo;
+    private final WorkCalendar workCalendar;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    // số nhân viên ghi trong 1 transaction
+    @Value("${attendance.daily-summary.chunk-size:500}")
+    private int chunkSize;
+
+    public record Result(int saved, int deleted, int skipped) {
+    }
+
+    /**
+     * Kết quả tính của 1 lô [from, to], chưa ghi. Chênh lệch so với bản đang lưu tính lúc apply.
+     */
+    public record Plan(LocalDate from,
+                       LocalDate to,
+                       List<AttDailySummary> upserts,
+                       Map<LocalDate, List<String>> deletes,
+                       int skipped,
+                       int employeeDays) {
+
+        public Result toResult() {
+            int deleted = deletes.values().stream().mapToInt(List::size).sum();
+            return new Result(upserts.size(), deleted, skipped);
+        }
+    }
+
+    /**
+     * Dữ liệu của 1 lô nhân viên trong [from, to]
+     */
+    private record Inputs(AttPolicy policy,
+                          Map<String, Map<String, AttSchedule>> schedules,
+                          Map<String, List<LeaveRequest>> leaves,
+                          Map<String, Map<LocalDate, List<AttRecord>>> records,
+                          Map<String, Map<LocalDate, List<OvertimeRequest>>> otRequests,
+                          Map<String, Map<LocalDate, AttDailySummary>> existing) {
+    }
+
+    /**
+     * Tổng hợp công 1 ngày cho cả công ty, mỗi chunk-size nhân viên 1 transaction.
+     * Thay đổi được báo cho PayrollChangeTracker (cập nhật tháng + bảng lương DRAFT) cùng transaction.
+     */
+    public Result generate(LocalDate date) {
+        List<User> users = userRepo.findAll();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        int saved = 0;
+        int deleted = 0;
+        int skipped = 0;
+        for (int from = 0; from < users.size(); from += chunkSize) {
+            List<User> chunk = users.subList(from, Math.min(from + chunkSize, users.size()));
+            Plan plan = plan(chunk, date, date);
+            tx.executeWithoutResult(status -> apply(plan));
+
+            Result result = plan.toResult();
+            saved += result.saved();
+            deleted += result.deleted();
+            skipped += result.skipped();
+        }
+        log.info("Daily summaries for {}: {} saved, {} deleted, {} skipped of {} users",
+                date, saved, deleted, skipped, users.size());
+        return new Result(saved, deleted, skipped);
+    }
+
+    /**
+     * Tính công các ngày trong [from, to] của users, không ghi DB.
+     */
+    public Plan plan(List<User> users, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Khoảng ngày không hợp lệ: " + from + " > " + to);
+        }
+        Inputs in = load(users, from, to);
+
+        List<AttDailySummary> upserts = new ArrayList<>();
+        Map<LocalDate, List<String>> deletes = new TreeMap<>();
+        int skipped = 0;
+        int employeeDays = 0;
+
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            SpecialDays specialDay = workCalendar.specialDay(date);
+            DayType dayType = workCalendar.dayType(date);
+            String dayOfWeek = date.getDayOfWeek().name();
+
+            for (User user : users) {
+                employeeDays++;
+                String code = user.getEmployeeCode();
+                LeaveRequest leave = coveringLeave(in.leaves().get(code), date);
+                AttDailySummaryCalculator.DayInput input = new AttDailySummaryCalculator.DayInput(
+                        in.policy(),
+                        dayType,
+                        specialDay,
+                        in.schedules().getOrDefault(code, Map.of()).get(dayOfWeek),
+                        leave,
+                        leave != null || user.getUserId() == null
+                                ? List.of()
+                                : in.records().getOrDefault(user.getUserId(), Map.of()).getOrDefault(date, List.of()),
+                        leave != null
+                                ? List.of()
+                                : in.otRequests().getOrDefault(code, Map.of()).getOrDefault(date, List.of()));
+
+                AttDailySummary existing = in.existing().getOrDefault(code, Map.of()).get(date);
+                AttDailySummary summary = new AttDailySummary();
+
+                switch (AttDailySummaryCalculator.calculate(user, date, input, summary)) {
+                    case SAVE -> upserts.add(summary);
+                    case UPDATE_EXISTING -> {
+                        if (existing == null) {
+                            skipped++;
+                        } else {
+                            upserts.add(summary);
+                        }
+                    }
+                    case DELETE -> {
+                        if (existing == null) {
+                            skipped++;
+                        } else {
+                            deletes.computeIfAbsent(date, k -> new ArrayList<>()).add(code);
+                        }
+                    }
+                    default -> skipped++;
+                }
+            }
+        }
+        return new Plan(from, to, upserts, deletes, skipped, employeeDays);
+    }
+
+    /**
+     * Ghi 1 plan: khoá (SELECT ... FOR UPDATE) các ngày công đang lưu của lô, upsert lô, xoá lô theo ngày,
+     * rồi báo PayrollChangeTracker tổng chênh lệch so với các dòng vừa khoá của từng nhân viên x tháng có thay đổi
+     * (cộng vào AttMonthSummary + đánh dấu bảng lương DRAFT), cùng transaction.
+     * Dòng bị sửa sau lúc plan() đọc vẫn được trừ đúng giá trị đang lưu, tháng không bị lệch.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Plan plan) {
+        Map<String, Map<LocalDate, AttDayContribution>> before = lockExisting(plan);
+        attDailySummaryRepo.upsertAll(plan.upserts());
+        plan.deletes().forEach((date, codes) -> attDailySummaryRepo.deleteByEmployeeCodesAndDate(codes, date));
+
+        // gộp theo nhân viên + tháng: backfill cả tháng chỉ 1 lần cộng / nhân viên thay vì 1 lần / ngày
+        Map<String, Map<LocalDate, AttDayContribution>> deltas = new TreeMap<>();
+        for (AttDailySummary summary : plan.upserts()) {
+            String code = summary.getUser().getEmployeeCode();
+            addDelta(deltas, code, summary.getDate(), beforeOf(before, code, summary.getDate()), AttDayContribution.of(summary));
+        }
+        plan.deletes().forEach((date, codes) -> codes.forEach(code ->
+                addDelta(deltas, code, date, beforeOf(before, code, date), AttDayContribution.NONE)));
+        deltas.forEach((code, byMonth) -> byMonth.forEach((month, delta) ->
+                eventPublisher.publishEvent(new PayrollChangeTracker.AttMonthChangedEvent(code, month, delta))));
+    }
+
+    private Map<String, Map<LocalDate, AttDayContribution>> lockExisting(Plan plan) {
+        Set<String> codes = new TreeSet<>();
+        plan.upserts().forEach(summary -> codes.add(summary.getUser().getEmployeeCode()));
+        plan.deletes().values().forEach(codes::addAll);
+        return attDailySummaryRepo.lockContributions(codes, plan.from(), plan.to());
+    }
+
+    private static AttDayContribution beforeOf(Map<String, Map<LocalDate, AttDayContribution>> before,
+                                               String code, LocalDate date) {
+        return before.getOrDefault(code, Map.of()).getOrDefault(date, AttDayContribution.NONE);
+    }
+
+    private static void addDelta(Map<String, Map<LocalDate, AttDayContribution>> deltas, String code, LocalDate date,
+                                 AttDayContribution before, AttDayContribution after) {
+        if (after.equals(before)) {
+            return;
+        }
+        deltas.computeIfAbsent(code, k -> new TreeMap<>())
+                .merge(date.withDayOfMonth(1), after.minus(before), AttDayContribution::plus);
+    }
+
+    private Inputs load(List<User> users, LocalDate from, LocalDate to) {
+        List<String> codes = users.stream().map(User::getEmployeeCode).toList();
+        List<String> userIds = users.stream().map(User::getUserId).filter(id -> id != null).toList();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> {
+            AttPolicy policy = attPolicyRepo.findFirstByApplyScopeOrderByIdAsc("ALL")
+                    .orElseThrow(() -> new IllegalStateException("No default ATT policy configured"));
+            // giống findFirstBy... / Optional từng người: mỗi nhân viên + thứ lấy bản đầu tiên
+            Map<String, Map<String, AttSchedule>> schedules = new HashMap<>();
+            Map<String, List<LeaveRequest>> leaves = new HashMap<>();
+            Map<String, Map<LocalDate, List<OvertimeRequest>>> otRequests = new HashMap<>();
+            Map<String, Map<LocalDate, AttDailySummary>> existing = new HashMap<>();
+            Map<String, Map<LocalDate, List<AttRecord>>> records = new HashMap<>();
+            if (codes.isEmpty()) {
+                return new Inputs(policy, schedules, leaves, records, otRequests, existing);
+            }
+
+            for (AttSchedule schedule : attScheduleRepo.findByEmployeeCodesAndStatusWithShift(codes, "ACTIVE")) {
+                schedules.computeIfAbsent(schedule.getUser().getEmployeeCode(), k -> new HashMap<>())
+                        .putIfAbsent(schedule.getDayOfWeek(), schedule);
+            }
+            for (LeaveRequest leave : leaveRequestRepo.findByEmployeeCodesOverlappingWithStatus(
+                    codes, from, to, "APPROVED")) {
+                leaves.computeIfAbsent(leave.getUser().getEmployeeCode(), k -> new ArrayList<>()).add(leave);
+            }
+            for (OvertimeRequest ot : overtimeRequestRespo.findByEmployeeCodesAndFromTimeRangeAndStatus(
+                    codes, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), "APPROVED")) {
+                otRequests.computeIfAbsent(ot.getUser().getEmployeeCode(), k -> new HashMap<>())
+                        .computeIfAbsent(ot.getFromTime().toLocalDate(), k -> new ArrayList<>())
+                        .add(ot);
+            }
+            for (AttDailySummary summary : attDailySummaryRepo.findByEmployeeCodesAndDateBetween(codes, from, to)) {
+                existing.computeIfAbsent(summary.getUser().getEmployeeCode(), k -> new HashMap<>())
+                        .put(summary.getDate(), summary);
+            }
+            if (!userIds.isEmpty()) {
+                for (AttRecord record : attRecordRepo.findByUserIdInAndDateBetweenOrderByCheckTime(userIds, from, to)) {
+                    records.computeIfAbsent(record.getUserId(), k -> new HashMap<>())
+                            .computeIfAbsent(record.getDate(), k -> new ArrayList<>())
+                            .add(record);
+                }
+            }
+            return new Inputs(policy, schedules, leaves, records, otRequests, existing);
+        });
+    }
+
+    // đơn nghỉ đầu tiên (theo id) phủ ngày date
+    private static LeaveRequest coveringLeave(List<LeaveRequest> leaves, LocalDate date) {
+        if (leaves == null) {
+            return null;
+        }
+        for (LeaveRequest leave : leaves) {
+            if (!leave.getFromDate().isAfter(date)
+                    && (leave.getToDate() == null || !leave.getToDate().isBefore(date))) {
+                return leave;
+            }
+        }
+        return null;
+    }
+}
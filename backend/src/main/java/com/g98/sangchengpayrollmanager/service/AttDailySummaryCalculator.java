@@ -0,0 +1,269 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+import com.g98.sangchengpayrollmanager.model.entity.AttPolicy;
+import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+import com.g98.sangchengpayrollmanager.model.entity.AttSchedule;
+import com.g98.sangchengpayrollmanager.model.entity.DayType;
+import com.g98.sangchengpayrollmanager.model.entity.LeaveRequest;
+import com.g98.sangchengpayrollmanager.model.entity.OvertimeRequest;
+import com.g98.sangchengpayrollmanager.model.entity.Shift;
+import com.g98.sangchengpayrollmanager.model.entity.SpecialDays;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Quy tắc tổng hợp công 1 ngày của 1 nhân viên trên dữ liệu đã load sẵn, không query DB.
+ * Dùng chung cho tổng hợp từng người (AttDailySummaryService) và cả công ty 1 lượt (AttDailySummaryBulkService).
+ */
+public final class AttDailySummaryCalculator {
+
+    public enum Outcome {
+        // tạo mới / ghi đè daily summary
+        SAVE,
+        // chỉ sửa bản đã có, không tạo mới (ngày OT ngoài lịch nhưng không có chấm công)
+        UPDATE_EXISTING,
+        // xoá bản đã có (nghỉ phép rơi vào cuối tuần / ngày đặc biệt)
+        DELETE,
+        // ngày nghỉ bình thường: không lịch, không OT, không phải ngày đặc biệt
+        NONE
+    }
+
+    /**
+     * Dữ liệu 1 ngày của 1 nhân viên. records xếp theo check_time, otRequests theo from_time;
+     * dayType đã xác định (của specialDay nếu có, không thì Working Day / Weekend).
+     */
+    public record DayInput(AttPolicy policy,
+                           DayType dayType,
+                           SpecialDays specialDay,
+                           AttSchedule schedule,
+                           LeaveRequest leaveRequest,
+                           List<AttRecord> records,
+                           List<OvertimeRequest> otRequests) {
+    }
+
+    private AttDailySummaryCalculator() {
+    }
+
+    /**
+     * Tên DayType mặc định khi ngày không phải ngày đặc biệt (đúng như data trong DB)
+     */
+    public static String defaultDayTypeName(LocalDate date) {
+        boolean isWeekend = date.getDayOfWeek().getValue() >= 6; // 6 = SAT, 7 = SUN
+        return isWeekend ? "Weekend" : "Working Day";
+    }
+
+    /**
+     * Tính công vào target. Outcome NONE / DELETE thì target không bị sửa.
+     */
+    public static Outcome calculate(User user, LocalDate date, DayInput in, AttDailySummary target) {
+        AttPolicy policy = in.policy();
+        DayType dayType = in.dayType();
+        SpecialDays specialDay = in.specialDay();
+        AttSchedule schedule = in.schedule();
+        List<AttRecord> records = in.records();
+        List<OvertimeRequest> otRequests = in.otRequests();
+
+        Shift shift = schedule != null ? schedule.getShift() : null;
+        LocalDateTime shiftStart = null;
+        LocalDateTime shiftEnd = null;
+        int breakMinutes = 0;
+        if (shift != null && shift.getStartTime() != null && shift.getEndTime() != null) {
+            shiftStart = LocalDateTime.of(date, shift.getStartTime());
+            shiftEnd = LocalDateTime.of(date, shift.getEndTime());
+            breakMinutes = shift.getBreakMinutes() != null ? shift.getBreakMinutes() : 0;
+        }
+
+        // Đơn nghỉ đã duyệt trong ngày
+        LeaveRequest leaveRequest = in.leaveRequest();
+        if (leaveRequest != null) {
+            String leaveTypeCode = leaveRequest.getLeaveType().getCode();
+            boolean sickOrMaternity = leaveTypeCode.equalsIgnoreCase("sick")
+                    || leaveTypeCode.equalsIgnoreCase("maternity");
+            if (!sickOrMaternity && (dayType.getName().equalsIgnoreCase("Weekend") || specialDay != null)) {
+                return Outcome.DELETE;
+            }
+
+            target.setUser(user);
+            target.setDate(date);
+            target.setWorkHours(0);
+            target.setOtHour(0);
+            target.setDayType(dayType);
+            target.setIsDayMeal(false);
+            target.setIsTrialDay(false);
+            target.setCheckInTime(null);
+            target.setCheckOutTime(null);
+            target.setLateMinutes(0);
+            target.setIsLateCounted(false);
+            target.setEarlyLeaveMinutes(0);
+            target.setIsEarlyLeaveCounted(false);
+            target.setLeaveTypeCode(leaveTypeCode);
+            target.setIsAbsent(false);
+
+            // neu la nghi co luong
+            if (leaveRequest.getIsPaidLeave()) {
+                target.setWorkHours(policy.getStandardHoursPerDay());
+                target.setIsPayableDay(true);
+                target.setIsCountPayableDay(!sickOrMaternity);
+            } else {
+                target.setIsPayableDay(false);
+                target.setIsCountPayableDay(false);
+            }
+            return Outcome.SAVE;
+        }
+
+        if (schedule == null && otRequests.isEmpty() && specialDay == null) {
+            // ngày nghỉ bình thuong: không có schedule, không có ot request, không phải special day(nghỉ lễ có lương)
+            return Outcome.NONE;
+        }
+
+        LocalDateTime checkInTime = null;
+        LocalDateTime checkOutTime = null;
+        int workHours = 0;
+        int otHour = 0;
+        int lateMinutes = 0;
+        int earlyLeaveMinutes = 0;
+        boolean isLateCounted = false;
+        boolean isEarlyLeaveCounted = false;
+        boolean isDayMeal = false;
+        boolean isPayableDay = false;
+        boolean isCountPayableDay = false;
+        boolean isAbsent = false;
+
+        if (!records.isEmpty()) {
+            // Có chấm công
+            checkInTime = records.get(0).getCheckTime();
+            checkOutTime = records.get(records.size() - 1).getCheckTime();
+
+            // coi như không checkout nếu record cuối quá sát record đầu (VD <= 15 phút)
+            boolean missingCheckout = schedule != null && shiftEnd != null
+                    && Duration.between(checkInTime, checkOutTime).toMinutes() <= 15;
+
+            if (missingCheckout) {
+                checkOutTime = null;
+            } else {
+                LocalDateTime workFrom = checkInTime;
+                LocalDateTime workTo = checkOutTime;
+                if (shiftStart != null && shiftEnd != null) {
+                    //khi có shift
+                    if (checkInTime.isBefore(shiftStart)) workFrom = shiftStart;
+                    if (checkOutTime.isAfter(shiftEnd)) workTo = shiftEnd;
+                }
+                int workMinutes = (int) Duration.between(workFrom, workTo).toMinutes() - breakMinutes;
+                if (workMinutes > 0) {
+                    workHours = roundMinutesToHours(workMinutes, policy.getOtRoundingUnitMinutes());
+                }
+
+                // CHỈ cap khi có schedule (ngày làm việc bình thường)
+                if (schedule != null && workHours >= policy.getStandardHoursPerDay()) {
+                    workHours = policy.getStandardHoursPerDay();
+                }
+
+                if (!otRequests.isEmpty()) {
+                    // from/to tổng: request đầu tiên và cuối cùng trong ngày
+                    LocalDateTime firstFrom = otRequests.get(0).getFromTime();
+                    LocalDateTime lastTo = otRequests.get(otRequests.size() - 1).getToTime();
+
+                    if (schedule == null) {
+                        // không phải ngày công chuẩn và đăng ký OT -> OT theo chấm công trong khoảng đăng ký
+                        LocalDateTime otFrom = checkInTime.isAfter(firstFrom) ? checkInTime : firstFrom;
+                        LocalDateTime otTo = checkOutTime.isBefore(lastTo) ? checkOutTime : lastTo;
+                        otHour = otHours(otFrom, otTo, policy);
+                        workHours = 0;
+                    } else if (shiftEnd != null) {
+                        // ngày công chuẩn: OT chỉ tính sau khi hết giờ làm chuẩn, không vượt quá giờ chấm ra
+                        LocalDateTime otFrom = firstFrom.isAfter(shiftEnd) ? firstFrom : shiftEnd;
+                        LocalDateTime otTo = lastTo.isBefore(checkOutTime) ? lastTo : checkOutTime;
+                        otHour = otHours(otFrom, otTo, policy);
+                    }
+                }
+
+                // Tính đi muộn / về sớm nếu có shift
+                if (shiftStart != null && shiftEnd != null) {
+                    if (checkInTime.isAfter(shiftStart)) {
+                        lateMinutes = (int) Duration.between(shiftStart, checkInTime).toMinutes();
+                    }
+                    if (checkOutTime.isBefore(shiftEnd)) {
+                        earlyLeaveMinutes = (int) Duration.between(checkOutTime, shiftEnd).toMinutes();
+                    }
+                }
+            }
+
+            // Áp policy cho late / early
+            if (lateMinutes > policy.getLateGraceMinutes()) {
+                isLateCounted = true;
+            } else {
+                lateMinutes = 0;
+            }
+            if (earlyLeaveMinutes > policy.getEarlyGraceMinutes()) {
+                isEarlyLeaveCounted = true;
+            } else {
+                earlyLeaveMinutes = 0;
+            }
+
+            // Quyết định có được tính full luong ngày theo late/early
+            isPayableDay = !isLateCounted && !isEarlyLeaveCounted && workHours >= policy.getMinHoursForFullDay();
+            // Quyết định co tính công cơm
+            isDayMeal = workHours >= policy.getMinHoursForMeal();
+            //Quyết định có tính ngày công thực te
+            isCountPayableDay = workHours >= policy.getMinHoursForPayable();
+
+        } else {
+            // không co du lieu cham cong
+            if (specialDay != null) {
+                // ngay dac biet: nghỉ lễ co lương
+                isPayableDay = true;
+                isCountPayableDay = true;
+            }
+            if (specialDay == null && schedule != null) {
+                // co lich lam viec va khong phải là ngày đac biet
+                isAbsent = true;
+            }
+        }
+
+        // Nếu là ngày lễ → luôn tính công, bất kể record hay giờ giấc
+        if (specialDay != null) {
+            isCountPayableDay = true;
+        }
+
+        target.setUser(user);
+        target.setDate(date);
+        target.setWorkHours(workHours);
+        target.setOtHour(otHour);
+        target.setIsDayMeal(isDayMeal);
+        // Trial day: tạm chưa xu ly de la false
+        target.setIsTrialDay(false);
+        target.setIsPayableDay(isPayableDay);
+        target.setIsCountPayableDay(isCountPayableDay);
+        target.setDayType(dayType);
+        target.setCheckInTime(checkInTime);
+        target.setCheckOutTime(checkOutTime);
+        target.setLateMinutes(lateMinutes);
+        target.setIsLateCounted(isLateCounted);
+        target.setEarlyLeaveMinutes(earlyLeaveMinutes);
+        target.setIsEarlyLeaveCounted(isEarlyLeaveCounted);
+        target.setLeaveTypeCode(null);
+        target.setIsAbsent(isAbsent);
+
+        if (!otRequests.isEmpty() && schedule == null && records.isEmpty()) {
+            return Outcome.UPDATE_EXISTING;
+        }
+        return Outcome.SAVE;
+    }
+
+    private static int otHours(LocalDateTime from, LocalDateTime to, AttPolicy policy) {
+        if (!to.isAfter(from)) {
+            return 0;
+        }
+        return roundMinutesToHours((int) Duration.between(from, to).toMinutes(), policy.getOtRoundingUnitMinutes());
+    }
+
+    static int roundMinutesToHours(int minutes, int unitMinutes) {
+        if (minutes <= 0) return 0;
+        return (int) Math.ceil((double) minutes / unitMinutes) * unitMinutes / 60;
+    }
+}
@@ -1,7 +1,7 @@
 package com.g98.sangchengpayrollmanager.service;
 
+import com.g98.sangchengpayrollmanager.model.dto.attendant.AttDayContribution;
 import com.g98.sangchengpayrollmanager.model.dto.attendant.response.AttMonthSummaryResponse;
-import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
 import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
 import com.g98.sangchengpayrollmanager.model.entity.AttMonthSummary;
 import com.g98.sangchengpayrollmanager.model.entity.AttPolicy;
@@ -12,32 +12,31 @@ import com.g98.sangchengpayrollmanager.repository.AttPolicyRepository;
 import com.g98.sangchengpayrollmanager.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AttMonthSummaryService {
+
+    // số nhân viên lệch ghi vào log / báo cáo
+    private static final int MAX_DRIFT_SAMPLES = 20;
+
     private final AttMonthSummaryRepository attMonthRepo;
     private final UserRepository userRepo;
     private final AttDailySummaryRepository attDailySummaryRepo;
     private final AttPolicyRepository attPolicyRepo;
-
-    public Page<TimeSheetResponse> getTimeSheetByMonth(LocalDate date, String keyword, String sortBy, String sortDir, int page, int size){
-        String searchValue = (keyword == null || keyword.isBlank()) ? "" : keyword.trim();
-//        Sort.Direction direction = "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC;
-//        String sortField = (sortBy == null || sortBy.isBlank()) ? "employeeCode" : sortBy;
-        Pageable pageable = PageRequest.of(page, size);
-        return attMonthRepo.findTimeSheetByMonth(date, searchValue, pageable);
-    }
+    private final WorkCalendar workCalendar;
 
     @Transactional
     public AttMonthSummary createMonthSummary(String employeeCode, LocalDate date) {
@@ -89,18 +88,8 @@ public class AttMonthSummaryService {
             if (Boolean.TRUE.equals(ds.getIsEarlyLeaveCounted())) earlyLeaveCount++;
         }
 
-        // 5) Tính số ngày làm việc chuẩn trong tháng
-        int workingDaysInMonth = 0;
-        LocalDate cursor = monthStart;
-        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
-
-        while (!cursor.isAfter(monthEnd)) {
-            switch (cursor.getDayOfWeek()) {
-                case SATURDAY, SUNDAY -> { /* nghỉ */ }
-                default -> workingDaysInMonth++;
-            }
-            cursor = cursor.plusDays(1);
-        }
+        // 5) Số ngày làm việc chuẩn trong tháng (T2-T6, lịch cache sẵn)
+        int workingDaysInMonth = workCalendar.countWeekdays(monthStart, toDate);
 
         // 6) Gán dữ liệu vào AttMonthSummary
         monthSummary.setDayStandard(java.math.BigDecimal.valueOf(workingDaysInMonth));
@@ -114,7 +103,105 @@ public class AttMonthSummaryService {
         monthSummary.setLateCount(lateCount);
         monthSummary.setEarlyLeaveCount(earlyLeaveCount);
 
-        return attMonthRepo.save(monthSummary);
+        // flush ngay: timesheet (AttTimesheetService) đọc lại dòng này bằng JDBC trước commit
+        return attMonthRepo.saveAndFlush(monthSummary);
+    }
+
+    /**
+     * Kết quả đối soát công tháng: drifted = dòng tháng lệch với tổng daily summary, missing = nhân viên chưa có dòng tháng.
+     */
+    public record MonthDriftReport(LocalDate month,
+                                   int employees,
+                                   int drifted,
+                                   int missing,
+                                   int standardsUpdated,
+                                   boolean repaired,
+                                   List<String> samples) {
+    }
+
+    /**
+     * Đối soát công tháng của cả công ty. Bộ đếm tháng được cộng delta mỗi khi daily summary đổi (PayrollChangeTracker),
+     * nên việc này chỉ để phát hiện lệch: 1 câu GROUP BY trên att_daily_summary so với att_month_summary
+     * (2 câu đọc trong cùng transaction = cùng 1 snapshot).
+     * repair = true: cộng phần lệch vào dòng tháng (không ghi đè, delta đang chạy song song vẫn giữ nguyên),
+     * tạo dòng còn thiếu bằng ghi lô.
+     */
+    @Transactional
+    public MonthDriftReport checkMonthSummaries(LocalDate date, boolean repair) {
+        LocalDate monthStart = date.withDayOfMonth(1);
+        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+
+        AttPolicy policy = attPolicyRepo.findFirstByApplyScopeOrderByIdAsc("ALL")
+                .orElseThrow(() -> new IllegalStateException("No default ATT policy configured"));
+        BigDecimal dayStandard = BigDecimal.valueOf(workCalendar.countWeekdays(monthStart, monthEnd));
+        BigDecimal standardHoursPerDay = BigDecimal.valueOf(policy.getStandardHoursPerDay());
+
+        Map<String, AttDayContribution> expected = attMonthRepo.sumDailyByEmployee(monthStart, monthEnd);
+        Map<String, AttDayContribution> stored = attMonthRepo.loadCounters(monthStart);
+
+        Map<String, AttDayContribution> missing = new LinkedHashMap<>();
+        Map<String, AttDayContribution> drift = new LinkedHashMap<>();
+        for (Map.Entry<String, AttDayContribution> entry : expected.entrySet()) {
+            AttDayContribution current = stored.get(entry.getKey());
+            if (current == null) {
+                missing.put(entry.getKey(), entry.getValue());
+            } else if (!current.equals(entry.getValue())) {
+                drift.put(entry.getKey(), entry.getValue().minus(current));
+            }
+        }
+
+        List<String> samples = new ArrayList<>();
+        drift.forEach((code, delta) -> {
+            if (samples.size() < MAX_DRIFT_SAMPLES) {
+                samples.add(code + ": " + describe(delta));
+            }
+        });
+
+        int standardsUpdated = 0;
+        if (repair) {
+            drift.forEach((code, delta) -> attMonthRepo.addCounters(code, monthStart,
+                    delta.otHours(),
+                    delta.workHours(),
+                    delta.annualLeave(),
+                    BigDecimal.valueOf(delta.meal()),
+                    BigDecimal.valueOf(delta.trial()),
+                    BigDecimal.valueOf(delta.payable()),
+                    delta.late(),
+                    delta.earlyLeave()));
+            attMonthRepo.upsertAll(monthStart, dayStandard, standardHoursPerDay, missing);
+            standardsUpdated = attMonthRepo.updateStandards(monthStart, dayStandard, standardHoursPerDay);
+        }
+
+        MonthDriftReport report = new MonthDriftReport(monthStart, expected.size(), drift.size(), missing.size(),
+                standardsUpdated, repair, samples);
+        if (drift.isEmpty()) {
+            log.info("Month summaries of {} consistent ({} employees, {} missing)",
+                    monthStart, expected.size(), missing.size());
+        } else {
+            log.warn("Month summaries of {} drifted for {}/{} employees{}: {}",
+                    monthStart, drift.size(), expected.size(), repair ? " (repaired)" : "", samples);
+        }
+        return report;
+    }
+
+    // "ot +2, payable -1"
+    private static String describe(AttDayContribution delta) {
+        List<String> parts = new ArrayList<>();
+        addPart(parts, "ot", delta.otHours());
+        addPart(parts, "work", delta.workHours());
+        addPart(parts, "annual", delta.annualLeave());
+        addPart(parts, "meal", delta.meal());
+        addPart(parts, "trial", delta.trial());
+        addPart(parts, "payable", delta.payable());
+        addPart(parts, "late", delta.late());
+        addPart(parts, "early", delta.earlyLeave());
+        return String.join(", ", parts);
+    }
+
+    private static void addPart(List<String> parts, String name, int value) {
+        if (value != 0) {
+            parts.add(name + (value > 0 ? " +" : " ") + value);
+        }
     }
 
     public AttMonthSummaryResponse getAttMonthByEmployeeAndMonth(LocalDate month, String employeeCode) {
@@ -0,0 +1,147 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+import com.g98.sangchengpayrollmanager.repository.AttRecordRepository;
+import com.g98.sangchengpayrollmanager.repository.AttSyncStateRepository;
+import com.g98.sangchengpayrollmanager.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gom các lô chấm công được máy đẩy lên (ADMS) thành 1 lần ghi: chờ tối đa linger-ms hoặc đủ max-batch dòng
+ * rồi INSERT (bỏ qua lượt trùng) 1 lượt + đẩy mốc từng máy, trong 1 transaction.
+ * Future của mỗi lô chỉ xong sau khi commit -> controller trả OK cho máy khi dữ liệu đã nằm trong DB.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttRecordBatchWriter {
+
+    private final AttRecordRepository recordRepo;
+    private final UserRepository userRepository;
+    private final AttSyncStateRepository syncStateRepo;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${zkteco.push.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${zkteco.push.linger-ms:50}")
+    private long lingerMs;
+
+    @Value("${zkteco.push.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private BlockingQueue<Pending> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    private record Pending(List<AttRecord> records, CompletableFuture<Void> done) {
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::writeLoop, "att-push-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(5000);
+    }
+
+    /**
+     * Xếp lô vào hàng đợi ghi. Hàng đợi đầy -> future lỗi ngay (máy sẽ đẩy lại sau).
+     */
+    public CompletableFuture<Void> submit(List<AttRecord> records) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (records.isEmpty()) {
+            done.complete(null);
+        } else if (!queue.offer(new Pending(records, done))) {
+            done.completeExceptionally(new IllegalStateException("Hàng đợi ghi chấm công đã đầy"));
+        }
+        return done;
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Pending> batch = new ArrayList<>();
+                batch.add(first);
+                int rows = first.records().size();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (rows < maxBatch) {
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    rows += next.records().size();
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // đang tắt: ghi nốt phần còn trong hàng đợi
+                    List<Pending> rest = new ArrayList<>();
+                    queue.drainTo(rest);
+                    if (!rest.isEmpty()) {
+                        flush(rest);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        try {
+            List<AttRecord> all = new ArrayList<>();
+            batch.forEach(p -> all.addAll(p.records()));
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Map<String, String> employeeCodes = userRepository.loadEmployeeCodeByUserId();
+                Map<Integer, LocalDateTime> latestByDevice = new HashMap<>();
+                for (AttRecord record : all) {
+                    if (record.getEmployeeCode() == null) {
+                        record.setEmployeeCode(employeeCodes.get(record.getUserId()));
+                    }
+                    latestByDevice.merge(record.getAttDeviceId(), record.getCheckTime(),
+                            (a, b) -> a.isAfter(b) ? a : b);
+                }
+                recordRepo.insertSkipDuplicates(all);
+                latestByDevice.forEach(syncStateRepo::advanceWatermark);
+            });
+
+            log.debug("Pushed punches flushed: {} batches, {} rows", batch.size(), all.size());
+            batch.forEach(p -> p.done().complete(null));
+        } catch (RuntimeException e) {
+            log.error("❌ Cannot write pushed punches: {}", e.getMessage(), e);
+            batch.forEach(p -> p.done().completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetPageResponse;
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
+import com.g98.sangchengpayrollmanager.repository.AttTimesheetRepository;
+import com.g98.sangchengpayrollmanager.repository.AttTimesheetRepositoryCustom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Bảng chấm công tháng (màn hình timesheet của HR) đọc từ read model att_timesheet.
+ * - Phân trang keyset theo (month, employee_code) hoặc (month, full_name, employee_code): trang sâu tốn như trang đầu.
+ * - Tìm theo tiền tố mã / họ tên / tên gọi, đều có index.
+ * - Được làm mới từ att_month_summary: nhân viên có công tháng đổi (markStale, gộp lại ghi 1 lần trước commit)
+ *   và cả tháng mỗi đêm (MonthSummaryScheduler) để cập nhật họ tên / chức vụ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttTimesheetService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // khoá gắn danh sách nhân viên cần làm mới vào transaction hiện tại
+    private static final Object STALE_KEY = new Object();
+
+    private static final String CURSOR_SEPARATOR = "\u001F";
+
+    private final AttTimesheetRepository timesheetRepo;
+
+    // count=approx: đếm tới ngưỡng này thì dừng
+    @Value("${attendance.timesheet.count-cap:1000}")
+    private long countCap;
+
+    /**
+     * @param cursor nextCursor của trang trước, null = trang đầu
+     * @param count  none (mặc định) | exact | approx (đếm tới attendance.timesheet.count-cap)
+     */
+    @Transactional(readOnly = true)
+    public TimeSheetPageResponse getTimesheet(LocalDate month, String keyword, String sortBy, String sortDir,
+                                              String cursor, int size, String count) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size phải trong khoảng 1.." + MAX_PAGE_SIZE);
+        }
+        LocalDate monthStart = month.withDayOfMonth(1);
+        String prefix = (keyword == null || keyword.isBlank()) ? null : keyword.trim();
+        boolean byName = byName(sortBy);
+        boolean descending = "desc".equalsIgnoreCase(sortDir);
+
+        String afterName = null;
+        String afterCode = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor, byName);
+            afterName = byName ? parts[1] : null;
+            afterCode = parts[parts.length - 1];
+        }
+
+        // lấy dư 1 dòng để biết còn trang sau không
+        List<TimeSheetResponse> rows = timesheetRepo.seek(new AttTimesheetRepositoryCustom.Seek(
+                monthStart, prefix, byName, descending, afterName, afterCode), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<TimeSheetResponse> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1), byName) : null;
+
+        Long total = null;
+        Boolean totalExact = null;
+        String countMode = count == null ? "none" : count.toLowerCase();
+        switch (countMode) {
+            case "none" -> {
+            }
+            case "exact" -> {
+                total = timesheetRepo.count(monthStart, prefix, 0);
+                totalExact = true;
+            }
+            case "approx" -> {
+                total = timesheetRepo.count(monthStart, prefix, countCap);
+                totalExact = total < countCap;
+            }
+            default -> throw new IllegalArgumentException("count không hợp lệ: " + count);
+        }
+
+        return new TimeSheetPageResponse(List.copyOf(content), content.size(), hasNext, nextCursor, total, totalExact);
+    }
+
+    /**
+     * API phân trang cũ (page/size): cùng read model, sort theo sortBy/sortDir (mặc định employeeCode).
+     * Trang sâu vẫn phải OFFSET, màn hình mới nên dùng getTimesheet.
+     */
+    @Transactional(readOnly = true)
+    public Page<TimeSheetResponse> getTimeSheetByMonth(LocalDate date, String keyword, String sortBy, String sortDir,
+                                                       int page, int size) {
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        String sortField = sortProperty(sortBy);
+        Sort sort = Sort.by(direction, sortField);
+        if (!"employeeCode".equals(sortField)) {
+            sort = sort.and(Sort.by(direction, "employeeCode"));
+        }
+        PageRequest pageable = PageRequest.of(page, size, sort);
+
+        LocalDate monthStart = date.withDayOfMonth(1);
+        if (keyword == null || keyword.isBlank()) {
+            return timesheetRepo.findPageByMonth(monthStart, pageable);
+        }
+        return timesheetRepo.findPageByMonthAndPrefix(monthStart,
+                AttTimesheetRepositoryCustom.likePrefix(keyword.trim()), pageable);
+    }
+
+    /**
+     * Công tháng của nhân viên vừa đổi. Trong transaction: gom lại, làm mới 1 lần / tháng ngay trước commit
+     * (cùng transaction với bộ đếm tháng); ngoài transaction thì làm mới luôn.
+     */
+    @SuppressWarnings("unchecked")
+    public void markStale(String employeeCode, LocalDate month) {
+        LocalDate monthStart = month.withDayOfMonth(1);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            timesheetRepo.refresh(monthStart, List.of(employeeCode));
+            return;
+        }
+
+        Map<LocalDate, Set<String>> stale = (Map<LocalDate, Set<String>>) TransactionSynchronizationManager.getResource(STALE_KEY);
+        if (stale == null) {
+            Map<LocalDate, Set<String>> pending = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(STALE_KEY, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    pending.forEach(timesheetRepo::refresh);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(STALE_KEY);
+                }
+            });
+            stale = pending;
+        }
+        stale.computeIfAbsent(monthStart, m -> new TreeSet<>()).add(employeeCode);
+    }
+
+    /**
+     * Làm mới cả tháng (họ tên / chức vụ đổi, dòng mới, dòng không còn month summary).
+     */
+    @Transactional
+    public int refreshMonth(LocalDate month) {
+        LocalDate monthStart = month.withDayOfMonth(1);
+        long started = System.currentTimeMillis();
+        int affected = timesheetRepo.refreshMonth(monthStart);
+        log.info("Refreshed timesheet of {} ({} rows affected) in {} ms",
+                monthStart, affected, System.currentTimeMillis() - started);
+        return affected;
+    }
+
+    private static boolean byName(String sortBy) {
+        if (sortBy == null || sortBy.isBlank() || "employeeCode".equals(sortBy)) {
+            return false;
+        }
+        if ("fullName".equals(sortBy)) {
+            return true;
+        }
+        throw new IllegalArgumentException("sortBy chỉ hỗ trợ employeeCode hoặc fullName");
+    }
+
+    private static String sortProperty(String sortBy) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return "employeeCode";
+        }
+        return switch (sortBy) {
+            case "employeeCode", "fullName", "positionName", "daysHours", "otHours", "usedLeave" -> sortBy;
+            case "usedleave" -> "usedLeave";
+            default -> throw new IllegalArgumentException("sortBy không hợp lệ: " + sortBy);
+        };
+    }
+
+    // cursor = base64url("c" + mã) hoặc base64url("n" + họ tên + mã), ngăn cách bằng ký tự 0x1F
+    private static String encodeCursor(TimeSheetResponse last, boolean byName) {
+        String raw = byName
+                ? "n" + CURSOR_SEPARATOR + last.fullName() + CURSOR_SEPARATOR + last.employeeCode()
+                : "c" + CURSOR_SEPARATOR + last.employeeCode();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor, boolean byName) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("cursor không hợp lệ");
+        }
+        String[] parts = raw.split(CURSOR_SEPARATOR, -1);
+        boolean valid = byName
+                ? parts.length == 3 && "n".equals(parts[0])
+                : parts.length == 2 && "c".equals(parts[0]);
+        if (!valid) {
+            throw new IllegalArgumentException("cursor không khớp sortBy");
+        }
+        return parts;
+    }
+}
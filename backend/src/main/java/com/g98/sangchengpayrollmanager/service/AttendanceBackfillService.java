@@ -0,0 +1,351 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.AttBackfillJobResponse;
+import com.g98.sangchengpayrollmanager.model.entity.AttBackfillJob;
+import com.g98.sangchengpayrollmanager.model.entity.AttBackfillUnit;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import com.g98.sangchengpayrollmanager.model.enums.AttBackfillJobStatus;
+import com.g98.sangchengpayrollmanager.model.enums.AttBackfillUnitStatus;
+import com.g98.sangchengpayrollmanager.repository.AttBackfillJobRepository;
+import com.g98.sangchengpayrollmanager.repository.AttBackfillUnitRepository;
+import com.g98.sangchengpayrollmanager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tổng hợp lại công ngày + công tháng cho 1 khoảng ngày trong quá khứ (sửa dữ liệu, đổi chính sách, nhập log muộn).
+ * - Chia việc theo lô partition-size nhân viên x tháng (AttBackfillUnit), chạy trên backfillExecutor.
+ * - Mỗi đơn vị: load + tính ngoài transaction (AttDailySummaryBulkService.plan), rồi 1 transaction ghi công ngày,
+ *   cộng chênh lệch vào AttMonthSummary, đánh dấu bảng lương DRAFT dirty và đánh dấu đơn vị COMPLETED (checkpoint).
+ * - App tắt giữa chừng: đơn vị chưa commit vẫn PENDING, job RUNNING chạy tiếp khi khởi động lại.
+ * - Trả jobId ngay, FE poll tiến độ + throughput qua getJob(jobId).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttendanceBackfillService {
+
+    private final AttBackfillJobRepository jobRepo;
+    private final AttBackfillUnitRepository unitRepo;
+    private final UserRepository userRepo;
+    private final AttDailySummaryBulkService bulkService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Qualifier("backfillExecutor")
+    private final ExecutorService backfillExecutor;
+
+    @Value("${attendance.backfill.partition-size:200}")
+    private int partitionSize;
+
+    // job đang chạy trên instance này (không chạy 2 lần song song)
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public AttBackfillJobResponse start(LocalDate fromDate, LocalDate toDate, List<String> employeeCodes) {
+        if (fromDate == null || toDate == null) {
+            throw new IllegalArgumentException("Thiếu khoảng ngày cần tổng hợp lại");
+        }
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("Từ ngày phải trước đến ngày");
+        }
+        if (toDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Không tổng hợp công cho ngày trong tương lai");
+        }
+
+        List<String> codes = resolveEmployees(employeeCodes);
+        if (codes.isEmpty()) {
+            throw new IllegalArgumentException("Không có nhân viên nào để tổng hợp");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        AttBackfillJob job = new TransactionTemplate(transactionManager).execute(status -> {
+            AttBackfillJob created = jobRepo.save(AttBackfillJob.builder()
+                    .fromDate(fromDate)
+                    .toDate(toDate)
+                    .employeeFilter(employeeCodes == null || employeeCodes.isEmpty() ? null : String.join(",", codes))
+                    .status(AttBackfillJobStatus.RUNNING.name())
+                    .totalUnits(0)
+                    .totalEmployeeDays(0L)
+                    .createdAt(now)
+                    .resumedAt(now)
+                    .resumedDoneDays(0L)
+                    .build());
+
+            List<AttBackfillUnit> units = new ArrayList<>();
+            long employeeDays = 0;
+            for (YearMonth ym = YearMonth.from(fromDate); !ym.isAfter(YearMonth.from(toDate)); ym = ym.plusMonths(1)) {
+                LocalDate from = fromDate.isAfter(ym.atDay(1)) ? fromDate : ym.atDay(1);
+                LocalDate to = toDate.isBefore(ym.atEndOfMonth()) ? toDate : ym.atEndOfMonth();
+                int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+                for (List<String> partition : partition(codes, Math.max(partitionSize, 1))) {
+                    units.add(AttBackfillUnit.builder()
+                            .jobId(created.getId())
+                            .month(ym.atDay(1))
+                            .fromDate(from)
+                            .toDate(to)
+                            .employeeCodes(String.join(",", partition))
+                            .employeeDays(days * partition.size())
+                            .status(AttBackfillUnitStatus.PENDING.name())
+                            .attempts(0)
+                            .build());
+                    employeeDays += (long) days * partition.size();
+                }
+            }
+            unitRepo.saveAll(units);
+            created.setTotalUnits(units.size());
+            created.setTotalEmployeeDays(employeeDays);
+            return jobRepo.save(created);
+        });
+
+        log.info("Start attendance backfill {} for {} employees, {} -> {} ({} units)",
+                job.getId(), codes.size(), fromDate, toDate, job.getTotalUnits());
+        launch(job.getId());
+        return getJob(job.getId());
+    }
+
+    /**
+     * Chạy lại các đơn vị lỗi (và đơn vị còn PENDING) của job đã dừng.
+     */
+    public AttBackfillJobResponse resume(Long jobId) {
+        AttBackfillJob job = findJob(jobId);
+        if (running.contains(jobId)) {
+            throw new IllegalStateException("Job " + jobId + " đang chạy");
+        }
+        int reset = unitRepo.resetFailed(jobId);
+
+        job.setStatus(AttBackfillJobStatus.RUNNING.name());
+        job.setResumedAt(LocalDateTime.now());
+        job.setResumedDoneDays(progress(jobId).completedDays());
+        job.setFinishedAt(null);
+        job.setLastError(null);
+        jobRepo.save(job);
+
+        log.info("Resume attendance backfill {} ({} failed units requeued)", jobId, reset);
+        launch(jobId);
+        return getJob(jobId);
+    }
+
+    public AttBackfillJobResponse getJob(Long jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    // job RUNNING còn sót từ lần chạy trước (app bị tắt giữa chừng): chạy tiếp các đơn vị chưa COMPLETED
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        for (AttBackfillJob job : jobRepo.findByStatusOrderById(AttBackfillJobStatus.RUNNING.name())) {
+            job.setResumedAt(LocalDateTime.now());
+            job.setResumedDoneDays(progress(job.getId()).completedDays());
+            jobRepo.save(job);
+            log.info("Resuming unfinished attendance backfill {}", job.getId());
+            launch(job.getId());
+        }
+    }
+
+    private void launch(Long jobId) {
+        if (!running.add(jobId)) {
+            throw new IllegalStateException("Job " + jobId + " đang chạy");
+        }
+        // đẩy đơn vị việc chạy trên executor, không block request
+        CompletableFuture.supplyAsync(() -> dispatch(jobId), backfillExecutor)
+                .thenCompose(futures -> CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])))
+                .whenComplete((ignored, ex) -> {
+                    try {
+                        finish(jobId, ex);
+                    } finally {
+                        running.remove(jobId);
+                    }
+                });
+    }
+
+    // không join các đơn vị ở đây: với pool nhỏ, chờ trong worker sẽ deadlock
+    private List<CompletableFuture<Void>> dispatch(Long jobId) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (AttBackfillUnit unit : unitRepo.findByJobIdAndStatusOrderById(jobId, AttBackfillUnitStatus.PENDING.name())) {
+            futures.add(CompletableFuture.runAsync(() -> processUnit(unit), backfillExecutor));
+        }
+        return futures;
+    }
+
+    private void processUnit(AttBackfillUnit unit) {
+        long startedAt = System.nanoTime();
+        try {
+            List<String> codes = Arrays.asList(unit.getEmployeeCodes().split(","));
+            // nhân viên đã bị xoá sau khi tạo job thì bỏ qua
+            List<User> users = userRepo.findAllById(codes);
+            AttDailySummaryBulkService.Plan plan = bulkService.plan(users, unit.getFromDate(), unit.getToDate());
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                // tháng + bảng lương DRAFT cập nhật theo chênh lệch (PayrollChangeTracker), chỉ nhân viên có thay đổi
+                bulkService.apply(plan);
+                AttDailySummaryBulkService.Result result = plan.toResult();
+                long durationMs = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+                if (unitRepo.complete(unit.getId(), result.saved() + result.deleted(), durationMs, LocalDateTime.now()) == 0) {
+                    // đơn vị đã được luồng khác hoàn thành
+                    status.setRollbackOnly();
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Attendance backfill unit {} ({}) failed: {}", unit.getId(), unit.getMonth(), e.getMessage());
+            unitRepo.fail(unit.getId(), truncate(e.getMessage()), LocalDateTime.now());
+        }
+    }
+
+    private void finish(Long jobId, Throwable ex) {
+        AttBackfillJob job = findJob(jobId);
+        Progress progress = progress(jobId);
+
+        AttBackfillJobStatus status;
+        if (ex != null) {
+            log.error("Attendance backfill {} aborted", jobId, ex);
+            job.setLastError(truncate("Job bị dừng: " + ex.getMessage()));
+            status = AttBackfillJobStatus.FAILED;
+        } else if (progress.failedUnits() == 0 && progress.completedUnits() == job.getTotalUnits()) {
+            status = AttBackfillJobStatus.COMPLETED;
+        } else if (progress.completedUnits() == 0) {
+            status = AttBackfillJobStatus.FAILED;
+        } else {
+            status = AttBackfillJobStatus.COMPLETED_WITH_ERRORS;
+        }
+        job.setStatus(status.name());
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepo.save(job);
+
+        log.info("Finish attendance backfill {}: {}/{} units, {} employee-days, {}/s",
+                jobId, progress.completedUnits(), job.getTotalUnits(), progress.completedDays(),
+                String.format("%.1f", throughput(job, progress)));
+    }
+
+    private List<String> resolveEmployees(List<String> employeeCodes) {
+        if (employeeCodes == null || employeeCodes.isEmpty()) {
+            return userRepo.findAll().stream()
+                    .map(User::getEmployeeCode)
+                    .sorted()
+                    .toList();
+        }
+        // bỏ trùng nhưng giữ thứ tự
+        List<String> codes = new ArrayList<>(new LinkedHashSet<>(employeeCodes));
+        Set<String> found = new LinkedHashSet<>();
+        userRepo.findAllById(codes).forEach(u -> found.add(u.getEmployeeCode()));
+        List<String> unknown = codes.stream().filter(c -> !found.contains(c)).toList();
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Không tìm thấy nhân viên: " + String.join(", ", unknown));
+        }
+        return codes;
+    }
+
+    private AttBackfillJob findJob(Long jobId) {
+        return jobRepo.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy backfill job: " + jobId));
+    }
+
+    private record Progress(int completedUnits, int failedUnits, long completedDays, long rowsWritten) {
+    }
+
+    private Progress progress(Long jobId) {
+        int completedUnits = 0;
+        int failedUnits = 0;
+        long completedDays = 0;
+        long rowsWritten = 0;
+        for (Object[] row : unitRepo.summarizeByStatus(jobId)) {
+            String status = (String) row[0];
+            int units = ((Number) row[1]).intValue();
+            if (AttBackfillUnitStatus.COMPLETED.name().equals(status)) {
+                completedUnits = units;
+                completedDays = ((Number) row[2]).longValue();
+                rowsWritten = ((Number) row[3]).longValue();
+            } else if (AttBackfillUnitStatus.FAILED.name().equals(status)) {
+                failedUnits = units;
+            }
+        }
+        return new Progress(completedUnits, failedUnits, completedDays, rowsWritten);
+    }
+
+    // số ngày công / giây của lần chạy gần nhất (không tính thời gian app tắt)
+    private static double throughput(AttBackfillJob job, Progress progress) {
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        long millis = Duration.between(job.getResumedAt(), end).toMillis();
+        long days = progress.completedDays() - job.getResumedDoneDays();
+        return millis <= 0 ? 0 : days * 1000.0 / millis;
+    }
+
+    private AttBackfillJobResponse toResponse(AttBackfillJob job) {
+        Progress progress = progress(job.getId());
+        AttBackfillJobStatus status = AttBackfillJobStatus.valueOf(job.getStatus());
+
+        List<String> errors = new ArrayList<>();
+        if (job.getLastError() != null) {
+            errors.add(job.getLastError());
+        }
+        unitRepo.findByJobIdAndStatusOrderById(job.getId(), AttBackfillUnitStatus.FAILED.name()).stream()
+                .sorted(Comparator.comparing(AttBackfillUnit::getMonth))
+                .forEach(u -> errors.add(YearMonth.from(u.getMonth()) + " " + describeCodes(u.getEmployeeCodes())
+                        + ": " + u.getLastError()));
+
+        String message = switch (status) {
+            case RUNNING -> "Đang tổng hợp lại công: " + progress.completedUnits() + "/" + job.getTotalUnits() + " lô.";
+            case COMPLETED -> "Đã tổng hợp lại " + progress.completedDays() + " ngày công.";
+            case COMPLETED_WITH_ERRORS, FAILED -> "Có " + (job.getTotalUnits() - progress.completedUnits())
+                    + " lô tổng hợp thất bại. Vui lòng kiểm tra và chạy lại.";
+        };
+
+        return AttBackfillJobResponse.builder()
+                .jobId(job.getId())
+                .fromDate(job.getFromDate())
+                .toDate(job.getToDate())
+                .status(status)
+                .totalUnits(job.getTotalUnits())
+                .completedUnits(progress.completedUnits())
+                .failedUnits(progress.failedUnits())
+                .totalEmployeeDays(job.getTotalEmployeeDays())
+                .completedEmployeeDays(progress.completedDays())
+                .rowsWritten(progress.rowsWritten())
+                .employeeDaysPerSecond(throughput(job, progress))
+                .message(message)
+                .errors(errors)
+                .createdAt(job.getCreatedAt())
+                .resumedAt(job.getResumedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    private static String describeCodes(String employeeCodes) {
+        String[] codes = employeeCodes.split(",");
+        return codes.length == 1 ? codes[0] : codes[0] + ".." + codes[codes.length - 1];
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static List<List<String>> partition(List<String> codes, int size) {
+        List<List<String>> partitions = new ArrayList<>();
+        for (int i = 0; i < codes.size(); i += size) {
+            partitions.add(codes.subList(i, Math.min(i + size, codes.size())));
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,185 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.device.AttendanceLog;
+import com.g98.sangchengpayrollmanager.model.entity.AttDevice;
+import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+import com.g98.sangchengpayrollmanager.repository.AttDeviceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Nhận log chấm công máy tự đẩy lên theo giao thức ADMS (iclock): xác thực máy theo serial + token / IP,
+ * tách + lọc + bỏ trùng các dòng ATTLOG rồi ghi qua AttRecordBatchWriter.
+ * Máy vừa đẩy log ghi thành công trong zkteco.push.fallback-after-ms thì bỏ qua khi kéo tăng dần
+ * (AttendanceSyncService); đẩy lỗi / ngừng đẩy thì quá hạn đó sẽ quay lại kéo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttendancePushService {
+
+    private static final DateTimeFormatter CHECK_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int MAX_PIN_LENGTH = 24;
+
+    private final AttDeviceRepository deviceRepo;
+    private final AttRecordBatchWriter batchWriter;
+
+    @Value("${zkteco.push.ack-timeout-ms:10000}")
+    private long ackTimeoutMs;
+
+    @Value("${zkteco.push.fallback-after-ms:300000}")
+    private long fallbackAfterMs;
+
+    // lần cuối log push của máy được ghi thành công (deviceId -> epoch millis)
+    private final Map<Integer, Long> lastIngest = new ConcurrentHashMap<>();
+
+    /**
+     * Máy active có serial = sn và qua xác thực push của chính máy đó:
+     * - push_token đã đặt thì token gửi kèm phải khớp;
+     * - push_allowed_ips đã đặt thì IP gửi request phải nằm trong danh sách.
+     * Máy chưa đặt cả hai thì bị từ chối: chỉ biết serial không đủ để ghi chấm công.
+     */
+    public Optional<AttDevice> authenticate(String sn, String token, String remoteAddr) {
+        if (sn == null || sn.isBlank()) {
+            return Optional.empty();
+        }
+        Optional<AttDevice> found = deviceRepo.findBySerial(sn.trim())
+                .filter(d -> Boolean.TRUE.equals(d.getActive()));
+        if (found.isEmpty()) {
+            log.debug("Push from unknown device serial {} ({}) rejected", sn, remoteAddr);
+            return Optional.empty();
+        }
+        AttDevice device = found.get();
+        boolean hasToken = device.getPushToken() != null && !device.getPushToken().isBlank();
+        boolean hasIps = device.getPushAllowedIps() != null && !device.getPushAllowedIps().isBlank();
+        if (!hasToken && !hasIps) {
+            log.warn("Device {} has no push token or allowed IPs, push from {} rejected", device.getId(), remoteAddr);
+            return Optional.empty();
+        }
+        if (hasToken && !tokenMatches(device.getPushToken(), token)) {
+            log.warn("Push for device {} from {} rejected: bad token", device.getId(), remoteAddr);
+            return Optional.empty();
+        }
+        if (hasIps && !ipAllowed(device.getPushAllowedIps(), remoteAddr)) {
+            log.warn("Push for device {} from {} rejected: IP not allowed", device.getId(), remoteAddr);
+            return Optional.empty();
+        }
+        return found;
+    }
+
+    /**
+     * Ghi lô ATTLOG của máy, chỉ trả về sau khi đã commit (để máy xoá khỏi hàng đợi gửi).
+     *
+     * @return số dòng hợp lệ đã nhận
+     * @throws IllegalStateException khi ghi lỗi / quá thời gian -> máy sẽ gửi lại
+     */
+    public int ingest(AttDevice device, String body) {
+        List<AttendanceLog> logs = parseAttLog(body);
+        if (logs.isEmpty()) {
+            return 0;
+        }
+        List<AttRecord> records = new ArrayList<>(logs.size());
+        for (AttendanceLog log : logs) {
+            records.add(AttRecord.builder()
+                    .userId(log.getUserId())
+                    .checkTime(log.getCheckTime())
+                    .date(log.getCheckTime().toLocalDate())
+                    .attDeviceId(device.getId())
+                    .build());
+        }
+        try {
+            batchWriter.submit(records).get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi chờ ghi chấm công", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Không ghi được chấm công của máy " + device.getSerial(), e);
+        }
+        lastIngest.put(device.getId(), System.currentTimeMillis());
+        log.debug("📥 Device {} pushed {} punches", device.getId(), records.size());
+        return records.size();
+    }
+
+    /**
+     * Máy vừa đẩy log và đã ghi được -> không cần kéo tăng dần.
+     * Handshake / heartbeat không tính: máy liên lạc được nhưng đẩy lỗi thì vẫn phải kéo.
+     */
+    public boolean isPushActive(int deviceId) {
+        Long last = lastIngest.get(deviceId);
+        return last != null && System.currentTimeMillis() - last < fallbackAfterMs;
+    }
+
+    // so sánh thời gian hằng để không dò được token theo thời gian phản hồi
+    private static boolean tokenMatches(String expected, String actual) {
+        if (actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.trim().getBytes(StandardCharsets.UTF_8),
+                actual.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean ipAllowed(String allowedIps, String remoteAddr) {
+        if (remoteAddr == null) {
+            return false;
+        }
+        for (String ip : allowedIps.split(",")) {
+            if (ip.trim().equals(remoteAddr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tách các dòng ATTLOG "PIN\tyyyy-MM-dd HH:mm:ss\tstatus\tverify...".
+     * Dòng sai định dạng / PIN rỗng / thời gian vô lý bị bỏ, dòng trùng (PIN + giờ) trong lô chỉ giữ 1.
+     */
+    public static List<AttendanceLog> parseAttLog(String body) {
+        if (body == null || body.isEmpty()) {
+            return List.of();
+        }
+        List<AttendanceLog> logs = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String line : body.split("\\r?\\n")) {
+            String[] fields = line.split("\t");
+            if (fields.length < 2) {
+                continue;
+            }
+            String pin = fields[0].trim();
+            if (pin.isEmpty() || pin.length() > MAX_PIN_LENGTH) {
+                continue;
+            }
+            LocalDateTime checkTime;
+            try {
+                checkTime = LocalDateTime.parse(fields[1].trim(), CHECK_TIME);
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            if (checkTime.getYear() < 2000 || checkTime.getYear() > 2100) {
+                continue;
+            }
+            if (seen.add(pin + '|' + checkTime)) {
+                logs.add(new AttendanceLog(pin, checkTime));
+            }
+        }
+        return logs;
+    }
+}
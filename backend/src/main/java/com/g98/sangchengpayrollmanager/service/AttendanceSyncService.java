@@ -1,111 +1,188 @@
 package com.g98.sangchengpayrollmanager.service;
 
+import com.g98.sangchengpayrollmanager.device.AttendanceDeviceClient;
+import com.g98.sangchengpayrollmanager.device.AttendanceDeviceRegistry;
 import com.g98.sangchengpayrollmanager.device.AttendanceLog;
-import com.g98.sangchengpayrollmanager.device.ZKTecoClient;
 import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+import com.g98.sangchengpayrollmanager.model.entity.AttSyncState;
 import com.g98.sangchengpayrollmanager.repository.AttRecordRepository;
+import com.g98.sangchengpayrollmanager.repository.AttSyncStateRepository;
 import com.g98.sangchengpayrollmanager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Kéo log chấm công từ mọi máy active về att_record.
+ * Mỗi máy là 1 pipeline riêng trên zkExecutor (đọc máy -> ghi lô + đẩy mốc trong 1 transaction),
+ * các máy chạy song song; máy chậm / offline chưa xong thì lượt sau bỏ qua đúng máy đó, không chặn máy khác.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AttendanceSyncService {
-    private final ZKTecoClient zkClient;
+    private final AttendanceDeviceRegistry deviceRegistry;
     private final AttRecordRepository recordRepo;
     private final UserRepository userRepository;
+    private final AttSyncStateRepository syncStateRepo;
+    private final PlatformTransactionManager transactionManager;
+    private final AttendancePushService pushService;
 
-    /**
-     * ĐỒNG BỘ TOÀN BỘ - Lấy tất cả logs
-     */
-    @Transactional
-    public void syncAll() {
-        try {
-            log.info("🔄 Starting full attendance sync...");
+    @Qualifier("zkExecutor")
+    private final ExecutorService zkExecutor;
 
-            List<AttendanceLog> logs = zkClient.readAllLogs();
+    // số bản ghi mỗi lô đọc từ máy / ghi DB
+    @Value("${zkteco.read-chunk-size:500}")
+    private int chunkSize;
 
-            if (logs.isEmpty()) {
-                log.info("ℹ️ No attendance logs found");
-                return;
-            }
+    // lượt đồng bộ đang chạy / đang chờ của 1 máy
+    private record DeviceRun(CompletableFuture<Void> future, boolean full) {
+    }
 
-            int saved = 0;
-            int skipped = 0;
+    // pipeline đang chạy của từng máy (deviceId -> lượt mới nhất)
+    private final Map<Integer, DeviceRun> inFlight = new ConcurrentHashMap<>();
 
-            for (AttendanceLog log : logs) {
-                // Skip if already exists
-                if (recordRepo.existsByUserIdAndCheckTime(log.getUserId(), log.getCheckTime())) {
-                    skipped++;
-                    continue;
-                }
+    /**
+     * ĐỒNG BỘ TOÀN BỘ - Lấy tất cả logs của mọi máy (đối soát, bù các lượt cũ hơn mốc)
+     */
+    public CompletableFuture<Void> syncAll() {
+        log.info("🔄 Starting full attendance sync...");
+        return startPerDevice(true);
+    }
 
-                // ✅ FIX: Thêm employeeCode như syncIncremental
-                AttRecord record = AttRecord.builder()
-                        .userId(log.getUserId())
-                        .checkTime(log.getCheckTime())
-                        .attDeviceId(1)
-                        .employeeCode(userRepository.findEmployeeCodeByUserId(log.getUserId()))
-                        .build();
+    /**
+     * ĐỒNG BỘ TĂNG DẦN - mỗi máy chỉ lấy các lượt chấm từ mốc (watermark) của máy đó trở đi.
+     * Máy đang tự đẩy log (AttendancePushService) được bỏ qua: kéo chỉ là đường dự phòng khi máy ngừng đẩy.
+     */
+    public CompletableFuture<Void> syncIncremental() {
+        log.debug("🔄 Starting incremental attendance sync...");
+        return startPerDevice(false);
+    }
 
-                recordRepo.save(record);
-                saved++;
+    private CompletableFuture<Void> startPerDevice(boolean full) {
+        List<CompletableFuture<Void>> started = new ArrayList<>();
+        for (AttendanceDeviceClient client : deviceRegistry.activeClients()) {
+            int deviceId = client.getDeviceId();
+            if (!full && pushService.isPushActive(deviceId)) {
+                continue;
             }
-
-            log.info("✅ Full sync completed: {} saved, {} skipped, {} total",
-                    saved, skipped, logs.size());
-
-        } catch (Exception e) {
-            log.error("❌ Full sync failed: {}", e.getMessage(), e);
+            DeviceRun run = inFlight.compute(deviceId, (id, previous) -> {
+                if (previous == null || previous.future().isDone()) {
+                    return new DeviceRun(schedule(CompletableFuture.completedFuture(null), client, full), full);
+                }
+                // lượt đang chạy đã đọc từ mốc trở đi (incremental) / đã có full đang chạy hoặc đang chờ
+                if (!full || previous.full()) {
+                    return previous;
+                }
+                // full (bù lượt cũ hơn mốc) không được rơi mất vì trùng lúc incremental: chạy ngay sau lượt đó
+                log.info("Device {} is still syncing, full sync queued after it", id);
+                return new DeviceRun(schedule(previous.future(), client, true), true);
+            });
+            started.add(run.future());
         }
+        return CompletableFuture.allOf(started.toArray(new CompletableFuture<?>[0]));
     }
 
-    @Transactional
-    public void syncIncremental() {
+    // chạy syncDevice trên zkExecutor sau khi after xong (after lỗi cũng chạy: lỗi đã được log ở lượt đó)
+    private CompletableFuture<Void> schedule(CompletableFuture<Void> after, AttendanceDeviceClient client, boolean full) {
+        int deviceId = client.getDeviceId();
         try {
-            log.info("🔄 Starting incremental attendance sync...");
-
-            List<AttendanceLog> logs = zkClient.readAllLogs();
-
-            if (logs.isEmpty()) {
-                log.info("ℹ️ No attendance logs found");
-                return;
-            }
-
-            int saved = 0;
-            int skipped = 0;
+            return after.handle((r, ex) -> null)
+                    .thenRunAsync(() -> syncDevice(client, full), zkExecutor)
+                    .exceptionally(ex -> {
+                        log.error("❌ {} sync of device {} failed: {}",
+                                full ? "Full" : "Incremental", deviceId, ex.getMessage(), ex);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            log.warn("zkExecutor is full, device {} skipped this round", deviceId);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-            for (AttendanceLog log : logs) {
-                // Skip if already exists
-                if (recordRepo.existsByUserIdAndCheckTime(log.getUserId(), log.getCheckTime())) {
-                    skipped++;
-                    continue;
+    /**
+     * Pipeline của 1 máy: máy giao log theo từng lô chunk-size ngay khi giải mã (không dựng cả log máy trong bộ nhớ),
+     * mỗi lô được ghi trong 1 transaction riêng trong lúc máy vẫn đang gửi phần sau.
+     * Mốc chỉ được đẩy khi đã đọc hết log của máy: máy lỗi giữa chừng thì các lô đã commit vẫn giữ,
+     * lỗi được ném ra và lượt sau đọc lại từ mốc cũ (bản trùng được bỏ qua) -> không bỏ sót log chưa đọc tới.
+     */
+    private void syncDevice(AttendanceDeviceClient client, boolean full) {
+        int deviceId = client.getDeviceId();
+        LocalDateTime watermark = loadSyncState(deviceId).getLastCheckTime();
+
+        // full sync ghi lại tất cả (trùng bị bỏ qua); incremental chỉ đọc từ mốc trở đi.
+        // Lượt cũ hơn mốc (nếu có) được full sync cuối ngày bù lại.
+        Map<String, String> employeeCodes = userRepository.loadEmployeeCodeByUserId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicReference<LocalDateTime> newWatermark = new AtomicReference<>(watermark);
+
+        long read = client.streamLogsSince(full ? null : watermark, chunkSize, chunk -> {
+            LocalDateTime chunkMax = null;
+            for (AttendanceLog log : chunk) {
+                if (chunkMax == null || log.getCheckTime().isAfter(chunkMax)) {
+                    chunkMax = log.getCheckTime();
                 }
-
-                // Save new record to db
-                AttRecord record = AttRecord.builder()
-                        .userId(log.getUserId())
-                        .checkTime(log.getCheckTime())
-                        .attDeviceId(1)
-                        .employeeCode(userRepository.findEmployeeCodeByUserId(log.getUserId()))
-                        .build();
-
-                recordRepo.save(record);
-                saved++;
             }
+            LocalDateTime finalChunkMax = chunkMax;
+            // trùng với DB (kể cả lượt trùng giây với mốc) được bỏ qua (unique user_id + check_time)
+            tx.executeWithoutResult(status ->
+                    recordRepo.insertSkipDuplicates(toRecords(chunk, deviceId, employeeCodes)));
+            newWatermark.accumulateAndGet(finalChunkMax, (a, b) -> a == null || b.isAfter(a) ? b : a);
+        });
+
+        // đọc hết rồi mới đẩy mốc; push cũng đẩy mốc -> chỉ tăng, không ghi đè bằng giá trị đọc lúc đầu
+        LocalDateTime reached = newWatermark.get();
+        if (reached != null && !reached.equals(watermark)) {
+            tx.executeWithoutResult(status -> syncStateRepo.advanceWatermark(deviceId, reached));
+        }
 
-            log.info("✅ Incremental sync completed: {} saved, {} skipped, {} total",
-                    saved, skipped, logs.size());
+        if (read == 0) {
+            log.debug("ℹ️ No new attendance logs on device {}", deviceId);
+            return;
+        }
+        log.info("✅ {} sync of device {} completed: {} read, watermark {}",
+                full ? "Full" : "Incremental", deviceId, read, newWatermark.get());
+    }
 
-        } catch (Exception e) {
-            log.error("❌ Incremental sync failed: {}", e.getMessage(), e);
-            throw e; // Re-throw để rollback transaction
+    /**
+     * Đổi 1 lô log máy chấm công -> AttRecord, employeeCode tra từ map load 1 lần cho cả lượt đồng bộ.
+     */
+    private List<AttRecord> toRecords(List<AttendanceLog> logs, int deviceId, Map<String, String> employeeCodes) {
+        List<AttRecord> records = new ArrayList<>(logs.size());
+        for (AttendanceLog log : logs) {
+            records.add(AttRecord.builder()
+                    .userId(log.getUserId())
+                    .checkTime(log.getCheckTime())
+                    .date(log.getCheckTime().toLocalDate())
+                    .attDeviceId(deviceId)
+                    .employeeCode(employeeCodes.get(log.getUserId()))
+                    .build());
         }
+        return records;
+    }
+
+    /**
+     * Mốc đã lưu của máy; máy chưa có mốc thì lấy check_time lớn nhất đã có trong att_record.
+     */
+    private AttSyncState loadSyncState(int deviceId) {
+        return syncStateRepo.findById(deviceId)
+                .orElseGet(() -> AttSyncState.builder()
+                        .deviceId(deviceId)
+                        .lastCheckTime(recordRepo.findLatestCheckTimeByDevice(deviceId))
+                        .build());
     }
-}
\ No newline at end of file
+}
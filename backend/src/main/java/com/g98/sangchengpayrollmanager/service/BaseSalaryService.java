@@ -16,6 +16,10 @@ import java.util.Objects;
 @Service
 @RequiredArgsConstructor
 public class BaseSalaryService {
+    // component do chính bước tính lương ghi ra (BHXH chi trả), không phải đầu vào HR nhập
+    static final String SICK_INSURANCE_COMPONENT = "BHXH nghỉ ốm";
+    static final String MATERNITY_INSURANCE_COMPONENT = "BHXH nghỉ thai sản";
+
     private final PayComponentRepository payComponentRepository;
     private final PayComponentTypeRepository payComponentTypeRepository;
 
@@ -141,9 +145,9 @@ public class BaseSalaryService {
 
             PayComponent pc = payComponentRepository
                     .findOneByEmployeeAndNameAndPeriod(si.getUser().getEmployeeCode(),
-                            "BHXH nghỉ ốm", startOfMonth, endOfMonth)
+                            SICK_INSURANCE_COMPONENT, startOfMonth, endOfMonth)
                     .orElseGet(() -> PayComponent.builder()
-                            .name("BHXH nghỉ ốm")
+                            .name(SICK_INSURANCE_COMPONENT)
                             .description("BHXH chi trả do nghỉ ốm")
                             .user(si.getUser())
                             .type(bhxhType)
@@ -153,8 +157,10 @@ public class BaseSalaryService {
                             .isAddition(true)
                             .build());
 
-            pc.setValue(insurancePayForSick);
-            payComponentRepository.save(pc);
+            if (!Objects.equals(pc.getValue(), insurancePayForSick)) {
+                pc.setValue(insurancePayForSick);
+                payComponentRepository.save(pc);
+            }
         }
 
         if (insurancePayForMaternity > 0) {
@@ -167,9 +173,9 @@ public class BaseSalaryService {
 
             PayComponent pc = payComponentRepository
                     .findOneByEmployeeAndNameAndPeriod(si.getUser().getEmployeeCode(),
-                            "BHXH nghỉ thai sản", startOfMonth, endOfMonth)
+                            MATERNITY_INSURANCE_COMPONENT, startOfMonth, endOfMonth)
                     .orElseGet(() -> PayComponent.builder()
-                            .name("BHXH nghỉ thai sản")
+                            .name(MATERNITY_INSURANCE_COMPONENT)
                             .description("BHXH chi trả nghỉ thai sản")
                             .user(si.getUser())
                             .type(bhxhType)
@@ -179,10 +185,16 @@ public class BaseSalaryService {
                             .isAddition(true)
                             .build());
 
-            pc.setValue(insurancePayForMaternity);
-            payComponentRepository.save(pc);
+            if (!Objects.equals(pc.getValue(), insurancePayForMaternity)) {
+                pc.setValue(insurancePayForMaternity);
+                payComponentRepository.save(pc);
+            }
         }
 
         return total;
     }
+
+    static boolean isCalculatedComponent(PayComponent pc) {
+        return SICK_INSURANCE_COMPONENT.equals(pc.getName()) || MATERNITY_INSURANCE_COMPONENT.equals(pc.getName());
+    }
 }
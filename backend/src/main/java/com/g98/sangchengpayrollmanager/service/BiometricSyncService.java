@@ -1,7 +1,7 @@
 package com.g98.sangchengpayrollmanager.service;
 //dịch vụ đẩy (sync) người dùng từ hệ thống lên máy chấm công.
 
-import com.g98.sangchengpayrollmanager.device.ZKTecoClient;
+import com.g98.sangchengpayrollmanager.device.AttendanceDeviceClient;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
@@ -13,7 +13,7 @@ import java.util.concurrent.TimeUnit;
 @Service
 @RequiredArgsConstructor
 public class BiometricSyncService {
-    private final ZKTecoClient zkClient;
+    private final AttendanceDeviceClient zkClient;
 
     @Qualifier("zkExecutor")
     private final ExecutorService exec;
@@ -0,0 +1,26 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * In trang React payslip.print-url bằng Chromium giữ ấm (PayslipBrowserPool).
+ * Cần frontend đang chạy.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payslip.renderer", havingValue = "browser", matchIfMissing = true)
+public class BrowserPayslipRenderer implements PayslipRenderer {
+
+    private final PayslipPdfService payslipPdfService;
+    private final PayslipBrowserPool browserPool;
+
+    @Override
+    public String render(String employeeCode, LocalDate month) {
+        return browserPool.withContext(context ->
+                payslipPdfService.generatePayslipPdf(employeeCode, month, context));
+    }
+}
@@ -0,0 +1,186 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.dto.approval.ApprovalDecisionDTO;
+import com.g98.sangchengpayrollmanager.model.dto.approval.ApprovalDecisionResult;
+import com.g98.sangchengpayrollmanager.model.dto.approval.BulkApprovalResponse;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalAction;
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalRequestType;
+import com.g98.sangchengpayrollmanager.model.enums.BulkApprovalStatus;
+import com.g98.sangchengpayrollmanager.model.enums.LeaveandOTStatus;
+import com.g98.sangchengpayrollmanager.repository.LeaveRequestRepository;
+import com.g98.sangchengpayrollmanager.repository.OvertimeRequestRespository;
+import com.g98.sangchengpayrollmanager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Manager duyệt / từ chối nhiều đơn nghỉ + đơn OT trong 1 transaction.
+ * - Đơn, quota nghỉ, sổ OT có @Version: 2 người duyệt đụng nhau thì transaction commit sau bị xung đột
+ *   -> chạy lại cả lô (đọc lại quota / trạng thái), không cần khoá tuần tự mọi lượt duyệt.
+ * - Đơn không còn PENDING / không tồn tại / của chính mình: bỏ qua (SKIPPED), các đơn khác vẫn áp dụng.
+ * - 1 quyết định lỗi (vd. không đủ ngày nghỉ): rollback cả lô, trả về quyết định gây lỗi.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkApprovalService {
+
+    private final LeaveRequestService leaveRequestService;
+    private final OvertimeRequestService overtimeRequestService;
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final OvertimeRequestRespository overtimeRequestRespository;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${approval.bulk.max-decisions:200}")
+    private int maxDecisions;
+
+    @Value("${approval.bulk.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${approval.bulk.backoff-ms:50}")
+    private long backoffMs;
+
+    public BulkApprovalResponse apply(String approverUsername, List<ApprovalDecisionDTO> decisions) {
+        List<ApprovalDecisionDTO> ordered = validate(decisions);
+        User approver = userRepository.findByUsernameWithRole(approverUsername)
+                .orElseThrow(() -> new RuntimeException("Người không tồn tại : " + approverUsername));
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        OptimisticRetry retry = new OptimisticRetry(maxAttempts, backoffMs);
+        // quyết định đang áp dụng khi lô lỗi
+        ApprovalDecisionDTO[] current = new ApprovalDecisionDTO[1];
+        int[] attempts = new int[1];
+
+        try {
+            List<ApprovalDecisionResult> results = retry.run(attempt -> {
+                attempts[0] = attempt;
+                return tx.execute(status -> applyOnce(approver, ordered, current));
+            });
+            int applied = (int) results.stream().filter(r -> "APPLIED".equals(r.outcome())).count();
+            int skipped = results.size() - applied;
+            if (attempts[0] > 1) {
+                log.info("Bulk approval by {} applied after {} attempts", approverUsername, attempts[0]);
+            }
+            return BulkApprovalResponse.builder()
+                    .status(skipped == 0 ? BulkApprovalStatus.COMPLETED : BulkApprovalStatus.COMPLETED_WITH_SKIPS)
+                    .attempts(attempts[0])
+                    .applied(applied)
+                    .skipped(skipped)
+                    .results(results)
+                    .build();
+        } catch (RuntimeException e) {
+            boolean conflict = OptimisticRetry.isConflict(e);
+            String message = conflict
+                    ? "Đơn đang được người khác xử lý, đã thử lại " + attempts[0] + " lần"
+                    : e.getMessage();
+            log.warn("Bulk approval by {} rolled back after {} attempts: {}", approverUsername, attempts[0], message);
+
+            List<ApprovalDecisionResult> results = new ArrayList<>();
+            for (ApprovalDecisionDTO d : ordered) {
+                boolean failed = !conflict && d == current[0];
+                results.add(new ApprovalDecisionResult(d.getType(), d.getId(), d.getAction(),
+                        failed ? "FAILED" : "NOT_APPLIED", failed ? message : null));
+            }
+            return BulkApprovalResponse.builder()
+                    .status(conflict ? BulkApprovalStatus.CONFLICT : BulkApprovalStatus.FAILED)
+                    .attempts(attempts[0])
+                    .message(message)
+                    .results(results)
+                    .build();
+        }
+    }
+
+    private List<ApprovalDecisionResult> applyOnce(User approver, List<ApprovalDecisionDTO> decisions,
+                                                   ApprovalDecisionDTO[] current) {
+        List<ApprovalDecisionResult> results = new ArrayList<>(decisions.size());
+        for (ApprovalDecisionDTO d : decisions) {
+            current[0] = d;
+            // kiểm tra trước khi gọi service: lỗi ném ra từ service làm cả transaction rollback
+            String skip = skipReason(approver, d);
+            if (skip != null) {
+                results.add(new ApprovalDecisionResult(d.getType(), d.getId(), d.getAction(), "SKIPPED", skip));
+                continue;
+            }
+            switch (d.getType()) {
+                case LEAVE -> {
+                    if (d.getAction() == ApprovalAction.APPROVE) {
+                        leaveRequestService.approveLeaveRequest(d.getId(), d.getNote());
+                    } else {
+                        leaveRequestService.rejectLeaveRequest(d.getId(), d.getNote());
+                    }
+                }
+                case OVERTIME -> {
+                    if (d.getAction() == ApprovalAction.APPROVE) {
+                        overtimeRequestService.approveOvertimeRequest(d.getId(), d.getNote());
+                    } else {
+                        overtimeRequestService.rejectOvertimeRequest(d.getId(), d.getNote());
+                    }
+                }
+            }
+            results.add(new ApprovalDecisionResult(d.getType(), d.getId(), d.getAction(), "APPLIED", null));
+        }
+        current[0] = null;
+        return results;
+    }
+
+    private String skipReason(User approver, ApprovalDecisionDTO d) {
+        String status;
+        String owner;
+        if (d.getType() == ApprovalRequestType.LEAVE) {
+            var request = leaveRequestRepository.findById(d.getId()).orElse(null);
+            if (request == null) {
+                return "Đơn nghỉ không tồn tại";
+            }
+            status = request.getStatus();
+            owner = request.getUser().getEmployeeCode();
+        } else {
+            var request = overtimeRequestRespository.findById(d.getId()).orElse(null);
+            if (request == null) {
+                return "Đơn OT không tồn tại";
+            }
+            status = request.getStatus();
+            owner = request.getUser().getEmployeeCode();
+        }
+        if (!LeaveandOTStatus.PENDING.name().equals(status)) {
+            return "Đơn đã ở trạng thái " + status;
+        }
+        if (owner.equals(approver.getEmployeeCode())) {
+            return "Không được tự duyệt đơn của chính mình";
+        }
+        return null;
+    }
+
+    // kiểm tra đầu vào + xếp theo (loại, id): các lô đụng nhau ghi theo cùng thứ tự, ít deadlock hơn
+    private List<ApprovalDecisionDTO> validate(List<ApprovalDecisionDTO> decisions) {
+        if (decisions == null || decisions.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách quyết định trống");
+        }
+        if (decisions.size() > maxDecisions) {
+            throw new IllegalArgumentException("Tối đa " + maxDecisions + " quyết định / lần");
+        }
+        Set<String> seen = new HashSet<>();
+        for (ApprovalDecisionDTO d : decisions) {
+            if (d == null || d.getType() == null || d.getId() == null || d.getAction() == null) {
+                throw new IllegalArgumentException("Quyết định phải có type, id, action");
+            }
+            if (!seen.add(d.getType() + ":" + d.getId())) {
+                throw new IllegalArgumentException("Đơn " + d.getType() + " #" + d.getId() + " bị lặp");
+            }
+        }
+        List<ApprovalDecisionDTO> ordered = new ArrayList<>(decisions);
+        ordered.sort(Comparator.comparing(ApprovalDecisionDTO::getType).thenComparing(ApprovalDecisionDTO::getId));
+        return ordered;
+    }
+}
@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class InsurancePolicyService {
     private final InsurancePolicyRepository insurancePolicyRepository;
+    private final PolicySnapshotCache policySnapshotCache;
 
     public List<InsurancePolicyResponse> getAllInsurancePolicies() {
         return getAllSorted().stream()
@@ -37,6 +38,7 @@ public class InsurancePolicyService {
         insurancePolicy.setEffectiveTo(updateInsurancePolicyDTO.getEffectiveTo());
 
         insurancePolicy = insurancePolicyRepository.save(insurancePolicy);
+        policySnapshotCache.evictAll();
         return toResponse(insurancePolicy);
     }
 
@@ -53,6 +55,7 @@ public class InsurancePolicyService {
                 .build();
 
         insurancePolicy = insurancePolicyRepository.save(insurancePolicy);
+        policySnapshotCache.evictAll();
         return toResponse(insurancePolicy);
 
     }
@@ -70,6 +73,7 @@ public class InsurancePolicyService {
             throw new RuntimeException("Khong ton tai:  " + id);
         }
         insurancePolicyRepository.deleteById(id);
+        policySnapshotCache.evictAll();
 
 
     }
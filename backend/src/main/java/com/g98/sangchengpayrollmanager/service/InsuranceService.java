@@ -4,7 +4,6 @@ package com.g98.sangchengpayrollmanager.service;
 import com.g98.sangchengpayrollmanager.model.dto.payroll.PaySummaryComponentItem;
 import com.g98.sangchengpayrollmanager.model.entity.InsurancePolicy;
 import com.g98.sangchengpayrollmanager.model.enums.PaySummaryComponentType;
-import com.g98.sangchengpayrollmanager.repository.InsurancePolicyRepository;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +17,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class InsuranceService {
 
-    private final InsurancePolicyRepository insuranceRepository;
+    private final PolicySnapshotCache policySnapshotCache;
 
     /**
      * Tính tổng các khoản bảo hiểm (BHXH, BHYT, BHTN,...)
@@ -41,7 +40,7 @@ public class InsuranceService {
         }
 
         // Lấy các policy đang có hiệu lực tại payrollDate
-        List<InsurancePolicy> policies = insuranceRepository.findActivePolicies(payrollDate);
+        List<InsurancePolicy> policies = policySnapshotCache.get(payrollDate).getInsurancePolicies();
         List<PaySummaryComponentItem> components = new ArrayList<>();
 
         long totalEmployeeShare = 0L;
@@ -0,0 +1,357 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.EmployeeInformation;
+import com.g98.sangchengpayrollmanager.model.entity.PaySummary;
+import com.g98.sangchengpayrollmanager.model.entity.PaySummaryComponent;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import com.g98.sangchengpayrollmanager.repository.EmployeeInformationRepository;
+import com.g98.sangchengpayrollmanager.repository.PaySummaryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Render payslip PDF trực tiếp bằng PDFBox từ PaySummary + PaySummaryComponent + EmployeeInformation,
+ * không cần Chromium hay frontend. Bật bằng payslip.renderer=native.
+ * - Layout (nhãn, cột, kích thước) cố định, build 1 lần lúc khởi động.
+ * - File font đọc 1 lần vào bộ nhớ; mỗi thread render parse font 1 lần rồi dùng lại cho mọi payslip,
+ *   mỗi PDF chỉ nhúng subset glyph đã dùng.
+ * - Mỗi payslip là 1 PDDocument riêng, đóng ngay sau khi ghi file -> bộ nhớ không tăng theo số payslip.
+ * Nội dung giống trang print/payroll-detail của frontend.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payslip.renderer", havingValue = "native")
+public class NativePayslipRenderer implements PayslipRenderer {
+
+    private static final PDRectangle PAGE_SIZE = PDRectangle.A4;
+    private static final float MARGIN = 40f;
+    private static final float ROW_HEIGHT = 18f;
+    private static final float TITLE_SIZE = 16f;
+    private static final float HEADER_SIZE = 12f;
+    private static final float TEXT_SIZE = 10f;
+    private static final float NOTE_SIZE = 8f;
+    private static final float VALUE_COLUMN_WIDTH = 130f;
+    private static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("MM/yyyy");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final PaySummaryRepository paySummaryRepo;
+    private final EmployeeInformationRepository employeeInfoRepo;
+    private final PayslipPdfService payslipPdfService;
+
+    // font kèm theo jar (DejaVu Sans, đủ dấu tiếng Việt); payslip.native.font-path để dùng font khác trên máy
+    private static final String BUNDLED_FONT = "fonts/DejaVuSans.ttf";
+    private static final String BUNDLED_BOLD_FONT = "fonts/DejaVuSans-Bold.ttf";
+
+    @Value("${payslip.native.font-path:}")
+    private String fontPath;
+
+    @Value("${payslip.native.bold-font-path:}")
+    private String boldFontPath;
+
+    private byte[] fontBytes;
+    private byte[] boldFontBytes;
+
+    // TrueTypeFont không thread-safe -> mỗi thread render giữ bản parse riêng
+    private final ThreadLocal<TrueTypeFont> regularFont = ThreadLocal.withInitial(() -> parse(fontBytes));
+    private final ThreadLocal<TrueTypeFont> boldFont = ThreadLocal.withInitial(() -> parse(boldFontBytes));
+
+    @PostConstruct
+    void loadFonts() throws IOException {
+        boolean custom = fontPath != null && !fontPath.isBlank();
+        fontBytes = custom ? Files.readAllBytes(Paths.get(fontPath)) : readBundled(BUNDLED_FONT);
+        if (boldFontPath != null && !boldFontPath.isBlank()) {
+            Path bold = Paths.get(boldFontPath);
+            boldFontBytes = Files.exists(bold) ? Files.readAllBytes(bold) : fontBytes;
+        } else {
+            // font thường tự chọn mà không chỉ font đậm -> in đậm bằng chính font đó cho đồng bộ
+            boldFontBytes = custom ? fontBytes : readBundled(BUNDLED_BOLD_FONT);
+        }
+        log.info("Native payslip renderer ready, font {}", custom ? fontPath : "classpath:" + BUNDLED_FONT);
+    }
+
+    private static byte[] readBundled(String resource) throws IOException {
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String render(String employeeCode, LocalDate month) {
+        PaySummary summary = paySummaryRepo.findWithComponentsByEmployeeAndMonth(employeeCode, month)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Không tìm thấy PaySummary cho " + employeeCode + " tháng " + month));
+        EmployeeInformation info = employeeInfoRepo.findByEmployeeCodeFetchAll(employeeCode).orElse(null);
+
+        String monthStr = month.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        try {
+            Path pdfPath = payslipPdfService.resolvePayslipPath(employeeCode, monthStr);
+            try (OutputStream out = Files.newOutputStream(pdfPath)) {
+                write(summary, info, out);
+            }
+            return payslipPdfService.toPayslipUrl(pdfPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot generate payslip PDF for employee "
+                    + employeeCode + " month " + monthStr, e);
+        }
+    }
+
+    /**
+     * Ghi payslip ra out (không đóng out).
+     */
+    public void write(PaySummary summary, EmployeeInformation info, OutputStream out) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDType0Font regular = PDType0Font.load(doc, regularFont.get(), true);
+            PDType0Font bold = PDType0Font.load(doc, boldFont.get(), true);
+
+            try (PageWriter w = new PageWriter(doc, regular, bold)) {
+                User user = summary.getUser();
+                String code = user.getEmployeeCode();
+                String position = (info != null && info.getPosition() != null) ? info.getPosition().getName() : "";
+
+                // 1. Tiêu đề
+                w.text("Chi Tiết Bảng Lương Nhân Viên", bold, TITLE_SIZE, MARGIN);
+                w.newLine(ROW_HEIGHT + 6);
+                w.text("Kỳ lương: " + summary.getDate().format(PERIOD_FORMAT), regular, TEXT_SIZE, MARGIN);
+                w.newLine(ROW_HEIGHT);
+                w.text(nvl(user.getFullName(), code) + (position.isEmpty() ? "" : " - " + position),
+                        bold, HEADER_SIZE, MARGIN);
+                w.newLine(ROW_HEIGHT + 4);
+
+                // 2. Thông tin chung (2 cột)
+                w.section("Thông Tin Chung");
+                List<String[]> general = new ArrayList<>();
+                general.add(new String[]{"Mã Nhân Viên", code});
+                general.add(new String[]{"Chức Vụ", position.isEmpty() ? "—" : position});
+                general.add(new String[]{"Email", nvl(user.getEmail(), "—")});
+                general.add(new String[]{"Số Điện Thoại", nvl(user.getPhoneNo(), "—")});
+                general.add(new String[]{"Mã Số Thuế", info != null ? nvl(info.getTaxNo(), "—") : "—"});
+                general.add(new String[]{"Số Bảo Hiểm Xã Hội", info != null ? nvl(info.getSocialNo(), "—") : "—"});
+                if (user.getDob() != null) {
+                    general.add(new String[]{"Ngày sinh", user.getDob().format(DATE_FORMAT)});
+                }
+                if (info != null && info.getDependentsNo() != null) {
+                    general.add(new String[]{"Người Phụ Thuộc", String.valueOf(info.getDependentsNo())});
+                }
+                float half = (PAGE_SIZE.getWidth() - 2 * MARGIN) / 2;
+                for (int i = 0; i < general.size(); i += 2) {
+                    w.labelValue(general.get(i), MARGIN);
+                    if (i + 1 < general.size()) {
+                        w.labelValue(general.get(i + 1), MARGIN + half);
+                    }
+                    w.newLine(ROW_HEIGHT);
+                }
+                w.newLine(6);
+
+                // 3. Thu nhập / khấu trừ
+                List<Line> income = new ArrayList<>();
+                List<Line> deduction = new ArrayList<>();
+                List<Line> taxDeduction = new ArrayList<>();
+                if (summary.getBaseSalaryAmt() != null) {
+                    income.add(new Line("Lương Cơ Bản", null, summary.getBaseSalaryAmt()));
+                }
+                if (summary.getOtAmount() != null) {
+                    income.add(new Line("Tiền Tăng Ca",
+                            summary.getOtHour() != null && summary.getOtHour() > 0 ? summary.getOtHour() + " hours" : null,
+                            summary.getOtAmount()));
+                }
+                for (PaySummaryComponent c : summary.getComponents()) {
+                    Line line = new Line(c.getComponentName(),
+                            c.getNote() != null && !c.getNote().isBlank() ? c.getNote() : null,
+                            c.getAmount() != null ? Math.abs(c.getAmount()) : 0);
+                    String type = c.getComponentType() != null ? c.getComponentType().toUpperCase() : "";
+                    switch (type) {
+                        case "ADDITION" -> income.add(line);
+                        case "TAX_DEDUCTION" -> taxDeduction.add(line);
+                        default -> deduction.add(line);
+                    }
+                }
+                if (summary.getTaxAmount() != null && summary.getTaxAmount() != 0) {
+                    deduction.add(new Line("Thuế Thu Nhập",
+                            "Thu nhập tính thuế: " + money(summary.getTaxableIncome()),
+                            Math.abs(summary.getTaxAmount())));
+                    for (Line t : taxDeduction) {
+                        deduction.add(new Line("    " + t.label(), t.note(), t.value()));
+                    }
+                }
+                if (deduction.isEmpty() && summary.getBhAmount() != null && summary.getBhAmount() != 0) {
+                    deduction.add(new Line("Đóng Bảo Hiểm", null, Math.abs(summary.getBhAmount())));
+                }
+
+                w.section("Thu Nhập");
+                w.lines(income);
+                w.newLine(6);
+                w.section("Khấu Trừ");
+                w.lines(deduction);
+                w.newLine(6);
+
+                // 4. Tổng
+                int gross = summary.getGrossIncome() != null ? summary.getGrossIncome() : 0;
+                int net = summary.getNetSalary() != null ? summary.getNetSalary() : 0;
+                w.section("Tổng Kết");
+                w.lines(List.of(
+                        new Line("Tổng Thu Nhập", null, gross),
+                        new Line("Tổng Khấu Trừ", null, gross - net)));
+                w.rule();
+                w.newLine(4);
+                w.text("Thực Lĩnh", bold, HEADER_SIZE, MARGIN);
+                w.textRight(money(net), bold, HEADER_SIZE);
+                w.newLine(ROW_HEIGHT);
+            }
+
+            doc.save(out);
+        }
+    }
+
+    private static TrueTypeFont parse(byte[] bytes) {
+        try {
+            return new TTFParser().parse(new RandomAccessReadBuffer(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Không đọc được font payslip", e);
+        }
+    }
+
+    private static String nvl(String value, String fallback) {
+        return (value != null && !value.isBlank()) ? value : fallback;
+    }
+
+    private static String money(Integer value) {
+        // DecimalFormat không thread-safe -> tạo mới mỗi lần (rẻ so với render PDF)
+        DecimalFormat format = new DecimalFormat("#,##0", DecimalFormatSymbols.getInstance(Locale.forLanguageTag("vi-VN")));
+        return format.format(value != null ? value : 0) + " ₫";
+    }
+
+    private record Line(String label, String note, int value) {
+    }
+
+    /**
+     * Con trỏ ghi từ trên xuống, tự sang trang mới khi hết chỗ.
+     */
+    private static class PageWriter implements AutoCloseable {
+        private final PDDocument doc;
+        private final PDType0Font regular;
+        private final PDType0Font bold;
+        private PDPageContentStream cs;
+        private float y;
+
+        private PageWriter(PDDocument doc, PDType0Font regular, PDType0Font bold) throws IOException {
+            this.doc = doc;
+            this.regular = regular;
+            this.bold = bold;
+            newPage();
+        }
+
+        private void newPage() throws IOException {
+            if (cs != null) {
+                cs.close();
+            }
+            PDPage page = new PDPage(PAGE_SIZE);
+            doc.addPage(page);
+            cs = new PDPageContentStream(doc, page);
+            y = PAGE_SIZE.getHeight() - MARGIN;
+        }
+
+        private void newLine(float height) throws IOException {
+            y -= height;
+            if (y < MARGIN + ROW_HEIGHT) {
+                newPage();
+            }
+        }
+
+        private void text(String s, PDType0Font font, float size, float x) throws IOException {
+            cs.beginText();
+            cs.setFont(font, size);
+            cs.newLineAtOffset(x, y);
+            cs.showText(s);
+            cs.endText();
+        }
+
+        private void textRight(String s, PDType0Font font, float size) throws IOException {
+            float width = font.getStringWidth(s) / 1000 * size;
+            text(s, font, size, PAGE_SIZE.getWidth() - MARGIN - width);
+        }
+
+        private void section(String title) throws IOException {
+            cs.setNonStrokingColor(0.93f, 0.95f, 0.98f);
+            cs.addRect(MARGIN, y - 5, PAGE_SIZE.getWidth() - 2 * MARGIN, ROW_HEIGHT);
+            cs.fill();
+            cs.setNonStrokingColor(0f, 0f, 0f);
+            text(title, bold, HEADER_SIZE, MARGIN + 4);
+            newLine(ROW_HEIGHT + 4);
+        }
+
+        private void labelValue(String[] pair, float x) throws IOException {
+            text(pair[0] + ":", regular, TEXT_SIZE, x);
+            text(pair[1], bold, TEXT_SIZE, x + 110);
+        }
+
+        private void lines(List<Line> lines) throws IOException {
+            if (lines.isEmpty()) {
+                text("—", regular, TEXT_SIZE, MARGIN + 4);
+                newLine(ROW_HEIGHT);
+                return;
+            }
+            for (Line line : lines) {
+                text(line.label(), regular, TEXT_SIZE, MARGIN + 4);
+                textRight(money(line.value()), regular, TEXT_SIZE);
+                if (line.note() != null) {
+                    newLine(NOTE_SIZE + 4);
+                    cs.setNonStrokingColor(0.4f, 0.4f, 0.4f);
+                    text(truncate(line.note()), regular, NOTE_SIZE, MARGIN + 16);
+                    cs.setNonStrokingColor(0f, 0f, 0f);
+                }
+                newLine(ROW_HEIGHT);
+            }
+        }
+
+        private String truncate(String note) throws IOException {
+            float max = PAGE_SIZE.getWidth() - 2 * MARGIN - VALUE_COLUMN_WIDTH;
+            String s = note;
+            while (s.length() > 1 && regular.getStringWidth(s) / 1000 * NOTE_SIZE > max) {
+                s = s.substring(0, s.length() - 2);
+            }
+            return s.length() < note.length() ? s + "…" : s;
+        }
+
+        private void rule() throws IOException {
+            cs.setLineWidth(0.5f);
+            cs.moveTo(MARGIN, y + ROW_HEIGHT - 4);
+            cs.lineTo(PAGE_SIZE.getWidth() - MARGIN, y + ROW_HEIGHT - 4);
+            cs.stroke();
+        }
+
+        @Override
+        public void close() throws IOException {
+            cs.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Chạy lại 1 transaction khi bị xung đột ghi đồng thời (@Version lệch, deadlock, hết thời gian chờ khoá).
+ * Mỗi lần thử phải là 1 transaction mới (đọc lại dữ liệu); lỗi nghiệp vụ không thử lại.
+ * Chờ giữa các lần tăng dần + ngẫu nhiên để các luồng đụng nhau không thử lại cùng lúc.
+ */
+public final class OptimisticRetry {
+
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public OptimisticRetry(int maxAttempts, long backoffMs) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts phải >= 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = Math.max(backoffMs, 0);
+    }
+
+    /**
+     * @param attempt nhận số thứ tự lần thử (từ 1)
+     * @return kết quả của lần thử thành công; hết lượt thì ném lại lỗi xung đột cuối cùng
+     */
+    public <T> T run(IntFunction<T> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.apply(i);
+            } catch (RuntimeException e) {
+                if (!isConflict(e) || i >= maxAttempts) {
+                    throw e;
+                }
+                sleep(i);
+            }
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public static boolean isConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConcurrencyFailureException || t instanceof OptimisticLockException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private void sleep(int attempt) {
+        if (backoffMs == 0) {
+            return;
+        }
+        long max = backoffMs << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs, max + 1));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi chờ thử lại", ie);
+        }
+    }
+}
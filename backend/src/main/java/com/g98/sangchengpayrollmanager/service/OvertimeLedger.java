@@ -0,0 +1,56 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.OvertimeBalance;
+import com.g98.sangchengpayrollmanager.repository.OvertimeBalanceRepository;
+import com.g98.sangchengpayrollmanager.repository.OvertimeBalanceRepositoryCustom.Hours;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Sổ giờ OT (overtime_balance) theo nhân viên x tháng và nhân viên x năm, thay cho SUM trên overtime_request.
+ * - Gửi đơn: +chờ duyệt. Duyệt: chờ duyệt -> đã duyệt. Từ chối / xoá đơn chờ: -chờ duyệt.
+ * - Ghi bằng delta trong transaction đổi trạng thái đơn: đơn và sổ cùng commit hoặc cùng rollback.
+ * - Kiểm tra hạn mức / xem tổng giờ = đọc 1 dòng.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OvertimeLedger {
+
+    private final OvertimeBalanceRepository overtimeBalanceRepository;
+
+    public void submitted(String employeeCode, LocalDate otDate, int hours) {
+        add(employeeCode, otDate, hours, 0);
+    }
+
+    public void approved(String employeeCode, LocalDate otDate, int hours) {
+        add(employeeCode, otDate, -hours, hours);
+    }
+
+    // đơn chờ bị từ chối / xoá
+    public void released(String employeeCode, LocalDate otDate, int hours) {
+        add(employeeCode, otDate, -hours, 0);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Hours month(String employeeCode, LocalDate date) {
+        return overtimeBalanceRepository.loadHours(employeeCode, date.getYear(), date.getMonthValue());
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Hours year(String employeeCode, int year) {
+        return overtimeBalanceRepository.loadHours(employeeCode, year, OvertimeBalance.YEAR_TOTAL);
+    }
+
+    private void add(String employeeCode, LocalDate otDate, int pendingDelta, int approvedDelta) {
+        if (pendingDelta == 0 && approvedDelta == 0) {
+            return;
+        }
+        overtimeBalanceRepository.addHours(employeeCode, otDate.getYear(), otDate.getMonthValue(),
+                pendingDelta, approvedDelta);
+    }
+}
@@ -1,14 +1,13 @@
 package com.g98.sangchengpayrollmanager.service;
 
 import com.g98.sangchengpayrollmanager.model.dto.payroll.PaySummaryComponentItem;
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PolicySnapshot;
 import com.g98.sangchengpayrollmanager.model.entity.LegalPolicy;
 import com.g98.sangchengpayrollmanager.model.entity.PayComponent;
 import com.g98.sangchengpayrollmanager.model.entity.PayComponentType;
 import com.g98.sangchengpayrollmanager.model.enums.CalculationType;
 import com.g98.sangchengpayrollmanager.model.enums.PaySummaryComponentType;
 import com.g98.sangchengpayrollmanager.model.enums.TaxTreatmentCode;
-import com.g98.sangchengpayrollmanager.repository.LegalPolicyGroupRepository;
-import com.g98.sangchengpayrollmanager.repository.LegalPolicyRepository;
 import com.g98.sangchengpayrollmanager.repository.PayComponentRepository;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -24,8 +23,7 @@ import java.util.Map;
 public class PayComponentService {
 
     private final PayComponentRepository payComponentRepository;
-    private final LegalPolicyRepository legalPolicyRepository;
-    private final LegalPolicyGroupRepository legalPolicyGroupRepository;
+    private final PolicySnapshotCache policySnapshotCache;
 
 
 /*
@@ -42,6 +40,14 @@ public class PayComponentService {
     public Result calculate(String employeeCode, LocalDate periodStart, LocalDate periodEnd) {
         // tìm các component active trong tháng
         List<PayComponent> components = payComponentRepository.findActive(employeeCode, periodStart, periodEnd);
+        return calculate(components, periodEnd);
+    }
+
+    /**
+     * Tính trên danh sách component đã load sẵn (payroll run prefetch theo lô).
+     * type và type.policy phải được fetch sẵn nếu gọi ngoài session.
+     */
+    public Result calculate(List<PayComponent> components, LocalDate periodEnd) {
         List<PaySummaryComponentItem> paySummaryComponentItems = new ArrayList<>();
         long totalAddition = 0L;
         long totalDeduction = 0L;
@@ -126,7 +132,8 @@ public class PayComponentService {
         //   load group mapping từ DB.
         //   key   = groupPolicyCode (ví dụ "POLICY_PHUCLOI_2TR")
         //   value = list componentTypeId thuộc group đó
-        Map<String, List<Integer>> groupMembers = legalPolicyGroupRepository.loadGroupMapping();
+        PolicySnapshot policies = policySnapshotCache.get(periodEnd);
+        Map<String, List<Integer>> groupMembers = policies.getGroupMembers();
         for (Map.Entry<String, List<Integer>> entry : groupMembers.entrySet()) {
             String groupPolicyCode = entry.getKey();
             List<Integer> memberTypeIds = entry.getValue();
@@ -150,7 +157,7 @@ public class PayComponentService {
 
             // Lấy policy GROUP (cap/tỷ lệ nhóm)
             // lấy ra policy loại group với effective_from <= periodEnd <= effective_to của policy
-            LegalPolicy groupPolicy = legalPolicyRepository.findActiveByCode(groupPolicyCode, periodEnd); //
+            LegalPolicy groupPolicy = policies.getGroupPolicies().get(groupPolicyCode);
             if (groupPolicy == null) {
                 continue;
             }
@@ -0,0 +1,132 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.AttDayContribution;
+import com.g98.sangchengpayrollmanager.repository.AttMonthSummaryRepository;
+import com.g98.sangchengpayrollmanager.repository.PaySummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Nhận thay đổi đầu vào tính lương và chỉ cập nhật phần bị ảnh hưởng:
+ * - 1 ngày công đổi  -> cộng delta vào AttMonthSummary của tháng đó (+ làm mới dòng timesheet)
+ *   + đánh dấu bảng lương DRAFT tháng đó dirty.
+ *   Tổng hợp theo lô gộp delta của cả tháng thành 1 AttMonthChangedEvent / nhân viên.
+ * - PayComponent / SalaryInformation đổi -> đánh dấu bảng lương DRAFT của nhân viên dirty.
+ * Bảng lương dirty được PayrollRecomputeService tính lại ở nền; không tính lại cả tháng / cả công ty.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PayrollChangeTracker {
+
+    // giới hạn kiểu DATE của MySQL, dùng khi khoảng hiệu lực không có đầu/cuối
+    private static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final AttMonthSummaryRepository attMonthRepo;
+    private final AttMonthSummaryService attMonthSummaryService;
+    private final AttTimesheetService attTimesheetService;
+    private final PaySummaryRepository paySummaryRepo;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Chạy đồng bộ trong transaction của người sửa: delta tháng và cờ dirty commit cùng lúc với ngày công.
+     */
+    @EventListener
+    public void onAttendanceDayChanged(AttDayChangedEvent event) {
+        applyMonthDelta(event.employeeCode(), event.date().withDayOfMonth(1), event.after().minus(event.before()));
+    }
+
+    @EventListener
+    public void onAttendanceMonthChanged(AttMonthChangedEvent event) {
+        applyMonthDelta(event.employeeCode(), event.month().withDayOfMonth(1), event.delta());
+    }
+
+    private void applyMonthDelta(String code, LocalDate monthStart, AttDayContribution delta) {
+        if (!delta.isZero()) {
+            int updated = attMonthRepo.addCounters(code, monthStart,
+                    delta.otHours(),
+                    delta.workHours(),
+                    delta.annualLeave(),
+                    BigDecimal.valueOf(delta.meal()),
+                    BigDecimal.valueOf(delta.trial()),
+                    BigDecimal.valueOf(delta.payable()),
+                    delta.late(),
+                    delta.earlyLeave());
+            if (updated == 0) {
+                // tháng chưa có summary -> tạo lần đầu từ toàn bộ daily summary (đã gồm ngày vừa sửa)
+                attMonthSummaryService.createMonthSummary(code, monthStart);
+            }
+            attTimesheetService.markStale(code, monthStart);
+        }
+
+        paySummaryRepo.markDirty(code, monthStart, monthStart.plusMonths(1));
+    }
+
+    /**
+     * Event bắn ra lúc Hibernate flush (entity listener) -> không chạy UPDATE ngay trong flush,
+     * đợi transaction commit rồi đánh dấu trong transaction mới.
+     */
+    @EventListener
+    public void onPayrollInputChanged(PayrollInputChangedEvent event) {
+        String code = event.employeeCode();
+        LocalDate from = event.from() != null ? event.from().withDayOfMonth(1) : MIN_DATE;
+        LocalDate to = event.to() != null ? event.to().withDayOfMonth(1).plusMonths(1) : MAX_DATE;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markDirtyInNewTransaction(code, from, to);
+                }
+            });
+        } else {
+            markDirtyInNewTransaction(code, from, to);
+        }
+    }
+
+    private void markDirtyInNewTransaction(String employeeCode, LocalDate from, LocalDate to) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            Integer marked = tx.execute(status -> paySummaryRepo.markDirty(employeeCode, from, to));
+            if (marked != null && marked > 0) {
+                log.debug("Marked {} draft pay summaries of {} dirty", marked, employeeCode);
+            }
+        } catch (Exception e) {
+            // thay đổi gốc đã commit; bảng lương vẫn tính lại được bằng tay
+            log.warn("Cannot mark pay summaries of {} dirty: {}", employeeCode, e.getMessage());
+        }
+    }
+
+    /**
+     * 1 ngày công của nhân viên đổi: before/after là đóng góp của ngày đó vào tháng trước và sau khi sửa.
+     */
+    public record AttDayChangedEvent(String employeeCode,
+                                     LocalDate date,
+                                     AttDayContribution before,
+                                     AttDayContribution after) {
+    }
+
+    /**
+     * Tổng delta của nhiều ngày công trong cùng 1 tháng của nhân viên (tổng hợp theo lô).
+     */
+    public record AttMonthChangedEvent(String employeeCode, LocalDate month, AttDayContribution delta) {
+    }
+
+    /**
+     * Đầu vào lương (phụ cấp / khấu trừ / lương cơ bản) của nhân viên đổi trong khoảng [from, to]; null = không giới hạn.
+     */
+    public record PayrollInputChangedEvent(String employeeCode, LocalDate from, LocalDate to) {
+    }
+}
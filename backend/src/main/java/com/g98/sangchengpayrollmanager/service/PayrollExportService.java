@@ -4,20 +4,33 @@ import com.g98.sangchengpayrollmanager.repository.PaySummaryRepository;
 import com.g98.sangchengpayrollmanager.util.PayrollRecord;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PayrollExportService {
     private final PaySummaryRepository paySummaryRepo;
 
+    // số dòng SXSSF giữ trong RAM, dòng cũ hơn được xả ra file tạm
+    private static final int ROW_WINDOW = 200;
+    private static final int FIRST_DATA_ROW = 2;
+    private static final int COLUMN_COUNT = 7;
+    private static final int TEMPLATE_LAST_ROW = 1000;
+
     public List<PayrollRecord> buildPayrollRecords(LocalDate monthDate) {
         List<PayrollRecord> records = paySummaryRepo.findPayrollRecordsByMonth(monthDate);
         String string = "SANCHENG THANH TOAN LUONG NHAN VIEN THANG " + monthDate.getMonthValue() + "-" + monthDate.getYear();
@@ -27,62 +40,108 @@ public class PayrollExportService {
     }
 
     @PreAuthorize("hasRole('HR')")
+    @Transactional(readOnly = true)
     public byte[] exportPayrollExcel(LocalDate monthDate) throws Exception {
-        List<PayrollRecord> records = buildPayrollRecords(monthDate);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writePayrollExcel(monthDate, bos);
+        return bos.toByteArray();
+    }
+
+    /**
+     * Ghi file Excel chuyển khoản lương thẳng ra out (không đóng out).
+     * - Giữ 2 dòng header của bank-salary-template.xlsx, bỏ các dòng trống đã kẻ sẵn phía dưới
+     *   (SXSSF chỉ ghi được các dòng sau dòng cuối của template), style của dòng trống được dùng lại cho dữ liệu.
+     * - Dữ liệu đọc dạng Stream từ DB, SXSSF chỉ giữ ROW_WINDOW dòng trong RAM, phần còn lại xả ra file tạm
+     *   -> bộ nhớ gần như không đổi dù tháng có 50 hay 50.000 dòng.
+     */
+    @PreAuthorize("hasRole('HR')")
+    @Transactional(readOnly = true)
+    public void writePayrollExcel(LocalDate monthDate, OutputStream out) throws IOException {
+        String description = "SANCHENG THANH TOAN LUONG NHAN VIEN THANG " + monthDate.getMonthValue() + "-" + monthDate.getYear();
 
         // Đọc template trong resource
         ClassPathResource template = new ClassPathResource("excel-templates/bank-salary-template.xlsx");
 
         try (InputStream is = template.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is);
-             ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+             XSSFWorkbook templateWorkbook = new XSSFWorkbook(is)) {
+            XSSFSheet templateSheet = templateWorkbook.getSheetAt(0);
+
+            // style của dòng dữ liệu đầu tiên (hàng 3) trước khi xoá các dòng trống
+            Row styleRow = templateSheet.getRow(FIRST_DATA_ROW);
+            CellStyle rowStyle = styleRow != null && styleRow.isFormatted() ? styleRow.getRowStyle() : null;
+            CellStyle[] cellStyles = new CellStyle[COLUMN_COUNT];
+            for (int col = 0; col < COLUMN_COUNT; col++) {
+                Cell cell = styleRow != null ? styleRow.getCell(col) : null;
+                cellStyles[col] = cell != null ? cell.getCellStyle() : null;
+            }
+            for (int i = templateSheet.getLastRowNum(); i >= FIRST_DATA_ROW; i--) {
+                Row row = templateSheet.getRow(i);
+                if (row != null) {
+                    templateSheet.removeRow(row);
+                }
+            }
+
+            // close() xoá file tạm của các dòng đã xả ra đĩa
+            try (SXSSFWorkbook workbook = new SXSSFWorkbook(templateWorkbook, ROW_WINDOW);
+                 Stream<PayrollRecord> records = paySummaryRepo.streamPayrollRecordsByMonth(monthDate)) {
                 Sheet sheet = workbook.getSheetAt(0);
-                int rowIndex = 2; // bắt đầu từ hàng 3 (index = 2)
+                int rowIndex = FIRST_DATA_ROW; // bắt đầu từ hàng 3 (index = 2)
                 int stt = 1;
 
-                for (PayrollRecord r : records) {
-                    Row row = sheet.getRow(rowIndex);
-                    if (row == null) row = sheet.createRow(rowIndex);
+                for (PayrollRecord r : (Iterable<PayrollRecord>) records::iterator) {
+                    Row row = sheet.createRow(rowIndex++);
+                    if (rowStyle != null) {
+                        row.setRowStyle(rowStyle);
+                    }
 
                     // A: STT
-                    Cell cellA = row.getCell(0);
-                    if (cellA == null) cellA = row.createCell(0);
-                    cellA.setCellValue(stt++);
-
+                    createCell(row, 0, cellStyles).setCellValue(stt++);
                     // B: Tên KH
-                    Cell cellB = row.getCell(1);
-                    if (cellB == null) cellB = row.createCell(1);
-                    cellB.setCellValue(r.getCustomerName() != null ? r.getCustomerName() : "");
-
+                    createCell(row, 1, cellStyles).setCellValue(r.getCustomerName() != null ? r.getCustomerName() : "");
                     // C: Mô tả
-                    Cell cellC = row.getCell(2);
-                    if (cellC == null) cellC = row.createCell(2);
-                    cellC.setCellValue(r.getDescription() != null ? r.getDescription() : "");
-
+                    createCell(row, 2, cellStyles).setCellValue(description);
                     // D: Số tiền
-                    Cell cellD = row.getCell(3);
-                    if (cellD == null) cellD = row.createCell(3);
+                    Cell cellD = createCell(row, 3, cellStyles);
                     if (r.getAmount() != null) {
                         cellD.setCellValue(r.getAmount()); // numeric
                     } else {
                         cellD.setBlank();
                     }
-
                     // E: TK thụ hưởng
-                    Cell cellE = row.getCell(4);
-                    if (cellE == null) cellE = row.createCell(4);
-                    cellE.setCellValue(r.getBankAccount() != null ? r.getBankAccount() : "");
+                    createCell(row, 4, cellStyles).setCellValue(r.getBankAccount() != null ? r.getBankAccount() : "");
+                    // F, G: giữ khung kẻ như template
+                    createCell(row, 5, cellStyles);
+                    createCell(row, 6, cellStyles);
+                }
 
-                    rowIndex++;
+                // công thức tổng ở E1/G1 của template chỉ tính tới dòng 1000 -> nới theo số dòng thực tế
+                int lastExcelRow = Math.max(rowIndex, TEMPLATE_LAST_ROW);
+                Row header = templateSheet.getRow(0);
+                if (header != null) {
+                    setFormulaIfPresent(header.getCell(4), "SUM(D3:D" + lastExcelRow + ")");
+                    setFormulaIfPresent(header.getCell(6), "COUNT(A3:A" + lastExcelRow + ")");
                 }
 
                 // bắt Excel tính lại các ô có formula (E1, G1…)
                 workbook.setForceFormulaRecalculation(true);
 
-                workbook.write(bos);
-                return bos.toByteArray();
-             }
+                workbook.write(out);
+            }
+        }
     }
 
+    private static Cell createCell(Row row, int col, CellStyle[] styles) {
+        Cell cell = row.createCell(col);
+        if (styles[col] != null) {
+            cell.setCellStyle(styles[col]);
+        }
+        return cell;
+    }
+
+    private static void setFormulaIfPresent(Cell cell, String formula) {
+        if (cell != null && cell.getCellType() == CellType.FORMULA) {
+            cell.setCellFormula(formula);
+        }
+    }
 
 }
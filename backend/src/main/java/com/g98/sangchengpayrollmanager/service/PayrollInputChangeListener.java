@@ -0,0 +1,55 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.PayComponent;
+import com.g98.sangchengpayrollmanager.model.entity.SalaryInformation;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * JPA entity listener cho PayComponent / SalaryInformation: báo PayrollChangeTracker
+ * đánh dấu bảng lương DRAFT của nhân viên cần tính lại.
+ * - Thêm mới: chỉ các tháng trong khoảng hiệu lực.
+ * - Sửa / xoá: không biết khoảng hiệu lực cũ -> mọi tháng còn DRAFT của nhân viên (thường chỉ 1-2 tháng).
+ * - Bỏ qua component BHXH chi trả do chính bước tính lương ghi ra, nếu không mỗi lần tính lại tự đánh dấu lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class PayrollInputChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onCreate(Object entity) {
+        if (entity instanceof PayComponent pc && !BaseSalaryService.isCalculatedComponent(pc)) {
+            publish(pc.getUser(), pc.getStartDate(), pc.getEndDate());
+        } else if (entity instanceof SalaryInformation si) {
+            publish(si.getUser(), si.getEffectiveFrom(), si.getEffectiveTo());
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof PayComponent pc && !BaseSalaryService.isCalculatedComponent(pc)) {
+            publish(pc.getUser(), null, null);
+        } else if (entity instanceof SalaryInformation si) {
+            publish(si.getUser(), null, null);
+        }
+    }
+
+    private void publish(User user, LocalDate from, LocalDate to) {
+        if (user == null) {
+            return;
+        }
+        // employeeCode là khoá của User -> không làm load proxy
+        eventPublisher.publishEvent(
+                new PayrollChangeTracker.PayrollInputChangedEvent(user.getEmployeeCode(), from, to));
+    }
+}
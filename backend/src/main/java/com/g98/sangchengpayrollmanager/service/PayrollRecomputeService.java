@@ -0,0 +1,93 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.PaySummary;
+import com.g98.sangchengpayrollmanager.repository.PaySummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Tính lại ở nền các bảng lương DRAFT bị PayrollChangeTracker đánh dấu dirty.
+ * Cờ dirty được xoá trước khi tính (claimDirty): thay đổi mới đến trong lúc tính sẽ đánh dấu lại
+ * và được tính ở lượt sau, không bị mất.
+ * Tính lỗi thì đánh dấu dirty lại kèm số lần lỗi + lỗi cuối, thử lại với backoff; quá max-attempts thì dừng
+ * tới khi đầu vào đổi (markDirty đưa số lần lỗi về 0) hoặc HR tính lại bằng tay.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PayrollRecomputeService {
+
+    private final PaySummaryRepository paySummaryRepo;
+    private final PayrollService payrollService;
+    private final PayslipRenderQueue payslipRenderQueue;
+
+    @Value("${payroll.recompute.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payroll.recompute.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payroll.recompute.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    @Scheduled(fixedDelayString = "${payroll.recompute.poll-interval-ms:10000}")
+    public void recomputeDirty() {
+        List<Integer> ids = paySummaryRepo.findDirtyDraftIds(maxAttempts, LocalDateTime.now(),
+                PageRequest.of(0, Math.max(batchSize, 1)));
+        int recomputed = 0;
+        int failed = 0;
+        for (Integer id : ids) {
+            if (paySummaryRepo.claimDirty(id) == 0) {
+                // instance khác đã nhận
+                continue;
+            }
+            PaySummary summary = paySummaryRepo.findById(id).orElse(null);
+            if (summary == null) {
+                continue;
+            }
+            String code = summary.getUser().getEmployeeCode();
+            LocalDate month = summary.getDate();
+            int previousFailures = summary.getRecomputeAttempts() != null ? summary.getRecomputeAttempts() : 0;
+            try {
+                payrollService.calculateMonthlySalary(code, month,
+                        month.withDayOfMonth(1), YearMonth.from(month).atEndOfMonth());
+                payslipRenderQueue.enqueue(code, month);
+                if (previousFailures > 0) {
+                    paySummaryRepo.clearRecomputeFailure(id);
+                }
+                recomputed++;
+            } catch (Exception e) {
+                failed++;
+                markFailed(id, code, month, previousFailures + 1, e);
+            }
+        }
+        if (recomputed > 0 || failed > 0) {
+            log.info("Recomputed {} dirty draft pay summaries ({} failed)", recomputed, failed);
+        }
+    }
+
+    // vd còn đơn OT/nghỉ chờ duyệt: thử lại sau 60s, 120s, ... (duyệt đơn sẽ markDirty -> thử ngay)
+    private void markFailed(Integer id, String code, LocalDate month, int attempts, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (error.length() > 500) {
+            error = error.substring(0, 500);
+        }
+        LocalDateTime retryAfter = LocalDateTime.now().plusSeconds(retryDelaySeconds << Math.min(attempts - 1, 10));
+        paySummaryRepo.markRecomputeFailed(id, retryAfter, error);
+        if (attempts >= maxAttempts) {
+            log.warn("Recompute pay summary {} {} failed {} times, waiting for HR: {}", code, month, attempts, error);
+        } else {
+            log.warn("Recompute pay summary {} {} failed (attempt {}), retrying after {}: {}",
+                    code, month, attempts, retryAfter, error);
+        }
+    }
+}
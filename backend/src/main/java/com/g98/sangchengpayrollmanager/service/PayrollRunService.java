@@ -0,0 +1,250 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PayrollInputSnapshot;
+import com.g98.sangchengpayrollmanager.model.dto.payroll.response.PayrollRunResponse;
+import com.g98.sangchengpayrollmanager.model.enums.PayrollRunStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine tính lương cả công ty theo lô.
+ * - Chia danh sách nhân viên thành các partition, mỗi partition chạy trên payrollExecutor.
+ *   Việc chia + đẩy partition chạy trên thread coordinator riêng, chờ khi đã có queue-capacity partition
+ *   đang chờ / chạy (không để pool từ chối, không chạy partition trên thread HTTP).
+ * - Mỗi nhân viên tính trong transaction riêng (PayrollService.calculateMonthlySalary là @Transactional),
+ *   lỗi của 1 người không rollback người khác.
+ * - Dữ liệu đầu vào load sẵn theo lô prefetch-size nhân viên (PayrollInputSnapshotLoader),
+ *   nên cả run chỉ tốn vài chục query đọc thay vì ~10 query / nhân viên.
+ * - Payslip PDF không render trong run mà được đẩy vào PayslipRenderQueue.
+ * - Trả runId ngay, FE poll trạng thái qua getRun(runId).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PayrollRunService {
+
+    private final PayrollService payrollService;
+    private final PayslipRenderQueue payslipRenderQueue;
+    private final PayrollInputSnapshotLoader snapshotLoader;
+    private final PolicySnapshotCache policySnapshotCache;
+
+    @Qualifier("payrollExecutor")
+    private final ExecutorService payrollExecutor;
+
+    @Qualifier("payrollCoordinatorExecutor")
+    private final ExecutorService payrollCoordinatorExecutor;
+
+    @Value("${payroll.run.partition-size:50}")
+    private int partitionSize;
+
+    @Value("${payroll.run.prefetch-size:1000}")
+    private int prefetchSize;
+
+    @Value("${payroll.run.queue-capacity:200}")
+    private int queueCapacity;
+
+    // số partition đang chờ / chạy trên payrollExecutor, dùng chung cho mọi run
+    private Semaphore partitionSlots;
+
+    @PostConstruct
+    void initSlots() {
+        partitionSlots = new Semaphore(Math.max(queueCapacity, 1));
+    }
+
+    // runId -> trạng thái run (giữ trong bộ nhớ, đủ cho 1 instance backend)
+    private final Map<String, PayrollRun> runs = new ConcurrentHashMap<>();
+
+    public PayrollRunResponse startRun(List<String> employeeCodes, LocalDate month) {
+        if (month == null) {
+            throw new IllegalArgumentException("Thiếu tháng tính lương");
+        }
+        if (employeeCodes == null || employeeCodes.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách nhân viên trống");
+        }
+
+        // bỏ trùng nhưng giữ thứ tự
+        List<String> codes = new ArrayList<>(new LinkedHashSet<>(employeeCodes));
+
+        YearMonth ym = YearMonth.from(month);
+        // dọn các run đã xong quá 1 ngày
+        LocalDateTime expiry = LocalDateTime.now().minusDays(1);
+        runs.values().removeIf(r -> r.finishedAt != null && r.finishedAt.isBefore(expiry));
+
+        PayrollRun run = new PayrollRun(UUID.randomUUID().toString(), month, codes.size());
+        runs.put(run.runId, run);
+
+        log.info("Start payroll run {} for {} employees, month {}", run.runId, codes.size(), ym);
+
+        // load snapshot + đẩy partition trên coordinator, không block request
+        CompletableFuture<List<CompletableFuture<Void>>> dispatched;
+        try {
+            dispatched = CompletableFuture.supplyAsync(() -> dispatch(run, codes, month), payrollCoordinatorExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Payroll run {} rejected, too many runs pending", run.runId);
+            run.errors.add("Hệ thống đang bận, quá nhiều lượt tính lương đang chờ. Vui lòng thử lại sau.");
+            run.finish();
+            return toResponse(run);
+        }
+        dispatched
+                .thenCompose(futures -> CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])))
+                .whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        log.error("Payroll run {} aborted", run.runId, ex);
+                        run.errors.add("Run bị dừng: " + ex.getMessage());
+                    }
+                    run.finish();
+                    log.info("Finish payroll run {}: {} ok, {} errors",
+                            run.runId, run.successCount.get(), run.errors.size());
+                });
+
+        return toResponse(run);
+    }
+
+    public PayrollRunResponse getRun(String runId) {
+        PayrollRun run = runs.get(runId);
+        if (run == null) {
+            throw new IllegalArgumentException("Không tìm thấy payroll run: " + runId);
+        }
+        return toResponse(run);
+    }
+
+    // chạy trên coordinator: chỉ chờ slot trống, không join partition
+    private List<CompletableFuture<Void>> dispatch(PayrollRun run, List<String> codes, LocalDate month) {
+        Semaphore slots = partitionSlots;
+        // nạp sẵn chính sách của kỳ lương (thuế/BH dùng ngày đầu tháng, giảm trừ/nhóm dùng cuối tháng)
+        policySnapshotCache.get(month);
+        policySnapshotCache.get(YearMonth.from(month).atEndOfMonth());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<String> batch : partition(codes, Math.max(prefetchSize, 1))) {
+            PayrollInputSnapshot snapshot = snapshotLoader.load(batch, month);
+            for (List<String> partition : partition(batch, Math.max(partitionSize, 1))) {
+                slots.acquireUninterruptibly();
+                try {
+                    CompletableFuture<Void> future = CompletableFuture.runAsync(
+                            () -> processPartition(run, partition, snapshot), payrollExecutor);
+                    future.whenComplete((ignored, ex) -> slots.release());
+                    futures.add(future);
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    for (String code : partition) {
+                        run.errors.add(code + ": hệ thống tính lương đang quá tải");
+                        run.processed.incrementAndGet();
+                    }
+                }
+            }
+        }
+        return futures;
+    }
+
+    private void processPartition(PayrollRun run, List<String> partition, PayrollInputSnapshot snapshot) {
+        LocalDate month = snapshot.getMonth();
+        for (String code : partition) {
+            boolean salaryOk = false;
+            try {
+                payrollService.calculateMonthlySalary(snapshot.get(code), month,
+                        snapshot.getMonthStart(), snapshot.getMonthEnd());
+                salaryOk = true;
+                run.successCount.incrementAndGet();
+            } catch (Exception e) {
+                run.errors.add(code + ": " + e.getMessage());
+            }
+
+            // xếp hàng render payslip (chỉ làm khi tính lương thành công), PDF chạy nền
+            if (salaryOk) {
+                try {
+                    payslipRenderQueue.enqueue(code, month);
+                } catch (Exception e) {
+                    run.errors.add(code + " (payslip): " + e.getMessage());
+                }
+            }
+            run.processed.incrementAndGet();
+        }
+    }
+
+    private static List<List<String>> partition(List<String> codes, int size) {
+        List<List<String>> partitions = new ArrayList<>();
+        for (int i = 0; i < codes.size(); i += size) {
+            partitions.add(codes.subList(i, Math.min(i + size, codes.size())));
+        }
+        return partitions;
+    }
+
+    private PayrollRunResponse toResponse(PayrollRun run) {
+        int success = run.successCount.get();
+        int processed = run.processed.get();
+        List<String> errors = new ArrayList<>(run.errors);
+
+        String message;
+        if (run.status == PayrollRunStatus.RUNNING) {
+            message = "Đang tính lương: " + processed + "/" + run.total + " nhân viên.";
+        } else if (run.status == PayrollRunStatus.COMPLETED) {
+            message = "Tạo thành công bảng lương cho " + success + " nhân viên.";
+        } else {
+            message = "Có " + (run.total - success) + " nhân viên tạo lương thất bại. Vui lòng kiểm tra.";
+        }
+
+        return PayrollRunResponse.builder()
+                .runId(run.runId)
+                .month(run.month)
+                .status(run.status)
+                .totalEmployees(run.total)
+                .processed(processed)
+                .successCount(success)
+                .message(message)
+                .errors(errors)
+                .startedAt(run.startedAt)
+                .finishedAt(run.finishedAt)
+                .build();
+    }
+
+    private static class PayrollRun {
+        private final String runId;
+        private final LocalDate month;
+        private final int total;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        private volatile PayrollRunStatus status = PayrollRunStatus.RUNNING;
+        private volatile LocalDateTime finishedAt;
+
+        private PayrollRun(String runId, LocalDate month, int total) {
+            this.runId = runId;
+            this.month = month;
+            this.total = total;
+        }
+
+        private void finish() {
+            int success = successCount.get();
+            if (success == 0) {
+                status = PayrollRunStatus.FAILED;
+            } else if (success < total) {
+                status = PayrollRunStatus.COMPLETED_WITH_ERRORS;
+            } else {
+                status = PayrollRunStatus.COMPLETED;
+            }
+            finishedAt = LocalDateTime.now();
+        }
+    }
+}
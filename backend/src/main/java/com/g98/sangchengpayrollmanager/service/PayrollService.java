@@ -1,9 +1,12 @@
 package com.g98.sangchengpayrollmanager.service;
 
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PayrollInputSnapshot;
 import com.g98.sangchengpayrollmanager.model.entity.PaySummary;
 
 import java.time.LocalDate;
 
 public interface PayrollService {
     PaySummary calculateMonthlySalary(String employeeCode, LocalDate month, LocalDate monthStart, LocalDate monthEnd);
+
+    PaySummary calculateMonthlySalary(PayrollInputSnapshot.EmployeeInput input, LocalDate month, LocalDate monthStart, LocalDate monthEnd);
 }
@@ -0,0 +1,105 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Playwright;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Giữ Chromium "ấm" cho việc render payslip.
+ * Playwright không thread-safe nên mỗi thread của payslipRenderExecutor có 1 Playwright + Browser riêng,
+ * khởi động lần đầu rồi dùng lại; mỗi job chỉ mở/đóng 1 BrowserContext (nhẹ, cô lập cookie/cache).
+ * Sau recycle-after lần render thì khởi động lại browser để tránh rò bộ nhớ Chromium.
+ */
+@Slf4j
+@Component
+public class PayslipBrowserPool {
+
+    @Value("${payslip.render.recycle-after:500}")
+    private int recycleAfter;
+
+    private final ThreadLocal<Slot> slot = new ThreadLocal<>();
+    private final Set<Slot> slots = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Chạy work trong 1 BrowserContext mới của browser gắn với thread hiện tại.
+     * Chỉ gọi từ thread của payslipRenderExecutor.
+     */
+    public <T> T withContext(Function<BrowserContext, T> work) {
+        Slot s = acquire();
+        try (BrowserContext context = s.browser.newContext()) {
+            return work.apply(context);
+        } catch (RuntimeException e) {
+            // browser chết thì bỏ, lần sau khởi động lại
+            if (!s.browser.isConnected()) {
+                release(s);
+            }
+            throw e;
+        } finally {
+            if (++s.renders >= recycleAfter) {
+                release(s);
+            }
+        }
+    }
+
+    private Slot acquire() {
+        Slot s = slot.get();
+        if (s != null) {
+            return s;
+        }
+        Playwright playwright = Playwright.create();
+        Browser browser = playwright.chromium()
+                .launch(new BrowserType.LaunchOptions().setHeadless(true));
+        s = new Slot(playwright, browser);
+        slot.set(s);
+        slots.add(s);
+        log.info("Started payslip browser on {}", Thread.currentThread().getName());
+        return s;
+    }
+
+    private void release(Slot s) {
+        slot.remove();
+        slots.remove(s);
+        s.close();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Slot s : slots) {
+            s.close();
+        }
+        slots.clear();
+    }
+
+    private static class Slot {
+        private final Playwright playwright;
+        private final Browser browser;
+        private int renders;
+
+        private Slot(Playwright playwright, Browser browser) {
+            this.playwright = playwright;
+            this.browser = browser;
+        }
+
+        private void close() {
+            try {
+                browser.close();
+            } catch (Exception ignored) {
+                // browser đã chết
+            }
+            try {
+                playwright.close();
+            } catch (Exception ignored) {
+                // đã đóng
+            }
+        }
+    }
+}
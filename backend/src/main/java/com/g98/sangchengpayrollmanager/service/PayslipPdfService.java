@@ -54,13 +54,44 @@ public class PayslipPdfService {
         return paySummaryRepo.save(summary);
     }
 
+    /**
+     * Ghi payslipUrl vào PaySummary draft (dùng khi PDF được render bất đồng bộ).
+     * @return false nếu không còn bản draft (đã chốt hoặc bị xoá)
+     */
+    public boolean updatePayslipUrl(String employeeCode, LocalDate month, String payslipUrl) {
+        return paySummaryRepo
+                .findByUserEmployeeCodeAndDateAndStatus(employeeCode, month, "draft")
+                .map(summary -> {
+                    summary.setPayslipUrl(payslipUrl);
+                    paySummaryRepo.save(summary);
+                    return true;
+                })
+                .orElse(false);
+    }
+
     /**
      * Tạo PDF payslip cho 1 nhân viên + 1 tháng.
+     * Mỗi lần gọi khởi động 1 Chromium mới; chạy hàng loạt thì dùng PayslipRenderQueue (browser giữ ấm).
      * @param employeeCode mã nhân viên
      * @param month        tháng lương (ví dụ YearMonth.of(2025, 11))
      * @return Path đầy đủ tới file PDF đã tạo
      */
     public String generatePayslipPdf(String employeeCode, LocalDate month) {
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium()
+                    .launch(new BrowserType.LaunchOptions().setHeadless(true));
+            try (BrowserContext context = browser.newContext()) {
+                return generatePayslipPdf(employeeCode, month, context);
+            } finally {
+                browser.close();
+            }
+        }
+    }
+
+    /**
+     * Như trên nhưng render trong BrowserContext có sẵn (browser đã khởi động).
+     */
+    public String generatePayslipPdf(String employeeCode, LocalDate month, BrowserContext context) {
         String monthStr = month.format(DateTimeFormatter.ofPattern("yyyy-MM"));
         try {
             // 1. Build URL React:
@@ -71,41 +102,20 @@ public class PayslipPdfService {
                     .build()
                     .toUriString();
 
-            // 2. Xác định thư mục lưu file:
-            // backend (working dir) -> parent() = Sangcheng-Payroll-Manager
-            Path backendDir = Paths.get("").toAbsolutePath();
-            Path projectRoot = backendDir.getParent();
-            if (projectRoot == null) {
-                throw new IllegalStateException("Cannot resolve project root from backend directory: " + backendDir);
-            }
-
-            Path storageDir = projectRoot
-                    .resolve("server")
-                    .resolve("pdf-storage")
-                    .resolve("payslips");
-
-            Files.createDirectories(storageDir);
-
-            // 3. Tạo tên file: payslip_EMP001_2025-11.pdf
-            String fileName = String.format("payslip_%s_%s.pdf", employeeCode, monthStr);
-            Path pdfPath = storageDir.resolve(fileName);
-
-            // 4. Dùng Playwright mở trang React và export PDF
-            try (Playwright playwright = Playwright.create()) {
-                Browser browser = playwright.chromium()
-                        .launch(new BrowserType.LaunchOptions().setHeadless(true));
-
-                BrowserContext context = browser.newContext();
-                Page page = context.newPage();
+            // 2. Tạo tên file: payslip_EMP001_2025-11.pdf
+            Path pdfPath = resolvePayslipPath(employeeCode, monthStr);
 
+            // 3. Dùng Playwright mở trang React và export PDF
+            Page page = context.newPage();
+            try {
                 page.navigate(url);
                 // Đợi React + API load xong, tuỳ app có thể chỉnh thời gian hoặc thêm waitForSelector
                 page.waitForLoadState(LoadState.LOAD);
 
-                // 2) Đo chiều cao nội dung trang (px)
+                // Đo chiều cao nội dung trang (px)
                 int scrollHeight = (int) page.evaluate("() => document.documentElement.scrollHeight");
 
-                // 3) Tạo PDF với width/height custom, không chia trang
+                // Tạo PDF với width/height custom, không chia trang
                 String widthPx = "1280px";                 // khớp với thiết kế React
                 String heightPx = scrollHeight + "px";     // full chiều cao
 
@@ -116,16 +126,11 @@ public class PayslipPdfService {
                 );
 
                 Files.write(pdfPath, pdfBytes);
-
-                browser.close();
+            } finally {
+                page.close();
             }
 
-            // tính relative path
-            Path relativePath = projectRoot.resolve("server").relativize(pdfPath);
-            // convert thành URL-friendly
-            String relativeUrl = "/" + relativePath.toString().replace("\\", "/");
-
-            return relativeUrl;
+            return toPayslipUrl(pdfPath);
 
         } catch (Exception e) {
             System.err.println("Error generating payslip PDF for " + employeeCode + " " + monthStr + ": " + e);
@@ -134,6 +139,34 @@ public class PayslipPdfService {
         }
     }
 
+    // server/pdf-storage/payslips/payslip_{code}_{yyyy-MM}.pdf (tạo thư mục nếu chưa có)
+    Path resolvePayslipPath(String employeeCode, String monthStr) throws IOException {
+        // backend (working dir) -> parent() = Sangcheng-Payroll-Manager
+        Path storageDir = resolveProjectRoot()
+                .resolve("server")
+                .resolve("pdf-storage")
+                .resolve("payslips");
+
+        Files.createDirectories(storageDir);
+
+        return storageDir.resolve(String.format("payslip_%s_%s.pdf", employeeCode, monthStr));
+    }
+
+    // đường dẫn tương đối so với thư mục server, dạng URL (/pdf-storage/payslips/...)
+    String toPayslipUrl(Path pdfPath) {
+        Path relativePath = resolveProjectRoot().resolve("server").relativize(pdfPath);
+        return "/" + relativePath.toString().replace("\\", "/");
+    }
+
+    private Path resolveProjectRoot() {
+        Path backendDir = Paths.get("").toAbsolutePath();
+        Path projectRoot = backendDir.getParent();
+        if (projectRoot == null) {
+            throw new IllegalStateException("Cannot resolve project root from backend directory: " + backendDir);
+        }
+        return projectRoot;
+    }
+
 
     public ResponseEntity<Resource> downloadPayslip(String employeeCode, LocalDate month) throws IOException {
         String username = AuthService.getCurrentUsername();
@@ -0,0 +1,175 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.PayslipRenderJob;
+import com.g98.sangchengpayrollmanager.model.enums.PayslipRenderJobStatus;
+import com.g98.sangchengpayrollmanager.repository.PayslipRenderJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Hàng đợi render payslip PDF tách khỏi bước tính lương.
+ * - enqueue() chỉ ghi 1 dòng payslip_render_job (PENDING), tính lương không phải chờ PDF.
+ * - poll() định kỳ lấy job đến hạn, chạy trên payslipRenderExecutor bằng PayslipRenderer đang cấu hình.
+ * - Xong thì chốt job (DONE, đúng version đã claim) rồi mới cập nhật PaySummary.payslipUrl, cùng 1 transaction;
+ *   lỗi thì retry với backoff, quá max-attempts -> FAILED.
+ * - Đổi trạng thái đều là UPDATE có điều kiện version: enqueue lại giữa lúc render thì kết quả cũ bị bỏ,
+ *   job vẫn PENDING và được render lại với số liệu mới.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PayslipRenderQueue {
+
+    private final PayslipRenderJobRepository jobRepo;
+    private final PayslipPdfService payslipPdfService;
+    private final PayslipRenderer payslipRenderer;
+    private final PlatformTransactionManager transactionManager;
+
+    @Qualifier("payslipRenderExecutor")
+    private final ExecutorService renderExecutor;
+
+    @Value("${payslip.render.pool-size:2}")
+    private int poolSize;
+
+    @Value("${payslip.render.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payslip.render.retry-delay-seconds:30}")
+    private long retryDelaySeconds;
+
+    // job RUNNING lâu hơn ngưỡng này coi như instance chạy nó đã chết (phải dài hơn 1 lần render chậm nhất)
+    @Value("${payslip.render.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+
+    // số job đang chạy/đang xếp hàng trong executor, không lấy thêm khi đã đủ
+    private Semaphore inFlight;
+
+    /**
+     * Đưa payslip của nhân viên + tháng vào hàng đợi (hoặc đưa lại về PENDING nếu đã có).
+     */
+    public void enqueue(String employeeCode, LocalDate month) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobRepo.requeue(employeeCode, month, now) > 0) {
+            return;
+        }
+        jobRepo.save(PayslipRenderJob.builder()
+                .employeeCode(employeeCode)
+                .month(month)
+                .status(PayslipRenderJobStatus.PENDING.name())
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+    }
+
+    // job RUNNING quá staleAfterMinutes: instance chạy nó bị tắt giữa chừng (instance khác vẫn đang render thì chưa tới ngưỡng)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${payslip.render.stale-check-interval-ms:300000}",
+            initialDelayString = "${payslip.render.stale-check-interval-ms:300000}")
+    public void requeueStale() {
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = jobRepo.requeueStale(now.minusMinutes(staleAfterMinutes), now);
+        if (requeued > 0) {
+            log.info("Requeued {} stale payslip render jobs", requeued);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payslip.render.poll-interval-ms:2000}")
+    public void poll() {
+        Semaphore permits = permits();
+        int free = permits.availablePermits();
+        if (free == 0) {
+            return;
+        }
+
+        List<PayslipRenderJob> due = jobRepo.findDue(LocalDateTime.now(), PageRequest.of(0, free));
+        for (PayslipRenderJob job : due) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            if (jobRepo.claim(job.getId(), job.getVersion(), LocalDateTime.now()) == 0) {
+                // instance khác đã lấy / vừa enqueue lại
+                permits.release();
+                continue;
+            }
+            long claimedVersion = job.getVersion() + 1;
+            try {
+                renderExecutor.execute(() -> {
+                    try {
+                        render(job, claimedVersion);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                fail(job, claimedVersion, "Render pool đầy: " + e.getMessage());
+            }
+        }
+    }
+
+    private void render(PayslipRenderJob job, long claimedVersion) {
+        String code = job.getEmployeeCode();
+        LocalDate month = job.getMonth();
+        try {
+            String url = payslipRenderer.render(code, month);
+
+            // chốt version trước: job đã bị enqueue lại thì bản render cũ không được ghi đè URL của lượt mới.
+            // UPDATE giữ khoá dòng job tới commit -> enqueue đồng thời phải chờ, URL và DONE cùng commit
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (jobRepo.finish(job.getId(), claimedVersion, PayslipRenderJobStatus.DONE.name(), null,
+                        job.getNextAttemptAt(), LocalDateTime.now()) == 0) {
+                    log.info("Payslip {} {} was requeued while rendering, keeping it pending", code, month);
+                    return;
+                }
+                if (!payslipPdfService.updatePayslipUrl(code, month, url)) {
+                    log.warn("No draft pay summary for {} {}, payslip {} not linked", code, month, url);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Render payslip {} {} failed: {}", code, month, e.getMessage());
+            fail(job, claimedVersion, e.getMessage());
+        }
+    }
+
+    private void fail(PayslipRenderJob job, long claimedVersion, String error) {
+        int attempts = job.getAttempts() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        String lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+
+        String status = PayslipRenderJobStatus.FAILED.name();
+        LocalDateTime nextAttemptAt = job.getNextAttemptAt();
+        if (attempts < maxAttempts) {
+            // backoff tăng dần: 30s, 60s, 120s, ...
+            status = PayslipRenderJobStatus.PENDING.name();
+            nextAttemptAt = now.plusSeconds(retryDelaySeconds << (attempts - 1));
+        }
+        // 0 = đã được enqueue lại -> giữ lượt mới, không tính lần lỗi này
+        jobRepo.finish(job.getId(), claimedVersion, status, lastError, nextAttemptAt, now);
+    }
+
+    private synchronized Semaphore permits() {
+        if (inFlight == null) {
+            // pool-size thread đang chạy + pool-size job chờ sẵn trong queue của executor
+            inFlight = new Semaphore(Math.max(poolSize, 1) * 2);
+        }
+        return inFlight;
+    }
+}
@@ -0,0 +1,15 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import java.time.LocalDate;
+
+/**
+ * Render payslip PDF của 1 nhân viên + 1 tháng vào pdf-storage.
+ * Chọn cài đặt bằng payslip.renderer: browser (mặc định, in trang React qua Chromium) hoặc native (PDFBox).
+ */
+public interface PayslipRenderer {
+
+    /**
+     * @return URL tương đối của file PDF (vd /pdf-storage/payslips/payslip_EMP001_2025-11.pdf)
+     */
+    String render(String employeeCode, LocalDate month);
+}
@@ -0,0 +1,26 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener cho LegalPolicy / LegalPolicyGroup: mọi thay đổi đều làm mới PolicySnapshotCache.
+ * Bắn event thay vì gọi thẳng cache để không tạo vòng phụ thuộc EntityManagerFactory -> repository.
+ */
+@Component
+@RequiredArgsConstructor
+public class PolicyChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        eventPublisher.publishEvent(new PolicySnapshotCache.PolicyChangedEvent(entity));
+    }
+}
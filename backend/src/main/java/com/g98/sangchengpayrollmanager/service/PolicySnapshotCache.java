@@ -0,0 +1,131 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PolicySnapshot;
+import com.g98.sangchengpayrollmanager.model.entity.LegalPolicy;
+import com.g98.sangchengpayrollmanager.repository.InsurancePolicyRepository;
+import com.g98.sangchengpayrollmanager.repository.LegalPolicyGroupRepository;
+import com.g98.sangchengpayrollmanager.repository.LegalPolicyRepository;
+import com.g98.sangchengpayrollmanager.repository.TaxLevelRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache PolicySnapshot theo ngày hiệu lực.
+ * - Lần đầu gặp 1 ngày thì load từ DB (vài query), các lần sau dùng lại -> tính lương từng nhân viên không query policy.
+ * - Bị xoá toàn bộ khi TaxLevel / InsurancePolicy / LegalPolicy / LegalPolicyGroup thay đổi.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PolicySnapshotCache {
+
+    // chặn cache phình ra khi what-if gọi với nhiều ngày khác nhau
+    private static final int MAX_ENTRIES = 64;
+
+    private final TaxLevelRepository taxLevelRepo;
+    private final InsurancePolicyRepository insuranceRepo;
+    private final LegalPolicyRepository legalPolicyRepo;
+    private final LegalPolicyGroupRepository legalPolicyGroupRepo;
+
+    private final Map<LocalDate, PolicySnapshot> snapshots = new ConcurrentHashMap<>();
+
+    // tăng mỗi lần evict, snapshot build xong mà generation đã đổi thì không cache
+    private final AtomicLong generation = new AtomicLong();
+
+    public PolicySnapshot get(LocalDate effectiveDate) {
+        PolicySnapshot cached = snapshots.get(effectiveDate);
+        if (cached != null) {
+            return cached;
+        }
+
+        long gen = generation.get();
+        PolicySnapshot built = load(effectiveDate);
+        if (gen != generation.get()) {
+            return built;
+        }
+        if (snapshots.size() >= MAX_ENTRIES) {
+            snapshots.clear();
+        }
+        PolicySnapshot existing = snapshots.putIfAbsent(effectiveDate, built);
+        return existing != null ? existing : built;
+    }
+
+    /**
+     * Xoá toàn bộ snapshot. Nếu đang trong transaction thì xoá thêm 1 lần sau commit,
+     * tránh trường hợp luồng khác load lại dữ liệu cũ trước khi commit.
+     */
+    public void evictAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        evictAll();
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        snapshots.clear();
+    }
+
+    private PolicySnapshot load(LocalDate effectiveDate) {
+        TaxBracketTable taxTable = TaxBracketTable.compile(effectiveDate, taxLevelRepo.findActiveLevels(effectiveDate));
+
+        int personalDeduction = 0;
+        int perDependentDeduction = 0;
+        for (LegalPolicy policy : legalPolicyRepo.findActiveByCalculationType("TAX_DEDUCTION", effectiveDate)) {
+            if (policy.getCode().contains("PERSONAL_DEDUCTION")) {
+                personalDeduction = (policy.getAmount() != null) ? policy.getAmount() : 0;
+            } else if (policy.getCode().contains("DEPENDENT_DEDUCTION")) {
+                perDependentDeduction = (policy.getAmount() != null) ? policy.getAmount() : 0;
+            }
+        }
+
+        Map<String, List<Integer>> groupMembers = new HashMap<>();
+        Map<String, LegalPolicy> groupPolicies = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : legalPolicyGroupRepo.loadGroupMapping().entrySet()) {
+            groupMembers.put(entry.getKey(), List.copyOf(entry.getValue()));
+            LegalPolicy groupPolicy = legalPolicyRepo.findActiveByCode(entry.getKey(), effectiveDate);
+            if (groupPolicy != null) {
+                groupPolicies.put(entry.getKey(), groupPolicy);
+            }
+        }
+
+        log.debug("Loaded policy snapshot for {}", effectiveDate);
+
+        return PolicySnapshot.builder()
+                .effectiveDate(effectiveDate)
+                .taxBracketTable(taxTable)
+                .personalDeduction(personalDeduction)
+                .perDependentDeduction(perDependentDeduction)
+                .insurancePolicies(List.copyOf(insuranceRepo.findActivePolicies(effectiveDate)))
+                .groupMembers(Map.copyOf(groupMembers))
+                .groupPolicies(Map.copyOf(groupPolicies))
+                .build();
+    }
+
+    /**
+     * Event bắn ra khi chính sách thay đổi (xem PolicyChangeListener).
+     */
+    public record PolicyChangedEvent(Object source) {
+    }
+}
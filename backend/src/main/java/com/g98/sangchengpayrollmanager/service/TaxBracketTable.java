@@ -0,0 +1,134 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.TaxLevel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Biểu thuế lũy tiến từng phần đã "biên dịch" cho 1 ngày hiệu lực.
+ * - Ngưỡng lưu bằng long, thuế cộng dồn của các bậc bên dưới tính sẵn.
+ * - Thuế suất giữ dạng phân số chính xác (unscaled / 10^scale), làm tròn HALF_UP theo từng bậc
+ *   như cách tính cũ nhưng không qua double.
+ * => thuế của 1 mức thu nhập = 1 lần binary search + 1 phép nhân.
+ * Immutable, dùng chung giữa payroll run và API what-if (qua PolicySnapshot).
+ * Dữ liệu cũ có bậc chồng lấn: không chặn cả snapshot, tính lại theo vòng lặp cũ (cộng từng bậc).
+ */
+@Slf4j
+public final class TaxBracketTable {
+
+    private final LocalDate effectiveDate;
+    private final long[] from;            // ngưỡng dưới của bậc (loại trừ)
+    private final long[] to;              // ngưỡng trên của bậc (bao gồm)
+    private final long[] rateNumerator;   // thuế suất = rateNumerator / rateDenominator
+    private final long[] rateDenominator;
+    private final long[] cumulativeTax;   // tổng thuế của các bậc trước bậc i (đã làm tròn từng bậc)
+    private final boolean overlapping;    // có bậc chồng lấn -> không binary search được
+
+    private TaxBracketTable(LocalDate effectiveDate, long[] from, long[] to,
+                            long[] rateNumerator, long[] rateDenominator, long[] cumulativeTax,
+                            boolean overlapping) {
+        this.effectiveDate = effectiveDate;
+        this.from = from;
+        this.to = to;
+        this.rateNumerator = rateNumerator;
+        this.rateDenominator = rateDenominator;
+        this.cumulativeTax = cumulativeTax;
+        this.overlapping = overlapping;
+    }
+
+    /**
+     * @param levels các bậc thuế đang hiệu lực (thứ tự bất kỳ); bậc chồng lấn được ghi log và tính theo cách cũ
+     */
+    public static TaxBracketTable compile(LocalDate effectiveDate, List<TaxLevel> levels) {
+        List<TaxLevel> sorted = new ArrayList<>(levels);
+        sorted.sort(Comparator.comparing(TaxLevel::getFromValue));
+
+        int n = sorted.size();
+        long[] from = new long[n];
+        long[] to = new long[n];
+        long[] num = new long[n];
+        long[] den = new long[n];
+        long[] cumulative = new long[n];
+
+        long runningTax = 0L;
+        boolean overlapping = false;
+        for (int i = 0; i < n; i++) {
+            TaxLevel level = sorted.get(i);
+            from[i] = level.getFromValue();
+            to[i] = (level.getToValue() != null) ? level.getToValue() : Long.MAX_VALUE;
+
+            if (i > 0 && from[i] < to[i - 1]) {
+                log.warn("Tax level {} overlaps the previous level ({} < {}) for {}, using per-level evaluation",
+                        level.getName(), from[i], to[i - 1], effectiveDate);
+                overlapping = true;
+            }
+
+            BigDecimal rate = (level.getPercentage() != null) ? level.getPercentage() : BigDecimal.ZERO;
+            if (rate.scale() < 0) {
+                rate = rate.setScale(0);
+            }
+            num[i] = rate.unscaledValue().longValueExact();
+            den[i] = BigDecimal.TEN.pow(rate.scale()).longValueExact();
+
+            cumulative[i] = runningTax;
+            if (to[i] != Long.MAX_VALUE) {
+                runningTax += taxOf(to[i] - from[i], num[i], den[i]);
+            }
+        }
+
+        return new TaxBracketTable(effectiveDate, from, to, num, den, cumulative, overlapping);
+    }
+
+    public LocalDate getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    public int size() {
+        return from.length;
+    }
+
+    public boolean isOverlapping() {
+        return overlapping;
+    }
+
+    /**
+     * Thuế TNCN của 1 tháng cho thu nhập tính thuế taxableIncome (đã trừ giảm trừ, BH).
+     */
+    public long taxFor(long taxableIncome) {
+        if (overlapping) {
+            return taxForEachLevel(taxableIncome);
+        }
+        // bậc cuối cùng có from < taxableIncome
+        int i = Arrays.binarySearch(from, taxableIncome);
+        i = (i >= 0) ? i - 1 : -i - 2;
+        if (i < 0) {
+            return 0L;
+        }
+        long width = Math.min(taxableIncome, to[i]) - from[i];
+        return cumulativeTax[i] + taxOf(width, rateNumerator[i], rateDenominator[i]);
+    }
+
+    // vòng lặp cũ của TaxService: cộng phần thu nhập rơi vào từng bậc (bậc chồng lấn bị tính cả 2 lần như trước)
+    private long taxForEachLevel(long taxableIncome) {
+        long total = 0L;
+        for (int i = 0; i < from.length && taxableIncome > from[i]; i++) {
+            total += taxOf(Math.min(taxableIncome, to[i]) - from[i], rateNumerator[i], rateDenominator[i]);
+        }
+        return total;
+    }
+
+    // width * num / den, làm tròn HALF_UP (width >= 0)
+    private static long taxOf(long width, long num, long den) {
+        if (width <= 0L) {
+            return 0L;
+        }
+        long product = Math.multiplyExact(width, num);
+        return (product + den / 2) / den;
+    }
+}
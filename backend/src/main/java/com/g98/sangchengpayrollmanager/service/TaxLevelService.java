@@ -18,6 +18,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TaxLevelService {
     private final TaxLevelRepository taxLevelRepository;
+    private final PolicySnapshotCache policySnapshotCache;
 
     public List<TaxLevelResponse> getAllTaxLevels() {
         return getAllSorted().stream()
@@ -78,15 +79,7 @@ public class TaxLevelService {
             }
         }
 
-        for (TaxLevel t : existingLevels) {
-            boolean overlap = fromValue < t.getToValue();
-            if (overlap) {
-                throw new RuntimeException(
-                        "Khoảng thu nhập " + fromValue + " - " + toValue
-                                + " bị trùng với bậc thuế " + t.getFromValue() + " - " + t.getToValue()
-                );
-            }
-        }
+        checkBracketOverlap(existingLevels, null, fromValue, toValue);
         TaxLevel taxLevel = TaxLevel.builder()
                 .name(request.getName())
                 .fromValue(request.getFromValue())
@@ -97,12 +90,24 @@ public class TaxLevelService {
                 .build();
 
         taxLevel = taxLevelRepository.save(taxLevel);
+        policySnapshotCache.evictAll();
         return toResponse(taxLevel);
     }
 
     @Transactional
     public TaxLevelResponse updateTaxLevel(Integer id, TaxLevelDTO request) {
-        TaxLevel taxLevel = taxLevelRepository.findById(id).orElse(null);
+        TaxLevel taxLevel = taxLevelRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Khong ton tai:  " + id));
+
+        if (request.getFromValue() == null || request.getToValue() == null) {
+            throw new RuntimeException("Khoảng thu nhập không được null");
+        }
+        if (request.getFromValue() > request.getToValue()) {
+            throw new RuntimeException("Giá trị 'from' phải nhỏ hơn hoặc bằng 'to'");
+        }
+        // biểu thuế có bậc chồng lấn thì snapshot phải tính chậm theo từng bậc -> chặn ngay khi lưu
+        checkBracketOverlap(taxLevelRepository.findByEffectiveFrom(request.getEffectiveFrom()), id,
+                request.getFromValue(), request.getToValue());
 
         taxLevel.setName(request.getName());
         taxLevel.setFromValue(request.getFromValue());
@@ -110,7 +115,9 @@ public class TaxLevelService {
         taxLevel.setPercentage(request.getPercentage());
         taxLevel.setEffectiveFrom(request.getEffectiveFrom());
         taxLevel.setEffectiveTo(request.getEffectiveTo());
-        return toResponse(taxLevelRepository.save(taxLevel));
+        taxLevel = taxLevelRepository.save(taxLevel);
+        policySnapshotCache.evictAll();
+        return toResponse(taxLevel);
 
     }
 
@@ -119,6 +126,24 @@ public class TaxLevelService {
             throw new RuntimeException("Khong ton tai:  " + id);
         }
         taxLevelRepository.deleteById(id);
+        policySnapshotCache.evictAll();
+    }
+
+    // [from, to) của bậc mới không được giao với bậc khác cùng effectiveFrom (toValue null = không giới hạn)
+    private void checkBracketOverlap(List<TaxLevel> sameDateLevels, Integer selfId, int fromValue, int toValue) {
+        for (TaxLevel t : sameDateLevels) {
+            if (t.getId() != null && t.getId().equals(selfId)) {
+                continue;
+            }
+            boolean overlap = fromValue < (t.getToValue() != null ? t.getToValue() : Integer.MAX_VALUE)
+                    && t.getFromValue() < toValue;
+            if (overlap) {
+                throw new RuntimeException(
+                        "Khoảng thu nhập " + fromValue + " - " + toValue
+                                + " bị trùng với bậc thuế " + t.getFromValue() + " - " + t.getToValue()
+                );
+            }
+        }
     }
 
     public List<TaxLevel> getAllSorted() {
@@ -1,13 +1,10 @@
 package com.g98.sangchengpayrollmanager.service;
 
 import com.g98.sangchengpayrollmanager.model.dto.payroll.PaySummaryComponentItem;
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PolicySnapshot;
 import com.g98.sangchengpayrollmanager.model.entity.EmployeeInformation;
-import com.g98.sangchengpayrollmanager.model.entity.LegalPolicy;
-import com.g98.sangchengpayrollmanager.model.entity.TaxLevel;
 import com.g98.sangchengpayrollmanager.model.enums.PaySummaryComponentType;
 import com.g98.sangchengpayrollmanager.repository.EmployeeInformationRepository;
-import com.g98.sangchengpayrollmanager.repository.LegalPolicyRepository;
-import com.g98.sangchengpayrollmanager.repository.TaxLevelRepository;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -15,7 +12,6 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -23,8 +19,7 @@ import java.util.List;
 public class TaxService {
 
     private final EmployeeInformationRepository employeeInfoRepo;
-    private final LegalPolicyRepository legalPolicyRepo;
-    private final TaxLevelRepository taxLevelRepo;
+    private final PolicySnapshotCache policySnapshotCache;
 
     /**
      * Tính thuế TNCN tháng.
@@ -41,29 +36,33 @@ public class TaxService {
             LocalDate asOfDate,
             LocalDate payrollDate
     ) {
+        // 1. Lấy thông tin nhân viên để biết số người phụ thuộc
+        EmployeeInformation empInfo = employeeInfoRepo.findByUserEmployeeCode(employeeCode);
+        return calculateTax(empInfo, assessableIncome, employeeInsurance, asOfDate, payrollDate);
+    }
+
+    /**
+     * Như trên nhưng dùng EmployeeInformation đã load sẵn (payroll run prefetch theo lô).
+     */
+    public Result calculateTax(
+            EmployeeInformation empInfo,
+            int assessableIncome,
+            int employeeInsurance,
+            LocalDate asOfDate,
+            LocalDate payrollDate
+    ) {
 
         List<PaySummaryComponentItem> items = new ArrayList<>();
 
-        // 1. Lấy thông tin nhân viên để biết số người phụ thuộc
-        EmployeeInformation empInfo = employeeInfoRepo.findByUserEmployeeCode(employeeCode);
         int dependentsNo = (empInfo != null && empInfo.getDependentsNo() != null)
                 ? empInfo.getDependentsNo()
                 : 0;
 
-        // 2. Lấy chính sách giảm trừ bản thân & người phụ thuộc từ legal_policy
-        // giả sử code là "PERSONAL_DEDUCTION" và "DEPENDENT_DEDUCTION"
-        List<LegalPolicy> taxDeductionlPolicy =
-                legalPolicyRepo.findActiveByCalculationType("TAX_DEDUCTION", asOfDate);
-
-        int personalDeduction = 0;
-        int perDependentDeduction = 0;
-        for (LegalPolicy policy : taxDeductionlPolicy) {
-            if (policy.getCode().contains("PERSONAL_DEDUCTION")) {
-                personalDeduction = (policy.getAmount() != null) ? policy.getAmount() : 0;
-            } else if (policy.getCode().contains("DEPENDENT_DEDUCTION")) {
-                perDependentDeduction = (policy.getAmount() != null) ? policy.getAmount() : 0;
-            }
-        }
+        // 2. Lấy chính sách giảm trừ bản thân & người phụ thuộc từ legal_policy (qua cache)
+        // code là "PERSONAL_DEDUCTION" và "DEPENDENT_DEDUCTION"
+        PolicySnapshot deductionPolicy = policySnapshotCache.get(asOfDate);
+        int personalDeduction = deductionPolicy.getPersonalDeduction();
+        int perDependentDeduction = deductionPolicy.getPerDependentDeduction();
         int dependentsDeduction = perDependentDeduction * dependentsNo;
 
         // ghi snapshot giảm trừ
@@ -102,43 +101,8 @@ public class TaxService {
                     .build();
         }
 
-        // 4. Lấy bậc thuế và tính theo lũy tiến từng phần
-        List<TaxLevel> levels = taxLevelRepo.findActiveLevels(payrollDate);
-
-        // Sort theo bậc (fromValue ASC)
-        levels.sort(Comparator.comparing(TaxLevel::getFromValue));
-        int totalTax = 0;
-
-        for (TaxLevel level : levels) {
-
-            int from = level.getFromValue();
-            int to = level.getToValue();
-            double percent = level.getPercentage().doubleValue();
-
-            // Nếu thu nhập <= from thì không còn phần chịu thuế cho bậc này
-            if (taxableIncome <= from) break;
-
-            // Xác định phần thu nhập nằm trong bậc này
-            int taxableInLevel = Math.min(taxableIncome, to) - from;
-
-            if (taxableInLevel > 0) {
-                int taxInLevel = (int) Math.round(taxableInLevel * percent);
-                totalTax += taxInLevel;
-                // Nếu bạn muốn snapshot từng bậc -> bật đoạn này
-                /*
-                    items.add(
-                    PaySummaryComponentItem.builder()
-                        .componentName("Thuế TNCN - " + level.getName())
-                        .componentType(PaySummaryComponentType.TAX.name())
-                        .amount(taxInLevel)
-                        .note(String.format("%,d - %,d x %.2f%%",
-                                from, Math.min(remaining, to), percent * 100))
-                        .build()
-                     );
-                 */
-            }
-            // Nếu đã vượt qua bậc này, chuyển sang bậc tiếp theo
-        }
+        // 4. Tính theo lũy tiến từng phần trên biểu thuế đã biên dịch của kỳ lương
+        int totalTax = Math.toIntExact(calculateTaxAmount(taxableIncome, payrollDate));
 
         return Result.builder()
                 .taxableIncome(taxableIncome)
@@ -147,6 +111,17 @@ public class TaxService {
                 .build();
     }
 
+    /**
+     * Thuế TNCN cho 1 mức thu nhập tính thuế (đã trừ giảm trừ, BH), theo biểu thuế hiệu lực tại payrollDate.
+     * Dùng chung cho payroll run và API what-if.
+     */
+    public long calculateTaxAmount(long taxableIncome, LocalDate payrollDate) {
+        if (taxableIncome <= 0) {
+            return 0L;
+        }
+        return policySnapshotCache.get(payrollDate).getTaxBracketTable().taxFor(taxableIncome);
+    }
+
     @Getter
     @Builder
     public static class Result {
@@ -0,0 +1,189 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.DayType;
+import com.g98.sangchengpayrollmanager.model.entity.SpecialDays;
+import com.g98.sangchengpayrollmanager.repository.DayTypeRepository;
+import com.g98.sangchengpayrollmanager.repository.SpecialDaysRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lịch làm việc dùng chung (cache trong bộ nhớ theo năm, WorkCalendarYear).
+ * - DayType / ngày đặc biệt / hệ số OT của từng ngày, đếm ngày làm việc trong khoảng O(1).
+ * - Lần đầu gặp 1 năm thì load từ DB (2 query), các lần sau không query.
+ * - Bị xoá toàn bộ khi SpecialDays / DayType thay đổi (WorkCalendarChangeListener).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkCalendar {
+
+    // chặn cache phình ra khi backfill / báo cáo đi qua nhiều năm
+    private static final int MAX_YEARS = 16;
+
+    private final SpecialDaysRepository specialDaysRepo;
+    private final DayTypeRepository dayTypeRepo;
+
+    private final Map<Integer, WorkCalendarYear> years = new ConcurrentHashMap<>();
+
+    // tên DayType (chữ thường) -> DayType; null = chưa load
+    private volatile Map<String, DayType> dayTypesByName;
+
+    // tăng mỗi lần evict, năm build xong mà generation đã đổi thì không cache
+    private final AtomicLong generation = new AtomicLong();
+
+    public WorkCalendarYear year(int year) {
+        WorkCalendarYear cached = years.get(year);
+        if (cached != null) {
+            return cached;
+        }
+
+        long gen = generation.get();
+        WorkCalendarYear built = load(year);
+        if (gen != generation.get()) {
+            return built;
+        }
+        if (years.size() >= MAX_YEARS) {
+            years.clear();
+        }
+        WorkCalendarYear existing = years.putIfAbsent(year, built);
+        return existing != null ? existing : built;
+    }
+
+    public DayType dayType(LocalDate date) {
+        return year(date.getYear()).dayType(date);
+    }
+
+    public SpecialDays specialDay(LocalDate date) {
+        return year(date.getYear()).specialDay(date);
+    }
+
+    public boolean isHoliday(LocalDate date) {
+        return year(date.getYear()).isHoliday(date);
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return year(date.getYear()).isWorkingDay(date);
+    }
+
+    public BigDecimal otRate(LocalDate date) {
+        return year(date.getYear()).otRate(date);
+    }
+
+    /**
+     * Số ngày T2-T6 trong [from, to] (không trừ ngày lễ)
+     */
+    public int countWeekdays(LocalDate from, LocalDate to) {
+        int count = 0;
+        for (int y = from.getYear(); y <= to.getYear(); y++) {
+            count += year(y).countWeekdays(max(from, LocalDate.of(y, 1, 1)), min(to, LocalDate.of(y, 12, 31)));
+        }
+        return count;
+    }
+
+    /**
+     * Số ngày làm việc (T2-T6, trừ ngày đặc biệt) trong [from, to]
+     */
+    public int countWorkingDays(LocalDate from, LocalDate to) {
+        int count = 0;
+        for (int y = from.getYear(); y <= to.getYear(); y++) {
+            count += year(y).countWorkingDays(max(from, LocalDate.of(y, 1, 1)), min(to, LocalDate.of(y, 12, 31)));
+        }
+        return count;
+    }
+
+    /**
+     * DayType theo tên (không phân biệt hoa thường), null nếu chưa cấu hình
+     */
+    public DayType dayTypeByName(String name) {
+        Map<String, DayType> byName = dayTypesByName;
+        if (byName == null) {
+            long gen = generation.get();
+            byName = loadDayTypes();
+            if (gen == generation.get()) {
+                dayTypesByName = byName;
+            }
+        }
+        return byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Xoá toàn bộ lịch đã cache. Nếu đang trong transaction thì xoá thêm 1 lần sau commit,
+     * tránh trường hợp luồng khác load lại dữ liệu cũ trước khi commit.
+     */
+    public void evictAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onCalendarChanged(CalendarChangedEvent event) {
+        evictAll();
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        years.clear();
+        dayTypesByName = null;
+    }
+
+    private WorkCalendarYear load(int year) {
+        DayType workingDay = dayTypeByName("Working Day");
+        if (workingDay == null) {
+            throw new IllegalStateException("DayType not configured: Working Day");
+        }
+        DayType weekend = dayTypeByName("Weekend");
+        if (weekend == null) {
+            throw new IllegalStateException("DayType not configured: Weekend");
+        }
+
+        WorkCalendarYear calendar = WorkCalendarYear.build(year,
+                specialDaysRepo.findByDateBetweenWithDayType(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)),
+                workingDay, weekend);
+        log.debug("Loaded work calendar for {}", year);
+        return calendar;
+    }
+
+    private Map<String, DayType> loadDayTypes() {
+        Map<String, DayType> byName = new HashMap<>();
+        for (DayType dayType : dayTypeRepo.findAll()) {
+            if (dayType.getName() != null) {
+                byName.putIfAbsent(dayType.getName().toLowerCase(Locale.ROOT), dayType);
+            }
+        }
+        return Map.copyOf(byName);
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * Event bắn ra khi ngày đặc biệt / loại ngày thay đổi (xem WorkCalendarChangeListener).
+     */
+    public record CalendarChangedEvent(Object source) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.g98.sangchengpayrollmanager.service;
+
+import com.g98.sangchengpayrollmanager.model.entity.DayType;
+import com.g98.sangchengpayrollmanager.model.entity.SpecialDays;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Collection;
+
+/**
+ * Lịch làm việc của 1 năm đã tính sẵn cho từng ngày.
+ * - DayType của ngày (của ngày đặc biệt nếu có, không thì Working Day / Weekend), ngày đặc biệt, hệ số OT.
+ * - Số ngày làm việc / ngày thường cộng dồn từ đầu năm => đếm trong 1 khoảng = 1 phép trừ.
+ * Immutable, dùng chung qua WorkCalendar.
+ */
+public final class WorkCalendarYear {
+
+    private final int year;
+    private final DayType[] dayTypes;         // theo dayOfYear - 1
+    private final SpecialDays[] specialDays;  // null = ngày thường
+    private final int[] weekdaysBefore;       // số ngày T2-T6 trước ngày thứ i (i = dayOfYear - 1), phần tử cuối = cả năm
+    private final int[] workingDaysBefore;    // như trên nhưng trừ ngày đặc biệt
+
+    private WorkCalendarYear(int year, DayType[] dayTypes, SpecialDays[] specialDays,
+                             int[] weekdaysBefore, int[] workingDaysBefore) {
+        this.year = year;
+        this.dayTypes = dayTypes;
+        this.specialDays = specialDays;
+        this.weekdaysBefore = weekdaysBefore;
+        this.workingDaysBefore = workingDaysBefore;
+    }
+
+    /**
+     * @param specialDays ngày đặc biệt trong năm (dayType đã load); trùng ngày thì lấy bản đầu tiên
+     */
+    public static WorkCalendarYear build(int year, Collection<SpecialDays> specialDays,
+                                         DayType workingDay, DayType weekend) {
+        int length = Year.of(year).length();
+        DayType[] dayTypes = new DayType[length];
+        SpecialDays[] special = new SpecialDays[length];
+        int[] weekdaysBefore = new int[length + 1];
+        int[] workingDaysBefore = new int[length + 1];
+
+        for (SpecialDays specialDay : specialDays) {
+            if (specialDay.getDate().getYear() == year) {
+                int i = specialDay.getDate().getDayOfYear() - 1;
+                if (special[i] == null) {
+                    special[i] = specialDay;
+                }
+            }
+        }
+
+        LocalDate date = LocalDate.ofYearDay(year, 1);
+        for (int i = 0; i < length; i++, date = date.plusDays(1)) {
+            boolean isWeekend = "Weekend".equals(AttDailySummaryCalculator.defaultDayTypeName(date));
+            dayTypes[i] = special[i] != null ? special[i].getDayType() : isWeekend ? weekend : workingDay;
+            weekdaysBefore[i + 1] = weekdaysBefore[i] + (isWeekend ? 0 : 1);
+            workingDaysBefore[i + 1] = workingDaysBefore[i] + (isWeekend || special[i] != null ? 0 : 1);
+        }
+        return new WorkCalendarYear(year, dayTypes, special, weekdaysBefore, workingDaysBefore);
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public DayType dayType(LocalDate date) {
+        return dayTypes[index(date)];
+    }
+
+    public SpecialDays specialDay(LocalDate date) {
+        return specialDays[index(date)];
+    }
+
+    // ngày lễ / ngày đặc biệt (special_days)
+    public boolean isHoliday(LocalDate date) {
+        return specialDays[index(date)] != null;
+    }
+
+    // T2-T6 và không phải ngày đặc biệt
+    public boolean isWorkingDay(LocalDate date) {
+        int i = index(date);
+        return workingDaysBefore[i + 1] > workingDaysBefore[i];
+    }
+
+    public BigDecimal otRate(LocalDate date) {
+        return dayTypes[index(date)].getOtRate();
+    }
+
+    /**
+     * Số ngày T2-T6 trong [from, to] (không trừ ngày lễ), from/to thuộc năm này
+     */
+    public int countWeekdays(LocalDate from, LocalDate to) {
+        return count(weekdaysBefore, from, to);
+    }
+
+    /**
+     * Số ngày làm việc (T2-T6, trừ ngày đặc biệt) trong [from, to], from/to thuộc năm này
+     */
+    public int countWorkingDays(LocalDate from, LocalDate to) {
+        return count(workingDaysBefore, from, to);
+    }
+
+    private int count(int[] before, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return 0;
+        }
+        return before[index(to) + 1] - before[index(from)];
+    }
+
+    private int index(LocalDate date) {
+        if (date.getYear() != year) {
+            throw new IllegalArgumentException("Ngày " + date + " không thuộc lịch năm " + year);
+        }
+        return date.getDayOfYear() - 1;
+    }
+}
@@ -10,10 +10,10 @@ import com.g98.sangchengpayrollmanager.model.enums.DurationType;
 import com.g98.sangchengpayrollmanager.model.enums.LeaveandOTStatus;
 import com.g98.sangchengpayrollmanager.repository.*;
 import com.g98.sangchengpayrollmanager.service.AttDailySummaryService;
-import com.g98.sangchengpayrollmanager.service.AttMonthSummaryService;
 import com.g98.sangchengpayrollmanager.service.FileStorageService;
 import com.g98.sangchengpayrollmanager.service.LeaveRequestService;
 import com.g98.sangchengpayrollmanager.service.NotificationService;
+import com.g98.sangchengpayrollmanager.service.WorkCalendar;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -43,10 +43,9 @@ public class LeaveRequestServiceImpl implements LeaveRequestService {
     private final LeaveTypeRepository leaveTypeRepository;
     private final LeaveQuotaRepository leaveQuotaRepository;
     private static final String ANNUAL_LEAVE_CODE = "annual";
-    private final SpecialDaysRepository specialDaysRepository;
+    private final WorkCalendar workCalendar;
     private final NotificationService notificationService;
     private final AttDailySummaryService attDailySummaryService;
-    private final AttMonthSummaryService attMonthSummaryService;
     private final FileStorageService fileStorageService;
 
     @Override
@@ -153,15 +152,7 @@ public class LeaveRequestServiceImpl implements LeaveRequestService {
        DurationType durationType = DurationType.valueOf(duration.trim().toUpperCase());
        switch (durationType) {
            case FULL_DAY -> {
-               double days = 0.0;
-               LocalDate date = fromDate;
-               while (!date.isAfter(toDate)) {
-                   if(isWorkingDay(date)) {
-                       days++;
-                   }
-                   date = date.plusDays(1);
-               }
-               return days;
+               return workCalendar.countWorkingDays(fromDate, toDate);
 
            }
 
@@ -360,9 +351,10 @@ public class LeaveRequestServiceImpl implements LeaveRequestService {
         }
 
 
-//        if (LeaveandOTStatus.APPROVED.name().equals(leaveRequest.getStatus())) {
-//            return mapToResponse(leaveRequest);
-//        }
+        // duyệt lại đơn đã duyệt sẽ cộng usedDays lần 2
+        if (!LeaveandOTStatus.PENDING.name().equals(leaveRequest.getStatus())) {
+            throw new IllegalArgumentException("Chỉ duyệt đơn nghỉ ở trạng thái PENDING");
+        }
 
         LocalDate fromDate = leaveRequest.getFromDate();
         LocalDate toDate = (leaveRequest.getToDate() != null) ? leaveRequest.getToDate() : leaveRequest.getFromDate();
@@ -415,30 +407,15 @@ public class LeaveRequestServiceImpl implements LeaveRequestService {
 
             // chỉ xử lý các ngày trong quá khứ
             LocalDate recalEnd = end.isBefore(today) ? end : today.minusDays(1);
-            YearMonth thisMonth = YearMonth.from(LocalDate.now());
-            YearMonth fromMonth = YearMonth.from(leaveRequest.getFromDate());
-            YearMonth toMonth = YearMonth.from(end);
 
             LocalDate current = start;
             while (!current.isAfter(recalEnd)) {
 
-                // gọi service tổng hợp lại công/ngày nghỉ cho ngày đã qua
+                // gọi service tổng hợp lại công/ngày nghỉ cho ngày đã qua;
+                // công tháng + bảng lương DRAFT được cập nhật theo delta từng ngày (PayrollChangeTracker)
                 attDailySummaryService.createDailySummary(leaveRequest.getUser().getEmployeeCode(), current);
                 current = current.plusDays(1);
             }
-            // Nếu khoảng xin nghỉ trong cùng 1 tháng
-            if (fromMonth.equals(toMonth)) {
-                LocalDate recaculateMonth = !thisMonth.equals(fromMonth)
-                        ? fromMonth.atEndOfMonth()
-                        : recalEnd;
-                attMonthSummaryService.createMonthSummary(leaveRequest.getUser().getEmployeeCode(), recaculateMonth);
-            } else {
-                attMonthSummaryService.createMonthSummary(leaveRequest.getUser().getEmployeeCode(), fromMonth.atEndOfMonth());
-                LocalDate recaculateMonth = !thisMonth.equals(toMonth)
-                        ? toMonth.atEndOfMonth()
-                        : recalEnd;
-                attMonthSummaryService.createMonthSummary(leaveRequest.getUser().getEmployeeCode(), recaculateMonth);
-            }
         }
 
         User employee = leaveRequest.getUser();
@@ -478,6 +455,10 @@ public class LeaveRequestServiceImpl implements LeaveRequestService {
             throw new RuntimeException("Manager không được tự từ chối đơn nghỉ của chính mình.");
         }
 
+        if (!LeaveandOTStatus.PENDING.name().equals(leaveRequest.getStatus())) {
+            throw new IllegalArgumentException("Chỉ từ chối đơn nghỉ ở trạng thái PENDING");
+        }
+
         leaveRequest.setStatus(LeaveandOTStatus.REJECTED.name());
         leaveRequest.setNote(note);
         leaveRequest.setApprovedDate(LocalDateTime.now());
@@ -529,6 +510,11 @@ public class LeaveRequestServiceImpl implements LeaveRequestService {
         boolean hasPendingLeave =
                 leaveRequestRepository.existsPendingLeaveInMonth(employeeCode, fromDate, toDate);
 
+        validateNoPendingLeave(hasPendingLeave, ym);
+    }
+
+    // dùng khi cờ pending đã được load sẵn theo lô (payroll run)
+    public void validateNoPendingLeave(boolean hasPendingLeave, YearMonth ym) {
         if (hasPendingLeave) {
             throw new RuntimeException(
                     "Không thể tạo phiếu lương vì còn đơn nghỉ chưa duyệt trong tháng "
@@ -555,13 +541,7 @@ public class LeaveRequestServiceImpl implements LeaveRequestService {
 
 
     private boolean isWorkingDay(LocalDate date) {
-        if (specialDaysRepository.existsByDate(date)) {
-            return false;
-        }
-        return switch (date.getDayOfWeek()) {
-            case SATURDAY, SUNDAY -> false;
-            default -> true;
-        };
+        return workCalendar.isWorkingDay(date);
     }
 
 
@@ -7,6 +7,7 @@ import com.g98.sangchengpayrollmanager.model.entity.User;
 import com.g98.sangchengpayrollmanager.repository.OvertimeBalanceRepository;
 import com.g98.sangchengpayrollmanager.repository.UserRepository;
 import com.g98.sangchengpayrollmanager.service.OvertimeBalanceService;
+import com.g98.sangchengpayrollmanager.service.OvertimeLedger;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,6 +26,7 @@ public class OvertimeBalanceServiceImpl implements OvertimeBalanceService {
 
     private final UserRepository userRepository;
     private final OvertimeBalanceRepository overtimeBalanceRepository;
+    private final OvertimeLedger overtimeLedger;
 
     @Override
     public Integer getMyYearlyOvertime(Integer year) {
@@ -49,34 +51,32 @@ public class OvertimeBalanceServiceImpl implements OvertimeBalanceService {
         }
         User username = userRepository.findByEmployeeCode(employeeCode)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy nhân viên " + employeeCode));
-        Long total =  overtimeBalanceRepository.sumYearlyBalance(employeeCode, year);
-        if (total == null) {
-            total = 0l ;
-        }
-        List<Object[]> rows = overtimeBalanceRepository.sumMonthlyBalance(employeeCode, year);
+        // sổ OT: dòng tổng năm + tối đa 12 dòng tháng, không cộng lại từ đơn OT
+        int total = 0;
         List<MonthlyOvertimeDTO> monthlyOvertimeDTOS = new ArrayList<>();
-        for (Object[] row : rows) {
-            Integer month = (Integer) row[0];
-            Integer overtime = ((Number) row[1]).intValue();
-            monthlyOvertimeDTOS.add(new MonthlyOvertimeDTO(month, overtime));
+        for (OvertimeBalance balance : overtimeBalanceRepository.findByEmployeeCodeAndYear(employeeCode, year)) {
+            if (balance.getMonth() == OvertimeBalance.YEAR_TOTAL) {
+                total = balance.getHourBalance();
+            } else if (balance.getHourBalance() > 0) {
+                monthlyOvertimeDTOS.add(new MonthlyOvertimeDTO(balance.getMonth(), balance.getHourBalance()));
+            }
         }
         return new OvertimeSummaryDTO(
                 username.getEmployeeCode(),
                 username.getFullName(),
                 year,
-                total.intValue(),
+                total,
                 monthlyOvertimeDTOS
         );
 
     }
 
     public Integer getYearlyOvertimeByEmployeeCode(String employeeCode, Integer year) {
-        if (employeeCode == null || employeeCode.isEmpty()) {
+        if (year == null) {
             year = LocalDate.now().getYear();
         }
 
-        Long total = overtimeBalanceRepository.sumYearlyBalance(employeeCode, year);
-        return total == null ? 0 : total.intValue();
+        return overtimeLedger.year(employeeCode, year).approved();
 
     }
 
@@ -7,9 +7,10 @@ import com.g98.sangchengpayrollmanager.model.enums.LeaveandOTStatus;
 import com.g98.sangchengpayrollmanager.repository.*;
 import com.g98.sangchengpayrollmanager.security.ConfirmException;
 import com.g98.sangchengpayrollmanager.service.AttDailySummaryService;
-import com.g98.sangchengpayrollmanager.service.AttMonthSummaryService;
 import com.g98.sangchengpayrollmanager.service.NotificationService;
+import com.g98.sangchengpayrollmanager.service.OvertimeLedger;
 import com.g98.sangchengpayrollmanager.service.OvertimeRequestService;
+import com.g98.sangchengpayrollmanager.service.WorkCalendar;
 import com.g98.sangchengpayrollmanager.service.validator.RequestValidator;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ import java.time.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -33,14 +35,12 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
     private final UserRepository userRepository;
     private final OvertimeRequestRespository overtimeRequestRespository;
     private final RequestValidator requestValidator;
-    private final DayTypeRepository dayTypeRepository;
-    private final SpecialDaysRepository specialDaysRepository;
-    private final OvertimeBalanceRepository overtimeBalanceRepository;
+    private final WorkCalendar workCalendar;
+    private final OvertimeLedger overtimeLedger;
     private final LeaveTypeRepository leaveTypeRepository;
     private final LeaveQuotaRepository leaveQuotaRepository;
     private final NotificationService notificationService;
     private final AttDailySummaryService attDailySummaryService;
-    private final AttMonthSummaryService attMonthSummaryService;
 
     @Override
     public OvertimeRequestResponse submitOvertimeRequest(OvertimeRequestCreateDTO overtimeRequestDTO) {
@@ -58,9 +58,6 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
                 overtimeRequestDTO.getToTime()
         ).toHours();
 
-        LocalDate monthStart = otDate.withDayOfMonth(1);
-        LocalDate monthEnd   = otDate.withDayOfMonth(otDate.lengthOfMonth());
-
         boolean hasOverlap = overtimeRequestRespository.existsOverlappingRequest(
                 user.getEmployeeCode(),
                 otDate,
@@ -74,21 +71,15 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
             );
         }
 
-        // tổng số giờ OT trong tháng hiện tại
-        int monthlyHours = overtimeRequestRespository.sumWorkedHoursInMonth(
-                user.getEmployeeCode(), monthStart, monthEnd
-        );
-
-        int monthlyAfter = monthlyHours + (int) workedHours;
+        // ghi giờ chờ duyệt vào sổ OT trước rồi mới kiểm tra hạn mức: dòng sổ bị khoá tới lúc commit nên
+        // 2 đơn gửi cùng lúc không cùng lọt dưới hạn mức; vượt mà chưa xác nhận thì rollback cả phần ghi sổ
+        overtimeLedger.submitted(user.getEmployeeCode(), otDate, (int) workedHours);
 
-        LocalDate yearStart = LocalDate.of(otDate.getYear(), 1, 1);
-        LocalDate yearEnd   = LocalDate.of(otDate.getYear(), 12, 31);
-        int yearlyHours = overtimeRequestRespository.sumWorkedHoursInYear(
-                user.getEmployeeCode(), yearStart, yearEnd
-        );
+        // tổng số giờ OT trong tháng (chờ duyệt + đã duyệt, đã gồm đơn này)
+        int monthlyAfter = overtimeLedger.month(user.getEmployeeCode(), otDate).booked();
 
-        // tổng số giờ OT trong năm hiện tại
-        int yearlyAfter = yearlyHours + (int) workedHours;
+        // tổng số giờ OT đã duyệt trong năm + đơn này
+        int yearlyAfter = overtimeLedger.year(user.getEmployeeCode(), otDate.getYear()).approved() + (int) workedHours;
 
         boolean overMonthly = monthlyAfter > 40;
         boolean overYearly  = yearlyAfter > 200;
@@ -165,6 +156,7 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
             throw new IllegalArgumentException(" Chỉ xóa đơn đang chờ ");
         }
 
+        overtimeLedger.released(user.getEmployeeCode(), overtimeRequest.getOtDate(), workedHours(overtimeRequest));
         overtimeRequestRespository.delete(overtimeRequest);
     }
 
@@ -216,7 +208,7 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
         }
 
         if (!LeaveandOTStatus.PENDING.name().equals(overtimeRequest.getStatus())) {
-            throw new IllegalStateException("Chỉ duyệt đơn OT ở trạng thái PENDING");
+            throw new IllegalArgumentException("Chỉ duyệt đơn OT ở trạng thái PENDING");
         }
 
         overtimeRequest.setStatus(LeaveandOTStatus.APPROVED.name());
@@ -224,11 +216,8 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
         overtimeRequest.setNoteOT(note);
 
         OvertimeRequest savedOvertimeRequest = overtimeRequestRespository.save(overtimeRequest);
-        int workHours = (overtimeRequest.getWorkedTime() == null) ? 0 : overtimeRequest.getWorkedTime();
-
-        if (workHours > 0) {
-            upsertMonthlyOvertimeBalance(overtimeRequest.getUser(), overtimeRequest.getOtDate(), workHours);
-        }
+        overtimeLedger.approved(overtimeRequest.getUser().getEmployeeCode(), overtimeRequest.getOtDate(),
+                workedHours(overtimeRequest));
 
         changeOvertimetoLeaveWithMonthlyOverLimit(overtimeRequest.getUser(), overtimeRequest.getOtDate());
 
@@ -239,18 +228,9 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
         if (otDate.isBefore(today)) {
             String empCode = overtimeRequest.getUser().getEmployeeCode();
 
-            // Tính lại công ngày OT (vì là 1 ngày duy nhất)
+            // Tính lại công ngày OT (vì là 1 ngày duy nhất);
+            // công tháng chứa ngày OT + bảng lương DRAFT được cập nhật theo delta (PayrollChangeTracker)
             attDailySummaryService.createDailySummary(empCode, otDate);
-
-            // Tính lại công tháng chứa ngày OT
-            YearMonth thisMonth = YearMonth.from(today);
-            YearMonth otMonth = YearMonth.from(otDate);
-
-            LocalDate recalculateMonthDate = !thisMonth.equals(otMonth)
-                    ? otDate.withDayOfMonth(otDate.lengthOfMonth())   // tháng cũ -> cuối tháng đó
-                    : today.minusDays(1);               // tháng hiện tại -> ổng hop lại đến ngày hiện tại
-
-            attMonthSummaryService.createMonthSummary(empCode, recalculateMonthDate);
         }
 
         User employee = overtimeRequest.getUser();
@@ -285,13 +265,15 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
         }
 
         if (!LeaveandOTStatus.PENDING.name().equals(overtimeRequest.getStatus())) {
-            throw new IllegalStateException("Chỉ duyệt đơn overtime ở trạng thái PENDING");
+            throw new IllegalArgumentException("Chỉ từ chối đơn overtime ở trạng thái PENDING");
         }
 
         overtimeRequest.setStatus(LeaveandOTStatus.REJECTED.name());
         overtimeRequest.setApprovedDateOT(LocalDateTime.now());
         overtimeRequest.setNoteOT(note);
         OvertimeRequest saveOvertimeRequest = overtimeRequestRespository.save(overtimeRequest);
+        overtimeLedger.released(overtimeRequest.getUser().getEmployeeCode(), overtimeRequest.getOtDate(),
+                workedHours(overtimeRequest));
 
         User employee = overtimeRequest.getUser();
         notificationService.createNotification(
@@ -333,30 +315,15 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
         User user = userRepository.findByUsernameWithRole(username)
                 .orElseThrow(() -> new RuntimeException(" Người không tồn tại " + username));
 
-        LocalDate today = LocalDate.now();
-
-        LocalDate monthStart = today.withDayOfMonth(1);
-        LocalDate monthEnd   = today.withDayOfMonth(today.lengthOfMonth());
-
-        int monthlyHours = overtimeRequestRespository.sumApprovedWorkedHoursInMonth(
-                user.getEmployeeCode(), monthStart, monthEnd
-        );
-
-        return monthlyHours;
+        return overtimeLedger.month(user.getEmployeeCode(), LocalDate.now()).approved();
     }
 
     // Cái này đang dùng bảng carried_over để lưu số gi dư
     public void changeOvertimetoLeaveWithMonthlyOverLimit(User user, LocalDate otDate) {
         String empCode = user.getEmployeeCode();
         int year = otDate.getYear();
-        int month = otDate.getMonthValue();
-
-        LocalDate monthStart = LocalDate.of(year, month, 1);
-        LocalDate monthEnd = otDate.withDayOfMonth(otDate.lengthOfMonth());
 
-        int monthlyHours = overtimeRequestRespository.sumApprovedWorkedHoursInMonth(
-                user.getEmployeeCode(), monthStart, monthEnd
-        );
+        int monthlyHours = overtimeLedger.month(empCode, otDate).approved();
 
         int monthlimit = 40;
         int excessHours = monthlyHours - monthlimit;
@@ -365,11 +332,7 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
             return;
         }
 
-        LocalDate yearStart = LocalDate.of(year, 1, 1);
-        LocalDate yearEnd   = LocalDate.of(year, 12, 31);
-        int yearlyHours = overtimeRequestRespository.sumWorkedHoursInYear(
-                empCode, yearStart, yearEnd
-        );
+        int yearlyHours = overtimeLedger.year(empCode, year).approved();
 
         int yearlyLimit = 200;
         boolean exceedYearLimit = yearlyHours > yearlyLimit;
@@ -406,25 +369,8 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
     }
 
 
-    // tạo overtime_balance mới cho tuần đó
-    private void upsertMonthlyOvertimeBalance(User user, LocalDate otDate, int workedHours) {
-        int year  = otDate.getYear();
-        int month = otDate.getMonthValue();
-
-        OvertimeBalance balance = overtimeBalanceRepository
-                .findByUserEmployeeCodeAndYearAndMonth(user.getEmployeeCode(), year, month)
-                .orElseGet(() -> OvertimeBalance.builder()
-                        .user(user)
-                        .year(year)
-                        .month(month)
-                        .hourBalance(0)
-                        .build()
-                );
-
-        int currentWorkedHours = (balance.getHourBalance() == null) ? 0 : balance.getHourBalance();
-        balance.setHourBalance(currentWorkedHours + workedHours);
-
-        overtimeBalanceRepository.save(balance);
+    private static int workedHours(OvertimeRequest overtimeRequest) {
+        return overtimeRequest.getWorkedTime() == null ? 0 : overtimeRequest.getWorkedTime();
     }
 
     // check khi tạo phiếu lương cho 1 nhân viên
@@ -435,6 +381,11 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
         boolean hasPending = overtimeRequestRespository
                 .existsByEmployeeAndOtDateRangeAndStatus(employeeCode, fromDate, toDate, LeaveandOTStatus.PENDING.name());
 
+        validateNoPendingOvertime(hasPending, yearMonth);
+    }
+
+    // dùng khi cờ pending đã được load sẵn theo lô (payroll run)
+    public void validateNoPendingOvertime(boolean hasPending, YearMonth yearMonth) {
         if (hasPending) {
             throw new RuntimeException("Không thể tạo phiếu lương vì còn đơn OT đang chờ duyệt trong tháng "
                     + yearMonth.getMonthValue() + "/" + yearMonth.getYear());
@@ -468,19 +419,13 @@ public class OvertimeRequestServiceImpl implements OvertimeRequestService {
     // xác định dạng ngày overtime
     private DayType resolveDayType(LocalDate otDate) {
 
-        if (specialDaysRepository.existsByDate(otDate)) {
-            return dayTypeRepository.findByNameIgnoreCase("Holiday")
+        if (workCalendar.isHoliday(otDate)) {
+            return Optional.ofNullable(workCalendar.dayTypeByName("Holiday"))
                     .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy ngày lễ "));
         }
 
-        var dow = otDate.getDayOfWeek();
-        if (dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY) {
-            return dayTypeRepository.findByNameIgnoreCase("Weekend")
-                    .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy ngày "));
-        }
-
-        return dayTypeRepository.findByNameIgnoreCase("Working Day")
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy ngày "));
+        // ngày thường / cuối tuần: Working Day / Weekend
+        return workCalendar.dayType(otDate);
     }
 
     // xác định ngươời gửi đơn
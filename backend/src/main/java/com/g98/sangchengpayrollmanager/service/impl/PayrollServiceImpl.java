@@ -2,6 +2,7 @@ package com.g98.sangchengpayrollmanager.service.impl;
 
 
 import com.g98.sangchengpayrollmanager.model.dto.payroll.PaySummaryComponentItem;
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PayrollInputSnapshot;
 import com.g98.sangchengpayrollmanager.model.entity.*;
 import com.g98.sangchengpayrollmanager.model.enums.PaySummaryStatus;
 import com.g98.sangchengpayrollmanager.repository.*;
@@ -20,15 +21,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class PayrollServiceImpl implements PayrollService {
 
-    private final SalaryInformationRepository salaryRepo;
-    private final AttMonthSummaryRepository attMonthRepo;
+    private final PayrollInputSnapshotLoader snapshotLoader;
     private final PaySummaryRepository paySummaryRepo;
-    private final AttDailySummaryRepository attDailyRepo;
     private final BaseSalaryService baseSalaryService;
     private final OtService otService;
     private final PayComponentService payComponentService;
@@ -39,20 +39,25 @@ public class PayrollServiceImpl implements PayrollService {
 
     @Transactional
     public PaySummary calculateMonthlySalary(String employeeCode, LocalDate month, LocalDate monthStart, LocalDate monthEnd) {
+        PayrollInputSnapshot.EmployeeInput input =
+                snapshotLoader.load(List.of(employeeCode), month).get(employeeCode);
+        return calculateMonthlySalary(input, month, monthStart, monthEnd);
+    }
+
+    @Transactional
+    public PaySummary calculateMonthlySalary(PayrollInputSnapshot.EmployeeInput input, LocalDate month, LocalDate monthStart, LocalDate monthEnd) {
+        String employeeCode = input.getEmployeeCode();
 
-        overtimeRequestService.validateNoPendingOvertime(employeeCode, YearMonth.from(month));
-        leaveRequestService.validateNoPendingLeave(employeeCode, YearMonth.from(month));
+        overtimeRequestService.validateNoPendingOvertime(input.isPendingOvertime(), YearMonth.from(month));
+        leaveRequestService.validateNoPendingLeave(input.isPendingLeave(), YearMonth.from(month));
 
-        // 1. Lấy thông tin cơ bản
-        List<SalaryInformation> salaryInformationList =
-                salaryRepo.findActiveByEmployeeCode(employeeCode, monthStart, monthEnd);
+        // 1. Lấy thông tin cơ bản (đã load sẵn theo lô)
+        List<SalaryInformation> salaryInformationList = input.getSalaryInformations();
         if (salaryInformationList.isEmpty()) {
             throw new IllegalStateException("Không tìm thấy salary info active cho nhân viên " + employeeCode);
         }
-        AttMonthSummary ams =
-                attMonthRepo.findByUserEmployeeCodeAndMonth(employeeCode, month);
-        List<AttDailySummary> adsList =
-                attDailyRepo.findByUserEmployeeCodeAndDateBetween(employeeCode, monthStart, monthEnd);
+        AttMonthSummary ams = input.getMonthSummary();
+        List<AttDailySummary> adsList = input.getDailySummaries();
 
         // list snapshot
         List<PaySummaryComponentItem> snapshot = new ArrayList<>();
@@ -65,8 +70,10 @@ public class PayrollServiceImpl implements PayrollService {
         int otAmount = otService.getTotalOtAmount(adsList, salaryInformationList, ams);
 
         // 4. Phụ cấp, thưởng, deduction
-        PayComponentService.Result pcResult =
-                payComponentService.calculate(employeeCode, monthStart, monthEnd);
+        // bước 2 có thể vừa ghi component "BHXH nghỉ ốm/thai sản" -> khi đó đọc lại từ DB
+        PayComponentService.Result pcResult = hasInsurancePaidLeave(adsList)
+                ? payComponentService.calculate(employeeCode, monthStart, monthEnd)
+                : payComponentService.calculate(input.getPayComponents(), monthEnd);
         snapshot.addAll(pcResult.getPaySummaryComponentItems());
 
         int totalAddition = pcResult.getTotalAddition();        // khoản cộng thêm
@@ -97,7 +104,7 @@ public class PayrollServiceImpl implements PayrollService {
 
         // 8.taxable_income = assessableIncome - personalDeduction - dependentsDeduction - 7.BHXH,BHYT,BHTN;
         // 9.tax_amount
-        TaxService.Result taxResult = taxService.calculateTax(employeeCode, assessableIncome, employeeInsurance, monthEnd, month);
+        TaxService.Result taxResult = taxService.calculateTax(input.getEmployeeInformation(), assessableIncome, employeeInsurance, monthEnd, month);
         snapshot.addAll(taxResult.getPaySummaryComponentItems());
         int taxableIncome = taxResult.getTaxableIncome();
         int taxAmount = taxResult.getTaxAmount();
@@ -165,6 +172,15 @@ public class PayrollServiceImpl implements PayrollService {
         return summary;
     }
 
+    private static boolean hasInsurancePaidLeave(List<AttDailySummary> adsList) {
+        for (AttDailySummary ads : adsList) {
+            if (Objects.equals(ads.getLeaveTypeCode(), "sick") || Objects.equals(ads.getLeaveTypeCode(), "maternity")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 
 }
 
@@ -30,9 +30,17 @@ public final class JacobLoader {
             Files.copy(in, dllPath, StandardCopyOption.REPLACE_EXISTING);
         }
 
-        // Nạp DLL
-        System.setProperty(com.jacob.com.LibraryLoader.JACOB_DLL_PATH, dllPath.toAbsolutePath().toString());
-        com.jacob.com.LibraryLoader.loadJacobLibrary();
+        // Nạp DLL (JACOB gọi qua reflection: jar chỉ có khi build với -Pwindows-com)
+        try {
+            Class<?> loader = Class.forName("com.jacob.com.LibraryLoader");
+            String dllPathProperty = (String) loader.getField("JACOB_DLL_PATH").get(null);
+            System.setProperty(dllPathProperty, dllPath.toAbsolutePath().toString());
+            loader.getMethod("loadJacobLibrary").invoke(null);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Thiếu thư viện JACOB, build với -Pwindows-com để dùng zkteco.driver=com", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Không nạp được JACOB: " + e.getMessage(), e);
+        }
     }
 }
 
@@ -0,0 +1,5 @@
+-- Cột version cho optimistic lock (@Version): duyệt đơn nghỉ / OT song song không cộng trùng quota
+ALTER TABLE leave_quota ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE leave_request ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE overtime_request ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE overtime_balance ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,35 @@
+-- Job tổng hợp lại công theo khoảng ngày (AttendanceBackfillService)
+CREATE TABLE IF NOT EXISTS att_backfill_job (
+    id                  BIGINT AUTO_INCREMENT PRIMARY KEY,
+    from_date           DATE         NOT NULL,
+    to_date             DATE         NOT NULL,
+    employee_filter     TEXT         NULL,
+    status              VARCHAR(30)  NOT NULL,
+    total_units         INT          NOT NULL,
+    total_employee_days BIGINT       NOT NULL,
+    created_at          DATETIME     NOT NULL,
+    resumed_at          DATETIME     NOT NULL,
+    resumed_done_days   BIGINT       NOT NULL DEFAULT 0,
+    finished_at         DATETIME     NULL,
+    last_error          VARCHAR(1000),
+    INDEX idx_att_backfill_job_status (status)
+);
+
+-- Đơn vị việc (lô nhân viên x tháng) = checkpoint của job
+CREATE TABLE IF NOT EXISTS att_backfill_unit (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_id         BIGINT       NOT NULL,
+    month          DATE         NOT NULL,
+    from_date      DATE         NOT NULL,
+    to_date        DATE         NOT NULL,
+    employee_codes TEXT         NOT NULL,
+    employee_days  INT          NOT NULL,
+    status         VARCHAR(20)  NOT NULL,
+    attempts       INT          NOT NULL DEFAULT 0,
+    rows_written   INT          NULL,
+    duration_ms    BIGINT       NULL,
+    last_error     VARCHAR(1000),
+    finished_at    DATETIME     NULL,
+    INDEX idx_att_backfill_unit_job_status (job_id, status),
+    CONSTRAINT fk_att_backfill_unit_job FOREIGN KEY (job_id) REFERENCES att_backfill_job (id) ON DELETE CASCADE
+);
@@ -0,0 +1,12 @@
+-- Unique key cho công ngày: tổng hợp cả công ty ghi lô bằng INSERT ... ON DUPLICATE KEY UPDATE
+-- (AttDailySummaryRepository.upsertAll)
+
+-- 1. Xoá bản trùng đã có, giữ dòng id lớn nhất (bản tổng hợp sau cùng)
+DELETE d1 FROM att_daily_summary d1
+JOIN att_daily_summary d2
+  ON d1.employee_code = d2.employee_code
+ AND d1.date = d2.date
+ AND d1.id < d2.id;
+
+-- 2. Thêm unique key (1 nhân viên chỉ có 1 dòng công / ngày)
+ALTER TABLE att_daily_summary ADD CONSTRAINT uk_att_daily_summary_employee_date UNIQUE (employee_code, date);
@@ -0,0 +1,11 @@
+-- Thông tin kết nối của từng máy chấm công (AttendanceDeviceRegistry)
+ALTER TABLE att_device
+    ADD COLUMN ip            VARCHAR(64) NULL,
+    ADD COLUMN port          INT         NULL,
+    ADD COLUMN comm_password VARCHAR(20) NULL,
+    ADD COLUMN active        BOOLEAN     NOT NULL DEFAULT TRUE;
+
+-- Máy đang dùng (trước đây cấu hình cứng ở zkteco.ip), att_record cũ đều ghi att_device_id = 1
+INSERT INTO att_device (id, vendor, ip, port, active)
+VALUES (1, 'ZKTeco', '192.168.11.2', 4370, TRUE)
+ON DUPLICATE KEY UPDATE ip = COALESCE(ip, VALUES(ip)), port = COALESCE(port, VALUES(port));
@@ -0,0 +1,8 @@
+-- Xác thực máy đẩy log qua /iclock (AttendancePushService.authenticate)
+-- Máy chưa đặt push_token lẫn push_allowed_ips thì push bị từ chối, vẫn đồng bộ bằng cách kéo như cũ
+ALTER TABLE att_device
+    ADD COLUMN push_token       VARCHAR(64)  NULL,
+    ADD COLUMN push_allowed_ips VARCHAR(255) NULL;
+
+-- Ví dụ: máy 1 chỉ được đẩy từ IP LAN của nó
+-- UPDATE att_device SET push_allowed_ips = '192.168.11.2' WHERE id = 1;
@@ -0,0 +1,12 @@
+-- Unique key cho công tháng: tổng hợp cả công ty ghi lô bằng INSERT ... ON DUPLICATE KEY UPDATE
+-- (AttMonthSummaryRepository.upsertAll)
+
+-- 1. Xoá bản trùng đã có, giữ dòng id lớn nhất
+DELETE m1 FROM att_month_summary m1
+JOIN att_month_summary m2
+  ON m1.employee_code = m2.employee_code
+ AND m1.month = m2.month
+ AND m1.id < m2.id;
+
+-- 2. Thêm unique key (1 nhân viên chỉ có 1 dòng công / tháng)
+ALTER TABLE att_month_summary ADD CONSTRAINT uk_att_month_summary_employee_month UNIQUE (employee_code, month);
@@ -0,0 +1,11 @@
+-- Unique key cho lượt chấm công: ghi lô bằng INSERT ... ON DUPLICATE KEY UPDATE id = id, DB tự loại bản trùng (AttRecordRepository.insertSkipDuplicates)
+
+-- 1. Xoá bản trùng đã có, giữ dòng id nhỏ nhất
+DELETE r1 FROM att_record r1
+JOIN att_record r2
+  ON r1.user_id = r2.user_id
+ AND r1.check_time = r2.check_time
+ AND r1.id > r2.id;
+
+-- 2. Thêm unique key (thay cho existsByUserIdAndCheckTime từng dòng)
+ALTER TABLE att_record ADD CONSTRAINT uk_att_record_user_check_time UNIQUE (user_id, check_time);
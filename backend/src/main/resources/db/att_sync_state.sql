@@ -0,0 +1,12 @@
+-- Mốc đồng bộ theo máy chấm công (AttendanceSyncService.syncIncremental)
+CREATE TABLE IF NOT EXISTS att_sync_state (
+    device_id       INT      NOT NULL PRIMARY KEY,
+    last_check_time DATETIME NULL,
+    last_synced_at  DATETIME NULL
+);
+
+-- Khởi tạo từ dữ liệu đã có để lần sync đầu không phải quét lại toàn bộ lịch sử
+INSERT IGNORE INTO att_sync_state (device_id, last_check_time, last_synced_at)
+SELECT COALESCE(att_device_id, 1), MAX(check_time), NOW()
+FROM att_record
+GROUP BY COALESCE(att_device_id, 1);
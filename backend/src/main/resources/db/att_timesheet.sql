@@ -0,0 +1,35 @@
+-- Read model bảng chấm công tháng (AttTimesheetService): phân trang keyset theo (month, employee_code),
+-- tìm theo tiền tố mã / họ tên / tên gọi đều đi qua index
+CREATE TABLE IF NOT EXISTS att_timesheet (
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    employee_code VARCHAR(50)  NOT NULL,
+    month         DATE         NOT NULL,
+    full_name     VARCHAR(100) NOT NULL,
+    given_name    VARCHAR(100) NOT NULL,
+    position_name VARCHAR(100) NULL,
+    days_hours    INT          NOT NULL,
+    ot_hours      INT          NOT NULL,
+    used_leave    INT          NOT NULL,
+    refreshed_at  DATETIME     NOT NULL,
+    CONSTRAINT uk_att_timesheet_month_employee UNIQUE (month, employee_code),
+    INDEX idx_att_timesheet_month_name (month, full_name, employee_code),
+    INDEX idx_att_timesheet_month_given_name (month, given_name)
+);
+
+-- Nạp lần đầu từ các tháng đã có (cùng câu với AttTimesheetRepositoryCustomImpl.refresh)
+INSERT INTO att_timesheet (employee_code, month, full_name, given_name, position_name,
+                           days_hours, ot_hours, used_leave, refreshed_at)
+SELECT ams.employee_code, ams.month, u.full_name, SUBSTRING_INDEX(TRIM(u.full_name), ' ', -1), p.name,
+       ams.days_hours, ams.ot_hours, ams.used_leave, NOW()
+FROM att_month_summary ams
+JOIN `user` u ON u.employee_code = ams.employee_code
+JOIN employee_information ei ON ei.employee_code = ams.employee_code
+JOIN position p ON p.id = ei.position_id
+ON DUPLICATE KEY UPDATE
+    full_name = VALUES(full_name),
+    given_name = VALUES(given_name),
+    position_name = VALUES(position_name),
+    days_hours = VALUES(days_hours),
+    ot_hours = VALUES(ot_hours),
+    used_leave = VALUES(used_leave),
+    refreshed_at = VALUES(refreshed_at);
@@ -0,0 +1,7 @@
+-- Index cho các truy vấn theo tháng dạng khoảng nửa mở [đầu tháng, đầu tháng sau)
+-- (PaySummaryRepository.findPayrollRecordsBetween, OvertimeRequestRespository.filterByOtDateRange,
+--  LeaveRequestRepository.filterByCreatedDateRange)
+CREATE INDEX idx_pay_summary_date_status ON pay_summary (date, status);
+CREATE INDEX idx_pay_summary_employee_date ON pay_summary (employee_code, date);
+CREATE INDEX idx_overtime_request_ot_date_status ON overtime_request (ot_date, status);
+CREATE INDEX idx_leave_request_created_date_status ON leave_request (created_date, status);
@@ -0,0 +1,28 @@
+-- Sổ giờ OT (overtime_balance): thêm giờ chờ duyệt + dòng tổng năm (month = 0), cộng dồn bằng
+-- INSERT ... ON DUPLICATE KEY UPDATE (OvertimeBalanceRepository.addHours)
+
+-- 1. Cột giờ chờ duyệt
+ALTER TABLE overtime_balance ADD COLUMN pending_hours INT NOT NULL DEFAULT 0;
+
+-- 2. Dựng lại sổ từ overtime_request (dòng cũ có thể trùng tháng)
+DELETE FROM overtime_balance;
+
+INSERT INTO overtime_balance (employee_code, year, month, hour_balance, pending_hours)
+SELECT employee_code, YEAR(ot_date), MONTH(ot_date),
+       COALESCE(SUM(CASE WHEN status = 'APPROVED' THEN worked_time END), 0),
+       COALESCE(SUM(CASE WHEN status = 'PENDING' THEN worked_time END), 0)
+FROM overtime_request
+WHERE status IN ('PENDING', 'APPROVED')
+GROUP BY employee_code, YEAR(ot_date), MONTH(ot_date);
+
+INSERT INTO overtime_balance (employee_code, year, month, hour_balance, pending_hours)
+SELECT employee_code, YEAR(ot_date), 0,
+       COALESCE(SUM(CASE WHEN status = 'APPROVED' THEN worked_time END), 0),
+       COALESCE(SUM(CASE WHEN status = 'PENDING' THEN worked_time END), 0)
+FROM overtime_request
+WHERE status IN ('PENDING', 'APPROVED')
+GROUP BY employee_code, YEAR(ot_date);
+
+-- 3. 1 dòng / nhân viên / năm / tháng
+ALTER TABLE overtime_balance MODIFY hour_balance INT NOT NULL DEFAULT 0;
+ALTER TABLE overtime_balance ADD CONSTRAINT uk_overtime_balance_employee_year_month UNIQUE (employee_code, year, month);
@@ -0,0 +1,8 @@
+-- Cờ đánh dấu bảng lương DRAFT cần tính lại (PayrollChangeTracker / PayrollRecomputeService)
+ALTER TABLE pay_summary ADD COLUMN dirty BOOLEAN NOT NULL DEFAULT FALSE;
+CREATE INDEX idx_pay_summary_dirty_status ON pay_summary (dirty, status);
+
+-- Tính lại lỗi: số lần lỗi liên tiếp, thời điểm được thử lại, lỗi cuối (PayrollRecomputeService)
+ALTER TABLE pay_summary ADD COLUMN recompute_attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE pay_summary ADD COLUMN recompute_after DATETIME NULL;
+ALTER TABLE pay_summary ADD COLUMN recompute_error VARCHAR(500) NULL;
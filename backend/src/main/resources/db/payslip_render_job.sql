@@ -0,0 +1,18 @@
+-- Hàng đợi render payslip PDF (PayslipRenderQueue)
+CREATE TABLE IF NOT EXISTS payslip_render_job (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    employee_code   VARCHAR(50)  NOT NULL,
+    month           DATE         NOT NULL,
+    status          VARCHAR(20)  NOT NULL,
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      VARCHAR(1000),
+    next_attempt_at DATETIME     NOT NULL,
+    created_at      DATETIME     NOT NULL,
+    updated_at      DATETIME     NOT NULL,
+    version         BIGINT       NOT NULL DEFAULT 0,
+    CONSTRAINT uk_payslip_render_job_emp_month UNIQUE (employee_code, month),
+    INDEX idx_payslip_render_job_status_next (status, next_attempt_at)
+);
+
+-- bảng đã tạo trước khi có cột version
+-- ALTER TABLE payslip_render_job ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,465 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.model.dto.approval.ApprovalDecisionDTO;
+import com.g98.sangchengpayrollmanager.model.dto.approval.ApprovalDecisionResult;
+import com.g98.sangchengpayrollmanager.model.dto.approval.BulkApprovalResponse;
+import com.g98.sangchengpayrollmanager.model.entity.LeaveQuota;
+import com.g98.sangchengpayrollmanager.model.entity.LeaveRequest;
+import com.g98.sangchengpayrollmanager.model.entity.LeaveType;
+import com.g98.sangchengpayrollmanager.model.entity.OvertimeRequest;
+import com.g98.sangchengpayrollmanager.model.entity.Role;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalAction;
+import com.g98.sangchengpayrollmanager.model.enums.ApprovalRequestType;
+import com.g98.sangchengpayrollmanager.model.enums.BulkApprovalStatus;
+import com.g98.sangchengpayrollmanager.model.enums.DurationType;
+import com.g98.sangchengpayrollmanager.repository.LeaveQuotaRepository;
+import com.g98.sangchengpayrollmanager.repository.LeaveRequestRepository;
+import com.g98.sangchengpayrollmanager.repository.LeaveTypeRepository;
+import com.g98.sangchengpayrollmanager.repository.OvertimeRequestRespository;
+import com.g98.sangchengpayrollmanager.repository.UserRepository;
+import com.g98.sangchengpayrollmanager.service.AttDailySummaryService;
+import com.g98.sangchengpayrollmanager.service.BulkApprovalService;
+import com.g98.sangchengpayrollmanager.service.FileStorageService;
+import com.g98.sangchengpayrollmanager.service.LeaveRequestService;
+import com.g98.sangchengpayrollmanager.service.NotificationService;
+import com.g98.sangchengpayrollmanager.service.OptimisticRetry;
+import com.g98.sangchengpayrollmanager.service.OvertimeRequestService;
+import com.g98.sangchengpayrollmanager.service.WorkCalendar;
+import com.g98.sangchengpayrollmanager.service.impl.LeaveRequestServiceImpl;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BulkApprovalService.apply với repository / service giả: xung đột @Version được mô phỏng bằng
+ * ObjectOptimisticLockingFailureException như Hibernate ném lúc flush. Kiểm tra số lần thử lại,
+ * CONFLICT / FAILED / NOT_APPLIED khi lô rollback và SKIPPED khi đơn đã được người khác duyệt.
+ * Riêng quota nghỉ: chạy LeaveRequestServiceImpl thật trên bảng giả có @Version (VersionedLeaveDb),
+ * nhiều manager duyệt song song các đơn của cùng 1 nhân viên không được làm quota âm.
+ */
+class ApprovalConcurrencyStressTest {
+
+    private static final int THREADS = 16;
+    private static final String APPROVER = "EMP-MGR";
+
+    private final LeaveRequestService leaveRequestService = mock(LeaveRequestService.class);
+    private final OvertimeRequestService overtimeRequestService = mock(OvertimeRequestService.class);
+    private final LeaveRequestRepository leaveRequestRepository = mock(LeaveRequestRepository.class);
+    private final OvertimeRequestRespository overtimeRequestRespository = mock(OvertimeRequestRespository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private BulkApprovalService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkApprovalService(leaveRequestService, overtimeRequestService,
+                leaveRequestRepository, overtimeRequestRespository, userRepository, transactionManager);
+        ReflectionTestUtils.setField(service, "maxDecisions", 200);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "backoffMs", 0L);
+
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(userRepository.findByUsernameWithRole("manager"))
+                .thenReturn(Optional.of(User.builder().employeeCode(APPROVER).username("manager").build()));
+    }
+
+    private static User employee(String code) {
+        return User.builder().employeeCode(code).build();
+    }
+
+    private void leave(int id, String owner, String status) {
+        when(leaveRequestRepository.findById(id))
+                .thenReturn(Optional.of(LeaveRequest.builder().id(id).user(employee(owner)).status(status).build()));
+    }
+
+    private void overtime(int id, String owner, String status) {
+        when(overtimeRequestRespository.findById(id))
+                .thenReturn(Optional.of(OvertimeRequest.builder().id(id).user(employee(owner)).status(status).build()));
+    }
+
+    private static ApprovalDecisionDTO approve(ApprovalRequestType type, int id) {
+        return new ApprovalDecisionDTO(type, id, ApprovalAction.APPROVE, null);
+    }
+
+    private static List<String> outcomes(BulkApprovalResponse response) {
+        return response.getResults().stream().map(ApprovalDecisionResult::outcome).toList();
+    }
+
+    @Test
+    void staleVersionIsRetriedInANewTransaction() {
+        leave(1, "EMP-1", "PENDING");
+        overtime(2, "EMP-2", "PENDING");
+        AtomicInteger calls = new AtomicInteger();
+        when(leaveRequestService.approveLeaveRequest(eq(1), any())).thenAnswer(inv -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(LeaveRequest.class, 1);
+            }
+            return null;
+        });
+
+        BulkApprovalResponse response = service.apply("manager", List.of(
+                approve(ApprovalRequestType.OVERTIME, 2), approve(ApprovalRequestType.LEAVE, 1)));
+
+        assertEquals(BulkApprovalStatus.COMPLETED, response.getStatus());
+        assertEquals(3, response.getAttempts());
+        assertEquals(2, response.getApplied());
+        assertEquals(0, response.getSkipped());
+        assertEquals(List.of("APPLIED", "APPLIED"), outcomes(response));
+        // 2 lần rollback vì xung đột, 1 lần commit; đơn nghỉ xếp trước nên đơn OT chỉ chạy ở lần thử cuối
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(leaveRequestService, times(3)).approveLeaveRequest(eq(1), any());
+        verify(overtimeRequestService, times(1)).approveOvertimeRequest(eq(2), any());
+    }
+
+    @Test
+    void conflictAfterMaxAttemptsRollsBackTheWholeBatch() {
+        leave(1, "EMP-1", "PENDING");
+        leave(2, "EMP-2", "PENDING");
+        when(leaveRequestService.approveLeaveRequest(eq(2), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(LeaveRequest.class, 2));
+
+        BulkApprovalResponse response = service.apply("manager", List.of(
+                approve(ApprovalRequestType.LEAVE, 2), approve(ApprovalRequestType.LEAVE, 1)));
+
+        assertEquals(BulkApprovalStatus.CONFLICT, response.getStatus());
+        assertEquals(3, response.getAttempts());
+        assertEquals(List.of("NOT_APPLIED", "NOT_APPLIED"), outcomes(response));
+        assertTrue(response.getMessage().contains("3 lần"));
+        verify(leaveRequestService, times(3)).approveLeaveRequest(eq(2), any());
+        verify(transactionManager, times(3)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void businessErrorFailsTheDecisionWithoutRetry() {
+        leave(1, "EMP-1", "PENDING");
+        leave(2, "EMP-2", "PENDING");
+        when(leaveRequestService.approveLeaveRequest(eq(2), any()))
+                .thenThrow(new IllegalArgumentException("Không đủ số ngày nghỉ còn lại"));
+
+        BulkApprovalResponse response = service.apply("manager", List.of(
+                approve(ApprovalRequestType.LEAVE, 1), approve(ApprovalRequestType.LEAVE, 2)));
+
+        assertEquals(BulkApprovalStatus.FAILED, response.getStatus());
+        assertEquals(1, response.getAttempts());
+        assertEquals(List.of("NOT_APPLIED", "FAILED"), outcomes(response));
+        assertEquals("Không đủ số ngày nghỉ còn lại", response.getResults().get(1).message());
+        assertNull(response.getResults().get(0).message());
+        verify(leaveRequestService, times(1)).approveLeaveRequest(eq(2), any());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void nonPendingMissingAndOwnRequestsAreSkipped() {
+        leave(1, "EMP-1", "PENDING");
+        leave(2, "EMP-2", "APPROVED");
+        leave(3, APPROVER, "PENDING");
+        when(leaveRequestRepository.findById(4)).thenReturn(Optional.empty());
+        overtime(5, "EMP-5", "REJECTED");
+
+        BulkApprovalResponse response = service.apply("manager", List.of(
+                approve(ApprovalRequestType.LEAVE, 4), approve(ApprovalRequestType.OVERTIME, 5),
+                approve(ApprovalRequestType.LEAVE, 3), approve(ApprovalRequestType.LEAVE, 2),
+                approve(ApprovalRequestType.LEAVE, 1)));
+
+        assertEquals(BulkApprovalStatus.COMPLETED_WITH_SKIPS, response.getStatus());
+        assertEquals(1, response.getAttempts());
+        assertEquals(1, response.getApplied());
+        assertEquals(4, response.getSkipped());
+        // xếp theo (loại, id)
+        assertEquals(List.of("APPLIED", "SKIPPED", "SKIPPED", "SKIPPED", "SKIPPED"), outcomes(response));
+        verify(leaveRequestService).approveLeaveRequest(eq(1), any());
+        verify(leaveRequestService, never()).approveLeaveRequest(eq(2), any());
+        verify(leaveRequestService, never()).approveLeaveRequest(eq(3), any());
+        verify(overtimeRequestService, never()).approveOvertimeRequest(anyInt(), any());
+    }
+
+    @Test
+    void concurrentManagersApproveTheSameRequestOnce() throws Exception {
+        ReflectionTestUtils.setField(service, "maxAttempts", 1_000);
+        // dòng leave_request có @Version: đọc ở skipReason, ghi ở approveLeaveRequest khi version chưa đổi
+        Map<Integer, LeaveRequest> rows = new ConcurrentHashMap<>();
+        Map<Integer, Long> versions = new ConcurrentHashMap<>();
+        ThreadLocal<Long> readVersion = new ThreadLocal<>();
+        AtomicInteger written = new AtomicInteger();
+        rows.put(1, LeaveRequest.builder().id(1).user(employee("EMP-1")).status("PENDING").build());
+        versions.put(1, 0L);
+
+        when(leaveRequestRepository.findById(1)).thenAnswer(inv -> {
+            synchronized (rows) {
+                readVersion.set(versions.get(1));
+                LeaveRequest row = rows.get(1);
+                return Optional.of(LeaveRequest.builder().id(1).user(row.getUser()).status(row.getStatus()).build());
+            }
+        });
+        when(leaveRequestService.approveLeaveRequest(eq(1), any())).thenAnswer(inv -> {
+            Thread.yield();
+            synchronized (rows) {
+                if (!versions.get(1).equals(readVersion.get())) {
+                    throw new ObjectOptimisticLockingFailureException(LeaveRequest.class, 1);
+                }
+                rows.get(1).setStatus("APPROVED");
+                versions.put(1, versions.get(1) + 1);
+            }
+            written.incrementAndGet();
+            return null;
+        });
+
+        List<BulkApprovalResponse> responses = runConcurrently(THREADS * 4,
+                () -> service.apply("manager", List.of(approve(ApprovalRequestType.LEAVE, 1))));
+
+        assertEquals(1, written.get());
+        assertEquals(1, responses.stream().filter(r -> r.getStatus() == BulkApprovalStatus.COMPLETED).count());
+        // người đến sau đọc lại thấy đơn đã duyệt -> bỏ qua, không phải lỗi
+        assertTrue(responses.stream()
+                .filter(r -> r.getStatus() != BulkApprovalStatus.COMPLETED)
+                .allMatch(r -> r.getStatus() == BulkApprovalStatus.COMPLETED_WITH_SKIPS
+                        && "Đơn đã ở trạng thái APPROVED".equals(r.getResults().get(0).message())));
+        assertEquals(1L, versions.get(1));
+    }
+
+    @Test
+    void concurrentApprovalsNeverOverspendQuota() throws Exception {
+        // 5 ngày phép + 1 ngày chuyển sang, 10 đơn x 1 ngày -> đúng 6 đơn được duyệt
+        VersionedLeaveDb db = new VersionedLeaveDb();
+        db.quota = LeaveQuota.builder().id(1).employeeCode("EMP-1").leaveTypeCode("annual").year(2030)
+                .entitledDays(5.0).carriedOver(1.0).usedDays(0.0).version(0L).build();
+        LeaveType annual = LeaveType.builder().code("annual").isPaid(true).isCountedAsLeave(true).build();
+        for (int id = 1; id <= 10; id++) {
+            LocalDate day = LocalDate.of(2030, 3, id);
+            db.requests.put(id, LeaveRequest.builder().id(id).user(employee("EMP-1")).leaveType(annual)
+                    .fromDate(day).toDate(day).durationType(DurationType.FULL_DAY).isPaidLeave(true)
+                    .status("PENDING").version(0L).build());
+        }
+        BulkApprovalService bulk = bulkOver(db);
+
+        List<BulkApprovalResponse> responses = runConcurrently(10, new Task<>() {
+            private final AtomicInteger next = new AtomicInteger();
+
+            @Override
+            public BulkApprovalResponse run() {
+                int id = next.incrementAndGet();
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken("manager", null, List.of()));
+                try {
+                    return bulk.apply("manager", List.of(approve(ApprovalRequestType.LEAVE, id)));
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }
+        });
+
+        LeaveQuota quota = db.quota;
+        assertTrue(quota.getUsedDays() <= quota.getEntitledDays() + quota.getCarriedOver(), "số ngày còn lại bị âm");
+        assertEquals(6.0, quota.getUsedDays());
+        assertEquals(6L, quota.getVersion());
+        assertEquals(6, responses.stream().filter(r -> r.getStatus() == BulkApprovalStatus.COMPLETED).count());
+        List<BulkApprovalResponse> failed = responses.stream()
+                .filter(r -> r.getStatus() == BulkApprovalStatus.FAILED).toList();
+        assertEquals(4, failed.size());
+        assertTrue(failed.stream().allMatch(r -> r.getResults().get(0).message().contains("Không đủ số ngày nghỉ")));
+        assertEquals(6, db.requests.values().stream().filter(r -> "APPROVED".equals(r.getStatus())).count());
+        assertEquals(4, db.requests.values().stream().filter(r -> "PENDING".equals(r.getStatus())).count());
+    }
+
+    // BulkApprovalService + LeaveRequestServiceImpl thật, repository và transaction đi qua VersionedLeaveDb
+    private BulkApprovalService bulkOver(VersionedLeaveDb db) {
+        LeaveRequestRepository requestRepo = mock(LeaveRequestRepository.class);
+        LeaveQuotaRepository quotaRepo = mock(LeaveQuotaRepository.class);
+        WorkCalendar workCalendar = mock(WorkCalendar.class);
+        PlatformTransactionManager tm = mock(PlatformTransactionManager.class);
+
+        when(requestRepo.findById(anyInt())).thenAnswer(inv -> db.findRequest(inv.getArgument(0)));
+        when(requestRepo.save(any())).thenAnswer(inv -> db.write(inv.getArgument(0)));
+        when(quotaRepo.findByEmployeeCodeAndLeaveTypeCodeAndYear("EMP-1", "annual", 2030))
+                .thenAnswer(inv -> Optional.of(db.readQuota()));
+        when(quotaRepo.save(any())).thenAnswer(inv -> db.write(inv.getArgument(0)));
+        when(workCalendar.countWorkingDays(any(), any())).thenAnswer(inv ->
+                (int) ((LocalDate) inv.getArgument(1)).toEpochDay() - (int) ((LocalDate) inv.getArgument(0)).toEpochDay() + 1);
+        when(tm.getTransaction(any())).thenAnswer(inv -> {
+            db.begin();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(inv -> {
+            db.commit();
+            return null;
+        }).when(tm).commit(any());
+        doAnswer(inv -> {
+            db.rollback();
+            return null;
+        }).when(tm).rollback(any());
+
+        User manager = User.builder().employeeCode(APPROVER).username("manager").role(new Role(2, "Manager")).build();
+        when(userRepository.findByUsernameWithRole("manager")).thenReturn(Optional.of(manager));
+
+        LeaveRequestServiceImpl leaveService = new LeaveRequestServiceImpl(userRepository, requestRepo,
+                mock(LeaveTypeRepository.class), quotaRepo, workCalendar, mock(NotificationService.class),
+                mock(AttDailySummaryService.class), mock(FileStorageService.class));
+        BulkApprovalService bulk = new BulkApprovalService(leaveService, overtimeRequestService,
+                requestRepo, overtimeRequestRespository, userRepository, tm);
+        ReflectionTestUtils.setField(bulk, "maxDecisions", 200);
+        ReflectionTestUtils.setField(bulk, "maxAttempts", 1_000);
+        ReflectionTestUtils.setField(bulk, "backoffMs", 0L);
+        return bulk;
+    }
+
+    /**
+     * leave_request + leave_quota trong bộ nhớ, có @Version như Hibernate: mỗi transaction đọc bản sao đã commit,
+     * save() giữ lại tới commit; commit so version từng dòng, lệch thì ObjectOptimisticLockingFailureException
+     * và không ghi dòng nào, khớp thì ghi hết và tăng version.
+     */
+    private static final class VersionedLeaveDb {
+        private final Map<Integer, LeaveRequest> requests = new HashMap<>();
+        private volatile LeaveQuota quota;
+        private final ThreadLocal<Map<Object, Object>> pending = ThreadLocal.withInitial(HashMap::new);
+
+        void begin() {
+            pending.get().clear();
+        }
+
+        synchronized Optional<LeaveRequest> findRequest(int id) {
+            LeaveRequest row = requests.get(id);
+            return Optional.ofNullable(row == null ? null : copy(row));
+        }
+
+        LeaveQuota readQuota() throws InterruptedException {
+            LeaveQuota row = quota;
+            // nới khoảng giữa đọc quota và commit để các lượt duyệt thật sự chồng lên nhau
+            Thread.sleep(2);
+            return LeaveQuota.builder().id(row.getId()).employeeCode(row.getEmployeeCode())
+                    .leaveTypeCode(row.getLeaveTypeCode()).year(row.getYear()).entitledDays(row.getEntitledDays())
+                    .carriedOver(row.getCarriedOver()).usedDays(row.getUsedDays()).version(row.getVersion()).build();
+        }
+
+        <T> T write(T entity) {
+            Object key = entity instanceof LeaveQuota q ? "quota:" + q.getId() : "request:" + ((LeaveRequest) entity).getId();
+            pending.get().put(key, entity);
+            return entity;
+        }
+
+        void commit() {
+            Map<Object, Object> writes = pending.get();
+            try {
+                synchronized (this) {
+                    for (Object entity : writes.values()) {
+                        if (entity instanceof LeaveQuota q && !q.getVersion().equals(quota.getVersion())) {
+                            throw new ObjectOptimisticLockingFailureException(LeaveQuota.class, q.getId());
+                        }
+                        if (entity instanceof LeaveRequest r && !r.getVersion().equals(requests.get(r.getId()).getVersion())) {
+                            throw new ObjectOptimisticLockingFailureException(LeaveRequest.class, r.getId());
+                        }
+                    }
+                    for (Object entity : writes.values()) {
+                        if (entity instanceof LeaveQuota q) {
+                            q.setVersion(q.getVersion() + 1);
+                            quota = q;
+                        } else if (entity instanceof LeaveRequest r) {
+                            r.setVersion(r.getVersion() + 1);
+                            requests.put(r.getId(), copy(r));
+                        }
+                    }
+                }
+            } finally {
+                writes.clear();
+            }
+        }
+
+        void rollback() {
+            pending.get().clear();
+        }
+
+        private static LeaveRequest copy(LeaveRequest r) {
+            return LeaveRequest.builder().id(r.getId()).user(r.getUser()).leaveType(r.getLeaveType())
+                    .fromDate(r.getFromDate()).toDate(r.getToDate()).durationType(r.getDurationType())
+                    .isPaidLeave(r.getIsPaidLeave()).status(r.getStatus()).note(r.getNote())
+                    .approvedDate(r.getApprovedDate()).version(r.getVersion()).build();
+        }
+    }
+
+    @Test
+    void retriesOnlyConflictsAndGivesUpAfterMaxAttempts() {
+        OptimisticRetry retry = new OptimisticRetry(3, 0);
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retry.run(attempt -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("LeaveQuota", 1);
+        }));
+        assertEquals(3, calls.get());
+
+        calls.set(0);
+        assertThrows(IllegalStateException.class, () -> retry.run(attempt -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Chỉ duyệt đơn ở trạng thái PENDING");
+        }));
+        assertEquals(1, calls.get());
+
+        // lỗi của Hibernate bị bọc trong lỗi khác vẫn tính là xung đột
+        assertTrue(OptimisticRetry.isConflict(new RuntimeException(new OptimisticLockException("stale"))));
+        assertFalse(OptimisticRetry.isConflict(new IllegalArgumentException("Không đủ số ngày nghỉ còn lại")));
+    }
+
+    private interface Task<T> {
+        T run() throws Exception;
+    }
+
+    private static <T> List<T> runConcurrently(int tasks, Task<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.run();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> f : futures) {
+                results.add(f.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+import com.g98.sangchengpayrollmanager.model.entity.AttPolicy;
+import com.g98.sangchengpayrollmanager.model.entity.AttRecord;
+import com.g98.sangchengpayrollmanager.model.entity.AttSchedule;
+import com.g98.sangchengpayrollmanager.model.entity.DayType;
+import com.g98.sangchengpayrollmanager.model.entity.LeaveRequest;
+import com.g98.sangchengpayrollmanager.model.entity.LeaveType;
+import com.g98.sangchengpayrollmanager.model.entity.OvertimeRequest;
+import com.g98.sangchengpayrollmanager.model.entity.Shift;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import com.g98.sangchengpayrollmanager.service.AttDailySummaryCalculator;
+import com.g98.sangchengpayrollmanager.service.AttDailySummaryCalculator.DayInput;
+import com.g98.sangchengpayrollmanager.service.AttDailySummaryCalculator.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttDailySummaryCalculatorTest {
+
+    // thứ 2
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    private final User user = User.builder().employeeCode("EMP001").userId("1001").build();
+    private final AttPolicy policy = AttPolicy.builder()
+            .standardHoursPerDay(8)
+            .minHoursForPayable(4)
+            .minHoursForFullDay(8)
+            .minHoursForMeal(6)
+            .lateGraceMinutes(5)
+            .earlyGraceMinutes(5)
+            .otRoundingUnitMinutes(30)
+            .build();
+    private final DayType workingDay = DayType.builder().id(1).name("Working Day").build();
+    private final DayType weekend = DayType.builder().id(2).name("Weekend").build();
+    private final AttSchedule schedule = AttSchedule.builder()
+            .shift(Shift.builder().startTime(LocalTime.of(8, 0)).endTime(LocalTime.of(17, 0)).breakMinutes(60).build())
+            .dayOfWeek("MONDAY")
+            .status("ACTIVE")
+            .build();
+
+    private static AttRecord punch(int hour, int minute) {
+        return AttRecord.builder().userId("1001").checkTime(MONDAY.atTime(hour, minute)).build();
+    }
+
+    @Test
+    void scheduledDayCountsLateAndOvertime() {
+        OvertimeRequest ot = OvertimeRequest.builder()
+                .fromTime(MONDAY.atTime(17, 0))
+                .toTime(MONDAY.atTime(19, 0))
+                .build();
+        DayInput input = new DayInput(policy, workingDay, null, schedule, null,
+                List.of(punch(8, 20), punch(12, 0), punch(18, 40)), List.of(ot));
+
+        AttDailySummary summary = new AttDailySummary();
+        assertEquals(Outcome.SAVE, AttDailySummaryCalculator.calculate(user, MONDAY, input, summary));
+
+        assertEquals(8, summary.getWorkHours());
+        assertEquals(2, summary.getOtHour());
+        assertEquals(20, summary.getLateMinutes());
+        assertTrue(summary.getIsLateCounted());
+        assertFalse(summary.getIsPayableDay());
+        assertTrue(summary.getIsCountPayableDay());
+        assertTrue(summary.getIsDayMeal());
+        assertEquals(LocalDateTime.of(2025, 6, 2, 18, 40), summary.getCheckOutTime());
+    }
+
+    @Test
+    void missingCheckoutGivesNoHours() {
+        DayInput input = new DayInput(policy, workingDay, null, schedule, null,
+                List.of(punch(8, 0), punch(8, 10)), List.of());
+
+        AttDailySummary summary = new AttDailySummary();
+        assertEquals(Outcome.SAVE, AttDailySummaryCalculator.calculate(user, MONDAY, input, summary));
+
+        assertEquals(0, summary.getWorkHours());
+        assertNull(summary.getCheckOutTime());
+        assertFalse(summary.getIsCountPayableDay());
+    }
+
+    @Test
+    void offDayAndLeaveOutcomes() {
+        AttDailySummary untouched = new AttDailySummary();
+        assertEquals(Outcome.NONE, AttDailySummaryCalculator.calculate(user, MONDAY,
+                new DayInput(policy, workingDay, null, null, null, List.of(), List.of()), untouched));
+        assertNull(untouched.getDate());
+
+        LeaveRequest annual = LeaveRequest.builder()
+                .leaveType(LeaveType.builder().code("annual").build())
+                .isPaidLeave(true)
+                .build();
+        assertEquals(Outcome.DELETE, AttDailySummaryCalculator.calculate(user, MONDAY.plusDays(5),
+                new DayInput(policy, weekend, null, null, annual, List.of(), List.of()), new AttDailySummary()));
+
+        AttDailySummary leaveDay = new AttDailySummary();
+        assertEquals(Outcome.SAVE, AttDailySummaryCalculator.calculate(user, MONDAY,
+                new DayInput(policy, workingDay, null, schedule, annual, List.of(), List.of()), leaveDay));
+        assertEquals(8, leaveDay.getWorkHours());
+        assertEquals("annual", leaveDay.getLeaveTypeCode());
+        assertTrue(leaveDay.getIsCountPayableDay());
+
+        OvertimeRequest weekendOt = OvertimeRequest.builder()
+                .fromTime(MONDAY.plusDays(5).atTime(8, 0))
+                .toTime(MONDAY.plusDays(5).atTime(12, 0))
+                .build();
+        assertEquals(Outcome.UPDATE_EXISTING, AttDailySummaryCalculator.calculate(user, MONDAY.plusDays(5),
+                new DayInput(policy, weekend, null, null, null, List.of(), List.of(weekendOt)), new AttDailySummary()));
+    }
+}
@@ -0,0 +1,119 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetPageResponse;
+import com.g98.sangchengpayrollmanager.model.dto.attendant.response.TimeSheetResponse;
+import com.g98.sangchengpayrollmanager.repository.AttTimesheetRepository;
+import com.g98.sangchengpayrollmanager.repository.AttTimesheetRepositoryCustom;
+import com.g98.sangchengpayrollmanager.service.AttTimesheetService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttTimesheetServiceTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2025, 6, 15);
+
+    private final AttTimesheetRepository repo = mock(AttTimesheetRepository.class);
+    private final AttTimesheetService service = new AttTimesheetService(repo);
+
+    @Test
+    void codeCursorRoundTrip() {
+        when(repo.seek(any(), anyInt())).thenReturn(List.of(row("NV001", "An"), row("NV002", "Bình"), row("NV003", "Chi")));
+
+        TimeSheetPageResponse first = service.getTimesheet(MONTH, null, "employeeCode", "asc", null, 2, null);
+        assertTrue(first.hasNext());
+        assertEquals(2, first.size());
+
+        service.getTimesheet(MONTH, null, "employeeCode", "asc", first.nextCursor(), 2, null);
+
+        AttTimesheetRepositoryCustom.Seek next = seeks(2).get(1);
+        assertEquals(LocalDate.of(2025, 6, 1), next.month());
+        assertFalse(next.byName());
+        assertNull(next.afterName());
+        assertEquals("NV002", next.afterCode());
+    }
+
+    @Test
+    void nameCursorRoundTrip() {
+        when(repo.seek(any(), anyInt())).thenReturn(List.of(row("NV010", "Nguyễn Thị Hường"), row("NV002", "Trần Văn Đức")));
+
+        TimeSheetPageResponse first = service.getTimesheet(MONTH, "ng", "fullName", "desc", null, 1, null);
+        assertTrue(first.hasNext());
+        // base64url, an toàn trên query string
+        assertTrue(first.nextCursor().matches("[A-Za-z0-9_-]+"), first.nextCursor());
+
+        service.getTimesheet(MONTH, "ng", "fullName", "desc", first.nextCursor(), 1, null);
+
+        AttTimesheetRepositoryCustom.Seek next = seeks(2).get(1);
+        assertTrue(next.byName());
+        assertTrue(next.descending());
+        assertEquals("ng", next.prefix());
+        assertEquals("Nguyễn Thị Hường", next.afterName());
+        assertEquals("NV010", next.afterCode());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(repo.seek(any(), anyInt())).thenReturn(List.of(row("NV001", "An")));
+
+        TimeSheetPageResponse page = service.getTimesheet(MONTH, null, null, null, null, 2, null);
+
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void cursorFromOtherSortIsRejected() {
+        when(repo.seek(any(), anyInt())).thenReturn(List.of(row("NV001", "An"), row("NV002", "Bình")));
+        String codeCursor = service.getTimesheet(MONTH, null, "employeeCode", "asc", null, 1, null).nextCursor();
+        String nameCursor = service.getTimesheet(MONTH, null, "fullName", "asc", null, 1, null).nextCursor();
+
+        IllegalArgumentException byName = assertThrows(IllegalArgumentException.class,
+                () -> service.getTimesheet(MONTH, null, "fullName", "asc", codeCursor, 1, null));
+        assertEquals("cursor không khớp sortBy", byName.getMessage());
+
+        IllegalArgumentException byCode = assertThrows(IllegalArgumentException.class,
+                () -> service.getTimesheet(MONTH, null, "employeeCode", "asc", nameCursor, 1, null));
+        assertEquals("cursor không khớp sortBy", byCode.getMessage());
+
+        IllegalArgumentException garbage = assertThrows(IllegalArgumentException.class,
+                () -> service.getTimesheet(MONTH, null, "employeeCode", "asc", "%%%", 1, null));
+        assertEquals("cursor không hợp lệ", garbage.getMessage());
+
+        // chỉ 2 lần đọc trang đầu, cursor sai không chạm tới DB
+        verify(repo, times(2)).seek(any(), anyInt());
+    }
+
+    @Test
+    void likePrefixEscapesWildcards() {
+        assertEquals("NV%", AttTimesheetRepositoryCustom.likePrefix("NV"));
+        assertEquals("50!%!_off%", AttTimesheetRepositoryCustom.likePrefix("50%_off"));
+        // '!' escape trước, không escape lại ký tự vừa thêm
+        assertEquals("a!!!%b%", AttTimesheetRepositoryCustom.likePrefix("a!%b"));
+        assertEquals("Nguyễn%", AttTimesheetRepositoryCustom.likePrefix("Nguyễn"));
+    }
+
+    private List<AttTimesheetRepositoryCustom.Seek> seeks(int calls) {
+        ArgumentCaptor<AttTimesheetRepositoryCustom.Seek> captor = ArgumentCaptor.forClass(AttTimesheetRepositoryCustom.Seek.class);
+        verify(repo, times(calls)).seek(captor.capture(), anyInt());
+        return captor.getAllValues();
+    }
+
+    private static TimeSheetResponse row(String code, String name) {
+        return new TimeSheetResponse(code, name, "Nhân viên", 22, 0, 0);
+    }
+}
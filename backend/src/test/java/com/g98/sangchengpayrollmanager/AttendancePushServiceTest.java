@@ -0,0 +1,118 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.device.AttendanceLog;
+import com.g98.sangchengpayrollmanager.model.entity.AttDevice;
+import com.g98.sangchengpayrollmanager.repository.AttDeviceRepository;
+import com.g98.sangchengpayrollmanager.service.AttRecordBatchWriter;
+import com.g98.sangchengpayrollmanager.service.AttendancePushService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AttendancePushServiceTest {
+
+    private static final String PUNCH = "1001\t2026-10-01 07:58:12\t0\t1\n";
+
+    private final AttDeviceRepository deviceRepo = mock(AttDeviceRepository.class);
+    private final AttRecordBatchWriter batchWriter = mock(AttRecordBatchWriter.class);
+    private final AttendancePushService service = new AttendancePushService(deviceRepo, batchWriter);
+
+    private void register(int id, String serial, String token, String allowedIps) {
+        AttDevice device = AttDevice.builder()
+                .id(id)
+                .serial(serial)
+                .pushToken(token)
+                .pushAllowedIps(allowedIps)
+                .build();
+        when(deviceRepo.findBySerial(serial)).thenReturn(Optional.of(device));
+    }
+
+    @Test
+    void rejectsUnknownAndUnconfiguredDevices() {
+        register(1, "SN-OPEN", null, null);
+
+        assertTrue(service.authenticate("SN-NOPE", "x", "10.0.0.5").isEmpty());
+        assertTrue(service.authenticate(" ", null, "10.0.0.5").isEmpty());
+        // chỉ biết serial thì không được đẩy
+        assertTrue(service.authenticate("SN-OPEN", null, "10.0.0.5").isEmpty());
+    }
+
+    @Test
+    void checksTokenAndAllowedIps() {
+        register(1, "SN-TOKEN", "s3cret", null);
+        register(2, "SN-IP", null, "192.168.11.2, 192.168.11.3");
+        register(3, "SN-BOTH", "s3cret", "192.168.11.4");
+
+        assertTrue(service.authenticate("SN-TOKEN", "s3cret", "10.0.0.5").isPresent());
+        assertTrue(service.authenticate("SN-TOKEN", "wrong", "10.0.0.5").isEmpty());
+        assertTrue(service.authenticate("SN-TOKEN", null, "10.0.0.5").isEmpty());
+
+        assertTrue(service.authenticate("SN-IP", null, "192.168.11.3").isPresent());
+        assertTrue(service.authenticate("SN-IP", null, "192.168.11.9").isEmpty());
+
+        assertTrue(service.authenticate("SN-BOTH", "s3cret", "192.168.11.4").isPresent());
+        assertTrue(service.authenticate("SN-BOTH", "s3cret", "192.168.11.5").isEmpty());
+        assertTrue(service.authenticate("SN-BOTH", "wrong", "192.168.11.4").isEmpty());
+    }
+
+    @Test
+    void onlySuccessfulIngestStopsPulling() {
+        ReflectionTestUtils.setField(service, "fallbackAfterMs", 300_000L);
+        ReflectionTestUtils.setField(service, "ackTimeoutMs", 1_000L);
+        register(1, "SN-1", "s3cret", null);
+        AttDevice device = service.authenticate("SN-1", "s3cret", "10.0.0.5").orElseThrow();
+
+        // handshake / heartbeat không làm dừng kéo
+        assertFalse(service.isPushActive(1));
+
+        when(batchWriter.submit(anyList())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("db down")));
+        assertThrows(IllegalStateException.class, () -> service.ingest(device, PUNCH));
+        assertFalse(service.isPushActive(1));
+
+        when(batchWriter.submit(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        assertEquals(1, service.ingest(device, PUNCH));
+        assertTrue(service.isPushActive(1));
+    }
+
+    @Test
+    void parsesValidLinesAndDropsDuplicates() {
+        String body = "1001\t2026-10-01 07:58:12\t0\t1\t0\t0\n"
+                + "1002\t2026-10-01 08:01:40\t0\t15\n"
+                + "1001\t2026-10-01 07:58:12\t0\t1\t0\t0\r\n";
+
+        List<AttendanceLog> logs = AttendancePushService.parseAttLog(body);
+
+        assertEquals(2, logs.size());
+        assertEquals("1001", logs.get(0).getUserId());
+        assertEquals(LocalDateTime.of(2026, 10, 1, 7, 58, 12), logs.get(0).getCheckTime());
+        assertEquals("1002", logs.get(1).getUserId());
+    }
+
+    @Test
+    void skipsMalformedLines() {
+        String body = "\n"
+                + "only-pin\n"
+                + "\t2026-10-01 08:00:00\n"
+                + "1003\t01/10/2026 08:00\n"
+                + "1004\t1970-01-01 00:00:00\n"
+                + "1005\t2026-10-01 17:30:00\t1\n";
+
+        List<AttendanceLog> logs = AttendancePushService.parseAttLog(body);
+
+        assertEquals(1, logs.size());
+        assertEquals("1005", logs.get(0).getUserId());
+        assertTrue(AttendancePushService.parseAttLog(null).isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.model.entity.PaySummary;
+import com.g98.sangchengpayrollmanager.model.entity.PaySummaryComponent;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+import com.g98.sangchengpayrollmanager.service.NativePayslipRenderer;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativePayslipRendererTest {
+
+    @Test
+    void rendersVietnameseWithBundledFont() throws Exception {
+        // không cấu hình font-path: dùng DejaVu Sans trong jar, chạy được trên Linux / container
+        NativePayslipRenderer renderer = new NativePayslipRenderer(null, null, null);
+        ReflectionTestUtils.setField(renderer, "fontPath", "");
+        ReflectionTestUtils.setField(renderer, "boldFontPath", "");
+        ReflectionTestUtils.invokeMethod(renderer, "loadFonts");
+
+        PaySummary summary = PaySummary.builder()
+                .user(User.builder().employeeCode("EMP-1").fullName("Nguyễn Thị Hường").build())
+                .date(LocalDate.of(2025, 6, 1))
+                .baseSalaryAmt(12_000_000)
+                .grossIncome(12_500_000)
+                .netSalary(11_200_000)
+                .components(List.of(PaySummaryComponent.builder()
+                        .componentName("Phụ cấp ăn trưa").componentType("ADDITION").amount(500_000).build()))
+                .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.write(summary, null, out);
+
+        try (PDDocument doc = Loader.loadPDF(out.toByteArray())) {
+            String text = new PDFTextStripper().getText(doc);
+            assertTrue(text.contains("Chi Tiết Bảng Lương Nhân Viên"), text);
+            assertTrue(text.contains("Nguyễn Thị Hường"), text);
+            assertTrue(text.contains("Phụ cấp ăn trưa"), text);
+            assertTrue(text.contains("12.000.000"), text);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PayrollInputSnapshot;
+import com.g98.sangchengpayrollmanager.model.dto.payroll.response.PayrollRunResponse;
+import com.g98.sangchengpayrollmanager.model.enums.PayrollRunStatus;
+import com.g98.sangchengpayrollmanager.service.PayrollInputSnapshotLoader;
+import com.g98.sangchengpayrollmanager.service.PayrollRunService;
+import com.g98.sangchengpayrollmanager.service.PayrollService;
+import com.g98.sangchengpayrollmanager.service.PayslipRenderQueue;
+import com.g98.sangchengpayrollmanager.service.PolicySnapshotCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PayrollRunServiceTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2025, 6, 1);
+
+    private final PayrollService payrollService = mock(PayrollService.class);
+    private final PayrollInputSnapshotLoader snapshotLoader = mock(PayrollInputSnapshotLoader.class);
+
+    // giống payrollExecutor: AbortPolicy, nhưng pool và hàng đợi rất nhỏ
+    private final ThreadPoolExecutor payrollExecutor = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1),
+            new ThreadPoolExecutor.AbortPolicy());
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        payrollExecutor.shutdownNow();
+        coordinator.shutdownNow();
+    }
+
+    @Test
+    void partitionsBeyondQueueCapacityWaitInsteadOfRunningOnCaller() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(payrollService.calculateMonthlySalary(any(PayrollInputSnapshot.EmployeeInput.class), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    threads.add(Thread.currentThread().getName());
+                    Thread.sleep(2);
+                    return null;
+                });
+        PayrollRunService service = service(coordinator);
+
+        List<String> codes = IntStream.rangeClosed(1, 20).mapToObj(i -> "EMP-" + i).toList();
+        PayrollRunResponse run = service.startRun(codes, MONTH);
+        PayrollRunResponse done = await(service, run.getRunId());
+
+        assertEquals(PayrollRunStatus.COMPLETED, done.getStatus(), String.valueOf(done.getErrors()));
+        assertEquals(20, done.getSuccessCount());
+        assertEquals(20, done.getProcessed());
+        assertTrue(done.getErrors().isEmpty(), String.valueOf(done.getErrors()));
+        assertFalse(threads.contains(Thread.currentThread().getName()), threads.toString());
+        assertEquals(1, threads.size(), threads.toString());
+    }
+
+    @Test
+    void runRejectedByCoordinatorIsMarkedFailed() {
+        ExecutorService busy = Executors.newSingleThreadExecutor();
+        busy.shutdown();
+        PayrollRunService service = service(busy);
+
+        PayrollRunResponse run = service.startRun(List.of("EMP-1", "EMP-2"), MONTH);
+
+        assertEquals(PayrollRunStatus.FAILED, run.getStatus());
+        assertEquals(0, run.getProcessed());
+        assertEquals(1, run.getErrors().size());
+        assertTrue(run.getErrors().get(0).contains("đang bận"), run.getErrors().toString());
+        assertEquals(PayrollRunStatus.FAILED, service.getRun(run.getRunId()).getStatus());
+    }
+
+    private PayrollRunService service(ExecutorService coordinatorExecutor) {
+        PayrollInputSnapshot snapshot = mock(PayrollInputSnapshot.class);
+        when(snapshot.getMonth()).thenReturn(MONTH);
+        when(snapshot.get(any())).thenReturn(mock(PayrollInputSnapshot.EmployeeInput.class));
+        when(snapshotLoader.load(anyList(), any())).thenReturn(snapshot);
+
+        PayrollRunService service = new PayrollRunService(payrollService, mock(PayslipRenderQueue.class),
+                snapshotLoader, mock(PolicySnapshotCache.class), payrollExecutor, coordinatorExecutor);
+        ReflectionTestUtils.setField(service, "partitionSize", 1);
+        ReflectionTestUtils.setField(service, "prefetchSize", 1000);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.invokeMethod(service, "initSlots");
+        return service;
+    }
+
+    private static PayrollRunResponse await(PayrollRunService service, String runId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        PayrollRunResponse run = service.getRun(runId);
+        while (run.getStatus() == PayrollRunStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            run = service.getRun(runId);
+        }
+        return run;
+    }
+}
@@ -0,0 +1,156 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.model.entity.TaxLevel;
+import com.g98.sangchengpayrollmanager.service.TaxBracketTable;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaxBracketTableTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 1);
+
+    // biểu thuế TNCN 7 bậc hiện hành
+    private static List<TaxLevel> vnLevels() {
+        List<TaxLevel> levels = new ArrayList<>();
+        levels.add(level("Bậc 5", 32_000_000, 52_000_000, "0.250"));
+        levels.add(level("Bậc 1", 0, 5_000_000, "0.050"));
+        levels.add(level("Bậc 2", 5_000_000, 10_000_000, "0.100"));
+        levels.add(level("Bậc 3", 10_000_000, 18_000_000, "0.150"));
+        levels.add(level("Bậc 4", 18_000_000, 32_000_000, "0.200"));
+        levels.add(level("Bậc 6", 52_000_000, 80_000_000, "0.300"));
+        levels.add(level("Bậc 7", 80_000_000, Integer.MAX_VALUE, "0.350"));
+        return levels;
+    }
+
+    @Test
+    void matchesLegacyLoopOnDenseGrid() {
+        List<TaxLevel> levels = vnLevels();
+        TaxBracketTable table = TaxBracketTable.compile(DATE, levels);
+
+        List<Integer> incomes = new ArrayList<>();
+        // từng đồng ở vùng thấp, bước lẻ (để rơi vào mọi số dư) cho tới 200 triệu
+        for (int income = -10; income <= 1_000_000; income++) {
+            incomes.add(income);
+        }
+        for (int income = 1_000_000; income <= 200_000_000; income += 331) {
+            incomes.add(income);
+        }
+        for (TaxLevel l : levels) {
+            for (int d = -3; d <= 3; d++) {
+                incomes.add(l.getFromValue() + d);
+                incomes.add(l.getToValue() - d);
+            }
+        }
+
+        int tieMismatches = 0;
+        for (int income : incomes) {
+            long compiled = income <= 0 ? 0L : table.taxFor(income);
+            assertEquals(exactLoop(levels, income), compiled, "exact, income=" + income);
+
+            long legacy = legacyLoop(levels, income);
+            if (compiled != legacy) {
+                // chỉ được lệch khi double làm tròn sai ở đúng điểm .5 (vd 90 * 0.35 = 31.499999...)
+                assertTrue(hasHalfTie(levels, income), "income=" + income);
+                assertTrue(Math.abs(compiled - legacy) <= levels.size(), "income=" + income);
+                tieMismatches++;
+            }
+        }
+        assertTrue(tieMismatches < incomes.size() / 100);
+    }
+
+    @Test
+    void handlesGapsBetweenBrackets() {
+        List<TaxLevel> levels = List.of(
+                level("A", 0, 1_000, "0.100"),
+                level("B", 2_000, 3_000, "0.200"));
+        TaxBracketTable table = TaxBracketTable.compile(DATE, levels);
+
+        for (int income = 0; income <= 5_000; income++) {
+            assertEquals(exactLoop(levels, income), table.taxFor(income), "income=" + income);
+        }
+    }
+
+    @Test
+    void overlappingBracketsFallBackToLegacyEvaluation() {
+        List<TaxLevel> levels = List.of(
+                level("A", 0, 5_000, "0.050"),
+                level("B", 4_000, 10_000, "0.100"));
+        TaxBracketTable table = TaxBracketTable.compile(DATE, levels);
+
+        assertTrue(table.isOverlapping());
+        for (int income = 0; income <= 12_000; income++) {
+            assertEquals(exactLoop(levels, income), table.taxFor(income), "income=" + income);
+        }
+    }
+
+    // cách tính cũ trong TaxService (double)
+    private static long legacyLoop(List<TaxLevel> input, int taxableIncome) {
+        if (taxableIncome <= 0) return 0;
+        List<TaxLevel> levels = new ArrayList<>(input);
+        levels.sort(Comparator.comparing(TaxLevel::getFromValue));
+        int totalTax = 0;
+        for (TaxLevel level : levels) {
+            int from = level.getFromValue();
+            int to = level.getToValue();
+            double percent = level.getPercentage().doubleValue();
+            if (taxableIncome <= from) break;
+            int taxableInLevel = Math.min(taxableIncome, to) - from;
+            if (taxableInLevel > 0) {
+                totalTax += (int) Math.round(taxableInLevel * percent);
+            }
+        }
+        return totalTax;
+    }
+
+    // cùng thuật toán nhưng nhân chính xác bằng BigDecimal, HALF_UP từng bậc
+    private static long exactLoop(List<TaxLevel> input, int taxableIncome) {
+        if (taxableIncome <= 0) return 0;
+        List<TaxLevel> levels = new ArrayList<>(input);
+        levels.sort(Comparator.comparing(TaxLevel::getFromValue));
+        long totalTax = 0;
+        for (TaxLevel level : levels) {
+            int from = level.getFromValue();
+            if (taxableIncome <= from) break;
+            int taxableInLevel = Math.min(taxableIncome, level.getToValue()) - from;
+            if (taxableInLevel > 0) {
+                totalTax += BigDecimal.valueOf(taxableInLevel)
+                        .multiply(level.getPercentage())
+                        .setScale(0, RoundingMode.HALF_UP)
+                        .longValueExact();
+            }
+        }
+        return totalTax;
+    }
+
+    private static boolean hasHalfTie(List<TaxLevel> levels, int taxableIncome) {
+        for (TaxLevel level : levels) {
+            int from = level.getFromValue();
+            if (taxableIncome <= from) continue;
+            int taxableInLevel = Math.min(taxableIncome, level.getToValue()) - from;
+            BigDecimal exact = BigDecimal.valueOf(taxableInLevel).multiply(level.getPercentage());
+            if (exact.remainder(BigDecimal.ONE).compareTo(new BigDecimal("0.5")) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TaxLevel level(String name, int from, int to, String percentage) {
+        return TaxLevel.builder()
+                .name(name)
+                .fromValue(from)
+                .toValue(to)
+                .percentage(new BigDecimal(percentage))
+                .effectiveFrom(DATE)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.model.entity.DayType;
+import com.g98.sangchengpayrollmanager.model.entity.SpecialDays;
+import com.g98.sangchengpayrollmanager.service.WorkCalendarYear;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkCalendarYearTest {
+
+    private final DayType workingDay = DayType.builder().id(1).name("Working Day").otRate(new BigDecimal("1.50")).build();
+    private final DayType weekend = DayType.builder().id(2).name("Weekend").otRate(new BigDecimal("2.00")).build();
+    private final DayType holiday = DayType.builder().id(3).name("Holiday").otRate(new BigDecimal("3.00")).build();
+
+    // 2/9/2025 (thứ 3) là ngày lễ
+    private final SpecialDays nationalDay = SpecialDays.builder()
+            .name("Quốc khánh")
+            .date(LocalDate.of(2025, 9, 2))
+            .dayType(holiday)
+            .build();
+
+    private final WorkCalendarYear calendar = WorkCalendarYear.build(2025, List.of(nationalDay), workingDay, weekend);
+
+    @Test
+    void resolvesDayTypeAndOtRate() {
+        LocalDate monday = LocalDate.of(2025, 9, 1);
+        LocalDate saturday = LocalDate.of(2025, 9, 6);
+
+        assertSame(workingDay, calendar.dayType(monday));
+        assertSame(weekend, calendar.dayType(saturday));
+        assertSame(holiday, calendar.dayType(nationalDay.getDate()));
+        assertSame(nationalDay, calendar.specialDay(nationalDay.getDate()));
+        assertNull(calendar.specialDay(monday));
+
+        assertTrue(calendar.isHoliday(nationalDay.getDate()));
+        assertFalse(calendar.isWorkingDay(nationalDay.getDate()));
+        assertFalse(calendar.isWorkingDay(saturday));
+        assertTrue(calendar.isWorkingDay(monday));
+        assertEquals(new BigDecimal("2.00"), calendar.otRate(saturday));
+    }
+
+    @Test
+    void rangeCountsMatchDayByDayWalk() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        for (LocalDate to = from; to.getYear() == 2025; to = to.plusDays(13)) {
+            int weekdays = 0;
+            int working = 0;
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                boolean isWeekend = d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY;
+                if (!isWeekend) {
+                    weekdays++;
+                    if (!d.equals(nationalDay.getDate())) {
+                        working++;
+                    }
+                }
+            }
+            assertEquals(weekdays, calendar.countWeekdays(from, to), "weekdays to " + to);
+            assertEquals(working, calendar.countWorkingDays(from, to), "working days to " + to);
+        }
+
+        // tháng 9/2025: 22 ngày T2-T6, trừ 2/9
+        assertEquals(22, calendar.countWeekdays(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30)));
+        assertEquals(21, calendar.countWorkingDays(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30)));
+        assertEquals(0, calendar.countWorkingDays(LocalDate.of(2025, 9, 30), LocalDate.of(2025, 9, 1)));
+    }
+
+    @Test
+    void rejectsDateOutsideYear() {
+        assertThrows(IllegalArgumentException.class, () -> calendar.dayType(LocalDate.of(2026, 1, 1)));
+    }
+}
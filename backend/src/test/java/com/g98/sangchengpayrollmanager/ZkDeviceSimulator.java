@@ -0,0 +1,210 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.device.ZkProtocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Máy chấm công ZK giả lập trong tiến trình (TCP, cổng ngẫu nhiên) để test client không cần máy thật.
+ * Hỗ trợ các lệnh ZkProtocolClient dùng: connect/auth, enable/disable, đọc log, đọc/ghi user.
+ */
+public class ZkDeviceSimulator implements AutoCloseable {
+
+    // chia dữ liệu lớn thành nhiều gói CMD_DATA như máy thật
+    private static final int CHUNK_SIZE = 1024;
+
+    private final ServerSocket server;
+    private final Integer password;
+    private final List<byte[]> attendance = new ArrayList<>();
+    private final Map<String, ZkProtocol.DeviceUser> users = new LinkedHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger sessionIds = new AtomicInteger(0x4F00);
+    private volatile boolean deviceEnabled = true;
+    // >= 0: lần gửi dữ liệu tới cắt kết nối sau ngần ấy gói CMD_DATA (1 lần)
+    private volatile int dropAfterDataPackets = -1;
+    // != null: lần gửi dữ liệu tới dùng payload PREPARE_DATA này thay cho kích thước thật (1 lần)
+    private volatile byte[] preparePayload;
+
+    public ZkDeviceSimulator() throws IOException {
+        this(null);
+    }
+
+    public ZkDeviceSimulator(Integer password) throws IOException {
+        this(password, 0);
+    }
+
+    // port = 0: cổng trống bất kỳ
+    public ZkDeviceSimulator(Integer password, int port) throws IOException {
+        this.password = password;
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "zk-simulator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    public synchronized void addPunch(String userId, LocalDateTime time) {
+        attendance.add(ZkProtocol.encodeAttendance(attendance.size() + 1, userId, time, 0, 0));
+    }
+
+    public synchronized Map<String, ZkProtocol.DeviceUser> users() {
+        return new LinkedHashMap<>(users);
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    public boolean isDeviceEnabled() {
+        return deviceEnabled;
+    }
+
+    public void dropConnectionAfterDataPackets(int packets) {
+        dropAfterDataPackets = packets;
+    }
+
+    public void replacePrepareDataPayload(byte[] payload) {
+        preparePayload = payload;
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.incrementAndGet();
+                Thread handler = new Thread(() -> serve(socket), "zk-simulator-conn");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            int session = 0;
+            boolean authenticated = password == null;
+            while (true) {
+                ZkProtocol.Packet request = ZkProtocol.readPacket(in);
+                int reply = request.replyId();
+                switch (request.command()) {
+                    case ZkProtocol.CMD_CONNECT -> {
+                        session = sessionIds.incrementAndGet();
+                        send(out, authenticated ? ZkProtocol.CMD_ACK_OK : ZkProtocol.CMD_ACK_UNAUTH, session, reply, null);
+                    }
+                    case ZkProtocol.CMD_AUTH -> {
+                        authenticated = Arrays.equals(request.data(), ZkProtocol.commKey(password, session));
+                        send(out, authenticated ? ZkProtocol.CMD_ACK_OK : ZkProtocol.CMD_ACK_UNAUTH, session, reply, null);
+                    }
+                    case ZkProtocol.CMD_EXIT -> {
+                        send(out, ZkProtocol.CMD_ACK_OK, session, reply, null);
+                        return;
+                    }
+                    default -> {
+                        if (!authenticated) {
+                            send(out, ZkProtocol.CMD_ACK_UNAUTH, session, reply, null);
+                        } else {
+                            handle(out, request, session);
+                        }
+                    }
+                }
+            }
+        } catch (IOException ignore) {
+            // client đóng kết nối
+        }
+    }
+
+    private void handle(OutputStream out, ZkProtocol.Packet request, int session) throws IOException {
+        int reply = request.replyId();
+        switch (request.command()) {
+            case ZkProtocol.CMD_ENABLEDEVICE -> {
+                deviceEnabled = true;
+                send(out, ZkProtocol.CMD_ACK_OK, session, reply, null);
+            }
+            case ZkProtocol.CMD_DISABLEDEVICE -> {
+                deviceEnabled = false;
+                send(out, ZkProtocol.CMD_ACK_OK, session, reply, null);
+            }
+            case ZkProtocol.CMD_GET_FREE_SIZES -> {
+                ByteBuffer sizes = ByteBuffer.allocate(80).order(ByteOrder.LITTLE_ENDIAN);
+                synchronized (this) {
+                    sizes.putInt(16, users.size());
+                    sizes.putInt(32, attendance.size());
+                }
+                send(out, ZkProtocol.CMD_ACK_OK, session, reply, sizes.array());
+            }
+            case ZkProtocol.CMD_ATTLOG_RRQ -> {
+                byte[] data;
+                synchronized (this) {
+                    data = ZkProtocol.withSizePrefix(attendance);
+                }
+                sendBuffer(out, session, reply, data);
+            }
+            case ZkProtocol.CMD_USERTEMP_RRQ -> {
+                List<byte[]> records = new ArrayList<>();
+                synchronized (this) {
+                    users.values().forEach(u -> records.add(ZkProtocol.encodeUser(u)));
+                }
+                sendBuffer(out, session, reply, ZkProtocol.withSizePrefix(records));
+            }
+            case ZkProtocol.CMD_USER_WRQ -> {
+                ZkProtocol.DeviceUser user = ZkProtocol.decodeUser(request.data(), 0);
+                synchronized (this) {
+                    users.put(user.userId(), user);
+                }
+                send(out, ZkProtocol.CMD_ACK_OK, session, reply, null);
+            }
+            case ZkProtocol.CMD_FREE_DATA, ZkProtocol.CMD_REFRESHDATA -> send(out, ZkProtocol.CMD_ACK_OK, session, reply, null);
+            default -> send(out, ZkProtocol.CMD_ACK_ERROR, session, reply, null);
+        }
+    }
+
+    private void sendBuffer(OutputStream out, int session, int reply, byte[] data) throws IOException {
+        byte[] size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(data.length).array();
+        if (preparePayload != null) {
+            size = preparePayload;
+            preparePayload = null;
+        }
+        send(out, ZkProtocol.CMD_PREPARE_DATA, session, reply, size);
+        int packets = 0;
+        for (int from = 0; from < data.length; from += CHUNK_SIZE) {
+            if (dropAfterDataPackets >= 0 && packets++ == dropAfterDataPackets) {
+                dropAfterDataPackets = -1;
+                throw new IOException("simulated drop");
+            }
+            send(out, ZkProtocol.CMD_DATA, session, reply,
+                    Arrays.copyOfRange(data, from, Math.min(from + CHUNK_SIZE, data.length)));
+        }
+        send(out, ZkProtocol.CMD_ACK_OK, session, reply, null);
+    }
+
+    private static void send(OutputStream out, int command, int session, int reply, byte[] data) throws IOException {
+        out.write(ZkProtocol.encodePacket(command, session, reply, data));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,243 @@
+package com.g98.sangchengpayrollmanager;
+
+import com.g98.sangchengpayrollmanager.device.AttendanceLog;
+import com.g98.sangchengpayrollmanager.device.DeviceHealth;
+import com.g98.sangchengpayrollmanager.device.ZkConnectionManager;
+import com.g98.sangchengpayrollmanager.device.ZkProtocol;
+import com.g98.sangchengpayrollmanager.device.ZkProtocolClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZkProtocolClientTest {
+
+    private final ExecutorService zkExecutor = Executors.newSingleThreadExecutor();
+    private final ZkConnectionManager connections = new ZkConnectionManager(zkExecutor, 200, 5000, 30000);
+
+    @AfterEach
+    void tearDown() {
+        connections.closeAll();
+        zkExecutor.shutdownNow();
+    }
+
+    private ZkProtocolClient client(ZkDeviceSimulator device, String password) {
+        return client(device.port(), password);
+    }
+
+    private ZkProtocolClient client(int port, String password) {
+        return new ZkProtocolClient(true, port, "127.0.0.1", port, password, 2000, connections);
+    }
+
+    @Test
+    void timeCodecRoundTrips() {
+        LocalDateTime time = LocalDateTime.of(2025, 12, 31, 23, 59, 58);
+        assertEquals(time, ZkProtocol.decodeTime(ZkProtocol.encodeTime(time)));
+    }
+
+    @Test
+    void readsLogsAcrossManyDataChunks() throws Exception {
+        try (ZkDeviceSimulator device = new ZkDeviceSimulator()) {
+            LocalDateTime start = LocalDateTime.of(2025, 6, 2, 8, 0);
+            // 500 bản ghi x 40 byte -> ~20 gói CMD_DATA
+            for (int i = 0; i < 500; i++) {
+                device.addPunch("EMP" + (i % 50), start.plusMinutes(i));
+            }
+
+            List<AttendanceLog> all = client(device, null).readAllLogs();
+            assertEquals(500, all.size());
+            assertEquals("EMP0", all.get(0).getUserId());
+            assertEquals(start, all.get(0).getCheckTime());
+
+            List<AttendanceLog> recent = client(device, null).readLogsSince(start.plusMinutes(490));
+            assertEquals(10, recent.size());
+            assertTrue(device.isDeviceEnabled());
+        }
+    }
+
+    @Test
+    void streamsLogsInBoundedChunks() throws Exception {
+        try (ZkDeviceSimulator device = new ZkDeviceSimulator()) {
+            LocalDateTime start = LocalDateTime.of(2025, 6, 2, 8, 0);
+            for (int i = 0; i < 500; i++) {
+                device.addPunch("EMP" + (i % 50), start.plusMinutes(i));
+            }
+
+            List<Integer> chunkSizes = new ArrayList<>();
+            List<AttendanceLog> received = new ArrayList<>();
+            long delivered = client(device, null).streamLogsSince(null, 64, chunk -> {
+                chunkSizes.add(chunk.size());
+                received.addAll(chunk);
+            });
+
+            assertEquals(500, delivered);
+            assertEquals(8, chunkSizes.size());
+            assertTrue(chunkSizes.stream().allMatch(size -> size <= 64));
+            assertEquals(start.plusMinutes(499), received.get(499).getCheckTime());
+        }
+    }
+
+    @Test
+    void sinkFailureKeepsSessionUsable() throws Exception {
+        try (ZkDeviceSimulator device = new ZkDeviceSimulator()) {
+            LocalDateTime start = LocalDateTime.of(2025, 6, 2, 8, 0);
+            for (int i = 0; i < 300; i++) {
+                device.addPunch("EMP" + i, start.plusMinutes(i));
+            }
+            ZkProtocolClient client = client(device, null);
+
+            assertThrows(IllegalStateException.class, () -> client.streamLogsSince(null, 50, chunk -> {
+                throw new IllegalStateException("db down");
+            }));
+
+            // phiên vẫn đồng bộ gói và máy đã được mở lại
+            assertTrue(device.isDeviceEnabled());
+            assertEquals(300, client.readAllLogs().size());
+            assertEquals(1, device.connectionCount());
+        }
+    }
+
+    @Test
+    void connectionDroppedMidStreamFailsTheRead() throws Exception {
+        try (ZkDeviceSimulator device = new ZkDeviceSimulator()) {
+            LocalDateTime start = LocalDateTime.of(2025, 6, 2, 8, 0);
+            for (int i = 0; i < 500; i++) {
+                device.addPunch("EMP" + i, start.plusMinutes(i));
+            }
+            ZkProtocolClient client = client(device, null);
+            device.dropConnectionAfterDataPackets(10);
+
+            List<AttendanceLog> received = new ArrayList<>();
+            assertThrows(IllegalStateException.class, () -> client.streamLogsSince(null, 64, received::addAll));
+            // các lô đã giao trước khi rớt vẫn giữ, nhưng không được báo là đọc xong
+            assertFalse(received.isEmpty());
+            assertTrue(received.size() < 500);
+        }
+    }
+
+    @Test
+    void malformedPrepareDataFailsTheRead() throws Exception {
+        byte[][] payloads = {
+                {1, 0},             // thiếu 4 byte kích thước
+                {-1, -1, -1, -1},   // kích thước vô lý: không được chờ nhận 4 GB
+                {8, 0, 0, 0},       // ít hơn dữ liệu thật gửi
+        };
+        for (byte[] payload : payloads) {
+            try (ZkDeviceSimulator device = new ZkDeviceSimulator()) {
+                LocalDateTime start = LocalDateTime.of(2025, 6, 2, 8, 0);
+                for (int i = 0; i < 100; i++) {
+                    device.addPunch("EMP" + i, start.plusMinutes(i));
+                }
+                ZkProtocolClient client = client(device, null);
+                device.replacePrepareDataPayload(payload);
+
+                assertThrows(IllegalStateException.class, () -> client.streamLogsSince(null, 64, logs -> {
+                }));
+            }
+        }
+    }
+
+    @Test
+    void upsertsUsersWithCommPassword() throws Exception {
+        try (ZkDeviceSimulator device = new ZkDeviceSimulator(123456)) {
+            ZkProtocolClient client = client(device, "123456");
+
+            assertFalse(client.existsUser("EMP001"));
+            assertTrue(client.upsertUser("EMP001", "Nguyen Van A", "1111", 0, true));
+            assertTrue(client.upsertUser("EMP002", "Tran Thi B", "2222", 14, true));
+            assertTrue(client.upsertUser("EMP001", "Nguyen Van A", "3333", 0, false));
+
+            assertTrue(client.existsUser("EMP001"));
+            assertEquals(2, device.users().size());
+            ZkProtocol.DeviceUser emp1 = device.users().get("EMP001");
+            assertEquals(1, emp1.uid());
+            assertEquals("3333", emp1.password());
+            assertFalse(emp1.enabled());
+            assertEquals(2, device.users().get("EMP002").uid());
+
+            // sai mật khẩu: không hỏi được máy, khác với "không có user"
+            assertThrows(IllegalStateException.class, () -> client(device, "1").existsUser("EMP001"));
+        }
+    }
+
+    @Test
+    void reusesOneSessionPerDevice() throws Exception {
+        try (ZkDeviceSimulator device = new ZkDeviceSimulator()) {
+            device.addPunch("EMP001", LocalDateTime.of(2025, 6, 2, 8, 0));
+            ZkProtocolClient client = client(device, null);
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals(1, client.readAllLogs().size());
+            }
+            assertFalse(client.existsUser("EMP001"));
+
+            assertEquals(1, device.connectionCount());
+            DeviceHealth health = connections.health().get(0);
+            assertTrue(health.connected());
+            assertEquals(1, health.connects());
+            assertEquals(6, health.commands());
+        }
+    }
+
+    @Test
+    void backsOffAfterConnectFailure() throws Exception {
+        int deadPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadPort = socket.getLocalPort();
+        }
+        ZkProtocolClient client = client(deadPort, null);
+
+        assertThrows(IllegalStateException.class, client::readAllLogs);
+        // đang trong thời gian backoff: báo lỗi ngay, không kết nối lại
+        assertThrows(IllegalStateException.class, client::readAllLogs);
+
+        // chỉ lần kết nối thật bị tính lỗi, lượt bị từ chối vì backoff thì không
+        DeviceHealth health = connections.health().get(0);
+        assertFalse(health.connected());
+        assertEquals(1, health.failures());
+        assertEquals(1, health.consecutiveFailures());
+        assertEquals(0, health.connects());
+    }
+
+    @Test
+    void callsDuringBackoffDoNotPostponeReconnect() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ZkProtocolClient client = client(port, null);
+
+        assertThrows(IllegalStateException.class, client::readAllLogs);
+        Instant retryAt = connections.health().get(0).nextAttemptAt();
+        // gọi dồn trong lúc chờ (như lịch sync) không được đẩy lùi thời điểm thử lại
+        while (Instant.now().isBefore(retryAt.minusMillis(50))) {
+            assertThrows(IllegalStateException.class, client::readAllLogs);
+            Thread.sleep(10);
+        }
+        assertEquals(retryAt, connections.health().get(0).nextAttemptAt());
+        assertEquals(1, connections.health().get(0).consecutiveFailures());
+
+        try (ZkDeviceSimulator device = new ZkDeviceSimulator(null, port)) {
+            device.addPunch("EMP1", LocalDateTime.of(2025, 6, 2, 8, 0));
+            Thread.sleep(Math.max(0, Duration.between(Instant.now(), retryAt).toMillis() + 20));
+
+            assertEquals(1, client.readAllLogs().size());
+            DeviceHealth health = connections.health().get(0);
+            assertTrue(health.connected());
+            assertEquals(0, health.consecutiveFailures());
+            assertEquals(1, health.connects());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+-- So sánh plan: YEAR()/MONTH() trên cột date vs khoảng nửa mở [đầu tháng, đầu tháng sau)
+-- Chạy trên schema nháp (MySQL 8): mysql -u root -p bench < pay_summary_month_predicate.sql
+-- Dữ liệu: 2.000 nhân viên x 72 tháng (6 năm) = 144.000 dòng, giống phân bố pay_summary thật.
+
+SET SESSION cte_max_recursion_depth = 10000;
+
+DROP TABLE IF EXISTS bench_pay_summary;
+CREATE TABLE bench_pay_summary (
+    id            INT AUTO_INCREMENT PRIMARY KEY,
+    employee_code VARCHAR(50) NOT NULL,
+    date          DATE        NOT NULL,
+    status        VARCHAR(50) NOT NULL,
+    net_salary    INT         NOT NULL,
+    INDEX idx_bench_pay_summary_date_status (date, status),
+    INDEX idx_bench_pay_summary_employee_date (employee_code, date)
+);
+
+INSERT INTO bench_pay_summary (employee_code, date, status, net_salary)
+WITH RECURSIVE
+    emp(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM emp WHERE n < 2000),
+    mon(m) AS (SELECT 0 UNION ALL SELECT m + 1 FROM mon WHERE m < 71)
+SELECT CONCAT('EMP', LPAD(emp.n, 5, '0')),
+       DATE_ADD('2020-01-01', INTERVAL mon.m MONTH),
+       IF(mon.m = 71, 'draft', 'approved'),
+       8000000 + (emp.n * 7919 + mon.m * 104729) % 30000000
+FROM emp CROSS JOIN mon;
+
+ANALYZE TABLE bench_pay_summary;
+
+-- 1. Cách cũ: hàm bọc cột -> type=ALL, rows ~ 144.000 (quét toàn bảng)
+EXPLAIN
+SELECT employee_code, net_salary FROM bench_pay_summary
+WHERE YEAR(date) = YEAR('2025-06-01') AND MONTH(date) = MONTH('2025-06-01');
+
+EXPLAIN ANALYZE
+SELECT employee_code, net_salary FROM bench_pay_summary
+WHERE YEAR(date) = YEAR('2025-06-01') AND MONTH(date) = MONTH('2025-06-01');
+
+-- 2. Cách mới: khoảng nửa mở -> type=range trên idx_bench_pay_summary_date_status, rows ~ 2.000
+EXPLAIN
+SELECT employee_code, net_salary FROM bench_pay_summary
+WHERE date >= '2025-06-01' AND date < '2025-07-01';
+
+EXPLAIN ANALYZE
+SELECT employee_code, net_salary FROM bench_pay_summary
+WHERE date >= '2025-06-01' AND date < '2025-07-01';
+
+-- 3. Số dòng phải đọc (Handler_read_*) của mỗi cách
+FLUSH STATUS;
+SELECT COUNT(*) FROM bench_pay_summary
+WHERE YEAR(date) = 2025 AND MONTH(date) = 6;
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+FLUSH STATUS;
+SELECT COUNT(*) FROM bench_pay_summary
+WHERE date >= '2025-06-01' AND date < '2025-07-01';
+SHOW SESSION STATUS LIKE 'Handler_read%';
+
+DROP TABLE bench_pay_summary;
@@ -0,0 +1,61 @@
+package com.g98.sangchengpayrollmanager.benchmark;
+
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PayrollInputSnapshot;
+import com.g98.sangchengpayrollmanager.service.InsuranceService;
+import com.g98.sangchengpayrollmanager.service.PayComponentService;
+import com.g98.sangchengpayrollmanager.service.TaxService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo từng bước tính lương riêng lẻ; 1 op = 1 nhân viên.
+ * Đầu vào của bước sau (insuranceBase, assessableIncome) lấy theo cùng công thức PayrollServiceImpl.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    @Benchmark
+    public int baseSalary(PayrollFixture f) {
+        PayrollInputSnapshot.EmployeeInput in = f.next();
+        return f.baseSalaryService.calculateBaseSalaryAmt(f.monthStart, f.monthEnd,
+                in.getDailySummaries(), in.getMonthSummary(), in.getSalaryInformations());
+    }
+
+    @Benchmark
+    public int overtime(PayrollFixture f) {
+        PayrollInputSnapshot.EmployeeInput in = f.next();
+        return f.otService.getTotalOtAmount(in.getDailySummaries(), in.getSalaryInformations(), in.getMonthSummary());
+    }
+
+    @Benchmark
+    public PayComponentService.Result payComponents(PayrollFixture f) {
+        PayrollInputSnapshot.EmployeeInput in = f.next();
+        return f.payComponentService.calculate(in.getPayComponents(), f.monthEnd);
+    }
+
+    @Benchmark
+    public InsuranceService.Result insurance(PayrollFixture f) {
+        PayrollInputSnapshot.EmployeeInput in = f.next();
+        int insuranceBase = in.getSalaryInformations().get(0).getBaseSalary();
+        return f.insuranceService.calculateInsurance(insuranceBase, f.month);
+    }
+
+    @Benchmark
+    public TaxService.Result tax(PayrollFixture f) {
+        PayrollInputSnapshot.EmployeeInput in = f.next();
+        int gross = in.getSalaryInformations().get(0).getBaseSalary();
+        int employeeInsurance = gross * 105 / 1000;
+        return f.taxService.calculateTax(in.getEmployeeInformation(), gross, employeeInsurance, f.monthEnd, f.month);
+    }
+}
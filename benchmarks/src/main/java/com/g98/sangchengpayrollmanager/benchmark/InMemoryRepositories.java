@@ -0,0 +1,57 @@
+package com.g98.sangchengpayrollmanager.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Tạo repository "giả" trong bộ nhớ cho benchmark: chỉ các method được khai báo mới trả dữ liệu,
+ * gọi method khác -> UnsupportedOperationException (để lộ ngay nếu code tính lương query thêm).
+ * Method default của interface (vd LegalPolicyGroupRepository.loadGroupMapping) vẫn chạy code thật.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static <R> Builder<R> of(Class<R> repositoryType) {
+        return new Builder<>(repositoryType);
+    }
+
+    static final class Builder<R> {
+        private final Class<R> repositoryType;
+        private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+        private Builder(Class<R> repositoryType) {
+            this.repositoryType = repositoryType;
+        }
+
+        Builder<R> on(String methodName, Function<Object[], Object> handler) {
+            handlers.put(methodName, handler);
+            return this;
+        }
+
+        R build() {
+            InvocationHandler invocationHandler = (proxy, method, args) -> {
+                Function<Object[], Object> handler = handlers.get(method.getName());
+                if (handler != null) {
+                    return handler.apply(args);
+                }
+                if (method.isDefault()) {
+                    return InvocationHandler.invokeDefault(proxy, method, args);
+                }
+                return switch (method.getName()) {
+                    case "toString" -> "InMemory" + repositoryType.getSimpleName();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(
+                            repositoryType.getSimpleName() + "." + method.getName() + " không có trong benchmark");
+                };
+            };
+            return repositoryType.cast(Proxy.newProxyInstance(
+                    repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, invocationHandler));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.g98.sangchengpayrollmanager.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * java -jar benchmarks/target/benchmarks.jar [tham số JMH, vd "PayrollEndToEnd -p salarySegment=MID"]
+ * Mặc định bật GC profiler và ghi kết quả ra benchmarks-result.json để so sánh giữa các lần sửa.
+ */
+public final class PayrollBenchmarkMain {
+
+    private PayrollBenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("benchmarks-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
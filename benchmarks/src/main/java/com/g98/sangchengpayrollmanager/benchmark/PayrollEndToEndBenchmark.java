@@ -0,0 +1,29 @@
+package com.g98.sangchengpayrollmanager.benchmark;
+
+import com.g98.sangchengpayrollmanager.model.entity.PaySummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cả pipeline PayrollServiceImpl.calculateMonthlySalary cho 1 nhân viên (đầu vào đã load sẵn, không ghi DB).
+ * Chạy kèm -prof gc: gc.alloc.rate.norm = số byte cấp phát cho mỗi nhân viên.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayrollEndToEndBenchmark {
+
+    @Benchmark
+    public PaySummary calculateMonthlySalary(PayrollFixture f) {
+        return f.payrollService.calculateMonthlySalary(f.next(), f.month, f.monthStart, f.monthEnd);
+    }
+}
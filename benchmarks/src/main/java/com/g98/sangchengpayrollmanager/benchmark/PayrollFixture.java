@@ -0,0 +1,156 @@
+package com.g98.sangchengpayrollmanager.benchmark;
+
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PayrollInputSnapshot;
+import com.g98.sangchengpayrollmanager.repository.EmployeeInformationRepository;
+import com.g98.sangchengpayrollmanager.repository.InsurancePolicyRepository;
+import com.g98.sangchengpayrollmanager.repository.LegalPolicyGroupRepository;
+import com.g98.sangchengpayrollmanager.repository.LegalPolicyRepository;
+import com.g98.sangchengpayrollmanager.repository.PayComponentRepository;
+import com.g98.sangchengpayrollmanager.repository.PayComponentTypeRepository;
+import com.g98.sangchengpayrollmanager.repository.PaySummaryRepository;
+import com.g98.sangchengpayrollmanager.repository.TaxLevelRepository;
+import com.g98.sangchengpayrollmanager.service.BaseSalaryService;
+import com.g98.sangchengpayrollmanager.service.InsuranceService;
+import com.g98.sangchengpayrollmanager.service.OtService;
+import com.g98.sangchengpayrollmanager.service.PayComponentService;
+import com.g98.sangchengpayrollmanager.service.PolicySnapshotCache;
+import com.g98.sangchengpayrollmanager.service.TaxService;
+import com.g98.sangchengpayrollmanager.service.impl.LeaveRequestServiceImpl;
+import com.g98.sangchengpayrollmanager.service.impl.OvertimeRequestServiceImpl;
+import com.g98.sangchengpayrollmanager.service.impl.PayrollServiceImpl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Constructor;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Dựng các service tính lương thật trên repository trong bộ nhớ + 1 tập nhân viên giả lập.
+ * Mỗi thread giữ con trỏ riêng, mỗi lần gọi next() lấy nhân viên kế tiếp (vòng lại khi hết).
+ */
+@State(Scope.Thread)
+public class PayrollFixture {
+
+    private static final int EMPLOYEES = 1024;
+
+    @Param({"LOW", "MID", "HIGH"})
+    public String salarySegment;
+
+    @Param({"0", "8"})
+    public int otDays;
+
+    @Param({"2", "10"})
+    public int components;
+
+    @Param({"0", "2"})
+    public int dependents;
+
+    LocalDate month;
+    LocalDate monthStart;
+    LocalDate monthEnd;
+
+    BaseSalaryService baseSalaryService;
+    OtService otService;
+    PayComponentService payComponentService;
+    InsuranceService insuranceService;
+    TaxService taxService;
+    PayrollServiceImpl payrollService;
+
+    private PayrollInputSnapshot.EmployeeInput[] employees;
+    private int cursor;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        month = SyntheticPayroll.MONTH.atDay(1);
+        monthStart = month;
+        monthEnd = SyntheticPayroll.MONTH.atEndOfMonth();
+
+        PolicySnapshotCache policySnapshotCache = new PolicySnapshotCache(
+                InMemoryRepositories.of(TaxLevelRepository.class)
+                        .on("findActiveLevels", args -> SyntheticPayroll.taxLevels())
+                        .build(),
+                InMemoryRepositories.of(InsurancePolicyRepository.class)
+                        .on("findActivePolicies", args -> SyntheticPayroll.insurancePolicies())
+                        .build(),
+                InMemoryRepositories.of(LegalPolicyRepository.class)
+                        .on("findActiveByCalculationType", args -> SyntheticPayroll.taxDeductionPolicies())
+                        .on("findActiveByCode", args -> SyntheticPayroll.groupPolicy((String) args[0]))
+                        .build(),
+                InMemoryRepositories.of(LegalPolicyGroupRepository.class)
+                        .on("findAllPolicyComponentPairs", args -> SyntheticPayroll.groupPairs())
+                        .build());
+
+        // tính lương theo lô không được query thêm: các repo này gọi tới là lỗi
+        PayComponentRepository payComponentRepo = InMemoryRepositories.of(PayComponentRepository.class).build();
+        PayComponentTypeRepository payComponentTypeRepo = InMemoryRepositories.of(PayComponentTypeRepository.class).build();
+        EmployeeInformationRepository employeeInfoRepo = InMemoryRepositories.of(EmployeeInformationRepository.class).build();
+
+        // không có phiếu lương cũ, save trả lại chính entity (không đo ghi DB)
+        PaySummaryRepository paySummaryRepo = InMemoryRepositories.of(PaySummaryRepository.class)
+                .on("findByUserEmployeeCodeAndDateAndStatus", args -> Optional.empty())
+                .on("save", args -> args[0])
+                .build();
+
+        baseSalaryService = new BaseSalaryService(payComponentRepo, payComponentTypeRepo);
+        otService = new OtService();
+        payComponentService = new PayComponentService(payComponentRepo, policySnapshotCache);
+        insuranceService = new InsuranceService(policySnapshotCache);
+        taxService = new TaxService(employeeInfoRepo, policySnapshotCache);
+        payrollService = new PayrollServiceImpl(
+                null,
+                paySummaryRepo,
+                baseSalaryService,
+                otService,
+                payComponentService,
+                insuranceService,
+                taxService,
+                withoutDependencies(OvertimeRequestServiceImpl.class),
+                withoutDependencies(LeaveRequestServiceImpl.class));
+
+        SyntheticPayroll.SalarySegment segment = SyntheticPayroll.SalarySegment.valueOf(salarySegment);
+        employees = new PayrollInputSnapshot.EmployeeInput[EMPLOYEES];
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees[i] = SyntheticPayroll.employee(i, segment, otDays, components, dependents);
+        }
+
+        // nạp sẵn snapshot policy để không đo lần load đầu
+        policySnapshotCache.get(month);
+        policySnapshotCache.get(monthEnd);
+
+        // các bước tính lương còn System.out.println -> bỏ output để không đo I/O console
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    PayrollInputSnapshot.EmployeeInput next() {
+        PayrollInputSnapshot.EmployeeInput input = employees[cursor];
+        cursor = (cursor + 1) & (EMPLOYEES - 1);
+        return input;
+    }
+
+    /**
+     * Service chỉ dùng overload validate(boolean, ...) không đụng tới repository -> tạo với dependency null.
+     */
+    private static <T> T withoutDependencies(Class<T> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructors()[0];
+            Object[] args = new Object[constructor.getParameterCount()];
+            return type.cast(constructor.newInstance(args));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Không tạo được " + type.getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.g98.sangchengpayrollmanager.benchmark;
+
+import com.g98.sangchengpayrollmanager.model.dto.payroll.PayrollInputSnapshot;
+import com.g98.sangchengpayrollmanager.model.entity.AttDailySummary;
+import com.g98.sangchengpayrollmanager.model.entity.AttMonthSummary;
+import com.g98.sangchengpayrollmanager.model.entity.DayType;
+import com.g98.sangchengpayrollmanager.model.entity.EmployeeInformation;
+import com.g98.sangchengpayrollmanager.model.entity.InsurancePolicy;
+import com.g98.sangchengpayrollmanager.model.entity.LegalPolicy;
+import com.g98.sangchengpayrollmanager.model.entity.PayComponent;
+import com.g98.sangchengpayrollmanager.model.entity.PayComponentType;
+import com.g98.sangchengpayrollmanager.model.entity.SalaryInformation;
+import com.g98.sangchengpayrollmanager.model.entity.TaxLevel;
+import com.g98.sangchengpayrollmanager.model.entity.User;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Dữ liệu giả lập cho benchmark: chính sách thuế / BH / giảm trừ hiện hành và nhân viên
+ * theo mức lương, số ngày OT, số pay component và số người phụ thuộc.
+ * Cùng seed -> cùng dữ liệu, để các lần chạy so sánh được với nhau.
+ */
+final class SyntheticPayroll {
+
+    static final LocalDate POLICY_FROM = LocalDate.of(2020, 1, 1);
+    static final YearMonth MONTH = YearMonth.of(2025, 6);
+
+    static final String GROUP_POLICY_CODE = "POLICY_PHUCLOI_2TR";
+
+    /**
+     * Mức lương cơ bản (trước khi dao động ±10% theo từng nhân viên).
+     */
+    enum SalarySegment {
+        LOW(6_000_000),
+        MID(20_000_000),
+        HIGH(80_000_000);
+
+        final int baseSalary;
+
+        SalarySegment(int baseSalary) {
+            this.baseSalary = baseSalary;
+        }
+    }
+
+    private static final DayType WORKING_DAY = DayType.builder().id(1).name("Working Day").otRate(new BigDecimal("1.5")).build();
+    private static final DayType WEEKEND = DayType.builder().id(2).name("Weekend").otRate(new BigDecimal("2.0")).build();
+
+    private static final LegalPolicy LUNCH_CAP = LegalPolicy.builder()
+            .id(10).code("POLICY_AN_TRUA").calculationType("TAX_CAP_RATIO_CALCULATE")
+            .amount(730_000).effectiveFrom(POLICY_FROM).build();
+
+    // loại pay component: ăn trưa (cap riêng + thuộc nhóm), trách nhiệm (chịu thuế, đóng BH),
+    // phúc lợi (thuộc nhóm cap 2tr), thưởng (chịu thuế), khấu trừ
+    private static final PayComponentType LUNCH = type(1, "Phụ cấp ăn trưa", false, "PARTIAL_CAP_RATIO", LUNCH_CAP);
+    private static final PayComponentType RESPONSIBILITY = type(2, "Phụ cấp trách nhiệm", true, "FULLY_TAXABLE", null);
+    private static final PayComponentType WELFARE = type(3, "Phúc lợi", false, "NON_TAXABLE", null);
+    private static final PayComponentType BONUS = type(4, "Thưởng", false, "FULLY_TAXABLE", null);
+    private static final PayComponentType DEDUCTION = type(5, "Khấu trừ", false, null, null);
+
+    private SyntheticPayroll() {
+    }
+
+    // ===== chính sách =====
+
+    static List<TaxLevel> taxLevels() {
+        return List.of(
+                taxLevel("Bậc 1", 0, 5_000_000, "0.05"),
+                taxLevel("Bậc 2", 5_000_000, 10_000_000, "0.10"),
+                taxLevel("Bậc 3", 10_000_000, 18_000_000, "0.15"),
+                taxLevel("Bậc 4", 18_000_000, 32_000_000, "0.20"),
+                taxLevel("Bậc 5", 32_000_000, 52_000_000, "0.25"),
+                taxLevel("Bậc 6", 52_000_000, 80_000_000, "0.30"),
+                taxLevel("Bậc 7", 80_000_000, Integer.MAX_VALUE, "0.35"));
+    }
+
+    static List<InsurancePolicy> insurancePolicies() {
+        return List.of(
+                insurance(1, "BHXH", "0.08", "0.175", 46_800_000),
+                insurance(2, "BHYT", "0.015", "0.03", 46_800_000),
+                insurance(3, "BHTN", "0.01", "0.01", 99_200_000));
+    }
+
+    static List<LegalPolicy> taxDeductionPolicies() {
+        return List.of(
+                LegalPolicy.builder().id(1).code("PERSONAL_DEDUCTION").calculationType("TAX_DEDUCTION")
+                        .amount(11_000_000).effectiveFrom(POLICY_FROM).build(),
+                LegalPolicy.builder().id(2).code("DEPENDENT_DEDUCTION").calculationType("TAX_DEDUCTION")
+                        .amount(4_400_000).effectiveFrom(POLICY_FROM).build());
+    }
+
+    static LegalPolicy groupPolicy(String code) {
+        if (!GROUP_POLICY_CODE.equals(code)) {
+            return null;
+        }
+        return LegalPolicy.builder().id(3).code(GROUP_POLICY_CODE).calculationType("TAX_CAP_RATIO_CALCULATE")
+                .amount(2_000_000).effectiveFrom(POLICY_FROM).build();
+    }
+
+    // (policyCode, componentTypeId) như LegalPolicyGroupRepository.findAllPolicyComponentPairs
+    static List<Object[]> groupPairs() {
+        return List.of(
+                new Object[]{GROUP_POLICY_CODE, LUNCH.getId()},
+                new Object[]{GROUP_POLICY_CODE, WELFARE.getId()});
+    }
+
+    // ===== nhân viên =====
+
+    static PayrollInputSnapshot.EmployeeInput employee(int index, SalarySegment segment, int otDays,
+                                                        int componentCount, int dependents) {
+        Random random = new Random(31L * index + segment.ordinal());
+        String code = String.format("EMP%05d", index);
+        User user = User.builder().employeeCode(code).fullName("Nhan Vien " + index).build();
+
+        LocalDate monthStart = MONTH.atDay(1);
+        LocalDate monthEnd = MONTH.atEndOfMonth();
+
+        int baseSalary = segment.baseSalary + (random.nextInt(segment.baseSalary / 5) - segment.baseSalary / 10);
+        baseSalary = baseSalary / 1000 * 1000;
+
+        // 1/5 nhân viên được tăng lương giữa tháng -> 2 mức lương trong tháng
+        List<SalaryInformation> salaries = new ArrayList<>();
+        if (index % 5 == 0) {
+            LocalDate raiseDate = monthStart.plusDays(14);
+            salaries.add(salary(user, baseSalary, monthStart.minusYears(1), raiseDate.minusDays(1)));
+            salaries.add(salary(user, baseSalary + baseSalary / 10, raiseDate, null));
+        } else {
+            salaries.add(salary(user, baseSalary, monthStart.minusYears(1), null));
+        }
+
+        // ngày công: đủ các ngày thường, thỉnh thoảng nửa ngày; OT rải trên ngày thường và cuối tuần
+        List<AttDailySummary> days = new ArrayList<>();
+        int weekdays = 0;
+        int otLeft = otDays;
+        int otHours = 0;
+        int workHours = 0;
+        for (LocalDate d = monthStart; !d.isAfter(monthEnd); d = d.plusDays(1)) {
+            boolean weekend = d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY;
+            if (weekend) {
+                // nửa số ngày OT rơi vào cuối tuần
+                if (otLeft > otDays / 2) {
+                    days.add(day(user, d, WEEKEND, 0, 4, false));
+                    otLeft--;
+                    otHours += 4;
+                }
+                continue;
+            }
+            weekdays++;
+            boolean halfDay = random.nextInt(20) == 0;
+            int hours = halfDay ? 4 : 8;
+            int ot = 0;
+            if (otLeft > 0 && random.nextBoolean()) {
+                ot = 2 + random.nextInt(2);
+                otLeft--;
+            }
+            days.add(day(user, d, WORKING_DAY, hours, ot, !halfDay));
+            otHours += ot;
+            workHours += hours;
+        }
+
+        AttMonthSummary monthSummary = AttMonthSummary.builder()
+                .user(user)
+                .month(monthStart)
+                .dayStandard(BigDecimal.valueOf(weekdays))
+                .standardHoursPerDay(BigDecimal.valueOf(8))
+                .daysPayable(BigDecimal.valueOf(weekdays))
+                .daysMeal(BigDecimal.valueOf(weekdays))
+                .daysTrial(BigDecimal.ZERO)
+                .otHours(otHours)
+                .daysHours(workHours)
+                .usedleave(0)
+                .lateCount(0)
+                .earlyLeaveCount(0)
+                .build();
+
+        List<PayComponent> components = new ArrayList<>();
+        PayComponentType[] types = {LUNCH, RESPONSIBILITY, WELFARE, BONUS, DEDUCTION};
+        for (int i = 0; i < componentCount; i++) {
+            PayComponentType type = types[i % types.length];
+            int value = 200_000 + random.nextInt(30) * 50_000;
+            components.add(PayComponent.builder()
+                    .id(index * 100 + i)
+                    .name(type.getName() + " " + (i + 1))
+                    .description(type.getName())
+                    .value(value)
+                    .startDate(monthStart)
+                    .endDate(monthEnd)
+                    .occurrences(1)
+                    .type(type)
+                    .user(user)
+                    .isAddition(type != DEDUCTION)
+                    .build());
+        }
+
+        EmployeeInformation info = new EmployeeInformation();
+        info.setUser(user);
+        info.setDependentsNo(dependents);
+
+        return PayrollInputSnapshot.EmployeeInput.builder()
+                .employeeCode(code)
+                .salaryInformations(salaries)
+                .monthSummary(monthSummary)
+                .dailySummaries(days)
+                .payComponents(components)
+                .employeeInformation(info)
+                .pendingOvertime(false)
+                .pendingLeave(false)
+                .build();
+    }
+
+    private static SalaryInformation salary(User user, int baseSalary, LocalDate from, LocalDate to) {
+        return SalaryInformation.builder()
+                .user(user)
+                .baseSalary(baseSalary)
+                .baseHourlyRate(baseSalary / 176)
+                .effectiveFrom(from)
+                .effectiveTo(to)
+                .status("ACTIVE")
+                .build();
+    }
+
+    private static AttDailySummary day(User user, LocalDate date, DayType dayType, int workHours, int otHour,
+                                       boolean payable) {
+        return AttDailySummary.builder()
+                .user(user)
+                .date(date)
+                .dayType(dayType)
+                .workHours(workHours)
+                .otHour(otHour)
+                .isPayableDay(payable)
+                .isCountPayableDay(workHours > 0)
+                .isDayMeal(workHours >= 4)
+                .isTrialDay(false)
+                .isLateCounted(false)
+                .isEarlyLeaveCounted(false)
+                .isAbsent(false)
+                .build();
+    }
+
+    private static PayComponentType type(int id, String name, boolean insured, String treatment, LegalPolicy policy) {
+        return PayComponentType.builder()
+                .id(id)
+                .name(name)
+                .isInsured(insured)
+                .taxTreatmentCode(treatment)
+                .policy(policy)
+                .build();
+    }
+
+    private static TaxLevel taxLevel(String name, int from, int to, String percentage) {
+        return TaxLevel.builder()
+                .name(name)
+                .fromValue(from)
+                .toValue(to)
+                .percentage(new BigDecimal(percentage))
+                .effectiveFrom(POLICY_FROM)
+                .build();
+    }
+
+    private static InsurancePolicy insurance(int id, String name, String employee, String company, int max) {
+        return InsurancePolicy.builder()
+                .id(id)
+                .name(name)
+                .employeePercentage(new BigDecimal(employee))
+                .companyPercentage(new BigDecimal(company))
+                .maxAmount(max)
+                .effectiveFrom(POLICY_FROM)
+                .build();
+    }
+}
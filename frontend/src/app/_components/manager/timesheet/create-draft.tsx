@@ -177,6 +177,16 @@ interface CreateDraftResponse {
   errors: string[];
 }
 
+interface PayrollRunResponse extends CreateDraftResponse {
+  runId: string;
+  status: "RUNNING" | "COMPLETED" | "COMPLETED_WITH_ERRORS" | "FAILED";
+  totalEmployees: number;
+  processed: number;
+  successCount: number;
+}
+
+const RUN_POLL_INTERVAL_MS = 2000;
+
 export async function createDraftQuery(param: CreateDraftParams): Promise<CreateDraftResponse> {
   try {
     const token = sessionStorage.getItem("scpm.auth.token");
@@ -192,15 +202,31 @@ export async function createDraftQuery(param: CreateDraftParams): Promise<Create
       })
     });
 
-    if (response.ok) {
-      const data: CreateDraftResponse = await response.json();
-      return data;
-    } else {
+    if (!response.ok) {
       const errorText = await response.text();
       throw new Error(errorText);
     }
+
+    // Server trả runId ngay, poll tới khi run kết thúc
+    let run: PayrollRunResponse = await response.json();
+    while (run.status === "RUNNING") {
+      await new Promise((resolve) => setTimeout(resolve, RUN_POLL_INTERVAL_MS));
+      const statusResponse = await fetch(
+        `${process.env.NEXT_PUBLIC_SERVER_URL}/api/paysummaries/calculate-monthly/${run.runId}`, {
+        headers: {
+          "Authorization": `Bearer ${token}`,
+        },
+      });
+      if (!statusResponse.ok) {
+        const errorText = await statusResponse.text();
+        throw new Error(errorText);
+      }
+      run = await statusResponse.json();
+    }
+
+    return { message: run.message, errors: run.errors };
   } catch (error) {
     console.error("Error creating draft:", error);
     throw error;
   }
-};
\ No newline at end of file
+};